@@ -0,0 +1,244 @@
+package analysis;
+
+import main.DataAccess;
+import main.IdRegistry;
+import model.Nameable;
+import model.spheregrid.SphereGridLayoutDataObject;
+import script.MonsterFile;
+import script.ScriptCache;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static main.DataReadingManager.*;
+
+/**
+ * Maps move, item, gear ability, key item and monster ids to every place in the data model that refers to them:
+ * monster spoils and AI scripts, treasures, shops and sphere grid nodes.
+ * The index is stored in cache/index/ and only rebuilt when a kernel, monster or sphere grid file or the script tables change.
+ */
+public class CrossReferenceIndex {
+    public static final String INDEX_FILE = IndexStore.INDEX_FOLDER + "xref.bin";
+    private static final int MAGIC = 0x46465852;
+    private static final int FORMAT_VERSION = 2;
+    private static final String[] SOURCE_FOLDERS = { PATH_ORIGINALS_KERNEL, PATH_LOCALIZED_KERNEL, PATH_MONSTER_FOLDER, PATH_ABMAP };
+
+    private final Map<Integer, List<Reference>> referencesById;
+
+    private CrossReferenceIndex(Map<Integer, List<Reference>> referencesById) {
+        this.referencesById = referencesById;
+    }
+
+    public static CrossReferenceIndex get() {
+        if (DataAccess.CROSS_REFERENCES == null) {
+            DataAccess.CROSS_REFERENCES = loadOrBuild();
+        }
+        return DataAccess.CROSS_REFERENCES;
+    }
+
+    private static CrossReferenceIndex loadOrBuild() {
+        List<String> sources = new ArrayList<>();
+        for (String folder : SOURCE_FOLDERS) {
+            sources.addAll(ScriptCorpus.listFiles(folder, ""));
+        }
+        String fingerprint = IndexStore.fingerprint(ScriptCache.getTableVersion(), sources);
+        File file = new File(INDEX_FILE);
+        if (file.exists()) {
+            try {
+                CrossReferenceIndex stored = read(ByteBuffer.wrap(Files.readAllBytes(file.toPath())), fingerprint);
+                if (stored != null) {
+                    return stored;
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to read cross reference index " + file.getPath() + ": " + e);
+            }
+        }
+        CrossReferenceIndex index = build();
+        IndexStore.store(file, index.toBytes(fingerprint));
+        return index;
+    }
+
+    /**
+     * @return the stored index, or null if it was built from other files.
+     */
+    private static CrossReferenceIndex read(ByteBuffer buffer, String fingerprint) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || !fingerprint.equals(IndexStore.readString(buffer))) {
+            return null;
+        }
+        int idCount = buffer.getInt();
+        Map<Integer, List<Reference>> referencesById = new HashMap<>(idCount * 2);
+        for (int i = 0; i < idCount; i++) {
+            int id = buffer.getInt();
+            int count = buffer.getInt();
+            List<Reference> references = new ArrayList<>(count);
+            for (int r = 0; r < count; r++) {
+                references.add(new Reference(id, IndexStore.readString(buffer), IndexStore.readString(buffer)));
+            }
+            referencesById.put(id, Collections.unmodifiableList(references));
+        }
+        return new CrossReferenceIndex(referencesById);
+    }
+
+    private byte[] toBytes(String fingerprint) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            IndexStore.writeString(out, fingerprint);
+            out.writeInt(referencesById.size());
+            for (Map.Entry<Integer, List<Reference>> entry : referencesById.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (Reference reference : entry.getValue()) {
+                    IndexStore.writeString(out, reference.source);
+                    IndexStore.writeString(out, reference.detail);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static CrossReferenceIndex build() {
+        Stream<Reference> monsters = Arrays.stream(DataAccess.MONSTERS.ids())
+                .parallel()
+                .mapToObj(id -> monsterReferences(DataAccess.getMonster(id), id))
+                .flatMap(List::stream);
+        Stream<Reference> others = Stream.<Supplier<List<Reference>>>of(
+                () -> collect(DataAccess.TREASURES, "Treasure", (o, r) -> o.collectReferences(r)),
+                () -> collect(DataAccess.ITEM_SHOPS, "Item Shop", (o, r) -> o.collectReferences(r)),
+                () -> collect(DataAccess.GEAR_SHOPS, "Gear Shop", (o, r) -> o.collectReferences(r)),
+                () -> sphereGridReferences(DataAccess.OSG_LAYOUT, "Original Sphere Grid"),
+                () -> sphereGridReferences(DataAccess.SSG_LAYOUT, "Standard Sphere Grid"),
+                () -> sphereGridReferences(DataAccess.ESG_LAYOUT, "Expert Sphere Grid")
+        ).parallel().map(Supplier::get).flatMap(List::stream);
+        Map<Integer, List<Reference>> referencesById = Stream.concat(monsters, others)
+                .parallel()
+                .collect(Collectors.groupingByConcurrent(r -> r.id));
+        referencesById.replaceAll((id, list) -> {
+            List<Reference> sorted = new ArrayList<>(list);
+            sorted.sort(null);
+            return Collections.unmodifiableList(sorted);
+        });
+        return new CrossReferenceIndex(referencesById);
+    }
+
+    public List<Reference> getReferences(int id) {
+        return referencesById.getOrDefault(id, List.of());
+    }
+
+    public int getIdCount() {
+        return referencesById.size();
+    }
+
+    public String referencesString(int id) {
+        List<String> lines = new ArrayList<>();
+        Nameable object = idToObject(id);
+        lines.add((object != null ? object.getName() : "Unknown") + " [" + String.format("%04X", id) + "h]: " + getReferences(id).size() + " references");
+        getReferences(id).forEach(r -> lines.add("  " + r));
+        return String.join("\n", lines);
+    }
+
+    private static Nameable idToObject(int id) {
+        try {
+            return DataAccess.getById(id);
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static List<Reference> monsterReferences(MonsterFile monster, int monsterIdx) {
+        String source = "Monster " + monster.getName() + " [" + String.format("%04X", monsterIdx) + "h]";
+        List<Reference> references = new ArrayList<>();
+        if (monster.monsterSpoilsData != null) {
+            monster.monsterSpoilsData.collectReferences((id, detail) -> references.add(new Reference(id, source, detail)));
+        }
+        if (monster.monsterAi != null) {
+            if (monster.monsterAi.references == null) {
+                monster.parseScript();
+            }
+            if (monster.monsterAi.references != null) {
+                monster.monsterAi.references.stream()
+                        .collect(Collectors.toMap(r -> r.getIndex() + ":" + r.line, r -> r, (a, b) -> a))
+                        .values()
+                        .forEach(r -> references.add(new Reference(r.getIndex(), source, "AI line " + r.line)));
+            }
+        }
+        return references;
+    }
+
+    private static <T> List<Reference> collect(T[] objects, String kind, BiConsumer<T, BiConsumer<Integer, String>> collector) {
+        List<Reference> references = new ArrayList<>();
+        if (objects == null) {
+            return references;
+        }
+        for (int i = 0; i < objects.length; i++) {
+            if (objects[i] != null) {
+                String source = kind + " #" + i;
+                collector.accept(objects[i], (id, detail) -> references.add(new Reference(id, source, detail)));
+            }
+        }
+        return references;
+    }
+
+    private static <T> List<Reference> collect(IdRegistry<T> objects, String kind, BiConsumer<T, BiConsumer<Integer, String>> collector) {
+        List<Reference> references = new ArrayList<>();
+        if (!objects.isLoaded()) {
+            return references;
+        }
+        objects.forEach((object, id) -> {
+            String source = kind + " #" + id;
+            collector.accept(object, (ref, detail) -> references.add(new Reference(ref, source, detail)));
+        });
+        return references;
+    }
+
+    private static List<Reference> sphereGridReferences(SphereGridLayoutDataObject layout, String source) {
+        List<Reference> references = new ArrayList<>();
+        if (layout == null || layout.getNodes() == null) {
+            return references;
+        }
+        for (int i = 0; i < layout.getNodes().length; i++) {
+            int move = SphereGridLayoutDataObject.nodeContentToMove(layout.getNodes()[i].getContent());
+            if (move >= 0) {
+                references.add(new Reference(move, source, "Node N#" + i));
+            }
+        }
+        return references;
+    }
+
+    public static class Reference implements Comparable<Reference> {
+        public final int id;
+        public final String source;
+        public final String detail;
+
+        public Reference(int id, String source, String detail) {
+            this.id = id;
+            this.source = source;
+            this.detail = detail;
+        }
+
+        @Override
+        public int compareTo(Reference other) {
+            int bySource = source.compareTo(other.source);
+            return bySource != 0 ? bySource : detail.compareTo(other.detail);
+        }
+
+        @Override
+        public String toString() {
+            return source + ": " + detail;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package analysis;
+
+import script.ScriptCodeWalker;
+import script.ScriptObject;
+import script.model.ScriptConstants;
+import script.model.ScriptField;
+import script.model.ScriptFunc;
+import script.model.ScriptFuncLib;
+import script.model.ScriptVariable;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Profiles the arguments passed at every call site of script functions whose name or parameter types are not known yet:
+ * which constants are passed (most frequent values and range) and what kind of value each parameter gets.
+ * The stack is simulated directly on the script code by {@link ScriptCodeWalker}, without the typing pass of a full parse.
+ */
+public class FuncArgumentProfile {
+    private static final int REPORTED_VALUES = 8;
+
+    private final IntPredicate target;
+    public final Map<Integer, FuncProfile> funcs = new TreeMap<>();
+    public int files;
+
+    public FuncArgumentProfile(IntPredicate target) {
+        this.target = target;
+    }
+
+    /**
+     * @param funcs the function indices to profile, or null/empty for all functions with missing names or parameter types.
+     */
+    public static FuncArgumentProfile ofCorpus(Collection<Integer> funcs) {
+        IntPredicate target = funcs == null || funcs.isEmpty() ? FuncArgumentProfile::isIncompletelyKnown : funcs::contains;
+        return ScriptCorpus.collect(() -> new FuncArgumentProfile(target), (profile, entry, script) -> profile.add(script), FuncArgumentProfile::merge);
+    }
+
+    public static boolean isIncompletelyKnown(int idx) {
+        ScriptFunc func = ScriptFuncLib.get(idx, null);
+        if (func == null || func.name == null || func.name.isEmpty()) {
+            return true;
+        }
+        return func.inputs != null && func.inputs.stream().anyMatch(input -> "unknown".equals(input.type));
+    }
+
+    public void add(ScriptObject script) {
+        int[] refInts = script.getRefInts();
+        int[] refFloats = script.getRefFloats();
+        ScriptVariable[] variables = script.getVariableDeclarations();
+        ScriptCodeWalker.walkStack(script.getScriptCodeBytes(), Arg.UNKNOWN, Arg[]::new, (offset, opcode, argv, func, operands, depth) -> {
+            boolean call = opcode == ScriptConstants.OPCODE_CALL || opcode == ScriptConstants.OPCODE_CALLPOPA;
+            if (call && target.test(argv)) {
+                funcs.computeIfAbsent(argv, FuncProfile::new).add(operands, depth);
+            }
+            return pushedBy(opcode, argv, func, refInts, refFloats, variables);
+        });
+        files++;
+    }
+
+    private static Arg pushedBy(int opcode, int argv, ScriptFunc func, int[] refInts, int[] refFloats, ScriptVariable[] variables) {
+        if (opcode >= 0x01 && opcode <= 0x1C && opcode != 0x1B) {
+            return new Arg("expression");
+        } else if (opcode == 0x26) { // PUSHA / GET_RETURN_VALUE
+            return new Arg("LastCallResult");
+        } else if (opcode == 0x28 || opcode == 0x29) { // PUSHX / PUSHY
+            return new Arg(opcode == 0x28 ? "rX" : "case");
+        } else if ((opcode >= 0x36 && opcode <= 0x39) || opcode == 0x46) { // REQ..PREQ, TREQ
+            return new Arg("expression");
+        } else if (opcode >= 0x67 && opcode <= 0x6A) { // PUSHI0..3 / GET_INT
+            return new Arg("tempI");
+        } else if (opcode >= 0x6B && opcode <= 0x74) { // PUSHF0..9 / GET_FLOAT
+            return new Arg("tempF");
+        } else if (opcode == 0x9F || opcode == 0xA2) { // PUSHV / PUSHAR
+            String type = variables != null && argv < variables.length ? variables[argv].getType() : "unknown";
+            return new Arg("var:" + type);
+        } else if (opcode == 0xA7) { // PUSHARP / GET_DATUM_DESC
+            return new Arg("var descriptor");
+        } else if (opcode == 0xAD) { // PUSHI / CONST_INT
+            return refInts != null && argv < refInts.length ? Arg.constant("uint32", refInts[argv] & 0xFFFFFFFFL) : Arg.UNKNOWN;
+        } else if (opcode == 0xAE) { // PUSHII / IMM
+            return Arg.constant("int16", (short) argv);
+        } else if (opcode == 0xAF) { // PUSHF / CONST_FLOAT
+            return refFloats != null && argv < refFloats.length ? Arg.constant("float", refFloats[argv]) : Arg.UNKNOWN;
+        } else if (opcode == ScriptConstants.OPCODE_CALL) {
+            return new Arg("result:" + (func != null ? func.getType(null) : "unknown"));
+        }
+        return null;
+    }
+
+    public void merge(FuncArgumentProfile other) {
+        files += other.files;
+        other.funcs.forEach((idx, profile) -> {
+            FuncProfile own = funcs.get(idx);
+            if (own == null) {
+                funcs.put(idx, profile);
+            } else {
+                own.merge(profile);
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        List<String> lines = new ArrayList<>();
+        lines.add(funcs.size() + " functions profiled over " + files + " scripts");
+        funcs.values().forEach(profile -> lines.add(profile.toString()));
+        return String.join("\n", lines);
+    }
+
+    private static class Arg {
+        static final Arg UNKNOWN = new Arg("unknown");
+
+        final String kind;
+        final boolean constant;
+        final long value;
+
+        Arg(String kind) {
+            this(kind, false, 0);
+        }
+
+        private Arg(String kind, boolean constant, long value) {
+            this.kind = kind;
+            this.constant = constant;
+            this.value = value;
+        }
+
+        static Arg constant(String kind, long value) {
+            return new Arg(kind, true, value);
+        }
+
+        String valueString() {
+            if ("float".equals(kind)) {
+                return Float.intBitsToFloat((int) value) + "f";
+            }
+            return value + (value > 9 || value < -9 ? " [" + String.format("%X", value) + "h]" : "");
+        }
+    }
+
+    public static class FuncProfile {
+        public final int idx;
+        public long calls;
+        public final ValueSketch stackDepths = new ValueSketch();
+        public final List<ParamProfile> params = new ArrayList<>();
+
+        FuncProfile(int idx) {
+            this.idx = idx;
+        }
+
+        void add(Arg[] operands, int leftOnStack) {
+            calls++;
+            stackDepths.add(String.valueOf(leftOnStack), 1);
+            for (int i = 0; i < operands.length; i++) {
+                if (params.size() <= i) {
+                    params.add(new ParamProfile());
+                }
+                params.get(i).add(operands[i]);
+            }
+        }
+
+        void merge(FuncProfile other) {
+            calls += other.calls;
+            stackDepths.merge(other.stackDepths);
+            for (int i = 0; i < other.params.size(); i++) {
+                if (params.size() <= i) {
+                    params.add(other.params.get(i));
+                } else {
+                    params.get(i).merge(other.params.get(i));
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            ScriptFunc func = ScriptFuncLib.get(idx, null);
+            List<String> lines = new ArrayList<>();
+            lines.add(String.format("%04X", idx) + " " + (func != null ? func : ScriptConstants.FUNCSPACES[idx >> 12] + ".unknown") + ": " + calls + " calls");
+            if (func == null) {
+                // Without a known parameter count nothing gets popped, so what is left on the stack hints at the arity
+                lines.add("  values left on stack: " + stackDepths);
+            }
+            for (int i = 0; i < params.size(); i++) {
+                ScriptField input = func.inputs.get(i);
+                String label = (input.name != null ? input.name : "p" + (i + 1)) + ":" + input.type;
+                lines.add("  " + label + " " + params.get(i));
+            }
+            return String.join("\n", lines);
+        }
+    }
+
+    public static class ParamProfile {
+        public long constants;
+        public long min = Long.MAX_VALUE;
+        public long max = Long.MIN_VALUE;
+        public final ValueSketch values = new ValueSketch();
+        public final Map<String, Long> kinds = new TreeMap<>();
+
+        void add(Arg arg) {
+            kinds.merge(arg.kind, 1L, Long::sum);
+            if (arg.constant) {
+                constants++;
+                values.add(arg.valueString(), 1);
+                if (!"float".equals(arg.kind)) {
+                    min = Math.min(min, arg.value);
+                    max = Math.max(max, arg.value);
+                }
+            }
+        }
+
+        void merge(ParamProfile other) {
+            constants += other.constants;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            values.merge(other.values);
+            other.kinds.forEach((kind, count) -> kinds.merge(kind, count, Long::sum));
+        }
+
+        @Override
+        public String toString() {
+            List<String> parts = new ArrayList<>();
+            kinds.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
+                    .forEach(e -> parts.add(e.getKey() + " x" + e.getValue()));
+            String str = "kinds={ " + String.join(", ", parts) + " }";
+            if (constants > 0) {
+                if (min <= max) {
+                    str += " range=[" + min + ".." + max + "]";
+                }
+                str += " values={ " + values + " }";
+            }
+            return str;
+        }
+    }
+
+    /**
+     * Space-Saving sketch of the most frequent values: keeps a bounded number of counters and, when full,
+     * replaces the smallest one (inheriting its count as possible overestimation). Counts that may be overestimated are marked with ~.
+     */
+    public static class ValueSketch {
+        private static final int CAPACITY = 64;
+
+        private final Map<String, long[]> counters = new HashMap<>();
+
+        public void add(String value, long count) {
+            add(value, count, 0);
+        }
+
+        private void add(String value, long count, long error) {
+            long[] counter = counters.get(value);
+            if (counter != null) {
+                counter[0] += count;
+                counter[1] += error;
+                return;
+            }
+            if (counters.size() < CAPACITY) {
+                counters.put(value, new long[] { count, error });
+                return;
+            }
+            Map.Entry<String, long[]> smallest = Collections.min(counters.entrySet(), Comparator.comparingLong(e -> e.getValue()[0]));
+            counters.remove(smallest.getKey());
+            long replaced = smallest.getValue()[0];
+            counters.put(value, new long[] { replaced + count, replaced + error });
+        }
+
+        public void merge(ValueSketch other) {
+            other.counters.forEach((value, counter) -> add(value, counter[0], counter[1]));
+        }
+
+        @Override
+        public String toString() {
+            List<String> parts = new ArrayList<>();
+            counters.entrySet().stream()
+                    .sorted((a, b) -> a.getValue()[0] != b.getValue()[0] ? Long.compare(b.getValue()[0], a.getValue()[0]) : a.getKey().compareTo(b.getKey()))
+                    .limit(REPORTED_VALUES)
+                    .forEach(e -> parts.add(e.getKey() + " x" + (e.getValue()[1] > 0 ? "~" : "") + e.getValue()[0]));
+            if (counters.size() > REPORTED_VALUES) {
+                parts.add("...");
+            }
+            return String.join(", ", parts);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package analysis;
+
+import main.DataAccess;
+import model.GearAbilityDataObject;
+import model.MonsterSpoilsDataObject;
+import script.MonsterFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static analysis.SpoilsCalculator.*;
+
+/**
+ * Samples random gear drops of a monster with the same generation model as {@link SpoilsCalculator}
+ * and counts slots, ability counts and abilities per weapon/armor.
+ */
+public class GearDropSimulator {
+    private static final int BATCHES_PER_THREAD = 4;
+    private static final int MAX_SLOTS = 4;
+
+    private final MonsterFile monster;
+    private final MonsterSpoilsDataObject spoils;
+
+    public GearDropSimulator(MonsterFile monster) {
+        this.monster = monster;
+        this.spoils = monster.monsterSpoilsData;
+    }
+
+    public boolean dropsGear() {
+        return spoils != null && spoils.dropChanceGear > 0;
+    }
+
+    public Result simulate(int drops, long seed) {
+        int batchCount = Math.max(1, Math.min(drops, Runtime.getRuntime().availableProcessors() * BATCHES_PER_THREAD));
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] rngs = new SplittableRandom[batchCount];
+        for (int i = 0; i < batchCount; i++) {
+            rngs[i] = root.split();
+        }
+        return IntStream.range(0, batchCount)
+                .parallel()
+                .mapToObj(i -> run(rngs[i], drops / batchCount + (i < drops % batchCount ? 1 : 0)))
+                .reduce(new Result(), Result::merge);
+    }
+
+    private Result run(SplittableRandom rng, int drops) {
+        Result result = new Result();
+        int[] picked = new int[MAX_SLOTS];
+        for (int d = 0; d < drops; d++) {
+            int character = rng.nextInt(CHARACTER_COUNT);
+            int kind = rng.nextInt(2);
+            int[] abilities = kind == 1 ? spoils.gearAbilitiesOnArmorsByChar[character] : spoils.gearAbilitiesOnWeaponsByChar[character];
+            int slots = getSlotCount(spoils.gearSlotCountByte, rng.nextInt(RANDOM_ROLL_RANGE));
+            int rolls = getAbilityRollCount(spoils.gearAbilityCountByte, rng.nextInt(RANDOM_ROLL_RANGE));
+            int count = 0;
+            if (isGearAbility(abilities[0])) {
+                picked[count++] = abilities[0];
+            }
+            int effectiveRolls = Math.min(rolls, slots - count);
+            for (int r = 0; r < effectiveRolls; r++) {
+                int ability = abilities[1 + rng.nextInt(abilities.length - 1)];
+                if (isGearAbility(ability) && !contains(picked, count, ability)) {
+                    picked[count++] = ability;
+                }
+            }
+            result.slotCounts[slots]++;
+            result.abilityCounts[count]++;
+            for (int i = 0; i < count; i++) {
+                result.abilities[kind * TABLE_WIDTH + (picked[i] & 0xFF)]++;
+            }
+            result.kinds[kind]++;
+        }
+        result.drops = drops;
+        return result;
+    }
+
+    private static boolean contains(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public class Result {
+        public int drops;
+        public final int[] slotCounts = new int[MAX_SLOTS + 1];
+        public final int[] abilityCounts = new int[MAX_SLOTS + 1];
+        public final int[] kinds = new int[2];
+        /**
+         * Weapon abilities at [0, 256), armor abilities at [256, 512), indexed by the low byte of the gear ability.
+         */
+        public final int[] abilities = new int[2 * TABLE_WIDTH];
+
+        private Result merge(Result other) {
+            Result merged = new Result();
+            merged.drops = drops + other.drops;
+            for (int i = 0; i <= MAX_SLOTS; i++) {
+                merged.slotCounts[i] = slotCounts[i] + other.slotCounts[i];
+                merged.abilityCounts[i] = abilityCounts[i] + other.abilityCounts[i];
+            }
+            merged.kinds[0] = kinds[0] + other.kinds[0];
+            merged.kinds[1] = kinds[1] + other.kinds[1];
+            for (int i = 0; i < abilities.length; i++) {
+                merged.abilities[i] = abilities[i] + other.abilities[i];
+            }
+            return merged;
+        }
+
+        @Override
+        public String toString() {
+            List<String> lines = new ArrayList<>();
+            lines.add("Simulated " + drops + " gear drops of " + monster.getName());
+            for (int i = 1; i <= MAX_SLOTS; i++) {
+                lines.add(String.format("%7.3f%% %d slot(s)", slotCounts[i] * 100.0 / drops, i));
+            }
+            for (int i = 0; i <= MAX_SLOTS; i++) {
+                lines.add(String.format("%7.3f%% %d abilit%s", abilityCounts[i] * 100.0 / drops, i, i == 1 ? "y" : "ies"));
+            }
+            addAbilityLines(lines, "Weapons", 0);
+            addAbilityLines(lines, "Armors", 1);
+            return String.join("\n", lines);
+        }
+
+        private void addAbilityLines(List<String> lines, String title, int kind) {
+            lines.add(title + " (" + kinds[kind] + "):");
+            int offset = kind * TABLE_WIDTH;
+            IntStream.range(0, TABLE_WIDTH)
+                    .filter(i -> abilities[offset + i] > 0)
+                    .boxed()
+                    .sorted((a, b) -> Integer.compare(abilities[offset + b], abilities[offset + a]))
+                    .forEach(i -> {
+                        GearAbilityDataObject ability = DataAccess.getGearAbility(GEAR_ABILITY_BASE + i);
+                        String name = ability != null ? ability.getName() : "null";
+                        lines.add(String.format("%7.3f%% %s [%04Xh]", abilities[offset + i] * 100.0 / Math.max(1, kinds[kind]), name, GEAR_ABILITY_BASE + i));
+                    });
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package analysis;
+
+import reading.FileAccessorWithMods;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+
+/**
+ * Helpers for the indices stored under cache/index/: a fingerprint of the files an index is built from,
+ * atomic writes and length-prefixed strings.
+ */
+public abstract class IndexStore {
+    public static final String INDEX_FOLDER = "cache/index/";
+
+    /**
+     * SHA-256 of the salt and the path, real file (with mods applied), length and modification time of every game file.
+     */
+    public static String fingerprint(String salt, Collection<String> paths) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt.getBytes(StandardCharsets.UTF_8));
+            for (String path : paths) {
+                File file = FileAccessorWithMods.getRealFile(path);
+                digest.update((path + ':' + file.getPath() + ':' + file.length() + ':' + file.lastModified() + '\n').getBytes(StandardCharsets.UTF_8));
+            }
+            return new BigInteger(1, digest.digest()).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void store(File file, byte[] bytes) {
+        File folder = file.getParentFile();
+        if (!folder.exists() && !folder.mkdirs()) {
+            return;
+        }
+        File temp = null;
+        try {
+            temp = File.createTempFile(file.getName(), ".tmp", folder);
+            Files.write(temp.toPath(), bytes);
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write index " + file.getPath() + ": " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp.toPath());
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    public static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
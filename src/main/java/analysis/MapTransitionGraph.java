@@ -0,0 +1,314 @@
+package analysis;
+
+import main.DataAccess;
+import main.GraphHelper;
+import script.model.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Directed graph of the maps connected by the transitionToMap?/warpToMap? calls with constant arguments in event scripts.
+ * An event belongs to the map of the field its name starts with (bjyt0400 to bjyt04), transitions lead to the map id passed.
+ * The calls are the parse records of ScriptCorpus.parse, shared with the other analyses over the corpus.
+ * Transitions are kept per event file and only files that changed since the last {@link #refresh} are parsed again;
+ * after that the adjacency, strongly connected components and reachability between components are rebuilt,
+ * so {@link #canReach} is a lookup.
+ */
+public class MapTransitionGraph {
+    private static final String MAP_TYPE = "map";
+
+    private final Map<String, EventTransitions> eventsByPath = new HashMap<>();
+    private Map<String, Integer> fieldIdsByName;
+    private List<Transition> transitions = List.of();
+    private int unresolvedTransitions;
+    private int[] mapIds = new int[0];
+    private int[] adjacencyStart = new int[1];
+    private int[] adjacency = new int[0];
+    private Transition[] adjacencyTransitions = new Transition[0];
+    private int[] components = new int[0];
+    private int componentCount;
+    private BitSet[] componentReach = new BitSet[0];
+
+    public static MapTransitionGraph get() {
+        if (DataAccess.MAP_TRANSITIONS == null) {
+            MapTransitionGraph graph = new MapTransitionGraph();
+            graph.refresh();
+            DataAccess.MAP_TRANSITIONS = graph;
+        }
+        return DataAccess.MAP_TRANSITIONS;
+    }
+
+    /**
+     * Scans the event files that are new or changed (by size and modification time), drops removed ones
+     * and rebuilds the graph if anything changed.
+     * @return the number of event files scanned.
+     */
+    public synchronized int refresh() {
+        if (fieldIdsByName == null) {
+            fieldIdsByName = new HashMap<>();
+            ScriptConstants.getEnumMap("field").forEach((id, field) -> fieldIdsByName.put(field.name, id));
+        }
+        List<ScriptCorpus.Entry> events = ScriptCorpus.listScripts().stream().filter(e -> e.kind == ScriptCorpus.Kind.EVENT).collect(Collectors.toList());
+        Set<String> paths = events.stream().map(e -> e.path).collect(Collectors.toSet());
+        boolean removed = eventsByPath.keySet().retainAll(paths);
+        List<EventTransitions> scanned = events.parallelStream()
+                .filter(e -> {
+                    EventTransitions known = eventsByPath.get(e.path);
+                    return known == null || known.stamp != ScriptCorpus.stampOf(e.path);
+                })
+                .map(this::scan)
+                .collect(Collectors.toList());
+        scanned.forEach(e -> eventsByPath.put(e.path, e));
+        if (!scanned.isEmpty() || removed) {
+            rebuild();
+        }
+        return scanned.size();
+    }
+
+    private EventTransitions scan(ScriptCorpus.Entry entry) {
+        EventTransitions result = new EventTransitions(entry.path, ScriptCorpus.stampOf(entry.path));
+        String id = entry.getId();
+        Integer fromMap = id.length() >= 6 ? fieldIdsByName.get(id.substring(0, 6)) : null;
+        ScriptCorpus.ParsedScript script = ScriptCorpus.parse(entry);
+        for (ScriptCallSite callSite : script.callSites) {
+            ScriptFunc func = ScriptFuncLib.get(callSite.func, null);
+            if (func == null || func.inputs == null || func.inputs.isEmpty() || callSite.args.length == 0 || !MAP_TYPE.equals(func.inputs.get(0).type)) {
+                continue;
+            }
+            if (callSite.isConstant(0) && fromMap != null) {
+                Integer entrance = callSite.args.length > 1 && callSite.isConstant(1) ? callSite.args[1] : null;
+                result.transitions.add(new Transition(fromMap, callSite.args[0], entrance, id, callSite.func, callSite.offset));
+            } else {
+                result.unresolved++;
+            }
+        }
+        return result;
+    }
+
+    private void rebuild() {
+        List<Transition> all = new ArrayList<>();
+        int unresolved = 0;
+        for (EventTransitions event : eventsByPath.values()) {
+            all.addAll(event.transitions);
+            unresolved += event.unresolved;
+        }
+        all.sort(Comparator.comparingInt((Transition t) -> t.fromMap).thenComparingInt(t -> t.toMap).thenComparing(t -> t.event).thenComparingInt(t -> t.offset));
+        transitions = Collections.unmodifiableList(all);
+        unresolvedTransitions = unresolved;
+        mapIds = all.stream().flatMapToInt(t -> Arrays.stream(new int[] { t.fromMap, t.toMap })).distinct().sorted().toArray();
+        int nodeCount = mapIds.length;
+        adjacencyStart = new int[nodeCount + 1];
+        List<Transition> edges = new ArrayList<>();
+        for (Transition transition : all) {
+            Transition previous = edges.isEmpty() ? null : edges.get(edges.size() - 1);
+            if (previous == null || previous.fromMap != transition.fromMap || previous.toMap != transition.toMap) {
+                edges.add(transition);
+                adjacencyStart[nodeOf(transition.fromMap) + 1]++;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            adjacencyStart[i + 1] += adjacencyStart[i];
+        }
+        adjacency = new int[edges.size()];
+        adjacencyTransitions = new Transition[edges.size()];
+        for (int i = 0; i < edges.size(); i++) {
+            adjacency[i] = nodeOf(edges.get(i).toMap);
+            adjacencyTransitions[i] = edges.get(i);
+        }
+        computeComponents();
+    }
+
+    /**
+     * Components are numbered in reverse topological order, so the reach of each component
+     * can be built from the components it links to, which are already complete.
+     */
+    private void computeComponents() {
+        int nodeCount = mapIds.length;
+        components = GraphHelper.stronglyConnectedComponents(adjacencyStart, adjacency, null);
+        componentCount = Arrays.stream(components).max().orElse(-1) + 1;
+        componentReach = new BitSet[componentCount];
+        for (int component = 0; component < componentCount; component++) {
+            componentReach[component] = new BitSet();
+            componentReach[component].set(component);
+        }
+        Integer[] byComponent = new Integer[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            byComponent[node] = node;
+        }
+        Arrays.sort(byComponent, Comparator.comparingInt(node -> components[node]));
+        for (int node : byComponent) {
+            for (int i = adjacencyStart[node]; i < adjacencyStart[node + 1]; i++) {
+                int target = components[adjacency[i]];
+                if (target != components[node]) {
+                    componentReach[components[node]].or(componentReach[target]);
+                }
+            }
+        }
+    }
+
+    public List<Transition> getTransitions() {
+        return transitions;
+    }
+
+    public int getMapCount() {
+        return mapIds.length;
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * @return whether the target map can be reached from the start map through transitions, including start == target.
+     */
+    public boolean canReach(int fromMap, int toMap) {
+        int from = nodeOf(fromMap);
+        int to = nodeOf(toMap);
+        if (from < 0 || to < 0) {
+            return fromMap == toMap;
+        }
+        return componentReach[components[from]].get(components[to]);
+    }
+
+    /**
+     * @return the maps reachable from the start map, sorted.
+     */
+    public int[] reachableMaps(int fromMap) {
+        int from = nodeOf(fromMap);
+        if (from < 0) {
+            return new int[] { fromMap };
+        }
+        BitSet reach = componentReach[components[from]];
+        return Arrays.stream(mapIds).filter(map -> reach.get(components[nodeOf(map)])).toArray();
+    }
+
+    /**
+     * Breadth-first search for the fewest transitions.
+     * @return one transition per step from start to target, or null if the target cannot be reached.
+     */
+    public List<Transition> shortestPath(int fromMap, int toMap) {
+        int from = nodeOf(fromMap);
+        int to = nodeOf(toMap);
+        if (fromMap == toMap) {
+            return new ArrayList<>();
+        }
+        if (from < 0 || to < 0 || !componentReach[components[from]].get(components[to])) {
+            return null;
+        }
+        int[] previousEdge = new int[mapIds.length];
+        Arrays.fill(previousEdge, -1);
+        int[] queue = new int[mapIds.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        boolean[] seen = new boolean[mapIds.length];
+        seen[from] = true;
+        while (head < tail && !seen[to]) {
+            int node = queue[head++];
+            for (int i = adjacencyStart[node]; i < adjacencyStart[node + 1]; i++) {
+                int next = adjacency[i];
+                if (!seen[next]) {
+                    seen[next] = true;
+                    previousEdge[next] = i;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        LinkedList<Transition> path = new LinkedList<>();
+        for (int node = to; node != from; node = nodeOf(adjacencyTransitions[previousEdge[node]].fromMap)) {
+            path.addFirst(adjacencyTransitions[previousEdge[node]]);
+        }
+        return path;
+    }
+
+    /**
+     * @return the maps of every strongly connected component with more than one map, largest first.
+     */
+    public List<int[]> getCycles() {
+        List<int[]> cycles = new ArrayList<>();
+        for (int c = 0; c < componentCount; c++) {
+            final int component = c;
+            int[] members = Arrays.stream(mapIds).filter(map -> components[nodeOf(map)] == component).toArray();
+            if (members.length > 1) {
+                cycles.add(members);
+            }
+        }
+        cycles.sort((a, b) -> Integer.compare(b.length, a.length));
+        return cycles;
+    }
+
+    public String summaryString() {
+        List<String> lines = new ArrayList<>();
+        lines.add(transitions.size() + " transitions between " + mapIds.length + " maps from " + eventsByPath.size() + " events (" + unresolvedTransitions + " with non-constant or unknown maps skipped)");
+        List<int[]> cycles = getCycles();
+        lines.add(componentCount + " strongly connected components, " + cycles.size() + " of them with more than one map:");
+        cycles.forEach(members -> lines.add("  " + members.length + " maps: " + Arrays.stream(members).mapToObj(MapTransitionGraph::mapLabel).collect(Collectors.joining(", "))));
+        return String.join("\n", lines);
+    }
+
+    public String pathString(int fromMap, int toMap) {
+        List<Transition> path = shortestPath(fromMap, toMap);
+        if (path == null) {
+            return mapLabel(toMap) + " cannot be reached from " + mapLabel(fromMap);
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(mapLabel(fromMap) + " to " + mapLabel(toMap) + " in " + path.size() + " transitions:");
+        path.forEach(t -> lines.add("  " + t));
+        return String.join("\n", lines);
+    }
+
+    /**
+     * @param map a field name like bjyt04 or a hex map id.
+     */
+    public int parseMap(String map) {
+        Integer id = fieldIdsByName.get(map);
+        return id != null ? id : Integer.parseInt(map, 16);
+    }
+
+    public static String mapLabel(int map) {
+        ScriptField field = ScriptConstants.getEnumMap("field").get(map);
+        return (field != null ? field.name : "?") + " [" + String.format("%04X", map) + "h]";
+    }
+
+    private int nodeOf(int map) {
+        int node = Arrays.binarySearch(mapIds, map);
+        return node >= 0 ? node : -1;
+    }
+
+    public static class Transition {
+        public final int fromMap;
+        public final int toMap;
+        public final Integer entrance;
+        public final String event;
+        public final int func;
+        public final int offset;
+
+        Transition(int fromMap, int toMap, Integer entrance, String event, int func, int offset) {
+            this.fromMap = fromMap;
+            this.toMap = toMap;
+            this.entrance = entrance;
+            this.event = event;
+            this.func = func;
+            this.offset = offset;
+        }
+
+        @Override
+        public String toString() {
+            String entranceString = entrance != null ? " entrance " + entrance : "";
+            return mapLabel(fromMap) + " -> " + mapLabel(toMap) + entranceString + " (" + event + " at " + String.format("%04X", offset) + ")";
+        }
+    }
+
+    private static class EventTransitions {
+        final String path;
+        final long stamp;
+        final List<Transition> transitions = new ArrayList<>();
+        int unresolved;
+
+        EventTransitions(String path, long stamp) {
+            this.path = path;
+            this.stamp = stamp;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package analysis;
+
+import model.*;
+import model.spheregrid.SphereGridLayoutDataObject;
+import reading.*;
+import script.EncounterFile;
+import script.EventFile;
+import script.MonsterFile;
+import script.ScriptObject;
+import script.model.ScriptInstruction;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static main.DataReadingManager.*;
+
+/**
+ * Compares every file in the mods overlay with the original it replaces. Both versions are parsed side by side
+ * without touching DataAccess and reported as field changes per record, instruction changes per script
+ * or, for files without a model, changed byte counts. Files are compared in parallel and reported in path order
+ * as soon as they are done.
+ */
+public class ModDiff {
+    private static final int MAX_EDIT_DISTANCE = 2000;
+    private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+    private static final List<Table<?>> TABLES = List.of(
+            new Table<>(PATH_SKILL_TABLE_3, AbilityDataObject::new, 0x3000, true),
+            new Table<>(PATH_SKILL_TABLE_4, AbilityDataObject::new, 0x4000, true),
+            new Table<>(PATH_SKILL_TABLE_6, AbilityDataObject::new, 0x6000, true),
+            new Table<>(PATH_SKILL_TABLE_2, AbilityDataObject::new, 0x2000, true),
+            new Table<>(PATH_LOCALIZED_KERNEL + "a_ability.bin", GearAbilityDataObject::new, 0x8000, true),
+            new Table<>(PATH_LOCALIZED_KERNEL + "important.bin", KeyItemDataObject::new, 0xA000, true),
+            new Table<>(PATH_ORIGINALS_KERNEL + "shop_arms.bin", GearDataObject::new, 0, false),
+            new Table<>(PATH_ORIGINALS_KERNEL + "buki_get.bin", GearDataObject::new, 0, false),
+            new Table<>(PATH_ORIGINALS_KERNEL + "arms_shop.bin", GearShopDataObject::new, 0, false),
+            new Table<>(PATH_ORIGINALS_KERNEL + "item_shop.bin", ItemShopDataObject::new, 0, false),
+            new Table<>(PATH_ORIGINALS_KERNEL + "takara.bin", TreasureDataObject::new, 0, false)
+    );
+    private static final List<String> SPHERE_GRID_LAYOUTS = List.of(PATH_ABMAP + "dat01.dat", PATH_ABMAP + "dat02.dat", PATH_ABMAP + "dat03.dat");
+    private static final List<String> SPHERE_GRID_CONTENTS = List.of(PATH_ABMAP + "dat09.dat", PATH_ABMAP + "dat10.dat", PATH_ABMAP + "dat11.dat");
+
+    /**
+     * Prints the differences of all modded files whose path starts with one of the prefixes (all files if there are none).
+     * @return the number of modded files that differ from their original.
+     */
+    public static int printDiffs(List<String> prefixes) {
+        long start = System.nanoTime();
+        List<String> paths = listModdedFiles().stream()
+                .filter(path -> prefixes.isEmpty() || prefixes.stream().anyMatch(path::startsWith))
+                .collect(Collectors.toList());
+        int[] changed = new int[1];
+        paths.parallelStream()
+                .map(ModDiff::diffFile)
+                .forEachOrdered(lines -> {
+                    if (lines.size() > 1) {
+                        changed[0]++;
+                        lines.forEach(System.out::println);
+                    }
+                });
+        System.out.println("Compared " + paths.size() + " modded files, " + changed[0] + " differ, in " + (System.nanoTime() - start) / 1000000 + "ms");
+        return changed[0];
+    }
+
+    /**
+     * @return paths relative to the game files root, sorted.
+     */
+    public static List<String> listModdedFiles() {
+        Path root = FileAccessorWithMods.getModdedFile("").toPath();
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (Stream<Path> walk = Files.walk(root)) {
+            return walk.filter(Files::isRegularFile)
+                    .map(p -> root.relativize(p).toString().replace(File.separatorChar, '/'))
+                    .filter(p -> !p.startsWith(".") && !p.contains("/."))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            System.err.println("Failed to list modded files: " + e.getLocalizedMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * @return a header line followed by one line per difference; only the header if the files are equivalent.
+     */
+    public static List<String> diffFile(String path) {
+        List<String> lines = new ArrayList<>();
+        lines.add("--- " + path + " ---");
+        File original = FileAccessorWithMods.getRealFile(path);
+        File modded = FileAccessorWithMods.getModdedFile(path);
+        if (!original.isFile()) {
+            lines.add("Added file (" + modded.length() + " bytes)");
+            return lines;
+        }
+        try {
+            for (Table<?> table : TABLES) {
+                if (table.path.equals(path)) {
+                    diffTable(table, original, modded, lines);
+                    return lines;
+                }
+            }
+            if (path.startsWith(PATH_LOCALIZED_KERNEL + "monster") && path.endsWith(".bin")) {
+                Table<MonsterStatDataObject> table = new Table<>(path, (b, sb) -> {
+                    MonsterStatDataObject statDataObject = new MonsterStatDataObject(b, sb);
+                    statDataObject.isLocalizationData = true;
+                    return statDataObject;
+                }, 0, false);
+                diffTable(table, original, modded, lines);
+            } else if (path.startsWith(PATH_MONSTER_FOLDER)) {
+                MonsterFile[] pair = readPair(original, modded, f -> new MonsterFile(ChunkedFileHelper.readGenericChunkedFile(f, null, true)));
+                diffFields("Stats", pair[0].monsterStatData, pair[1].monsterStatData, lines);
+                diffFields("Spoils", pair[0].monsterSpoilsData, pair[1].monsterSpoilsData, lines);
+                diffFields("Text", pair[0].englishTextStatData, pair[1].englishTextStatData, lines);
+                diffScripts(pair[0].monsterAi, pair[1].monsterAi, lines);
+            } else if (path.startsWith(PATH_ORIGINALS_ENCOUNTER)) {
+                List<Integer> knownLengths = Arrays.asList(null, null, FormationDataObject.LENGTH);
+                EncounterFile[] pair = readPair(original, modded, f -> new EncounterFile(ChunkedFileHelper.readGenericChunkedFile(f, knownLengths, true)));
+                diffFields("Formation", pair[0].formation, pair[1].formation, lines);
+                diffScripts(pair[0].encounterScript, pair[1].encounterScript, lines);
+            } else if (path.startsWith(PATH_ORIGINALS_EVENT)) {
+                EventFile[] pair = readPair(original, modded, f -> new EventFile(ChunkedFileHelper.readGenericChunkedFile(f, null, false)));
+                diffScripts(pair[0].eventScript, pair[1].eventScript, lines);
+            } else if (SPHERE_GRID_LAYOUTS.contains(path)) {
+                SphereGridLayoutDataObject[] pair = readPair(original, modded, f -> new SphereGridLayoutDataObject(ChunkedFileHelper.fileToCursor(f)));
+                diffArrays("C#", pair[0].getClusters(), pair[1].getClusters(), lines);
+                diffArrays("N#", pair[0].getNodes(), pair[1].getNodes(), lines);
+                diffArrays("L#", pair[0].getLinks(), pair[1].getLinks(), lines);
+            } else if (SPHERE_GRID_CONTENTS.contains(path)) {
+                diffNodeContents(original, modded, lines);
+            } else {
+                diffBytes(original, modded, lines);
+            }
+        } catch (RuntimeException e) {
+            lines.add("Could not compare: " + e);
+            diffBytes(original, modded, lines);
+        }
+        return lines;
+    }
+
+    private static <T> void diffTable(Table<T> table, File original, File modded, List<String> lines) {
+        DataFileReader<T> reader = new DataFileReader<>(table.creator);
+        @SuppressWarnings("unchecked")
+        DataFile<T>[] pair = readPair(original, modded, f -> reader.readDataFile(f, false));
+        List<T> before = pair[0].objects;
+        List<T> after = pair[1].objects;
+        int minIndex = pair[1].getMinIndex();
+        for (int i = 0; i < Math.max(before.size(), after.size()); i++) {
+            T object = i < after.size() ? after.get(i) : before.get(i);
+            String label = String.format("[%04Xh]", table.idBase + minIndex + i);
+            if (table.named && object instanceof Nameable) {
+                label += " " + ((Nameable) object).getName();
+            }
+            if (i >= before.size()) {
+                lines.add(label + ": added");
+            } else if (i >= after.size()) {
+                lines.add(label + ": removed");
+            } else {
+                diffFields(label, before.get(i), after.get(i), lines);
+            }
+        }
+    }
+
+    private static void diffArrays(String prefix, Object[] before, Object[] after, List<String> lines) {
+        for (int i = 0; i < Math.max(before.length, after.length); i++) {
+            if (i >= before.length) {
+                lines.add(prefix + i + ": added");
+            } else if (i >= after.length) {
+                lines.add(prefix + i + ": removed");
+            } else {
+                diffFields(prefix + i, before[i], after[i], lines);
+            }
+        }
+    }
+
+    private static void diffNodeContents(File original, File modded, List<String> lines) {
+        int[][] pair = readPair(original, modded, ChunkedFileHelper::fileToBytes);
+        for (int i = 0x8; i < Math.max(pair[0].length, pair[1].length); i++) {
+            int before = i < pair[0].length ? pair[0][i] : -1;
+            int after = i < pair[1].length ? pair[1][i] : -1;
+            if (before != after) {
+                lines.add("N#" + (i - 0x8) + ": " + (before >= 0 ? SphereGridLayoutDataObject.byteToNodeContent(before) : "none") + " -> " + (after >= 0 ? SphereGridLayoutDataObject.byteToNodeContent(after) : "none"));
+            }
+        }
+    }
+
+    private static void diffBytes(File original, File modded, List<String> lines) {
+        int[][] pair = readPair(original, modded, ChunkedFileHelper::fileToBytes);
+        int differing = Math.abs(pair[0].length - pair[1].length);
+        int first = -1;
+        for (int i = 0; i < Math.min(pair[0].length, pair[1].length); i++) {
+            if (pair[0][i] != pair[1][i]) {
+                differing++;
+                if (first < 0) {
+                    first = i;
+                }
+            }
+        }
+        if (differing > 0) {
+            lines.add(differing + " byte(s) differ" + (first >= 0 ? String.format(", first at %04Xh", first) : "") + (pair[0].length != pair[1].length ? ", length " + pair[0].length + " -> " + pair[1].length : ""));
+        }
+    }
+
+    /**
+     * Adds a line for every primitive, String or int array field that differs. Raw byte arrays are skipped, their content shows up in the mapped fields.
+     */
+    public static void diffFields(String label, Object before, Object after, List<String> lines) {
+        if (before == null || after == null) {
+            if (before != after) {
+                lines.add(label + ": " + (before == null ? "added" : "removed"));
+            }
+            return;
+        }
+        List<String> changes = new ArrayList<>();
+        try {
+            for (Field field : fieldsOf(before.getClass())) {
+                Object a = field.get(before);
+                Object b = field.get(after);
+                if (!Objects.deepEquals(a, b)) {
+                    changes.add(field.getName() + " " + format(a) + " -> " + format(b));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            changes.add("inaccessible (" + e.getLocalizedMessage() + ")");
+        }
+        if (!changes.isEmpty()) {
+            lines.add(label + ": " + String.join(", ", changes));
+        }
+    }
+
+    private static Field[] fieldsOf(Class<?> type) {
+        return FIELDS.computeIfAbsent(type, t -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = t; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    Class<?> fieldType = field.getType();
+                    boolean comparable = fieldType.isPrimitive() || fieldType == String.class || fieldType == Integer.class || fieldType == int[].class || fieldType == int[][].class;
+                    boolean rawBytes = fieldType == int[].class && field.getName().toLowerCase().endsWith("bytes");
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic() && comparable && !rawBytes) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        });
+    }
+
+    private static String format(Object value) {
+        if (value instanceof int[]) {
+            return Arrays.toString((int[]) value);
+        } else if (value instanceof int[][]) {
+            return Arrays.deepToString((int[][]) value);
+        } else if (value instanceof Integer && (Integer) value >= 0x100) {
+            return String.format("%d [%04Xh]", (Integer) value, (Integer) value);
+        } else if (value instanceof String) {
+            return '"' + (String) value + '"';
+        }
+        return String.valueOf(value);
+    }
+
+    private static void diffScripts(ScriptObject before, ScriptObject after, List<String> lines) {
+        if (before == null || after == null) {
+            if (before != after) {
+                lines.add("Script " + (before == null ? "added" : "removed"));
+            }
+            return;
+        }
+        List<ScriptInstruction> a = before.getInstructions();
+        List<ScriptInstruction> b = after.getInstructions();
+        String[] asmA = a.stream().map(ModDiff::asm).toArray(String[]::new);
+        String[] asmB = b.stream().map(ModDiff::asm).toArray(String[]::new);
+        for (int[] edit : diffSequences(asmA, asmB)) {
+            if (edit[0] < 0) {
+                lines.add(String.format("- %04X %s", a.get(edit[1]).offset, asmA[edit[1]]));
+            } else {
+                lines.add(String.format("+ %04X %s", b.get(edit[1]).offset, asmB[edit[1]]));
+            }
+        }
+    }
+
+    private static String asm(ScriptInstruction ins) {
+        return ins.hasArgs ? ins.getOpcodeLabel() + ' ' + ins.getArgLabel() : ins.getOpcodeLabel();
+    }
+
+    /**
+     * Shortest edit script between two sequences (Myers' O(ND) algorithm) after trimming their common ends.
+     * If they differ in more than MAX_EDIT_DISTANCE elements the whole middle part is reported as replaced.
+     * @return the edits in order as {-1, index in a} for removals and {1, index in b} for insertions.
+     */
+    static List<int[]> diffSequences(String[] a, String[] b) {
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix].equals(b[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix && a[a.length - 1 - suffix].equals(b[b.length - 1 - suffix])) {
+            suffix++;
+        }
+        int n = a.length - prefix - suffix;
+        int m = b.length - prefix - suffix;
+        int max = Math.min(n + m, MAX_EDIT_DISTANCE);
+        int center = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+        int distance = -1;
+        for (int d = 0; d <= max && distance < 0; d++) {
+            trace.add(Arrays.copyOfRange(v, center - d - 1, center + d + 2));
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[center + k - 1] < v[center + k + 1]) ? v[center + k + 1] : v[center + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[prefix + x].equals(b[prefix + y])) {
+                    x++;
+                    y++;
+                }
+                v[center + k] = x;
+                if (x >= n && y >= m) {
+                    distance = d;
+                    break;
+                }
+            }
+        }
+        List<int[]> edits = new ArrayList<>();
+        if (distance < 0) {
+            for (int i = 0; i < n; i++) {
+                edits.add(new int[] { -1, prefix + i });
+            }
+            for (int i = 0; i < m; i++) {
+                edits.add(new int[] { 1, prefix + i });
+            }
+            return edits;
+        }
+        int x = n;
+        int y = m;
+        for (int d = distance; d > 0; d--) {
+            int[] previous = trace.get(d);
+            int k = x - y;
+            boolean down = k == -d || (k != d && previous[k - 1 + d + 1] < previous[k + 1 + d + 1]);
+            int previousK = down ? k + 1 : k - 1;
+            int previousX = previous[previousK + d + 1];
+            int previousY = previousX - previousK;
+            x = previousX;
+            y = previousY;
+            edits.add(down ? new int[] { 1, prefix + y } : new int[] { -1, prefix + x });
+        }
+        Collections.reverse(edits);
+        return edits;
+    }
+
+    /**
+     * Parses the original and the modded file at the same time.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] readPair(File original, File modded, Function<File, T> parser) {
+        List<T> parsed = Stream.of(original, modded).parallel().map(parser).collect(Collectors.toList());
+        if (parsed.get(0) == null || parsed.get(1) == null) {
+            throw new IllegalStateException("unreadable " + (parsed.get(0) == null ? "original" : "modded file"));
+        }
+        T[] pair = (T[]) java.lang.reflect.Array.newInstance(parsed.get(0).getClass(), 2);
+        pair[0] = parsed.get(0);
+        pair[1] = parsed.get(1);
+        return pair;
+    }
+
+    private static class Table<T> {
+        final String path;
+        final DataObjectCreator<T> creator;
+        final int idBase;
+        final boolean named;
+
+        Table(String path, DataObjectCreator<T> creator, int idBase, boolean named) {
+            this.path = path;
+            this.creator = creator;
+            this.idBase = idBase;
+            this.named = named;
+        }
+    }
+}
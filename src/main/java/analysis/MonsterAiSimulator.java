@@ -0,0 +1,238 @@
+package analysis;
+
+import main.DataAccess;
+import model.AbilityDataObject;
+import script.MonsterFile;
+import script.ScriptInterpreter;
+import script.ScriptObject;
+import script.model.ScriptConstants;
+import script.model.ScriptField;
+import script.model.ScriptJump;
+import script.model.ScriptWorker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the onTurn entry points of a monster AI many times with randomized battle state
+ * and counts which moves the script picks.
+ */
+public class MonsterAiSimulator {
+    public static final double STATUS_CHANCE = 0.1;
+
+    private static final int BATCHES_PER_THREAD = 4;
+    private static final int FUNC_GET_RANDOM_IN_RANGE = 0x00A6;
+    private static final int FUNC_GET_RANDOM_VALUE = 0x00A9;
+    private static final int FUNC_PERFORM_MOVE = 0x700B;
+    private static final int FUNC_READ_ACTOR_PROPERTY = 0x700F;
+    private static final int FUNC_FORCE_PERFORM_MOVE = 0x705A;
+    private static final int FUNC_READ_ACTOR_PROPERTY_SELF = 0x70AA;
+    private static final int PROPERTY_HP = 0x0000;
+    private static final int PROPERTY_MP = 0x0001;
+    private static final int PROPERTY_MAX_HP = 0x0002;
+    private static final int PROPERTY_MAX_MP = 0x0003;
+    private static final int PROPERTY_ALIVE = 0x0004;
+    private static final int PROPERTY_ON_FRONTLINE = 0x0015;
+
+    private static final int KIND_CONSTANT = 0;
+    private static final int KIND_FLAG = 1;
+    private static final int KIND_DURATION = 2;
+
+    private final MonsterFile monster;
+    private final ScriptObject script;
+    private final int[] onTurnWorkers;
+    private final int[] onTurnEntries;
+    private final int[] propertyKinds = new int[0x100];
+    private final int[] propertyConstants = new int[0x100];
+    private final int maxHp;
+    private final int maxMp;
+
+    public MonsterAiSimulator(MonsterFile monster) {
+        this.monster = monster;
+        this.script = monster.monsterAi;
+        List<ScriptJump> onTurns = new ArrayList<>();
+        for (int w = 0; w < script.getWorkerCount(); w++) {
+            ScriptWorker worker = script.getWorker(w);
+            for (ScriptJump entryPoint : worker.entryPoints) {
+                if (entryPoint.getPurposeKind() == 2 && entryPoint.getPurposeSlot() == 0) {
+                    onTurns.add(entryPoint);
+                }
+            }
+        }
+        onTurnWorkers = onTurns.stream().mapToInt(j -> j.workerIndex).toArray();
+        onTurnEntries = onTurns.stream().mapToInt(j -> j.jumpIndex).toArray();
+        maxHp = Math.max(1, monster.monsterStatData.hp);
+        maxMp = monster.monsterStatData.mp;
+        mapActorProperties();
+    }
+
+    public boolean hasOnTurnScript() {
+        return onTurnWorkers.length > 0;
+    }
+
+    public Result simulate(int turns, long seed) {
+        int batchCount = Math.max(1, Math.min(turns, Runtime.getRuntime().availableProcessors() * BATCHES_PER_THREAD));
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] rngs = new SplittableRandom[batchCount];
+        for (int i = 0; i < batchCount; i++) {
+            rngs[i] = root.split();
+        }
+        return IntStream.range(0, batchCount)
+                .parallel()
+                .mapToObj(i -> new Batch(rngs[i]).run(turns / batchCount + (i < turns % batchCount ? 1 : 0)))
+                .reduce(new Result(), Result::merge);
+    }
+
+    private void mapActorProperties() {
+        for (Map.Entry<Integer, ScriptField> entry : ScriptConstants.getEnumMap("btlActorProperty").entrySet()) {
+            int idx = entry.getKey();
+            if (idx < 0 || idx >= propertyKinds.length) {
+                continue;
+            }
+            ScriptField field = entry.getValue();
+            if (idx == PROPERTY_ALIVE || idx == PROPERTY_ON_FRONTLINE) {
+                propertyConstants[idx] = 1;
+            } else if (idx == PROPERTY_MAX_HP) {
+                propertyConstants[idx] = maxHp;
+            } else if (idx == PROPERTY_MAX_MP) {
+                propertyConstants[idx] = maxMp;
+            } else if ("bool".equals(field.type)) {
+                propertyKinds[idx] = KIND_FLAG;
+            } else if (field.name != null && field.name.startsWith("StatusDuration")) {
+                propertyKinds[idx] = KIND_DURATION;
+            }
+        }
+    }
+
+    private class Batch {
+        private final SplittableRandom rng;
+        private final ScriptInterpreter interpreter = new ScriptInterpreter(script);
+        private final int[] moveCounts = new int[0x10000];
+        private final int[] propertyValues = new int[0x10000];
+        private final int[] propertyTurns = new int[0x10000];
+        private int turn;
+        private int movesThisTurn;
+
+        Batch(SplittableRandom rng) {
+            this.rng = rng;
+            interpreter.setFuncHandler(FUNC_GET_RANDOM_IN_RANGE, (vm, f) -> vm.getArg(0) > 0 ? rng.nextInt(vm.getArg(0)) : 0);
+            interpreter.setFuncHandler(FUNC_GET_RANDOM_VALUE, (vm, f) -> rng.nextInt(0x100));
+            interpreter.setFuncHandler(FUNC_PERFORM_MOVE, (vm, f) -> recordMove(vm.getArg(1)));
+            interpreter.setFuncHandler(FUNC_FORCE_PERFORM_MOVE, (vm, f) -> recordMove(vm.getArg(1)));
+            interpreter.setFuncHandler(FUNC_READ_ACTOR_PROPERTY, (vm, f) -> readProperty(vm.getArg(0), vm.getArg(1)));
+            interpreter.setFuncHandler(FUNC_READ_ACTOR_PROPERTY_SELF, (vm, f) -> readProperty(0xFFF3, vm.getArg(0)));
+        }
+
+        Result run(int turns) {
+            Result result = new Result();
+            for (int i = 0; i < turns; i++) {
+                turn++;
+                movesThisTurn = 0;
+                interpreter.reset();
+                boolean incomplete = false;
+                boolean error = false;
+                for (int e = 0; e < onTurnWorkers.length; e++) {
+                    int status = interpreter.runEntry(onTurnWorkers[e], onTurnEntries[e]);
+                    if (status == ScriptInterpreter.STATUS_STEP_LIMIT || status == ScriptInterpreter.STATUS_DEPTH_LIMIT) {
+                        incomplete = true;
+                    } else if (status == ScriptInterpreter.STATUS_ERROR) {
+                        error = true;
+                        if (result.firstError == null) {
+                            result.firstError = interpreter.getErrorString();
+                        }
+                    }
+                }
+                if (incomplete) {
+                    result.incompleteTurns++;
+                }
+                if (error) {
+                    result.errorTurns++;
+                }
+                if (movesThisTurn == 0) {
+                    result.noMoveTurns++;
+                }
+            }
+            result.turns = turns;
+            result.moveCounts = moveCounts;
+            return result;
+        }
+
+        private int recordMove(int move) {
+            moveCounts[move & 0xFFFF]++;
+            movesThisTurn++;
+            return 1;
+        }
+
+        private int readProperty(int actor, int property) {
+            if (property < 0 || property >= propertyKinds.length) {
+                return 0;
+            }
+            int key = (actor & 0xFF) << 8 | property;
+            if (propertyTurns[key] == turn) {
+                return propertyValues[key];
+            }
+            int value = switch (property) {
+                case PROPERTY_HP -> 1 + rng.nextInt(maxHp);
+                case PROPERTY_MP -> maxMp > 0 ? rng.nextInt(maxMp + 1) : 0;
+                default -> switch (propertyKinds[property]) {
+                    case KIND_FLAG -> rng.nextDouble() < STATUS_CHANCE ? 1 : 0;
+                    case KIND_DURATION -> rng.nextDouble() < STATUS_CHANCE ? 1 + rng.nextInt(3) : 0;
+                    default -> propertyConstants[property];
+                };
+            };
+            propertyTurns[key] = turn;
+            propertyValues[key] = value;
+            return value;
+        }
+    }
+
+    public class Result {
+        public int turns;
+        public int noMoveTurns;
+        public int incompleteTurns;
+        public int errorTurns;
+        public String firstError;
+        public int[] moveCounts = new int[0x10000];
+
+        private Result merge(Result other) {
+            Result merged = new Result();
+            merged.turns = turns + other.turns;
+            merged.noMoveTurns = noMoveTurns + other.noMoveTurns;
+            merged.incompleteTurns = incompleteTurns + other.incompleteTurns;
+            merged.errorTurns = errorTurns + other.errorTurns;
+            merged.firstError = firstError != null ? firstError : other.firstError;
+            for (int i = 0; i < merged.moveCounts.length; i++) {
+                merged.moveCounts[i] = moveCounts[i] + other.moveCounts[i];
+            }
+            return merged;
+        }
+
+        @Override
+        public String toString() {
+            List<String> lines = new ArrayList<>();
+            lines.add("Simulated " + turns + " turns of " + monster.getName() + " (" + onTurnWorkers.length + " onTurn entry points)");
+            IntStream.range(0, moveCounts.length)
+                    .filter(i -> moveCounts[i] > 0)
+                    .boxed()
+                    .sorted((a, b) -> Integer.compare(moveCounts[b], moveCounts[a]))
+                    .forEach(i -> {
+                        AbilityDataObject move = DataAccess.getMove(i);
+                        String name = move != null ? move.getName() : "Unknown";
+                        lines.add(String.format("%7.3f%% %s [%04Xh]", moveCounts[i] * 100.0 / turns, name, i));
+                    });
+            if (noMoveTurns > 0) {
+                lines.add(String.format("%7.3f%% no move chosen", noMoveTurns * 100.0 / turns));
+            }
+            if (incompleteTurns > 0) {
+                lines.add("Incomplete turns (step or signal depth limit): " + incompleteTurns);
+            }
+            if (errorTurns > 0) {
+                lines.add("Turns with interpreter errors: " + errorTurns + ", first: " + firstError);
+            }
+            return String.join("\n", lines);
+        }
+    }
+}
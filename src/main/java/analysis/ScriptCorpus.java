@@ -0,0 +1,191 @@
+package analysis;
+
+import reading.Chunk;
+import reading.ChunkedFileHelper;
+import reading.FileAccessorWithMods;
+import script.ScriptCache;
+import script.ScriptObject;
+import script.model.ScriptCallSite;
+import script.model.ScriptVariableAccess;
+import script.model.ScriptVariableTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static main.DataReadingManager.*;
+
+/**
+ * Every monster, encounter and event script of the game (with mods applied), for analyses that go over all of them.
+ * {@link #readScript} only reads a script and splits it into workers, leaving the disassembly to the caller,
+ * while {@link #parse} keeps the records of a full parse for the analyses built from them.
+ */
+public abstract class ScriptCorpus {
+    private static final String BLITZBALL_EVENTS_FOLDER = PATH_ORIGINALS_EVENT + "bl/";
+    private static final Map<String, ParsedScript> PARSED_SCRIPTS = new ConcurrentHashMap<>();
+
+    public enum Kind { MONSTER, ENCOUNTER, EVENT }
+
+    public static class Entry {
+        public final String path;
+        public final Kind kind;
+
+        Entry(String path, Kind kind) {
+            this.path = path;
+            this.kind = kind;
+        }
+
+        /**
+         * @return the file name without folder and extension, e.g. m001, sins04_07 or lmyt0000.
+         */
+        public String getId() {
+            return path.substring(path.lastIndexOf('/') + 1, path.lastIndexOf('.'));
+        }
+
+        @Override
+        public String toString() {
+            return getId();
+        }
+    }
+
+    /**
+     * @return all script files sorted by kind and path.
+     */
+    public static List<Entry> listScripts() {
+        List<Entry> entries = new ArrayList<>();
+        addFiles(PATH_MONSTER_FOLDER, ".bin", Kind.MONSTER, entries);
+        addFiles(PATH_ORIGINALS_ENCOUNTER, ".bin", Kind.ENCOUNTER, entries);
+        addFiles(PATH_ORIGINALS_EVENT, ".ebp", Kind.EVENT, entries);
+        return entries;
+    }
+
+    /**
+     * @return the script of the file without parsing it, or null if the file has none.
+     */
+    public static ScriptObject readScript(Entry entry) {
+        List<Chunk> chunks = ChunkedFileHelper.readGenericChunkedFile(entry.path, false, null, entry.kind != Kind.EVENT);
+        if (chunks == null || chunks.isEmpty() || chunks.get(0).bytes == null || chunks.get(0).bytes.length == 0) {
+            return null;
+        }
+        int[] workerMappingBytes = entry.kind != Kind.EVENT && chunks.size() > 1 ? chunks.get(1).bytes : null;
+        return new ScriptObject(chunks.get(0), workerMappingBytes);
+    }
+
+    /**
+     * The records the parser keeps for a script, without the script itself and its rendered lines.
+     * Empty if the file has no script or fails to parse.
+     */
+    public static class ParsedScript {
+        public final Entry entry;
+        public final List<ScriptCallSite> callSites;
+        public final List<ScriptVariableAccess> variableAccesses;
+        public final List<ScriptVariableTest> variableTests;
+        private final long stamp;
+        private final String tableVersion;
+
+        ParsedScript(Entry entry, long stamp, String tableVersion, ScriptObject script) {
+            this.entry = entry;
+            this.stamp = stamp;
+            this.tableVersion = tableVersion;
+            this.callSites = script != null ? script.callSites : List.of();
+            this.variableAccesses = script != null ? script.variableAccesses : List.of();
+            this.variableTests = script != null ? script.variableTests : List.of();
+        }
+    }
+
+    /**
+     * Parses the script once per version of its file and of the tables rendering reads,
+     * so the analyses built from the parse records (sites, story flags, map transitions) share one pass over the corpus.
+     */
+    public static ParsedScript parse(Entry entry) {
+        long stamp = stampOf(entry.path);
+        String tableVersion = ScriptCache.getTableVersion();
+        ParsedScript known = PARSED_SCRIPTS.get(entry.path);
+        if (known != null && known.stamp == stamp && known.tableVersion.equals(tableVersion)) {
+            return known;
+        }
+        ScriptObject script = null;
+        try {
+            script = readScript(entry);
+            if (script != null) {
+                script.parseScript(null);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Got exception while parsing script " + entry.path + ": " + e);
+            script = null;
+        }
+        ParsedScript parsed = new ParsedScript(entry, stamp, tableVersion, script);
+        PARSED_SCRIPTS.put(entry.path, parsed);
+        return parsed;
+    }
+
+    /**
+     * @return the parse records of all scripts, in the order of {@link #listScripts}.
+     */
+    public static List<ParsedScript> parseAll() {
+        return listScripts().parallelStream().map(ScriptCorpus::parse).collect(Collectors.toList());
+    }
+
+    /**
+     * Changes whenever the file (with mods applied) is replaced, resized or touched.
+     */
+    public static long stampOf(String path) {
+        File file = FileAccessorWithMods.getRealFile(path);
+        return file.length() * 31 + file.lastModified() + file.getPath().hashCode();
+    }
+
+    /**
+     * Reads all scripts in parallel into per-thread containers from the supplier and merges those at the end.
+     * Files that fail to read are reported and skipped.
+     */
+    public static <A> A collect(Supplier<A> supplier, Accumulator<A> accumulator, BiConsumer<A, A> combiner) {
+        return listScripts().parallelStream().collect(supplier, (container, entry) -> {
+            try {
+                ScriptObject script = readScript(entry);
+                if (script != null) {
+                    accumulator.accept(container, entry, script);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Got exception while reading script " + entry.path + ": " + e);
+            }
+        }, combiner);
+    }
+
+    public interface Accumulator<A> {
+        void accept(A container, Entry entry, ScriptObject script);
+    }
+
+    private static void addFiles(String folder, String extension, Kind kind, List<Entry> entries) {
+        listFiles(folder, extension).forEach(p -> entries.add(new Entry(p, kind)));
+    }
+
+    /**
+     * @return the game paths of all files under the folder with the given extension, sorted.
+     */
+    public static List<String> listFiles(String folder, String extension) {
+        Path root = FileAccessorWithMods.getRealFile("").toPath();
+        Path start = FileAccessorWithMods.getRealFile(folder).toPath();
+        if (!Files.isDirectory(start)) {
+            return List.of();
+        }
+        try (Stream<Path> walk = Files.walk(start)) {
+            return walk.filter(Files::isRegularFile)
+                    .map(p -> root.relativize(p).toString().replace(File.separatorChar, '/'))
+                    .filter(p -> p.endsWith(extension) && !p.contains("/.") && !p.startsWith(BLITZBALL_EVENTS_FOLDER))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            System.err.println("Failed to list " + folder + ": " + e.getLocalizedMessage());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package analysis;
+
+import script.ScriptCache;
+import script.model.ScriptCallSite;
+import script.model.ScriptField;
+import script.model.ScriptFunc;
+import script.model.ScriptFuncLib;
+import script.model.ScriptVariable;
+import script.model.ScriptVariableAccess;
+import script.model.StackObject;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Where every script function is called (with its constant arguments) and every script variable is read or written,
+ * over all scripts of the game. Built from the call sites and variable accesses the semantic parse records,
+ * then stored on disk as fixed-length records sorted by function or variable so lookups are binary searches on the mapped file.
+ * The stored index is rebuilt when any script file or the script tables change.
+ */
+public class ScriptSiteIndex {
+    public static final String INDEX_FILE = IndexStore.INDEX_FOLDER + "sites.bin";
+    private static final int MAGIC = 0x46465849;
+    private static final int FORMAT_VERSION = 2;
+    private static final int RECORD_LENGTH = 0x18;
+
+    private final List<String> paths;
+    private final ByteBuffer calls;
+    private final ByteBuffer accesses;
+    private final ByteBuffer args;
+    private final int callCount;
+    private final int accessCount;
+
+    private ScriptSiteIndex(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Not a script site index");
+        }
+        IndexStore.readString(buffer);
+        int pathCount = buffer.getInt();
+        paths = new ArrayList<>(pathCount);
+        for (int i = 0; i < pathCount; i++) {
+            paths.add(IndexStore.readString(buffer));
+        }
+        callCount = buffer.getInt();
+        accessCount = buffer.getInt();
+        int argCount = buffer.getInt();
+        calls = slice(buffer, callCount * RECORD_LENGTH);
+        accesses = slice(buffer, accessCount * RECORD_LENGTH);
+        args = slice(buffer, argCount * 4);
+    }
+
+    /**
+     * @return the stored index if it is still up to date, otherwise a freshly built one (which is then stored).
+     */
+    public static ScriptSiteIndex get() {
+        List<ScriptCorpus.Entry> entries = ScriptCorpus.listScripts();
+        String fingerprint = IndexStore.fingerprint(ScriptCache.getTableVersion(), entries.stream().map(entry -> entry.path).collect(Collectors.toList()));
+        File file = new File(INDEX_FILE);
+        if (file.exists()) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.getInt() == MAGIC && buffer.getInt() == FORMAT_VERSION && fingerprint.equals(IndexStore.readString(buffer))) {
+                    return new ScriptSiteIndex(buffer.rewind());
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to read script site index " + file.getPath() + ": " + e);
+            }
+        }
+        byte[] bytes = build(entries, fingerprint);
+        IndexStore.store(file, bytes);
+        return new ScriptSiteIndex(ByteBuffer.wrap(bytes));
+    }
+
+    private static byte[] build(List<ScriptCorpus.Entry> entries, String fingerprint) {
+        List<ScriptRows> perScript = IntStream.range(0, entries.size()).parallel().mapToObj(path -> {
+            ScriptCorpus.Entry entry = entries.get(path);
+            ScriptRows rows = new ScriptRows();
+            ScriptCorpus.ParsedScript script = ScriptCorpus.parse(entry);
+            script.callSites.forEach(callSite -> rows.calls.add(new CallRow(path, callSite)));
+            script.variableAccesses.forEach(access -> rows.accesses.add(new AccessRow(path, access)));
+            return rows;
+        }).collect(Collectors.toList());
+        List<CallRow> callRows = new ArrayList<>();
+        List<AccessRow> accessRows = new ArrayList<>();
+        for (ScriptRows rows : perScript) {
+            callRows.addAll(rows.calls);
+            accessRows.addAll(rows.accesses);
+        }
+        callRows.sort(Comparator.comparingInt((CallRow r) -> r.site.func).thenComparingInt(r -> r.path).thenComparingInt(r -> r.site.offset));
+        accessRows.sort(Comparator.comparingInt((AccessRow r) -> accessKey(r.access.location, r.access.varOffset)).thenComparingInt(r -> r.path).thenComparingInt(r -> r.access.offset));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            IndexStore.writeString(out, fingerprint);
+            out.writeInt(entries.size());
+            for (ScriptCorpus.Entry entry : entries) {
+                IndexStore.writeString(out, entry.path);
+            }
+            int argCount = callRows.stream().mapToInt(r -> r.site.args.length + 1).sum();
+            out.writeInt(callRows.size());
+            out.writeInt(accessRows.size());
+            out.writeInt(argCount);
+            int argRef = 0;
+            for (CallRow row : callRows) {
+                ScriptCallSite site = row.site;
+                out.writeInt(site.func);
+                out.writeInt(row.path);
+                out.writeShort(site.worker);
+                out.writeShort(site.entryPoint);
+                out.writeInt(site.offset);
+                out.writeInt(site.line);
+                out.writeInt(argRef);
+                argRef += site.args.length + 1;
+            }
+            for (AccessRow row : accessRows) {
+                ScriptVariableAccess access = row.access;
+                out.writeInt(accessKey(access.location, access.varOffset));
+                out.writeInt(row.path);
+                out.writeShort(access.worker);
+                out.writeShort(access.entryPoint);
+                out.writeInt(access.offset);
+                out.writeInt(access.line);
+                out.writeInt(access.write ? 1 : 0);
+            }
+            for (CallRow row : callRows) {
+                out.writeInt(row.site.args.length | row.site.constantMask << 8);
+                for (int arg : row.site.args) {
+                    out.writeInt(arg);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param argFilter per argument the constant it must have, or null for any value.
+     */
+    public List<Hit<ScriptCallSite>> findCalls(int func, Integer[] argFilter) {
+        List<Hit<ScriptCallSite>> found = new ArrayList<>();
+        for (int i = lowerBound(calls, callCount, func); i < callCount && calls.getInt(i * RECORD_LENGTH) == func; i++) {
+            ScriptCallSite site = callAt(i);
+            if (matches(site, argFilter)) {
+                found.add(new Hit<>(paths.get(calls.getInt(i * RECORD_LENGTH + 0x04)), site));
+            }
+        }
+        return found;
+    }
+
+    public List<Hit<ScriptVariableAccess>> findAccesses(int location, int varOffset, boolean writes) {
+        int key = accessKey(location, varOffset);
+        List<Hit<ScriptVariableAccess>> found = new ArrayList<>();
+        for (int i = lowerBound(accesses, accessCount, key); i < accessCount && accesses.getInt(i * RECORD_LENGTH) == key; i++) {
+            int record = i * RECORD_LENGTH;
+            boolean write = accesses.getInt(record + 0x14) != 0;
+            if (write == writes) {
+                ScriptVariableAccess access = new ScriptVariableAccess(location, varOffset, write, accesses.getShort(record + 0x08), accesses.getShort(record + 0x0A), accesses.getInt(record + 0x0C), accesses.getInt(record + 0x10));
+                found.add(new Hit<>(paths.get(accesses.getInt(record + 0x04)), access));
+            }
+        }
+        return found;
+    }
+
+    public String callsString(int func, Integer[] argFilter) {
+        List<String> lines = new ArrayList<>();
+        for (Hit<ScriptCallSite> hit : findCalls(func, argFilter)) {
+            ScriptCallSite site = hit.site;
+            List<String> argStrings = new ArrayList<>();
+            for (int a = 0; a < site.args.length; a++) {
+                argStrings.add(site.isConstant(a) ? String.format("%X", site.args[a]) + 'h' : "?");
+            }
+            lines.add("  " + hit.path + " " + locationString(site.worker, site.entryPoint, site.offset, site.line) + ": (" + String.join(", ", argStrings) + ")");
+        }
+        ScriptFunc scriptFunc = ScriptFuncLib.get(func, null);
+        String name = scriptFunc != null ? scriptFunc.toString() : String.format("%04X", func);
+        lines.add(0, name + ": " + lines.size() + " calls");
+        return String.join("\n", lines);
+    }
+
+    public String writesString(int location, int varOffset) {
+        List<String> lines = new ArrayList<>();
+        for (Hit<ScriptVariableAccess> hit : findAccesses(location, varOffset, true)) {
+            ScriptVariableAccess access = hit.site;
+            lines.add("  " + hit.path + " " + locationString(access.worker, access.entryPoint, access.offset, access.line));
+        }
+        lines.add(0, variableLabel(location, varOffset) + ": " + lines.size() + " writes");
+        return String.join("\n", lines);
+    }
+
+    /**
+     * @param location a variable location name (saveData, commonVars...) or number.
+     */
+    public static int parseLocation(String location) {
+        for (int i = 0; i < 8; i++) {
+            if (ScriptVariable.locationToString(i).equalsIgnoreCase(location)) {
+                return i;
+            }
+        }
+        return Integer.parseInt(location);
+    }
+
+    private ScriptCallSite callAt(int index) {
+        int record = index * RECORD_LENGTH;
+        int argRef = calls.getInt(record + 0x14);
+        int header = args.getInt(argRef * 4);
+        int[] values = new int[header & 0xFF];
+        for (int a = 0; a < values.length; a++) {
+            values[a] = args.getInt((argRef + 1 + a) * 4);
+        }
+        return new ScriptCallSite(calls.getInt(record), calls.getShort(record + 0x08), calls.getShort(record + 0x0A), calls.getInt(record + 0x0C), calls.getInt(record + 0x10), values, header >>> 8);
+    }
+
+    private static boolean matches(ScriptCallSite site, Integer[] argFilter) {
+        if (argFilter == null) {
+            return true;
+        }
+        for (int a = 0; a < argFilter.length; a++) {
+            if (argFilter[a] != null && (a >= site.args.length || !site.isConstant(a) || site.args[a] != argFilter[a])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lowerBound(ByteBuffer records, int count, int key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (records.getInt(mid * RECORD_LENGTH) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int accessKey(int location, int varOffset) {
+        return location << 24 | (varOffset & 0xFFFFFF);
+    }
+
+    private static String locationString(int worker, int entryPoint, int offset, int line) {
+        String entry = worker >= 0 ? String.format("w%02Xe%02X", worker, entryPoint) : "-";
+        return entry + " at " + String.format("%04X", offset) + " (line " + line + ")";
+    }
+
+    private static String variableLabel(int location, int varOffset) {
+        String dereference = ScriptVariable.locationToString(location) + "[" + String.format("%04X", varOffset) + "]";
+        if (location == 0 || location == 1) {
+            ScriptField field = StackObject.enumToScriptField(location == 0 ? "saveData" : "commonVar", varOffset);
+            if (field.name != null) {
+                return field.name + " (" + dereference + ")";
+            }
+        }
+        return dereference;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int length) {
+        ByteBuffer slice = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+
+    public static class Hit<T> {
+        public final String path;
+        public final T site;
+
+        Hit(String path, T site) {
+            this.path = path;
+            this.site = site;
+        }
+    }
+
+    /**
+     * The rows of one script, extracted from its parse records.
+     */
+    private static class ScriptRows {
+        final List<CallRow> calls = new ArrayList<>();
+        final List<AccessRow> accesses = new ArrayList<>();
+    }
+
+    private static class CallRow {
+        final int path;
+        final ScriptCallSite site;
+
+        CallRow(int path, ScriptCallSite site) {
+            this.path = path;
+            this.site = site;
+        }
+    }
+
+    private static class AccessRow {
+        final int path;
+        final ScriptVariableAccess access;
+
+        AccessRow(int path, ScriptVariableAccess access) {
+            this.path = path;
+            this.access = access;
+        }
+    }
+}
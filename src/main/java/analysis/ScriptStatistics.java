@@ -0,0 +1,111 @@
+package analysis;
+
+import script.ScriptCodeWalker;
+import script.ScriptObject;
+import script.model.ScriptConstants;
+import script.model.ScriptFunc;
+import script.model.ScriptFuncLib;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Counts how often every opcode and script function occurs over all scripts of the game, and in how many files.
+ * The script code is only walked instruction by instruction ({@link ScriptCodeWalker}), nothing is typed or rendered.
+ */
+public class ScriptStatistics {
+    private static final int OPCODE_COUNT = 0x100;
+    private static final int FUNC_COUNT = 0x10000;
+    private static final int FUNCSPACE_COUNT = 0x10;
+
+    public int files;
+    public long instructions;
+    public final long[] opcodeCounts = new long[OPCODE_COUNT];
+    public final int[] opcodeFiles = new int[OPCODE_COUNT];
+    public final long[] funcCounts = new long[FUNC_COUNT];
+    public final int[] funcFiles = new int[FUNC_COUNT];
+    private final BitSet opcodesInFile = new BitSet(OPCODE_COUNT);
+    private final BitSet funcsInFile = new BitSet(FUNC_COUNT);
+
+    public static ScriptStatistics ofCorpus() {
+        return ScriptCorpus.collect(ScriptStatistics::new, (statistics, entry, script) -> statistics.add(script), ScriptStatistics::merge);
+    }
+
+    public void add(ScriptObject script) {
+        ScriptCodeWalker.forEachInstruction(script.getScriptCodeBytes(), (offset, opcode, argv) -> {
+            opcodeCounts[opcode]++;
+            opcodesInFile.set(opcode);
+            instructions++;
+            if (opcode == ScriptConstants.OPCODE_CALL || opcode == ScriptConstants.OPCODE_CALLPOPA) {
+                funcCounts[argv]++;
+                funcsInFile.set(argv);
+            }
+        });
+        for (int opcode = opcodesInFile.nextSetBit(0); opcode >= 0; opcode = opcodesInFile.nextSetBit(opcode + 1)) {
+            opcodeFiles[opcode]++;
+        }
+        for (int func = funcsInFile.nextSetBit(0); func >= 0; func = funcsInFile.nextSetBit(func + 1)) {
+            funcFiles[func]++;
+        }
+        opcodesInFile.clear();
+        funcsInFile.clear();
+        files++;
+    }
+
+    public void merge(ScriptStatistics other) {
+        files += other.files;
+        instructions += other.instructions;
+        for (int i = 0; i < OPCODE_COUNT; i++) {
+            opcodeCounts[i] += other.opcodeCounts[i];
+            opcodeFiles[i] += other.opcodeFiles[i];
+        }
+        for (int i = 0; i < FUNC_COUNT; i++) {
+            funcCounts[i] += other.funcCounts[i];
+            funcFiles[i] += other.funcFiles[i];
+        }
+    }
+
+    @Override
+    public String toString() {
+        List<String> lines = new ArrayList<>();
+        lines.add(instructions + " instructions in " + files + " scripts");
+        lines.add("- Opcodes -");
+        lines.add(String.format("%10s %6s  %s", "Count", "Files", "Opcode"));
+        sortedByCount(opcodeCounts).forEach(op -> lines.add(String.format("%10d %6d  %02X %s", opcodeCounts[op], opcodeFiles[op], op, opcodeLabel(op))));
+        lines.add("- Funcspaces -");
+        lines.add(String.format("%10s %6s  %s", "Calls", "Funcs", "Funcspace"));
+        long[] spaceCounts = new long[FUNCSPACE_COUNT];
+        int[] spaceFuncs = new int[FUNCSPACE_COUNT];
+        for (int func = 0; func < FUNC_COUNT; func++) {
+            if (funcCounts[func] > 0) {
+                spaceCounts[func >> 12] += funcCounts[func];
+                spaceFuncs[func >> 12]++;
+            }
+        }
+        sortedByCount(spaceCounts).forEach(space -> lines.add(String.format("%10d %6d  %X %s", spaceCounts[space], spaceFuncs[space], space, ScriptConstants.FUNCSPACES[space])));
+        lines.add("- Functions -");
+        lines.add(String.format("%10s %6s  %s", "Calls", "Files", "Function"));
+        sortedByCount(funcCounts).forEach(func -> lines.add(String.format("%10d %6d  %04X %s", funcCounts[func], funcFiles[func], func, funcLabel(func))));
+        return String.join("\n", lines);
+    }
+
+    private static IntStream sortedByCount(long[] counts) {
+        return IntStream.range(0, counts.length)
+                .filter(i -> counts[i] > 0)
+                .boxed()
+                .sorted((a, b) -> counts[a] != counts[b] ? Long.compare(counts[b], counts[a]) : Integer.compare(a, b))
+                .mapToInt(Integer::intValue);
+    }
+
+    private static String opcodeLabel(int opcode) {
+        String label = ScriptConstants.OPCODE_LABELS[opcode];
+        return label != null ? label : "unknown";
+    }
+
+    private static String funcLabel(int idx) {
+        ScriptFunc func = ScriptFuncLib.get(idx, null);
+        return func != null ? func.toString() : ScriptConstants.FUNCSPACES[idx >> 12] + ".unknown";
+    }
+}
@@ -0,0 +1,287 @@
+package analysis;
+
+import model.spheregrid.SphereGridGraph;
+import model.spheregrid.SphereGridLayoutDataObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Searches for a cheap order to activate a set of node contents on a sphere grid.
+ * Each requested content must be activated on a distinct node; repeat a content to require it several times.
+ * Beam searches of growing width run until the time budget is spent and the cheapest complete route is kept.
+ */
+public class SphereGridRouteOptimizer {
+    private static final int INITIAL_BEAM_WIDTH = 8;
+    private static final int MAX_BRANCHING = 16;
+
+    private final SphereGridGraph graph;
+    private final int lockLevel;
+
+    public SphereGridRouteOptimizer(SphereGridGraph graph, int lockLevel) {
+        this.graph = graph;
+        this.lockLevel = lockLevel;
+    }
+
+    /**
+     * Optimizes every start node in parallel, each with the full time budget counted from when its search starts.
+     */
+    public List<Route> optimizeAll(int[] starts, int[] targetContents, long budgetMillis) {
+        return Arrays.stream(starts)
+                .parallel()
+                .mapToObj(start -> optimize(start, targetContents, budgetMillis))
+                .collect(Collectors.toList());
+    }
+
+    public Route optimize(int start, int[] targetContents, long budgetMillis) {
+        return optimizeUntil(start, targetContents, System.nanoTime() + budgetMillis * 1000000L);
+    }
+
+    /**
+     * @param deadline in {@link System#nanoTime()} terms.
+     */
+    public Route optimizeUntil(int start, int[] targetContents, long deadline) {
+        Problem problem = new Problem(start, targetContents);
+        Route best = null;
+        int width = INITIAL_BEAM_WIDTH;
+        int maxWidth = 0;
+        do {
+            State result = problem.beamSearch(width, deadline);
+            if (result != null) {
+                maxWidth = width;
+                if (best == null || result.cost < best.cost) {
+                    best = problem.toRoute(result);
+                }
+                if (!problem.lastSearchTruncated) {
+                    // Nothing was cut from the beam, so a wider one would search the same states again
+                    break;
+                }
+            } else if (best != null) {
+                break;
+            }
+            if (width > Integer.MAX_VALUE / 2) {
+                break;
+            }
+            width *= 2;
+        } while (System.nanoTime() < deadline);
+        if (best == null) {
+            best = problem.toRoute(problem.beamSearch(1, Long.MAX_VALUE));
+        }
+        best.beamWidth = Math.max(1, maxWidth);
+        return best;
+    }
+
+    private class Problem {
+        private final int start;
+        private final int slotCount;
+        private final int[] slotContents;
+        private final int[] slotNeeded;
+        private final int[] missing;
+        private final int[] candidates;
+        private final int[] candidateSlots;
+        private final int[][] distances;
+        private final int startRow;
+        private boolean lastSearchTruncated;
+
+        Problem(int start, int[] targetContents) {
+            this.start = start;
+            Map<Integer, Integer> slotByContent = new HashMap<>();
+            List<Integer> contents = new ArrayList<>();
+            List<Integer> needed = new ArrayList<>();
+            for (int content : targetContents) {
+                Integer slot = slotByContent.get(content);
+                if (slot == null) {
+                    slotByContent.put(content, contents.size());
+                    contents.add(content);
+                    needed.add(1);
+                } else {
+                    needed.set(slot, needed.get(slot) + 1);
+                }
+            }
+            slotCount = contents.size();
+            slotContents = contents.stream().mapToInt(i -> i).toArray();
+            slotNeeded = needed.stream().mapToInt(i -> i).toArray();
+            int[] fromStart = graph.distances(start, lockLevel);
+            BitSet candidateNodes = graph.getNodeIndex().withAnyContent(slotContents);
+            candidateNodes.clear(start);
+            candidates = candidateNodes.stream().filter(n -> fromStart[n] >= 0).toArray();
+            candidateSlots = Arrays.stream(candidates).map(n -> slotByContent.get(graph.getContent(n))).toArray();
+            missing = new int[slotCount];
+            for (int slot = 0; slot < slotCount; slot++) {
+                int finalSlot = slot;
+                int available = (int) Arrays.stream(candidateSlots).filter(s -> s == finalSlot).count();
+                if (available < slotNeeded[slot]) {
+                    missing[slot] = slotNeeded[slot] - available;
+                    slotNeeded[slot] = available;
+                }
+            }
+            startRow = candidates.length;
+            distances = new int[candidates.length + 1][];
+            IntStream.range(0, candidates.length).parallel().forEach(i -> distances[i] = rowFor(graph.distances(candidates[i], lockLevel)));
+            distances[startRow] = rowFor(fromStart);
+        }
+
+        private int[] rowFor(int[] nodeDistances) {
+            int[] row = new int[candidates.length];
+            for (int i = 0; i < candidates.length; i++) {
+                row[i] = nodeDistances[candidates[i]];
+            }
+            return row;
+        }
+
+        State beamSearch(int width, long deadline) {
+            int remaining = Arrays.stream(slotNeeded).sum();
+            List<State> beam = List.of(new State(null, startRow, new long[(candidates.length >> 6) + 1], slotNeeded.clone(), 0, remaining));
+            lastSearchTruncated = false;
+            while (remaining > 0) {
+                if (System.nanoTime() > deadline) {
+                    return null;
+                }
+                Map<StateKey, State> next = beam.parallelStream()
+                        .flatMap(state -> expand(state).stream())
+                        .collect(Collectors.toMap(State::key, s -> s, (a, b) -> a.cost <= b.cost ? a : b));
+                if (next.size() > width) {
+                    lastSearchTruncated = true;
+                }
+                beam = next.values().stream()
+                        .sorted(Comparator.comparingInt((State s) -> s.cost).thenComparingInt(s -> s.position))
+                        .limit(width)
+                        .collect(Collectors.toList());
+                if (beam.isEmpty()) {
+                    return null;
+                }
+                remaining--;
+            }
+            return beam.get(0);
+        }
+
+        private List<State> expand(State state) {
+            int[] row = distances[state.position];
+            List<Integer> options = new ArrayList<>();
+            for (int i = 0; i < candidates.length; i++) {
+                if (state.slotRemaining[candidateSlots[i]] > 0 && (state.visited[i >> 6] & (1L << i)) == 0 && row[i] >= 0) {
+                    options.add(i);
+                }
+            }
+            options.sort(Comparator.comparingInt(i -> row[i]));
+            List<State> children = new ArrayList<>(Math.min(options.size(), MAX_BRANCHING));
+            for (int i : options.subList(0, Math.min(options.size(), MAX_BRANCHING))) {
+                long[] visited = state.visited.clone();
+                visited[i >> 6] |= 1L << i;
+                int[] slotRemaining = state.slotRemaining.clone();
+                slotRemaining[candidateSlots[i]]--;
+                children.add(new State(state, i, visited, slotRemaining, state.cost + row[i], state.remaining - 1));
+            }
+            return children;
+        }
+
+        Route toRoute(State state) {
+            List<Integer> order = new ArrayList<>();
+            for (State s = state; s != null && s.position != startRow; s = s.parent) {
+                order.add(0, candidates[s.position]);
+            }
+            Route route = new Route();
+            route.start = start;
+            route.nodes = order.stream().mapToInt(i -> i).toArray();
+            route.cost = state != null ? state.cost : 0;
+            route.missingContents = IntStream.range(0, slotCount)
+                    .flatMap(slot -> IntStream.range(0, missing[slot]).map(x -> slotContents[slot]))
+                    .toArray();
+            return route;
+        }
+    }
+
+    private static class State {
+        final State parent;
+        final int position;
+        final long[] visited;
+        final int[] slotRemaining;
+        final int cost;
+        final int remaining;
+
+        State(State parent, int position, long[] visited, int[] slotRemaining, int cost, int remaining) {
+            this.parent = parent;
+            this.position = position;
+            this.visited = visited;
+            this.slotRemaining = slotRemaining;
+            this.cost = cost;
+            this.remaining = remaining;
+        }
+
+        StateKey key() {
+            return new StateKey(position, visited);
+        }
+    }
+
+    private static class StateKey {
+        final int position;
+        final long[] visited;
+        final int hash;
+
+        StateKey(int position, long[] visited) {
+            this.position = position;
+            this.visited = visited;
+            this.hash = 31 * position + Arrays.hashCode(visited);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StateKey other && position == other.position && Arrays.equals(visited, other.visited);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    public class Route {
+        public int start;
+        public int[] nodes;
+        public int cost;
+        public int beamWidth;
+        public int[] missingContents;
+
+        /**
+         * Every node moved through, starting at the start node.
+         */
+        public int[] getFullPath() {
+            List<Integer> path = new ArrayList<>();
+            path.add(start);
+            int from = start;
+            for (int node : nodes) {
+                int[] leg = graph.shortestPath(from, node, lockLevel);
+                for (int i = 1; i < leg.length; i++) {
+                    path.add(leg[i]);
+                }
+                from = node;
+            }
+            return path.stream().mapToInt(i -> i).toArray();
+        }
+
+        @Override
+        public String toString() {
+            List<String> lines = new ArrayList<>();
+            lines.add("Route from N#" + start + ": " + nodes.length + " activations, " + cost + " moves (beam width " + beamWidth + ")");
+            int from = start;
+            int total = 0;
+            for (int node : nodes) {
+                int[] leg = graph.shortestPath(from, node, lockLevel);
+                total += leg.length - 1;
+                lines.add(String.format("%5d N#%d %s (+%d)", total, node, SphereGridLayoutDataObject.byteToNodeContent(graph.getContent(node)), leg.length - 1));
+                from = node;
+            }
+            for (int content : missingContents) {
+                lines.add("Not reachable: " + SphereGridLayoutDataObject.byteToNodeContent(content));
+            }
+            return String.join("\n", lines);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package analysis;
+
+import main.DataAccess;
+import model.AbilityDataObject;
+import model.GearAbilityDataObject;
+import model.MonsterSpoilsDataObject;
+import script.EncounterFile;
+import script.MonsterFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Expected item and gear ability yields per monster kill, stored as flat monster x item tables.
+ * Items are indexed by the low byte of their move index (2000h-20FFh), gear abilities by the low byte of 8000h-80FFh.
+ * Gear drops are assumed to be for a uniformly random character and equally often weapons or armors;
+ * each ability roll picks one of the seven random slots and repeats are lost.
+ */
+public class SpoilsCalculator {
+    public static final double RARE_CHANCE = 1.0 / 8;
+
+    public static final int ITEM_BASE = 0x2000;
+    public static final int GEAR_ABILITY_BASE = 0x8000;
+    public static final int TABLE_WIDTH = 0x100;
+    public static final int CHARACTER_COUNT = 7;
+    public static final int RANDOM_ROLL_RANGE = 8;
+
+    private final int monsterCount;
+    private final double[] normalDrops;
+    private final double[] overkillDrops;
+    private final double[] steals;
+    private final double[] gearAbilities;
+
+    public SpoilsCalculator() {
+        monsterCount = Math.max(0, DataAccess.MONSTERS.getHighestId() - 0x1000 + 1);
+        normalDrops = new double[monsterCount * TABLE_WIDTH];
+        overkillDrops = new double[monsterCount * TABLE_WIDTH];
+        steals = new double[monsterCount * TABLE_WIDTH];
+        gearAbilities = new double[monsterCount * TABLE_WIDTH];
+        IntStream.range(0, monsterCount).parallel().forEach(this::fillRow);
+    }
+
+    public double getNormalDrop(int monsterIdx, int item) {
+        return get(normalDrops, monsterIdx, item, ITEM_BASE);
+    }
+
+    public double getOverkillDrop(int monsterIdx, int item) {
+        return get(overkillDrops, monsterIdx, item, ITEM_BASE);
+    }
+
+    public double getSteal(int monsterIdx, int item) {
+        return get(steals, monsterIdx, item, ITEM_BASE);
+    }
+
+    public double getGearAbility(int monsterIdx, int ability) {
+        return get(gearAbilities, monsterIdx, ability, GEAR_ABILITY_BASE);
+    }
+
+    /**
+     * Expected yields of one battle, averaged over all encounters whose id starts with the given prefix.
+     */
+    public Yield getAreaYield(String encounterPrefix) {
+        Yield yield = new Yield(encounterPrefix);
+        for (Map.Entry<String, EncounterFile> entry : DataAccess.ENCOUNTERS.entrySet()) {
+            EncounterFile encounter = entry.getValue();
+            if (!entry.getKey().startsWith(encounterPrefix) || encounter.formation == null) {
+                continue;
+            }
+            yield.battles++;
+            for (int monster : encounter.formation.getMonsters()) {
+                int row = monster - 0x1000;
+                if (row < 0 || row >= monsterCount) {
+                    continue;
+                }
+                addRow(yield.normalDrops, normalDrops, row);
+                addRow(yield.overkillDrops, overkillDrops, row);
+                addRow(yield.steals, steals, row);
+                addRow(yield.gearAbilities, gearAbilities, row);
+            }
+        }
+        if (yield.battles > 0) {
+            for (int i = 0; i < TABLE_WIDTH; i++) {
+                yield.normalDrops[i] /= yield.battles;
+                yield.overkillDrops[i] /= yield.battles;
+                yield.steals[i] /= yield.battles;
+                yield.gearAbilities[i] /= yield.battles;
+            }
+        }
+        return yield;
+    }
+
+    /**
+     * Chance that one gear drop of the given character and kind carries each gear ability.
+     */
+    public static double[] getGearAbilityDistribution(MonsterSpoilsDataObject spoils, int character, boolean armor) {
+        double[] distribution = new double[TABLE_WIDTH];
+        int[] abilities = armor ? spoils.gearAbilitiesOnArmorsByChar[character] : spoils.gearAbilitiesOnWeaponsByChar[character];
+        boolean forced = isGearAbility(abilities[0]);
+        int[] randomCounts = new int[TABLE_WIDTH];
+        for (int i = 1; i < abilities.length; i++) {
+            if (isGearAbility(abilities[i])) {
+                randomCounts[abilities[i] & 0xFF]++;
+            }
+        }
+        for (int slotRoll = 0; slotRoll < RANDOM_ROLL_RANGE; slotRoll++) {
+            int slots = getSlotCount(spoils.gearSlotCountByte, slotRoll);
+            for (int abilityRoll = 0; abilityRoll < RANDOM_ROLL_RANGE; abilityRoll++) {
+                int rolls = getAbilityRollCount(spoils.gearAbilityCountByte, abilityRoll);
+                int effective = Math.max(0, Math.min(rolls, slots - (forced ? 1 : 0)));
+                double weight = 1.0 / (RANDOM_ROLL_RANGE * RANDOM_ROLL_RANGE);
+                for (int ability = 0; ability < TABLE_WIDTH; ability++) {
+                    if (randomCounts[ability] > 0) {
+                        distribution[ability] += weight * (1 - Math.pow((7.0 - randomCounts[ability]) / 7.0, effective));
+                    }
+                }
+            }
+        }
+        if (forced) {
+            distribution[abilities[0] & 0xFF] = 1;
+        }
+        return distribution;
+    }
+
+    /**
+     * @param roll uniformly random in [0, RANDOM_ROLL_RANGE)
+     */
+    public static int getSlotCount(int slotCountByte, int roll) {
+        return clamp((slotCountByte + roll - 4) / 4, 1, 4);
+    }
+
+    /**
+     * @param roll uniformly random in [0, RANDOM_ROLL_RANGE)
+     */
+    public static int getAbilityRollCount(int abilityCountByte, int roll) {
+        return clamp((abilityCountByte + roll - 4) / 8, 0, 4);
+    }
+
+    public static boolean isGearAbility(int idx) {
+        return idx != 0x0000 && idx != 0x00FF && (idx & 0xFF00) == GEAR_ABILITY_BASE;
+    }
+
+    private void fillRow(int row) {
+        MonsterFile monster = DataAccess.getMonster(0x1000 + row);
+        if (monster == null || monster.monsterSpoilsData == null) {
+            return;
+        }
+        MonsterSpoilsDataObject spoils = monster.monsterSpoilsData;
+        int offset = row * TABLE_WIDTH;
+        double primary = spoils.dropChancePrimary / 255.0;
+        double secondary = spoils.dropChanceSecondary / 255.0;
+        addItem(normalDrops, offset, spoils.dropNormalTypePrimaryCommon, primary * (1 - RARE_CHANCE) * spoils.dropNormalQuantityPrimaryCommon);
+        addItem(normalDrops, offset, spoils.dropNormalTypePrimaryRare, primary * RARE_CHANCE * spoils.dropNormalQuantityPrimaryRare);
+        addItem(normalDrops, offset, spoils.dropNormalTypeSecondaryCommon, secondary * (1 - RARE_CHANCE) * spoils.dropNormalQuantitySecondaryCommon);
+        addItem(normalDrops, offset, spoils.dropNormalTypeSecondaryRare, secondary * RARE_CHANCE * spoils.dropNormalQuantitySecondaryRare);
+        addItem(overkillDrops, offset, spoils.dropOverkillTypePrimaryCommon, primary * (1 - RARE_CHANCE) * spoils.dropOverkillQuantityPrimaryCommon);
+        addItem(overkillDrops, offset, spoils.dropOverkillTypePrimaryRare, primary * RARE_CHANCE * spoils.dropOverkillQuantityPrimaryRare);
+        addItem(overkillDrops, offset, spoils.dropOverkillTypeSecondaryCommon, secondary * (1 - RARE_CHANCE) * spoils.dropOverkillQuantitySecondaryCommon);
+        addItem(overkillDrops, offset, spoils.dropOverkillTypeSecondaryRare, secondary * RARE_CHANCE * spoils.dropOverkillQuantitySecondaryRare);
+        double steal = spoils.stealChance / 255.0;
+        addItem(steals, offset, spoils.stealItemTypeCommon, steal * (1 - RARE_CHANCE) * spoils.stealItemQuantityCommon);
+        addItem(steals, offset, spoils.stealItemTypeRare, steal * RARE_CHANCE * spoils.stealItemQuantityRare);
+        if (spoils.dropChanceGear > 0) {
+            double perGear = spoils.dropChanceGear / 255.0 / (CHARACTER_COUNT * 2);
+            for (int chr = 0; chr < CHARACTER_COUNT; chr++) {
+                double[] weapon = getGearAbilityDistribution(spoils, chr, false);
+                double[] armor = getGearAbilityDistribution(spoils, chr, true);
+                for (int i = 0; i < TABLE_WIDTH; i++) {
+                    gearAbilities[offset + i] += perGear * (weapon[i] + armor[i]);
+                }
+            }
+        }
+    }
+
+    private static void addItem(double[] table, int offset, int item, double amount) {
+        if (item >= ITEM_BASE && item < ITEM_BASE + TABLE_WIDTH) {
+            table[offset + item - ITEM_BASE] += amount;
+        }
+    }
+
+    private static void addRow(double[] target, double[] table, int row) {
+        int offset = row * TABLE_WIDTH;
+        for (int i = 0; i < TABLE_WIDTH; i++) {
+            target[i] += table[offset + i];
+        }
+    }
+
+    private double get(double[] table, int monsterIdx, int idx, int base) {
+        int row = monsterIdx - 0x1000;
+        if (row < 0 || row >= monsterCount || idx < base || idx >= base + TABLE_WIDTH) {
+            return 0;
+        }
+        return table[row * TABLE_WIDTH + idx - base];
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public static class Yield {
+        public final String encounterPrefix;
+        public int battles;
+        public final double[] normalDrops = new double[TABLE_WIDTH];
+        public final double[] overkillDrops = new double[TABLE_WIDTH];
+        public final double[] steals = new double[TABLE_WIDTH];
+        public final double[] gearAbilities = new double[TABLE_WIDTH];
+
+        Yield(String encounterPrefix) {
+            this.encounterPrefix = encounterPrefix;
+        }
+
+        @Override
+        public String toString() {
+            List<String> lines = new ArrayList<>();
+            lines.add("Expected spoils per battle in " + encounterPrefix + "* (" + battles + " encounters)");
+            addLines(lines, "Drops", normalDrops, ITEM_BASE);
+            addLines(lines, "Overkill drops", overkillDrops, ITEM_BASE);
+            addLines(lines, "First steal", steals, ITEM_BASE);
+            addLines(lines, "Gear abilities", gearAbilities, GEAR_ABILITY_BASE);
+            return String.join("\n", lines);
+        }
+
+        private static void addLines(List<String> lines, String title, double[] values, int base) {
+            lines.add(title + ":");
+            IntStream.range(0, TABLE_WIDTH)
+                    .filter(i -> values[i] > 0)
+                    .boxed()
+                    .sorted((a, b) -> Double.compare(values[b], values[a]))
+                    .forEach(i -> lines.add(String.format("%9.4f %s [%04Xh]", values[i], nameOf(base + i), base + i)));
+        }
+
+        private static String nameOf(int idx) {
+            if (idx >= GEAR_ABILITY_BASE) {
+                GearAbilityDataObject ability = DataAccess.getGearAbility(idx);
+                return ability != null ? ability.getName() : "null";
+            }
+            AbilityDataObject item = DataAccess.getMove(idx);
+            return item != null ? item.getName() : "null";
+        }
+    }
+}
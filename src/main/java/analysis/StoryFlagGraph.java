@@ -0,0 +1,329 @@
+package analysis;
+
+import main.DataAccess;
+import model.Nameable;
+import script.model.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Links the scripts writing saveData and commonVar variables ("story flags") to the scripts testing them.
+ * Each write and test is placed at the entry point it occurs in, and the tests an entry point makes before some instruction
+ * are taken as the conditions for reaching that instruction, so prerequisites of a treasure or encounter can be followed
+ * back through the entry points setting the tested flags. Control flow is not followed; the writes and tests are the
+ * variable accesses and tests the parser records for every script.
+ */
+public class StoryFlagGraph {
+    private static final int MAX_LISTED_WRITERS = 8;
+    private static final Set<String> TARGET_TYPES = Set.of("treasure", "encounter");
+
+    private final List<FlagWrite> writes = new ArrayList<>();
+    private final List<FlagTest> tests = new ArrayList<>();
+    private final List<Target> targets = new ArrayList<>();
+    private Map<Integer, List<FlagWrite>> writesByFlag;
+    private Map<Integer, List<FlagTest>> testsByFlag;
+    private Map<String, List<FlagTest>> testsByEntryPoint;
+
+    public static StoryFlagGraph get() {
+        if (DataAccess.STORY_FLAGS == null) {
+            DataAccess.STORY_FLAGS = build();
+        }
+        return DataAccess.STORY_FLAGS;
+    }
+
+    public static StoryFlagGraph build() {
+        StoryFlagGraph graph = new StoryFlagGraph();
+        ScriptCorpus.parseAll().forEach(graph::add);
+        graph.index();
+        return graph;
+    }
+
+    private void add(ScriptCorpus.ParsedScript script) {
+        ScriptCorpus.Entry entry = script.entry;
+        for (ScriptVariableAccess access : script.variableAccesses) {
+            if (access.write && isFlag(access)) {
+                writes.add(new FlagWrite(new Site(entry, access.worker, access.entryPoint, access.offset), flagOf(access), access.value));
+            }
+        }
+        for (ScriptVariableTest test : script.variableTests) {
+            if (isFlag(test.read)) {
+                Site site = new Site(entry, test.read.worker, test.read.entryPoint, test.offset);
+                tests.add(new FlagTest(site, flagOf(test.read), test.operator, test.operator != 0 ? test.value : null));
+            }
+        }
+        for (ScriptCallSite callSite : script.callSites) {
+            ScriptFunc func = ScriptFuncLib.get(callSite.func, null);
+            if (func == null || func.inputs == null) {
+                continue;
+            }
+            for (int i = 0; i < callSite.args.length && i < func.inputs.size(); i++) {
+                String type = func.inputs.get(i).type;
+                if (TARGET_TYPES.contains(type) && callSite.isConstant(i)) {
+                    targets.add(new Target(new Site(entry, callSite.worker, callSite.entryPoint, callSite.offset), type, callSite.args[i]));
+                }
+            }
+        }
+    }
+
+    private void index() {
+        Comparator<Site> bySite = Comparator.comparing((Site s) -> s.path).thenComparingInt(s -> s.offset);
+        writes.sort(Comparator.comparing(w -> w.site, bySite));
+        tests.sort(Comparator.comparing(t -> t.site, bySite));
+        targets.sort(Comparator.comparing(t -> t.site, bySite));
+        writesByFlag = writes.stream().collect(Collectors.groupingBy(w -> w.flag));
+        testsByFlag = tests.stream().collect(Collectors.groupingBy(t -> t.flag));
+        testsByEntryPoint = tests.stream().collect(Collectors.groupingBy(t -> t.site.entryPointKey()));
+    }
+
+    public List<FlagWrite> getWrites(int location, int varOffset) {
+        return writesByFlag.getOrDefault(flagKey(location, varOffset), List.of());
+    }
+
+    public List<FlagTest> getTests(int location, int varOffset) {
+        return testsByFlag.getOrDefault(flagKey(location, varOffset), List.of());
+    }
+
+    public List<Target> getTargets(String type, int value) {
+        return targets.stream().filter(t -> t.type.equals(type) && t.value == value).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the distinct flag tests made in the entry point of the site before reaching it.
+     */
+    public List<FlagTest> conditionsOf(Site site) {
+        List<FlagTest> conditions = new ArrayList<>();
+        for (FlagTest test : testsByEntryPoint.getOrDefault(site.entryPointKey(), List.of())) {
+            if (test.site.offset < site.offset && conditions.stream().noneMatch(c -> c.sameCondition(test))) {
+                conditions.add(test);
+            }
+        }
+        return conditions;
+    }
+
+    /**
+     * @return the writes of the tested flag that can make the test pass (all of them if either value is not a constant).
+     */
+    public List<FlagWrite> writersFor(FlagTest test) {
+        return writesByFlag.getOrDefault(test.flag, List.of()).stream().filter(test::acceptsWrite).collect(Collectors.toList());
+    }
+
+    /**
+     * Every script that writes a flag another script tests, mapped to those testing scripts.
+     */
+    public Map<String, Set<String>> getDependents() {
+        Map<String, Set<String>> dependents = new TreeMap<>();
+        writesByFlag.forEach((flag, flagWrites) -> {
+            List<FlagTest> flagTests = testsByFlag.getOrDefault(flag, List.of());
+            for (FlagWrite write : flagWrites) {
+                for (FlagTest test : flagTests) {
+                    if (!test.site.script.equals(write.site.script) && test.acceptsWrite(write)) {
+                        dependents.computeIfAbsent(write.site.script, k -> new TreeSet<>()).add(test.site.script);
+                    }
+                }
+            }
+        });
+        return dependents;
+    }
+
+    public String flagString(int location, int varOffset) {
+        List<String> lines = new ArrayList<>();
+        lines.add(flagLabel(flagKey(location, varOffset)));
+        List<FlagWrite> flagWrites = getWrites(location, varOffset);
+        lines.add("  Written " + flagWrites.size() + " times:");
+        flagWrites.forEach(w -> lines.add("    " + w.site + ": " + w.valueString()));
+        List<FlagTest> flagTests = getTests(location, varOffset);
+        lines.add("  Tested " + flagTests.size() + " times:");
+        flagTests.forEach(t -> lines.add("    " + t.site + ": " + t));
+        return String.join("\n", lines);
+    }
+
+    /**
+     * Follows the conditions of every place giving the treasure or starting the encounter back through the entry points
+     * writing the tested flags, up to the given depth.
+     */
+    public String prerequisitesString(String type, int value, int maxDepth) {
+        List<String> lines = new ArrayList<>();
+        List<Target> found = getTargets(type, value);
+        lines.add(targetLabel(type, value) + ": " + found.size() + " places");
+        for (Target target : found) {
+            lines.add("  " + target.site);
+            appendConditions(lines, target.site, 2, maxDepth, new HashSet<>(Set.of(target.site.entryPointKey())));
+        }
+        return String.join("\n", lines);
+    }
+
+    private void appendConditions(List<String> lines, Site site, int indent, int depthLeft, Set<String> visited) {
+        String pad = "  ".repeat(indent);
+        for (FlagTest condition : conditionsOf(site)) {
+            lines.add(pad + "requires " + condition);
+            List<FlagWrite> writers = writersFor(condition);
+            if (writers.isEmpty()) {
+                lines.add(pad + "  never set by any script");
+            }
+            for (int i = 0; i < writers.size() && i < MAX_LISTED_WRITERS; i++) {
+                FlagWrite writer = writers.get(i);
+                boolean seen = !visited.add(writer.site.entryPointKey());
+                lines.add(pad + "  " + writer.valueString() + " by " + writer.site + (seen ? " (see above)" : ""));
+                if (!seen && depthLeft > 1) {
+                    appendConditions(lines, writer.site, indent + 2, depthLeft - 1, visited);
+                }
+            }
+            if (writers.size() > MAX_LISTED_WRITERS) {
+                lines.add(pad + "  ... and " + (writers.size() - MAX_LISTED_WRITERS) + " more writes");
+            }
+        }
+    }
+
+    /**
+     * @param id a hex treasure index, a hex encounter value or an encounter name like sins04_07.
+     */
+    public static int parseTargetValue(String type, String id) {
+        if ("encounter".equals(type) && id.contains("_")) {
+            String fieldName = id.substring(0, id.lastIndexOf('_'));
+            int encounterIndex = Integer.parseInt(id.substring(id.lastIndexOf('_') + 1), 10);
+            for (Map.Entry<Integer, ScriptField> field : ScriptConstants.getEnumMap("field").entrySet()) {
+                if (fieldName.equals(field.getValue().name)) {
+                    return field.getKey() << 16 | encounterIndex;
+                }
+            }
+            throw new IllegalArgumentException("Unknown field " + fieldName);
+        }
+        return Integer.parseUnsignedInt(id, 16);
+    }
+
+    private static String targetLabel(String type, int value) {
+        if ("treasure".equals(type)) {
+            Nameable treasure = DataAccess.TREASURES.isLoaded() ? DataAccess.TREASURES.get(value) : null;
+            return "Treasure #" + value + (treasure != null ? " (" + treasure.getName() + ")" : "");
+        }
+        ScriptField field = ScriptConstants.getEnumMap("field").get(value >>> 16);
+        return "Encounter " + (field != null ? field.name + '_' + String.format("%02d", value & 0xFFFF) : String.format("%08X", value));
+    }
+
+    private static boolean isFlag(ScriptVariableAccess access) {
+        return access.location == 0 || access.location == 1;
+    }
+
+    private static int flagOf(ScriptVariableAccess access) {
+        return flagKey(access.location, access.elementOffset);
+    }
+
+    private static int flagKey(int location, int varOffset) {
+        return location << 24 | (varOffset & 0xFFFFFF);
+    }
+
+    private static String flagLabel(int flag) {
+        int location = flag >>> 24;
+        int offset = flag & 0xFFFFFF;
+        String dereference = ScriptVariable.locationToString(location) + "[" + String.format("%04X", offset) + "]";
+        ScriptField field = StackObject.enumToScriptField(location == 0 ? "saveData" : "commonVar", offset);
+        return field.name != null ? field.name + " (" + dereference + ")" : dereference;
+    }
+
+    public static class Site {
+        public final String path;
+        public final String script;
+        public final int worker;
+        public final int entryPoint;
+        public final int offset;
+
+        Site(ScriptCorpus.Entry entry, int worker, int entryPoint, int offset) {
+            this.path = entry.path;
+            this.script = entry.getId();
+            this.worker = worker;
+            this.entryPoint = entryPoint;
+            this.offset = offset;
+        }
+
+        String entryPointKey() {
+            return path + ':' + worker + ':' + entryPoint;
+        }
+
+        @Override
+        public String toString() {
+            String entry = worker >= 0 ? String.format("w%02Xe%02X", worker, entryPoint) : "-";
+            return script + " " + entry + " at " + String.format("%04X", offset);
+        }
+    }
+
+    public static class FlagWrite {
+        public final Site site;
+        public final int flag;
+        public final Integer value;
+
+        FlagWrite(Site site, int flag, Integer value) {
+            this.site = site;
+            this.flag = flag;
+            this.value = value;
+        }
+
+        String valueString() {
+            return "set to " + (value != null ? value : "?");
+        }
+    }
+
+    public static class FlagTest {
+        public final Site site;
+        public final int flag;
+        /**
+         * The comparison opcode with the flag on the left, or 0 if the flag is used as condition directly.
+         */
+        public final int operator;
+        public final Integer value;
+
+        FlagTest(Site site, int flag, int operator, Integer value) {
+            this.site = site;
+            this.flag = flag;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        boolean sameCondition(FlagTest other) {
+            return flag == other.flag && operator == other.operator && Objects.equals(value, other.value);
+        }
+
+        boolean acceptsWrite(FlagWrite write) {
+            if (write.value == null || (operator != 0 && value == null)) {
+                return true;
+            }
+            int w = write.value;
+            int t = value != null ? value : 0;
+            return switch (operator) {
+                case 0x00 -> w != 0;
+                case 0x05 -> (w & t) != 0;
+                case 0x06 -> w == t;
+                case 0x07 -> w != t;
+                case 0x08 -> Integer.compareUnsigned(w, t) > 0;
+                case 0x09 -> Integer.compareUnsigned(w, t) < 0;
+                case 0x0A -> w > t;
+                case 0x0B -> w < t;
+                case 0x0C -> Integer.compareUnsigned(w, t) >= 0;
+                case 0x0D -> Integer.compareUnsigned(w, t) <= 0;
+                case 0x0E -> w >= t;
+                case 0x0F -> w <= t;
+                default -> true;
+            };
+        }
+
+        @Override
+        public String toString() {
+            if (operator == 0) {
+                return flagLabel(flag);
+            }
+            return flagLabel(flag) + " " + ScriptConstants.COMP_OPERATORS.get(operator).name + " " + value;
+        }
+    }
+
+    public static class Target {
+        public final Site site;
+        public final String type;
+        public final int value;
+
+        Target(Site site, String type, int value) {
+            this.site = site;
+            this.type = type;
+            this.value = value;
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package main;
 
+import analysis.CrossReferenceIndex;
+import analysis.MapTransitionGraph;
+import analysis.StoryFlagGraph;
 import model.*;
 import model.spheregrid.SphereGridLayoutDataObject;
+import script.EncounterFile;
 import script.MonsterFile;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
 public abstract class DataAccess {
-    public static AbilityDataObject[] MOVES = new AbilityDataObject[0x10000];
-    public static MonsterFile[] MONSTERS = new MonsterFile[0x1000];
-    public static GearAbilityDataObject[] GEAR_ABILITIES;
-    public static KeyItemDataObject[] KEY_ITEMS;
-    public static TreasureDataObject[] TREASURES;
+    public static final IdRegistry<AbilityDataObject> MOVES = new IdRegistry<>("move", 0x0000, 0x7FFF, false);
+    public static final IdRegistry<MonsterFile> MONSTERS = new IdRegistry<>("monster", 0x1000, 0x1FFF, false);
+    public static final IdRegistry<GearAbilityDataObject> GEAR_ABILITIES = new IdRegistry<>("gearAbility", 0x8000, 0x8FFF, true);
+    public static final IdRegistry<KeyItemDataObject> KEY_ITEMS = new IdRegistry<>("keyItem", 0xA000, 0xAFFF, true);
+    public static final IdRegistry<TreasureDataObject> TREASURES = new IdRegistry<>("treasure", 0x0000, 0xFFFF, true);
     public static GearDataObject[] WEAPON_PICKUPS;
     public static GearDataObject[] BUYABLE_GEAR;
     public static GearShopDataObject[] GEAR_SHOPS;
@@ -17,86 +28,104 @@ public abstract class DataAccess {
     public static SphereGridLayoutDataObject OSG_LAYOUT;
     public static SphereGridLayoutDataObject SSG_LAYOUT;
     public static SphereGridLayoutDataObject ESG_LAYOUT;
+    public static CrossReferenceIndex CROSS_REFERENCES;
+    public static StoryFlagGraph STORY_FLAGS;
+    public static MapTransitionGraph MAP_TRANSITIONS;
+    public static final Map<String, EncounterFile> ENCOUNTERS = new ConcurrentHashMap<>();
+    private static final Map<Integer, Set<String>> ENCOUNTERS_BY_MONSTER = new ConcurrentHashMap<>();
     private final static Nameable DUMMY_OBJECT = () -> "null";
+    private static final Map<String, IdRegistry<? extends Nameable>> REGISTRIES_BY_TYPE = Map.of(
+            MOVES.getType(), MOVES,
+            MONSTERS.getType(), MONSTERS,
+            KEY_ITEMS.getType(), KEY_ITEMS,
+            TREASURES.getType(), TREASURES
+    );
+    private static final IdRegistry<?>[] REGISTRIES_BY_GROUP = {
+            MOVES, MONSTERS, MOVES, MOVES, MOVES, MOVES, MOVES, MOVES,
+            GEAR_ABILITIES, null, KEY_ITEMS, null, null, null, null, null
+    };
 
     public static Nameable getNameableObject(String type, int idx) {
-        Nameable object = switch (type) {
-            case "move" -> getMove(idx);
-            case "monster" -> getMonster(idx);
-            case "keyItem" -> getKeyItem(idx);
-            case "treasure" -> getTreasure(idx);
-            default -> DUMMY_OBJECT;
-        };
-        if (object == DUMMY_OBJECT) {
+        IdRegistry<? extends Nameable> registry = REGISTRIES_BY_TYPE.get(type);
+        if (registry == null) {
             return null;
         }
-        if (object == null) {
-            return DUMMY_OBJECT;
-        }
-        return object;
+        Nameable object = registry.get(idx);
+        return object != null ? object : DUMMY_OBJECT;
+    }
+
+    /**
+     * @return the registry whose objects are named by script values of this type, or null if there is none.
+     */
+    public static IdRegistry<? extends Nameable> getNameableRegistry(String type) {
+        return REGISTRIES_BY_TYPE.get(type);
+    }
+
+    /**
+     * Looks up a move, monster, gear ability or key item by its id alone.
+     */
+    public static Nameable getById(int id) {
+        IdRegistry<?> registry = id >= 0 && id <= 0xFFFF ? REGISTRIES_BY_GROUP[id >> 12] : null;
+        return registry != null ? (Nameable) registry.get(id) : null;
     }
 
     public static AbilityDataObject getMove(int idx) {
-        if (MOVES == null) {
-            throw new UnsupportedOperationException();
-        }
-        return MOVES[idx];
+        return MOVES.get(idx);
     }
 
     public static GearAbilityDataObject getGearAbility(int idx) {
         if (idx == 0x00FF) {
             return null;
         }
-        if (GEAR_ABILITIES == null) {
-            throw new UnsupportedOperationException();
-        }
-        int actual = idx - 0x8000;
-        if (actual >= 0 && actual < GEAR_ABILITIES.length) {
-            return GEAR_ABILITIES[actual];
-        } else {
-            return null;
-        }
+        return GEAR_ABILITIES.get(idx);
     }
 
     public static KeyItemDataObject getKeyItem(int idx) {
-        if (KEY_ITEMS == null) {
-            throw new UnsupportedOperationException();
-        }
-        int actual = idx - 0xA000;
-        if (actual >= 0 && actual < KEY_ITEMS.length) {
-            return KEY_ITEMS[actual];
-        } else {
-            return null;
-        }
+        return KEY_ITEMS.get(idx);
     }
 
     public static TreasureDataObject getTreasure(int idx) {
-        if (TREASURES == null) {
-            throw new UnsupportedOperationException();
-        }
-        return TREASURES[idx];
+        return TREASURES.get(idx);
     }
 
     public static void addMonsterLocalizations(MonsterStatDataObject[] localizations) {
         if (localizations == null) {
             return;
         }
-        for (int i = 0; i < localizations.length && i < MONSTERS.length; i++) {
-            if (MONSTERS[i] != null) {
-                MONSTERS[i].monsterLocalizationData = localizations[i];
+        for (int i = 0; i < localizations.length; i++) {
+            MonsterFile monster = MONSTERS.isValidId(0x1000 + i) ? MONSTERS.get(0x1000 + i) : null;
+            if (monster != null) {
+                monster.monsterLocalizationData = localizations[i];
             }
         }
     }
 
-    public static MonsterFile getMonster(int idx) {
-        if (MONSTERS == null) {
-            throw new UnsupportedOperationException();
+    public static void putEncounter(String id, EncounterFile encounter) {
+        EncounterFile previous = ENCOUNTERS.put(id, encounter);
+        if (previous != null && previous.formation != null) {
+            for (int monster : previous.formation.getMonsters()) {
+                Set<String> ids = ENCOUNTERS_BY_MONSTER.get(monster);
+                if (ids != null) {
+                    ids.remove(id);
+                }
+            }
         }
-        int actual = idx - 0x1000;
-        if (actual >= 0 && actual < MONSTERS.length) {
-            return MONSTERS[actual];
-        } else {
-            return null;
+        if (encounter.formation != null) {
+            for (int monster : encounter.formation.getMonsters()) {
+                ENCOUNTERS_BY_MONSTER.computeIfAbsent(monster, k -> new ConcurrentSkipListSet<>()).add(id);
+            }
         }
     }
+
+    /**
+     * @return the ids of all encounters whose formation contains the monster, sorted.
+     */
+    public static List<String> getEncountersWithMonster(int monsterIdx) {
+        Set<String> ids = ENCOUNTERS_BY_MONSTER.get(monsterIdx);
+        return ids != null ? new ArrayList<>(ids) : List.of();
+    }
+
+    public static MonsterFile getMonster(int idx) {
+        return MONSTERS.get(idx);
+    }
 }
@@ -2,6 +2,7 @@ package main;
 
 import model.*;
 import model.spheregrid.SphereGridLayoutDataObject;
+import reading.ByteCursor;
 import reading.Chunk;
 import reading.ChunkedFileHelper;
 import reading.DataFileReader;
@@ -47,34 +48,35 @@ public class DataReadingManager {
 
     public static void readAndPrepareDataModel() {
         prepareAbilities();
-        DataAccess.GEAR_ABILITIES = readGearAbilitiesFromFile(PATH_LOCALIZED_KERNEL + "a_ability.bin", false);
+        DataAccess.GEAR_ABILITIES.replaceAll(0x8000, readGearAbilitiesFromFile(PATH_LOCALIZED_KERNEL + "a_ability.bin", false));
         DataAccess.BUYABLE_GEAR = readWeaponPickups(PATH_ORIGINALS_KERNEL + "shop_arms.bin", false);
         DataAccess.WEAPON_PICKUPS = readWeaponPickups(PATH_ORIGINALS_KERNEL + "buki_get.bin", false);
-        DataAccess.KEY_ITEMS = readKeyItemsFromFile(PATH_LOCALIZED_KERNEL + "important.bin", false);
+        DataAccess.KEY_ITEMS.replaceAll(0xA000, readKeyItemsFromFile(PATH_LOCALIZED_KERNEL + "important.bin", false));
         DataAccess.GEAR_SHOPS = readWeaponShops(PATH_ORIGINALS_KERNEL + "arms_shop.bin", false);
         DataAccess.ITEM_SHOPS = readItemShops(PATH_ORIGINALS_KERNEL + "item_shop.bin", false);
-        DataAccess.TREASURES = readTreasures(PATH_ORIGINALS_KERNEL + "takara.bin", false);
+        DataAccess.TREASURES.replaceAll(0, readTreasures(PATH_ORIGINALS_KERNEL + "takara.bin", false));
         readMonsterFile(PATH_MONSTER_FOLDER, false);
         DataAccess.addMonsterLocalizations(readMonsterLocalizations(false));
+        readAllEncounters();
         DataAccess.OSG_LAYOUT = readSphereGridLayout(PATH_ABMAP + "dat01.dat", PATH_ABMAP + "dat09.dat", false);
         DataAccess.SSG_LAYOUT = readSphereGridLayout(PATH_ABMAP + "dat02.dat", PATH_ABMAP + "dat10.dat", false);
         DataAccess.ESG_LAYOUT = readSphereGridLayout(PATH_ABMAP + "dat03.dat", PATH_ABMAP + "dat11.dat", false);
     }
 
     public static void prepareAbilities() {
-        prepareAbilitiesFromFile(PATH_SKILL_TABLE_3, 3);
-        prepareAbilitiesFromFile(PATH_SKILL_TABLE_4, 4);
-        prepareAbilitiesFromFile(PATH_SKILL_TABLE_6, 6);
-        prepareAbilitiesFromFile(PATH_SKILL_TABLE_2, 2);
+        prepareAbilitiesFromFile(PATH_SKILL_TABLE_3, 3, false);
+        prepareAbilitiesFromFile(PATH_SKILL_TABLE_4, 4, false);
+        prepareAbilitiesFromFile(PATH_SKILL_TABLE_6, 6, false);
+        prepareAbilitiesFromFile(PATH_SKILL_TABLE_2, 2, false);
     }
 
-    private static void prepareAbilitiesFromFile(String filename, int group) {
-        AbilityDataObject[] abilities = readAbilitiesFromFile(filename, group, false);
+    public static void prepareAbilitiesFromFile(String filename, int group, boolean print) {
+        AbilityDataObject[] abilities = readAbilitiesFromFile(filename, group, print);
         if (abilities == null) {
             System.err.println("Failed to load abilities from " + filename + " (group " + group + ')');
             return;
         }
-        System.arraycopy(abilities, 0, DataAccess.MOVES, 0x1000 * group, abilities.length);
+        DataAccess.MOVES.replaceGroup(group, abilities);
     }
 
     public static AbilityDataObject[] readAbilitiesFromFile(String filename, int group, boolean print) {
@@ -150,7 +152,7 @@ public class DataReadingManager {
         MonsterFile monsterFile = new MonsterFile(chunks);
         try {
             int idx = Integer.parseInt(filename.substring(filename.length() - 7, filename.length() - 4), 10);
-            DataAccess.MONSTERS[idx] = monsterFile;
+            DataAccess.MONSTERS.put(0x1000 + idx, monsterFile);
         } catch (RuntimeException e) {
             System.err.println("Got exception while storing monster object (" + filename + ")");
             e.printStackTrace();
@@ -173,11 +175,6 @@ public class DataReadingManager {
         } else if (!(filename.endsWith(".bin") || (ALLOW_DAT_FILES && filename.endsWith(".dat")))) {
             return null;
         }
-        List<String> actualStrings = strings;
-        if (strings == null) {
-            String stringFilePath = filename.replace(ORIGINALS_FOLDER, LOCALIZED_FOLDER);
-            actualStrings = StringHelper.readStringFile(stringFilePath, false);
-        }
         List<Integer> knownLengths = new ArrayList<>();
         knownLengths.add(null);
         knownLengths.add(null);
@@ -185,18 +182,41 @@ public class DataReadingManager {
         List<Chunk> chunks = ChunkedFileHelper.readGenericChunkedFile(filename, print, knownLengths, true);
         EncounterFile encounterFile = new EncounterFile(chunks);
         try {
-            // DataAccess.ENCOUNTERS[idx] = encounterFile;
+            String id = filename.substring(filename.lastIndexOf('/') + 1, filename.lastIndexOf('.'));
+            DataAccess.putEncounter(id, encounterFile);
         } catch (RuntimeException e) {
             System.err.println("Got exception while storing encounter object (" + filename + ")");
             e.printStackTrace();
         }
         if (print) {
+            List<String> actualStrings = strings;
+            if (strings == null) {
+                String stringFilePath = filename.replace(ORIGINALS_FOLDER, LOCALIZED_FOLDER);
+                actualStrings = StringHelper.readStringFile(stringFilePath, false);
+            }
             encounterFile.parseScript(actualStrings);
             System.out.println(encounterFile);
         }
         return encounterFile;
     }
 
+    /**
+     * Reads every battle file in parallel into DataAccess.ENCOUNTERS without disassembling the scripts.
+     */
+    public static void readAllEncounters() {
+        String[] contents = FileAccessorWithMods.getRealFile(PATH_ORIGINALS_ENCOUNTER).list();
+        if (contents == null) {
+            return;
+        }
+        Arrays.stream(contents).parallel().filter(sf -> !sf.startsWith(".")).forEach(sf -> {
+            try {
+                readEncounterFile(PATH_ORIGINALS_ENCOUNTER + sf, false, null);
+            } catch (RuntimeException e) {
+                System.err.println("Got exception while reading encounter " + sf + ": " + e);
+            }
+        });
+    }
+
     public static EventFile readEventFile(String filename, final boolean print, final List<String> strings) {
         File file = FileAccessorWithMods.getRealFile(filename);
         if (file.isDirectory()) {
@@ -322,7 +342,7 @@ public class DataReadingManager {
     public static SphereGridLayoutDataObject readSphereGridLayout(String layout, String contents, boolean print) {
         int[] fullContentBytes = ChunkedFileHelper.fileToBytes(FileAccessorWithMods.resolveFile(contents, false));
         int[] contentBytes = fullContentBytes != null ? Arrays.copyOfRange(fullContentBytes, 0x8, fullContentBytes.length) : null;
-        int[] layoutBytes = ChunkedFileHelper.fileToBytes(FileAccessorWithMods.resolveFile(layout, false));
+        ByteCursor layoutBytes = ChunkedFileHelper.fileToCursor(FileAccessorWithMods.resolveFile(layout, false));
         SphereGridLayoutDataObject obj = new SphereGridLayoutDataObject(layoutBytes, contentBytes);
         if (print) {
             System.out.println(obj);
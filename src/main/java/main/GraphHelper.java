@@ -0,0 +1,77 @@
+package main;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Algorithms over graphs in CSR form: the edges of node n are adjacency[adjacencyStart[n]] up to adjacency[adjacencyStart[n + 1]].
+ */
+public abstract class GraphHelper {
+    /**
+     * Iterative Tarjan, so long chains do not overflow the call stack.
+     * @param edgeFilter tells by edge index which edges to follow, or null to follow all of them.
+     * @return the component of every node. Components are numbered in reverse topological order,
+     * so every edge leads to a component with the same or a lower number.
+     */
+    public static int[] stronglyConnectedComponents(int[] adjacencyStart, int[] adjacency, IntPredicate edgeFilter) {
+        int nodeCount = adjacencyStart.length - 1;
+        int[] components = new int[nodeCount];
+        int[] indices = new int[nodeCount];
+        int[] lowLinks = new int[nodeCount];
+        Arrays.fill(indices, -1);
+        boolean[] onStack = new boolean[nodeCount];
+        int[] stack = new int[nodeCount];
+        int stackSize = 0;
+        int[] callNodes = new int[nodeCount];
+        int[] callEdges = new int[nodeCount];
+        int index = 0;
+        int count = 0;
+        for (int root = 0; root < nodeCount; root++) {
+            if (indices[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callNodes[0] = root;
+            callEdges[0] = adjacencyStart[root];
+            indices[root] = lowLinks[root] = index++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int node = callNodes[depth];
+                if (callEdges[depth] < adjacencyStart[node + 1]) {
+                    int edge = callEdges[depth]++;
+                    if (edgeFilter != null && !edgeFilter.test(edge)) {
+                        continue;
+                    }
+                    int next = adjacency[edge];
+                    if (indices[next] < 0) {
+                        indices[next] = lowLinks[next] = index++;
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                        depth++;
+                        callNodes[depth] = next;
+                        callEdges[depth] = adjacencyStart[next];
+                    } else if (onStack[next]) {
+                        lowLinks[node] = Math.min(lowLinks[node], indices[next]);
+                    }
+                    continue;
+                }
+                if (lowLinks[node] == indices[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        components[member] = count;
+                    } while (member != node);
+                    count++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callNodes[depth];
+                    lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[node]);
+                }
+            }
+        }
+        return components;
+    }
+}
@@ -0,0 +1,251 @@
+package main;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Objects keyed by the game's 16-bit ids (e.g. 2000h-20FFh for items, 1000h-1FFFh for monsters).
+ * Ids are split into groups by their high nibble; each group stores its objects densely and finds them
+ * through an open-addressed table of packed (offset + 1) << 16 | slot ints, so only the ids in use take up memory.
+ */
+public class IdRegistry<T> {
+    private static final int GROUP_SHIFT = 12;
+    private static final int OFFSET_MASK = 0xFFF;
+    private static final int MAX_ID = 0xFFFF;
+
+    private final String type;
+    private final int minId;
+    private final int maxId;
+    private final boolean requireLoaded;
+    private final Group[] groups = new Group[(MAX_ID >> GROUP_SHIFT) + 1];
+    private volatile boolean loaded;
+
+    /**
+     * @param requireLoaded whether lookups throw {@link UnsupportedOperationException} before anything was loaded.
+     */
+    public IdRegistry(String type, int minId, int maxId, boolean requireLoaded) {
+        if (minId < 0 || maxId > MAX_ID || minId > maxId) {
+            throw new IllegalArgumentException("Invalid id range " + String.format("%04X-%04X", minId, maxId) + " for " + type);
+        }
+        this.type = type;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.requireLoaded = requireLoaded;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isValidId(int id) {
+        return id >= minId && id <= maxId;
+    }
+
+    public T get(int id) {
+        if (requireLoaded && !loaded) {
+            throw new UnsupportedOperationException(type + " not loaded");
+        }
+        if (!isValidId(id)) {
+            return null;
+        }
+        Group group = groups[id >> GROUP_SHIFT];
+        return group != null ? group.get(id & OFFSET_MASK) : null;
+    }
+
+    public void put(int id, T value) {
+        checkId(id);
+        Group group = groups[id >> GROUP_SHIFT];
+        if (group == null) {
+            if (value == null) {
+                return;
+            }
+            group = new Group();
+            groups[id >> GROUP_SHIFT] = group;
+        }
+        group.put(id & OFFSET_MASK, value);
+        loaded = true;
+    }
+
+    /**
+     * Stores the values at consecutive ids starting at firstId; null entries remove existing objects.
+     */
+    public void putAll(int firstId, T[] values) {
+        checkId(firstId);
+        checkId(firstId + values.length - 1);
+        for (int i = 0; i < values.length; i++) {
+            put(firstId + i, values[i]);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Replaces all contents with the values at consecutive ids starting at firstId, or unloads the registry if values is null.
+     */
+    public void replaceAll(int firstId, T[] values) {
+        Arrays.fill(groups, null);
+        loaded = false;
+        if (values != null) {
+            putAll(firstId, values);
+        }
+    }
+
+    /**
+     * Replaces the contents of one id group (id >> 12) with the values at consecutive ids from the start of that group.
+     */
+    public void replaceGroup(int group, T[] values) {
+        if (values.length > OFFSET_MASK + 1) {
+            throw new IllegalArgumentException(values.length + " " + type + " entries do not fit into group " + group);
+        }
+        int firstId = group << GROUP_SHIFT;
+        checkId(firstId);
+        Group replacement = new Group();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                checkId(firstId + i);
+                replacement.put(i, values[i]);
+            }
+        }
+        groups[group] = replacement;
+        loaded = true;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Group group : groups) {
+            if (group != null) {
+                size += group.count;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the highest id in use, or -1 if the registry is empty.
+     */
+    public int getHighestId() {
+        int[] ids = ids();
+        return ids.length > 0 ? ids[ids.length - 1] : -1;
+    }
+
+    /**
+     * @return all ids in use, ascending.
+     */
+    public int[] ids() {
+        int[] ids = new int[size()];
+        int count = 0;
+        for (int g = 0; g < groups.length; g++) {
+            Group group = groups[g];
+            if (group != null) {
+                count = group.collectIds(ids, count, g << GROUP_SHIFT);
+            }
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Calls the action for every object in ascending id order.
+     */
+    public void forEach(ObjIntConsumer<? super T> action) {
+        for (int id : ids()) {
+            T value = get(id);
+            if (value != null) {
+                action.accept(value, id);
+            }
+        }
+    }
+
+    private void checkId(int id) {
+        if (!isValidId(id)) {
+            throw new IllegalArgumentException(String.format("%04X", id) + " is outside the " + type + " range " + String.format("%04X-%04X", minId, maxId));
+        }
+    }
+
+    private static class Group {
+        private Object[] values = new Object[8];
+        private int[] table = new int[16];
+        private int slots;
+        private int count;
+
+        @SuppressWarnings("unchecked")
+        <T> T get(int offset) {
+            int slot = find(offset);
+            return slot >= 0 ? (T) values[slot] : null;
+        }
+
+        void put(int offset, Object value) {
+            int slot = find(offset);
+            if (slot >= 0) {
+                if (values[slot] == null && value != null) {
+                    count++;
+                } else if (values[slot] != null && value == null) {
+                    count--;
+                }
+                values[slot] = value;
+                return;
+            }
+            if (value == null) {
+                return;
+            }
+            if ((slots + 1) * 2 > table.length) {
+                rehash(table.length * 2);
+            }
+            if (slots == values.length) {
+                values = Arrays.copyOf(values, slots * 2);
+            }
+            values[slots] = value;
+            insert(table, offset, slots);
+            slots++;
+            count++;
+        }
+
+        int collectIds(int[] ids, int start, int base) {
+            int end = start;
+            for (int entry : table) {
+                if (entry != 0 && values[entry & 0xFFFF] != null) {
+                    ids[end++] = base + (entry >>> 16) - 1;
+                }
+            }
+            Arrays.sort(ids, start, end);
+            return end;
+        }
+
+        private int find(int offset) {
+            int key = offset + 1;
+            int mask = table.length - 1;
+            for (int i = hash(offset) & mask; table[i] != 0; i = (i + 1) & mask) {
+                if (table[i] >>> 16 == key) {
+                    return table[i] & 0xFFFF;
+                }
+            }
+            return -1;
+        }
+
+        private void rehash(int capacity) {
+            int[] rehashed = new int[capacity];
+            for (int entry : table) {
+                if (entry != 0) {
+                    insert(rehashed, (entry >>> 16) - 1, entry & 0xFFFF);
+                }
+            }
+            table = rehashed;
+        }
+
+        private static void insert(int[] table, int offset, int slot) {
+            int mask = table.length - 1;
+            int i = hash(offset) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = ((offset + 1) << 16) | slot;
+        }
+
+        private static int hash(int offset) {
+            int h = offset * 0x9E3779B1;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -1,13 +1,32 @@
 package main;
 
 import reading.FileAccessorWithMods;
+import analysis.CrossReferenceIndex;
+import analysis.FuncArgumentProfile;
+import analysis.GearDropSimulator;
+import analysis.MapTransitionGraph;
+import analysis.ModDiff;
+import analysis.MonsterAiSimulator;
+import analysis.ScriptSiteIndex;
+import analysis.ScriptStatistics;
+import analysis.SpoilsCalculator;
+import analysis.StoryFlagGraph;
+import analysis.SphereGridRouteOptimizer;
+import model.spheregrid.SphereGridGraph;
+import model.spheregrid.SphereGridLayoutDataObject;
+import model.spheregrid.SphereGridRenderer;
+import script.EventFile;
 import script.MonsterFile;
+import writing.DataWritingManager;
 
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static main.DataReadingManager.*;
 
@@ -29,6 +48,24 @@ public class Main {
     private static final String MODE_PARSE_EVENT = "PARSE_EVENT";
     private static final String MODE_PARSE_MONSTER = "PARSE_MONSTER";
     private static final String MODE_READ_SPHERE_GRID_LAYOUT = "READ_SPHERE_GRID_LAYOUT";
+    private static final String MODE_SIMULATE_MONSTER_AI = "SIMULATE_MONSTER_AI";
+    private static final String MODE_WATCH = "WATCH";
+    private static final String MODE_OPTIMIZE_SPHERE_GRID = "OPTIMIZE_SPHERE_GRID";
+    private static final String MODE_XREF = "XREF";
+    private static final String MODE_MONSTER_ENCOUNTERS = "MONSTER_ENCOUNTERS";
+    private static final String MODE_AREA_SPOILS = "AREA_SPOILS";
+    private static final String MODE_SIMULATE_GEAR_DROPS = "SIMULATE_GEAR_DROPS";
+    private static final String MODE_VERIFY_ROUNDTRIP = "VERIFY_ROUNDTRIP";
+    private static final String MODE_RENDER_SPHERE_GRID = "RENDER_SPHERE_GRID";
+    private static final String MODE_DIFF = "DIFF";
+    private static final String MODE_STATS = "STATS";
+    private static final String MODE_FUNC_ARGS = "FUNC_ARGS";
+    private static final String MODE_WHO_CALLS = "WHO_CALLS";
+    private static final String MODE_WHO_WRITES = "WHO_WRITES";
+    private static final String MODE_STORY_FLAG = "STORY_FLAG";
+    private static final String MODE_PREREQUISITES = "PREREQUISITES";
+    private static final String MODE_MAP_TRANSITIONS = "MAP_TRANSITIONS";
+    private static final String MODE_SIGNAL_GRAPH = "SIGNAL_GRAPH";
 
     public static void main(String[] args) {
         String pathRoot = args[0];
@@ -71,6 +108,59 @@ public class Main {
                     }
                 }
                 break;
+            case MODE_SIMULATE_MONSTER_AI:
+                int turns = Math.max(1, Integer.parseInt(realArgs.get(0), 10));
+                for (String arg : realArgs.subList(1, realArgs.size())) {
+                    int idx = Integer.parseInt(arg, 10);
+                    int monsterIdx = idx + 0x1000;
+                    MonsterFile monster = DataAccess.getMonster(monsterIdx);
+                    if (monster == null) {
+                        System.err.println("Monster with idx " + arg + " not found");
+                        continue;
+                    }
+                    MonsterAiSimulator simulator = new MonsterAiSimulator(monster);
+                    if (!simulator.hasOnTurnScript()) {
+                        System.err.println("Monster with idx " + arg + " has no onTurn script");
+                        continue;
+                    }
+                    System.out.println("Simulating monster #" + arg + " [" + String.format("%04X", monsterIdx) + "h]");
+                    System.out.println(simulator.simulate(turns, monsterIdx));
+                }
+                break;
+            case MODE_MONSTER_ENCOUNTERS:
+                for (String arg : realArgs) {
+                    int monsterIdx = Integer.parseInt(arg, 10) + 0x1000;
+                    MonsterFile monster = DataAccess.getMonster(monsterIdx);
+                    List<String> encounters = DataAccess.getEncountersWithMonster(monsterIdx);
+                    System.out.println((monster != null ? monster.getName() : "null") + " [" + String.format("%04X", monsterIdx) + "h]: " + encounters.size() + " encounters");
+                    for (String id : encounters) {
+                        System.out.println("  " + id + ": " + DataAccess.ENCOUNTERS.get(id).formation.compactString());
+                    }
+                }
+                break;
+            case MODE_AREA_SPOILS:
+                SpoilsCalculator spoilsCalculator = new SpoilsCalculator();
+                for (String prefix : realArgs) {
+                    System.out.println(spoilsCalculator.getAreaYield(prefix));
+                }
+                break;
+            case MODE_SIMULATE_GEAR_DROPS:
+                int drops = Math.max(1, Integer.parseInt(realArgs.get(0), 10));
+                for (String arg : realArgs.subList(1, realArgs.size())) {
+                    int monsterIdx = Integer.parseInt(arg, 10) + 0x1000;
+                    MonsterFile monster = DataAccess.getMonster(monsterIdx);
+                    if (monster == null) {
+                        System.err.println("Monster with idx " + arg + " not found");
+                        continue;
+                    }
+                    GearDropSimulator simulator = new GearDropSimulator(monster);
+                    if (!simulator.dropsGear()) {
+                        System.err.println("Monster with idx " + arg + " does not drop gear");
+                        continue;
+                    }
+                    System.out.println(simulator.simulate(drops, monsterIdx));
+                }
+                break;
             case MODE_PARSE_ENCOUNTER:
                 for (String filename : realArgs) {
                     readEncounterFull(filename, true);
@@ -124,6 +214,71 @@ public class Main {
             case MODE_READ_SPHERE_GRID_LAYOUT:
                 readSphereGridLayout(realArgs.get(0), realArgs.get(1), true);
                 break;
+            case MODE_WATCH:
+                ModWatcher.watch();
+                break;
+            case MODE_VERIFY_ROUNDTRIP:
+                DataWritingManager.verifyRoundTrips();
+                break;
+            case MODE_OPTIMIZE_SPHERE_GRID:
+                optimizeSphereGrid(realArgs);
+                break;
+            case MODE_STATS:
+                System.out.println(ScriptStatistics.ofCorpus());
+                break;
+            case MODE_FUNC_ARGS:
+                List<Integer> funcs = realArgs.stream().map(arg -> Integer.parseInt(arg, 16)).collect(Collectors.toList());
+                System.out.println(FuncArgumentProfile.ofCorpus(funcs));
+                break;
+            case MODE_WHO_CALLS:
+                Integer[] argFilter = realArgs.subList(1, realArgs.size()).stream().map(arg -> "*".equals(arg) ? null : Integer.parseUnsignedInt(arg, 16)).toArray(Integer[]::new);
+                System.out.println(ScriptSiteIndex.get().callsString(Integer.parseInt(realArgs.get(0), 16), argFilter));
+                break;
+            case MODE_WHO_WRITES:
+                ScriptSiteIndex siteIndex = ScriptSiteIndex.get();
+                for (int i = 0; i + 1 < realArgs.size(); i += 2) {
+                    System.out.println(siteIndex.writesString(ScriptSiteIndex.parseLocation(realArgs.get(i)), Integer.parseInt(realArgs.get(i + 1), 16)));
+                }
+                break;
+            case MODE_STORY_FLAG:
+                StoryFlagGraph flagGraph = StoryFlagGraph.get();
+                for (int i = 0; i + 1 < realArgs.size(); i += 2) {
+                    System.out.println(flagGraph.flagString(ScriptSiteIndex.parseLocation(realArgs.get(i)), Integer.parseInt(realArgs.get(i + 1), 16)));
+                }
+                break;
+            case MODE_PREREQUISITES:
+                String targetType = realArgs.get(0).toLowerCase();
+                int maxDepth = realArgs.size() > 2 ? Integer.parseInt(realArgs.get(2), 10) : 3;
+                System.out.println(StoryFlagGraph.get().prerequisitesString(targetType, StoryFlagGraph.parseTargetValue(targetType, realArgs.get(1)), maxDepth));
+                break;
+            case MODE_MAP_TRANSITIONS:
+                MapTransitionGraph mapGraph = MapTransitionGraph.get();
+                System.out.println(mapGraph.summaryString());
+                for (int i = 0; i + 1 < realArgs.size(); i += 2) {
+                    System.out.println(mapGraph.pathString(mapGraph.parseMap(realArgs.get(i)), mapGraph.parseMap(realArgs.get(i + 1))));
+                }
+                break;
+            case MODE_SIGNAL_GRAPH:
+                for (String event : realArgs) {
+                    EventFile eventFile = readEventFull(event, false);
+                    if (eventFile != null && eventFile.eventScript != null) {
+                        eventFile.parseScript(null);
+                        System.out.println("Event " + event + ": " + eventFile.eventScript.getSignalGraph());
+                    }
+                }
+                break;
+            case MODE_DIFF:
+                ModDiff.printDiffs(realArgs);
+                break;
+            case MODE_RENDER_SPHERE_GRID:
+                renderSphereGrid(realArgs);
+                break;
+            case MODE_XREF:
+                CrossReferenceIndex index = CrossReferenceIndex.get();
+                for (String arg : realArgs) {
+                    System.out.println(index.referencesString(Integer.parseInt(arg, 16)));
+                }
+                break;
             case MODE_READ_STRING_FILE:
                 for (String filename : realArgs) {
                     StringHelper.readStringFile(filename, true);
@@ -134,6 +289,63 @@ public class Main {
         }
     }
 
+    private static void renderSphereGrid(List<String> args) {
+        SphereGridLayoutDataObject layout = switch (args.get(0).toUpperCase()) {
+            case "OSG" -> DataAccess.OSG_LAYOUT;
+            case "SSG" -> DataAccess.SSG_LAYOUT;
+            case "ESG" -> DataAccess.ESG_LAYOUT;
+            default -> null;
+        };
+        if (layout == null) {
+            System.err.println("No sphere grid layout " + args.get(0));
+            return;
+        }
+        File file = new File(args.get(1));
+        SphereGridRenderer renderer = new SphereGridRenderer(layout);
+        try {
+            if (file.getName().toLowerCase().endsWith(".svg")) {
+                renderer.writeSvg(file);
+            } else {
+                renderer.writePng(file, args.size() > 2 ? Double.parseDouble(args.get(2)) : 1.0);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static void optimizeSphereGrid(List<String> args) {
+        long budgetMillis = Long.parseLong(args.get(0), 10);
+        int[] starts = Arrays.stream(args.get(1).split(",")).mapToInt(s -> Integer.parseInt(s, 10)).toArray();
+        int[] contents = args.subList(2, args.size()).stream().mapToInt(s -> Integer.parseInt(s, 16)).toArray();
+        String[] names = { "Original", "Standard", "Expert" };
+        SphereGridLayoutDataObject[] layouts = { DataAccess.OSG_LAYOUT, DataAccess.SSG_LAYOUT, DataAccess.ESG_LAYOUT };
+        SphereGridRouteOptimizer[] optimizers = new SphereGridRouteOptimizer[layouts.length];
+        int maxNodeCount = 0;
+        for (int i = 0; i < layouts.length; i++) {
+            if (layouts[i] != null) {
+                optimizers[i] = new SphereGridRouteOptimizer(layouts[i].getGraph(), SphereGridGraph.ALL_LOCKS);
+                maxNodeCount = Math.max(maxNodeCount, layouts[i].getGraph().getNodeCount());
+            }
+        }
+        for (int start : starts) {
+            if (start < 0 || start >= maxNodeCount) {
+                throw new IllegalArgumentException("Start node " + start + " is not on any loaded sphere grid (" + maxNodeCount + " nodes at most)");
+            }
+        }
+        String[] results = IntStream.range(0, layouts.length * starts.length)
+                .parallel()
+                .mapToObj(job -> {
+                    SphereGridRouteOptimizer optimizer = optimizers[job / starts.length];
+                    int start = starts[job % starts.length];
+                    if (optimizer == null || start >= layouts[job / starts.length].getGraph().getNodeCount()) {
+                        return null;
+                    }
+                    return names[job / starts.length] + " Sphere Grid " + optimizer.optimize(start, contents, budgetMillis);
+                })
+                .toArray(String[]::new);
+        Arrays.stream(results).filter(Objects::nonNull).forEach(System.out::println);
+    }
+
     private static void writeGrep(String str) {
         final StringBuilder search = new StringBuilder("grep -r \"");
         str.chars().map(StringHelper::charToByte).forEach(bc -> search.append("\\x").append(Integer.toHexString(bc)));
@@ -0,0 +1,186 @@
+package main;
+
+import reading.FileAccessorWithMods;
+import script.MonsterFile;
+import script.ScriptCache;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static main.DataReadingManager.*;
+
+/**
+ * Keeps the data model loaded and reloads only the objects backed by game or mod files that changed on disk.
+ */
+public abstract class ModWatcher {
+    private static final long DEBOUNCE_MILLIS = 50;
+
+    private static final Map<WatchKey, Path> WATCHED_FOLDERS = new HashMap<>();
+    private static WatchService watchService;
+    private static Path gameFilesRoot;
+    private static Path modsRoot;
+
+    public static void watch() {
+        gameFilesRoot = Paths.get(FileAccessorWithMods.GAME_FILES_ROOT).toAbsolutePath().normalize();
+        modsRoot = gameFilesRoot.resolve(FileAccessorWithMods.MODS_FOLDER).normalize();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerRecursively(gameFilesRoot.resolve(PATH_FFX_ROOT));
+            registerRecursively(modsRoot);
+        } catch (IOException e) {
+            System.err.println("Failed to start watching files: " + e.getLocalizedMessage());
+            return;
+        }
+        System.out.println("Watching " + WATCHED_FOLDERS.size() + " folders for changes");
+        try {
+            while (true) {
+                Set<String> changed = new LinkedHashSet<>();
+                collectChanges(watchService.take(), changed);
+                WatchKey next;
+                while ((next = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collectChanges(next, changed);
+                }
+                long start = System.nanoTime();
+                int reloaded = 0;
+                for (String path : changed) {
+                    if (reload(path)) {
+                        reloaded++;
+                    }
+                }
+                if (reloaded > 0) {
+                    DataAccess.CROSS_REFERENCES = null;
+                    DataAccess.STORY_FLAGS = null;
+                    if (DataAccess.MAP_TRANSITIONS != null) {
+                        DataAccess.MAP_TRANSITIONS.refresh();
+                    }
+                }
+                if (reloaded > 0) {
+                    System.out.println("Reloaded " + reloaded + " file(s) in " + (System.nanoTime() - start) / 1000000 + "ms");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ignored) {}
+    }
+
+    public static boolean reload(String path) {
+        if (path.equals(PATH_SKILL_TABLE_3)) {
+            prepareAbilitiesFromFile(path, 3, true);
+        } else if (path.equals(PATH_SKILL_TABLE_4)) {
+            prepareAbilitiesFromFile(path, 4, true);
+        } else if (path.equals(PATH_SKILL_TABLE_6)) {
+            prepareAbilitiesFromFile(path, 6, true);
+        } else if (path.equals(PATH_SKILL_TABLE_2)) {
+            prepareAbilitiesFromFile(path, 2, true);
+        } else if (path.equals(PATH_LOCALIZED_KERNEL + "a_ability.bin")) {
+            DataAccess.GEAR_ABILITIES.replaceAll(0x8000, readGearAbilitiesFromFile(path, true));
+        } else if (path.equals(PATH_ORIGINALS_KERNEL + "shop_arms.bin")) {
+            DataAccess.BUYABLE_GEAR = readWeaponPickups(path, true);
+        } else if (path.equals(PATH_ORIGINALS_KERNEL + "buki_get.bin")) {
+            DataAccess.WEAPON_PICKUPS = readWeaponPickups(path, true);
+        } else if (path.equals(PATH_LOCALIZED_KERNEL + "important.bin")) {
+            DataAccess.KEY_ITEMS.replaceAll(0xA000, readKeyItemsFromFile(path, true));
+        } else if (path.equals(PATH_ORIGINALS_KERNEL + "arms_shop.bin")) {
+            DataAccess.GEAR_SHOPS = readWeaponShops(path, true);
+        } else if (path.equals(PATH_ORIGINALS_KERNEL + "item_shop.bin")) {
+            DataAccess.ITEM_SHOPS = readItemShops(path, true);
+        } else if (path.equals(PATH_ORIGINALS_KERNEL + "takara.bin")) {
+            DataAccess.TREASURES.replaceAll(0, readTreasures(path, true));
+        } else if (path.startsWith(PATH_LOCALIZED_KERNEL + "monster") && path.endsWith(".bin")) {
+            DataAccess.addMonsterLocalizations(readMonsterLocalizations(true));
+        } else if (path.equals(PATH_ABMAP + "dat01.dat") || path.equals(PATH_ABMAP + "dat09.dat")) {
+            DataAccess.OSG_LAYOUT = readSphereGridLayout(PATH_ABMAP + "dat01.dat", PATH_ABMAP + "dat09.dat", true);
+        } else if (path.equals(PATH_ABMAP + "dat02.dat") || path.equals(PATH_ABMAP + "dat10.dat")) {
+            DataAccess.SSG_LAYOUT = readSphereGridLayout(PATH_ABMAP + "dat02.dat", PATH_ABMAP + "dat10.dat", true);
+        } else if (path.equals(PATH_ABMAP + "dat03.dat") || path.equals(PATH_ABMAP + "dat11.dat")) {
+            DataAccess.ESG_LAYOUT = readSphereGridLayout(PATH_ABMAP + "dat03.dat", PATH_ABMAP + "dat11.dat", true);
+        } else if (path.startsWith(PATH_MONSTER_FOLDER)) {
+            return reloadMonster(path);
+        } else if (path.startsWith(PATH_ORIGINALS_ENCOUNTER) && path.endsWith(".bin")) {
+            return readEncounterFile(path, true, null) != null;
+        } else if (path.startsWith(PATH_LOCALIZED_ENCOUNTER) && path.endsWith(".bin")) {
+            return readEncounterFile(path.replace(LOCALIZED_FOLDER, ORIGINALS_FOLDER), true, null) != null;
+        } else if (path.startsWith(PATH_ORIGINALS_EVENT) && path.endsWith(".ebp")) {
+            return readEventFile(path, true, null) != null;
+        } else if (path.startsWith(PATH_LOCALIZED_EVENT) && path.endsWith(".bin")) {
+            String originalsPath = path.replace(LOCALIZED_FOLDER, ORIGINALS_FOLDER).replace("obj_ps3/", "obj/").replace(".bin", ".ebp");
+            return readEventFile(originalsPath, true, null) != null;
+        } else {
+            return false;
+        }
+        ScriptCache.invalidateTableVersion();
+        return true;
+    }
+
+    private static boolean reloadMonster(String path) {
+        if (!path.endsWith(".bin")) {
+            return false;
+        }
+        MonsterFile previous;
+        try {
+            previous = DataAccess.getMonster(0x1000 + Integer.parseInt(path.substring(path.length() - 7, path.length() - 4), 10));
+        } catch (RuntimeException e) {
+            previous = null;
+        }
+        MonsterFile monster = readMonsterFile(path, false);
+        if (monster == null) {
+            return false;
+        }
+        if (previous != null) {
+            monster.monsterLocalizationData = previous.monsterLocalizationData;
+        }
+        ScriptCache.invalidateTableVersion();
+        monster.parseScript();
+        System.out.println(monster);
+        return true;
+    }
+
+    private static void collectChanges(WatchKey key, Set<String> changed) {
+        Path folder = WATCHED_FOLDERS.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (folder == null || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                continue;
+            }
+            Path file = folder.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(file)) {
+                try {
+                    registerRecursively(file);
+                } catch (IOException e) {
+                    System.err.println("Failed to watch " + file + ": " + e.getLocalizedMessage());
+                }
+                continue;
+            }
+            if (!Files.isDirectory(file)) {
+                changed.add(toGamePath(file));
+            }
+        }
+        if (!key.reset()) {
+            WATCHED_FOLDERS.remove(key);
+        }
+    }
+
+    private static String toGamePath(Path file) {
+        Path root = file.startsWith(modsRoot) ? modsRoot : gameFilesRoot;
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static void registerRecursively(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                WATCHED_FOLDERS.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -20,6 +20,11 @@ public abstract class StringHelper {
     public static final boolean COLORS_USE_CONSOLE_CODES = true;
     public static final Map<Integer, Character> BIN_LOOKUP = new HashMap<>();
     public static final Map<Character, Integer> BIN_REV_LOOKUP = new HashMap<>();
+    private static final int[] CHAR_TO_BYTE = new int[0x10000];
+    private static final int BYTE_NEWLINE = 0x03;
+    private static final int BYTE_COLOR = 0x0A;
+    private static final int BYTE_FIRST_MACRO = 0x13;
+    private static final int BYTE_LAST_MACRO = 0x22;
 
     public static Integer charToByte(char chr) {
         return BIN_REV_LOOKUP.get(chr);
@@ -34,7 +39,11 @@ public abstract class StringHelper {
     }
 
     public static String getColorString(int hex) {
-        if (COLORS_USE_CONSOLE_CODES) {
+        return getColorString(hex, COLORS_USE_CONSOLE_CODES);
+    }
+
+    public static String getColorString(int hex, boolean consoleColors) {
+        if (consoleColors) {
             return byteToConsoleColor(hex);
         } else {
             return "{CLR:" + byteToColor(hex) + '}';
@@ -55,6 +64,20 @@ public abstract class StringHelper {
         };
     }
 
+    public static int colorToByte(String color) {
+        return switch (color) {
+            case "WHITE" -> 0x41;
+            case "YELLOW" -> 0x43;
+            case "GREY" -> 0x52;
+            case "BLUE" -> 0x88;
+            case "RED" -> 0x94;
+            case "PINK" -> 0x97;
+            case "OL_PURPLE" -> 0xA1;
+            case "OL_CYAN" -> 0xB1;
+            default -> Integer.parseInt(color, 16);
+        };
+    }
+
     public static String byteToConsoleColor(int hex) {
         return switch (hex) {
             case 0x41 -> ANSI_RESET;
@@ -128,7 +151,31 @@ public abstract class StringHelper {
         return strings;
     }
 
+    /**
+     * @return the attribute bytes (2 and 3) of every offset entry as (options << 8 | somethingElse), in string order.
+     */
+    public static int[] readStringAttributes(int[] bytes) {
+        if (bytes == null || bytes.length <= 0) {
+            return null;
+        }
+        int first = bytes[0x00] + bytes[0x01] * 0x100;
+        boolean clones = first == bytes[0x04] + bytes[0x05] * 0x100;
+        int stride = clones ? 0x08 : 0x04;
+        int[] attributes = new int[first / stride];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = bytes[i * stride + 0x02] + bytes[i * stride + 0x03] * 0x100;
+        }
+        return attributes;
+    }
+
     public static String getStringAtLookupOffset(int[] table, int offset) {
+        return getStringAtLookupOffset(table, offset, COLORS_USE_CONSOLE_CODES);
+    }
+
+    /**
+     * @param consoleColors whether colors become ANSI codes instead of the {CLR:..} escapes that {@link #encodeString} reads back.
+     */
+    public static String getStringAtLookupOffset(int[] table, int offset, boolean consoleColors) {
         if (offset >= table.length) {
             return "{OOB}";
         }
@@ -142,7 +189,7 @@ public abstract class StringHelper {
             } else if (idx == 0x0A) {
                 offset++;
                 int clr = table[offset];
-                out.append(getColorString(clr));
+                out.append(getColorString(clr, consoleColors));
                 anyColorization = true;
             } else if (idx >= 0x13 && idx <= 0x22) {
                 int section = idx - 0x13;
@@ -158,12 +205,60 @@ public abstract class StringHelper {
             }
             idx = table[offset];
         }
-        if (COLORS_USE_CONSOLE_CODES && anyColorization) {
+        if (consoleColors && anyColorization) {
             out.append(ANSI_RESET);
         }
         return out.toString();
     }
 
+    /**
+     * Inverse of {@link #getStringAtLookupOffset} with console colors disabled: maps characters back to their bytes
+     * and turns {CLR:..} and {MCR:sXXlXX} escapes into their two-byte codes. The terminating 00 is not included.
+     * @throws IllegalArgumentException if a character has no byte in the game font
+     */
+    public static int[] encodeString(String str) {
+        int length = str.length();
+        int[] out = new int[length];
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            char chr = str.charAt(i);
+            if (chr == '{') {
+                int end = str.indexOf('}', i);
+                int escape = end > i ? parseEscape(str, i + 1, end) : -1;
+                if (escape >= 0) {
+                    out[size++] = escape >> 8;
+                    out[size++] = escape & 0xFF;
+                    i = end;
+                    continue;
+                }
+            }
+            int b = chr == '\n' ? BYTE_NEWLINE : CHAR_TO_BYTE[chr];
+            if (b <= 0) {
+                throw new IllegalArgumentException("Cannot encode '" + chr + "' at " + i + " in \"" + str + '"');
+            }
+            out[size++] = b;
+        }
+        return size == length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * @return the escape from start (inclusive) to end (exclusive) as (code << 8 | argument), or -1 if it is not one.
+     */
+    private static int parseEscape(String str, int start, int end) {
+        try {
+            if (str.startsWith("CLR:", start)) {
+                int color = colorToByte(str.substring(start + 4, end));
+                return color >= 0 && color <= 0xFF ? BYTE_COLOR << 8 | color : -1;
+            }
+            if (str.startsWith("MCR:s", start) && end - start == 10 && str.charAt(start + 7) == 'l') {
+                int section = Integer.parseInt(str.substring(start + 5, start + 7), 16);
+                int line = Integer.parseInt(str.substring(start + 8, end), 16);
+                return section >= 0 && section <= BYTE_LAST_MACRO - BYTE_FIRST_MACRO && line >= 0 ? (BYTE_FIRST_MACRO + section) << 8 | line : -1;
+            }
+        } catch (NumberFormatException ignored) {}
+        return -1;
+    }
+
     public static void initialize() {
         BIN_LOOKUP.put(0x00, '\n');
         BIN_LOOKUP.put(0x03, '\n');
@@ -364,5 +459,6 @@ public abstract class StringHelper {
         BIN_LOOKUP.put(0xfc, '\t');  // Wide space or tab, not sure which; all the remaining characters up to 0xff appears this way when typed so probably not valid
 
         BIN_LOOKUP.forEach((i, c) -> BIN_REV_LOOKUP.put(c, i));
+        BIN_REV_LOOKUP.forEach((c, i) -> CHAR_TO_BYTE[c] = i);
     }
 }
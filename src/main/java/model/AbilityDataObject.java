@@ -1,6 +1,7 @@
 package model;
 
 import main.StringHelper;
+import reading.ByteCursor;
 import script.model.StackObject;
 
 import java.util.ArrayList;
@@ -9,6 +10,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static reading.BytesHelper.*;
+
 /**
  * command.bin
  * monmagic1.bin
@@ -20,7 +23,7 @@ public class AbilityDataObject implements Nameable {
     static Map<Integer, String> submenus;
 
     private final boolean isCharacterAbility;
-    private final int[] bytes;
+    private final ByteCursor bytes;
 
     public String name;
     public String dash;
@@ -222,9 +225,9 @@ public class AbilityDataObject implements Nameable {
     boolean specialBuffOverdrive200;
     boolean specialBuffUnused;
 
-    public AbilityDataObject(int[] bytes, int[] stringBytes) {
+    public AbilityDataObject(ByteCursor bytes, int[] stringBytes) {
         this.bytes = bytes;
-        isCharacterAbility = (bytes.length == 96);
+        isCharacterAbility = (bytes.length() == 96);
         prepareMaps();
         mapBytes();
         mapFlags();
@@ -239,98 +242,199 @@ public class AbilityDataObject implements Nameable {
     }
 
     private void mapBytes() {
-        nameOffset = read2Bytes(0x00);
-        unknownByte2 = bytes[0x02];
-        unknownByte3 = bytes[0x03];
-        dashOffset = read2Bytes(0x04);
-        unknownByte6 = bytes[0x06];
-        unknownByte7 = bytes[0x07];
-        descriptionOffset = read2Bytes(0x08);
-        unknownByte0A = bytes[0x0A];
-        unknownByte0B = bytes[0x0B];
-        otherTextOffset = read2Bytes(0x0C);
-        unknownByte0E = bytes[0x0E];
-        unknownByte0F = bytes[0x0F];
-        anim1 = read2Bytes(0x10);
-        anim2 = read2Bytes(0x12);
-        icon = bytes[0x14];
-        casterAnimation = bytes[0x15];
-        menuProperties16 = bytes[0x16];
-        subsubMenuCategorization = bytes[0x17];
-        subMenuCategorization = bytes[0x18];
-        characterUser = bytes[0x19];
-        targetingFlags = bytes[0x1A];
-        targetsAllowedApparently = bytes[0x1B];
-        miscProperties1C = bytes[0x1C];
-        miscProperties1D = bytes[0x1D];
-        miscProperties1E = bytes[0x1E];
-        animationProperties1F = bytes[0x1F];
-        damageProperties20 = bytes[0x20];
-        stealGilByte = bytes[0x21];
-        partyPreviewByte = bytes[0x22];
-        damageClass = bytes[0x23];
-        moveRank = bytes[0x24];
-        costMP = bytes[0x25];
-        costOD = bytes[0x26];
-        attackCritBonus = bytes[0x27];
-        damageFormula = bytes[0x28];
-        attackAccuracy = bytes[0x29];
-        attackPower = bytes[0x2A];
-        hitCount = bytes[0x2B];
-        shatterChance = bytes[0x2C];
-        elementFlags = bytes[0x2D];
-        statusChanceDeath = bytes[0x2E];
-        statusChanceZombie = bytes[0x2F];
-        statusChancePetrify = bytes[0x30];
-        statusChancePoison = bytes[0x31];
-        statusChancePowerBreak = bytes[0x32];
-        statusChanceMagicBreak = bytes[0x33];
-        statusChanceArmorBreak = bytes[0x34];
-        statusChanceMentalBreak = bytes[0x35];
-        statusChanceConfuse = bytes[0x36];
-        statusChanceBerserk = bytes[0x37];
-        statusChanceProvoke = bytes[0x38];
-        statusChanceThreaten = bytes[0x39];
-        statusChanceSleep = bytes[0x3A];
-        statusChanceSilence = bytes[0x3B];
-        statusChanceDarkness = bytes[0x3C];
-        statusChanceShell = bytes[0x3D];
-        statusChanceProtect = bytes[0x3E];
-        statusChanceReflect = bytes[0x3F];
-        statusChanceNTide = bytes[0x40];
-        statusChanceNBlaze = bytes[0x41];
-        statusChanceNShock = bytes[0x42];
-        statusChanceNFrost = bytes[0x43];
-        statusChanceRegen = bytes[0x44];
-        statusChanceHaste = bytes[0x45];
-        statusChanceSlow = bytes[0x46];
-        statusDurationSleep = bytes[0x47];
-        statusDurationSilence = bytes[0x48];
-        statusDurationDarkness = bytes[0x49];
-        statusDurationShell = bytes[0x4A];
-        statusDurationProtect = bytes[0x4B];
-        statusDurationReflect = bytes[0x4C];
-        statusDurationNTide = bytes[0x4D];
-        statusDurationNBlaze = bytes[0x4E];
-        statusDurationNShock = bytes[0x4F];
-        statusDurationNFrost = bytes[0x50];
-        statusDurationRegen = bytes[0x51];
-        statusDurationHaste = bytes[0x52];
-        statusDurationSlow = bytes[0x53];
-        extraStatusFlags1 = bytes[0x54];
-        extraStatusFlags2 = bytes[0x55];
-        statBuffFlags = bytes[0x56];
-        alwaysZero57 = bytes[0x57];
-        overdriveCategorizationByte = bytes[0x58];
-        statBuffValue = bytes[0x59];
-        specialBuffFlags = bytes[0x5A];
-        alwaysZero5B = bytes[0x5B];
+        nameOffset = bytes.u16(0x00);
+        unknownByte2 = bytes.u8(0x02);
+        unknownByte3 = bytes.u8(0x03);
+        dashOffset = bytes.u16(0x04);
+        unknownByte6 = bytes.u8(0x06);
+        unknownByte7 = bytes.u8(0x07);
+        descriptionOffset = bytes.u16(0x08);
+        unknownByte0A = bytes.u8(0x0A);
+        unknownByte0B = bytes.u8(0x0B);
+        otherTextOffset = bytes.u16(0x0C);
+        unknownByte0E = bytes.u8(0x0E);
+        unknownByte0F = bytes.u8(0x0F);
+        anim1 = bytes.u16(0x10);
+        anim2 = bytes.u16(0x12);
+        icon = bytes.u8(0x14);
+        casterAnimation = bytes.u8(0x15);
+        menuProperties16 = bytes.u8(0x16);
+        subsubMenuCategorization = bytes.u8(0x17);
+        subMenuCategorization = bytes.u8(0x18);
+        characterUser = bytes.u8(0x19);
+        targetingFlags = bytes.u8(0x1A);
+        targetsAllowedApparently = bytes.u8(0x1B);
+        miscProperties1C = bytes.u8(0x1C);
+        miscProperties1D = bytes.u8(0x1D);
+        miscProperties1E = bytes.u8(0x1E);
+        animationProperties1F = bytes.u8(0x1F);
+        damageProperties20 = bytes.u8(0x20);
+        stealGilByte = bytes.u8(0x21);
+        partyPreviewByte = bytes.u8(0x22);
+        damageClass = bytes.u8(0x23);
+        moveRank = bytes.u8(0x24);
+        costMP = bytes.u8(0x25);
+        costOD = bytes.u8(0x26);
+        attackCritBonus = bytes.u8(0x27);
+        damageFormula = bytes.u8(0x28);
+        attackAccuracy = bytes.u8(0x29);
+        attackPower = bytes.u8(0x2A);
+        hitCount = bytes.u8(0x2B);
+        shatterChance = bytes.u8(0x2C);
+        elementFlags = bytes.u8(0x2D);
+        statusChanceDeath = bytes.u8(0x2E);
+        statusChanceZombie = bytes.u8(0x2F);
+        statusChancePetrify = bytes.u8(0x30);
+        statusChancePoison = bytes.u8(0x31);
+        statusChancePowerBreak = bytes.u8(0x32);
+        statusChanceMagicBreak = bytes.u8(0x33);
+        statusChanceArmorBreak = bytes.u8(0x34);
+        statusChanceMentalBreak = bytes.u8(0x35);
+        statusChanceConfuse = bytes.u8(0x36);
+        statusChanceBerserk = bytes.u8(0x37);
+        statusChanceProvoke = bytes.u8(0x38);
+        statusChanceThreaten = bytes.u8(0x39);
+        statusChanceSleep = bytes.u8(0x3A);
+        statusChanceSilence = bytes.u8(0x3B);
+        statusChanceDarkness = bytes.u8(0x3C);
+        statusChanceShell = bytes.u8(0x3D);
+        statusChanceProtect = bytes.u8(0x3E);
+        statusChanceReflect = bytes.u8(0x3F);
+        statusChanceNTide = bytes.u8(0x40);
+        statusChanceNBlaze = bytes.u8(0x41);
+        statusChanceNShock = bytes.u8(0x42);
+        statusChanceNFrost = bytes.u8(0x43);
+        statusChanceRegen = bytes.u8(0x44);
+        statusChanceHaste = bytes.u8(0x45);
+        statusChanceSlow = bytes.u8(0x46);
+        statusDurationSleep = bytes.u8(0x47);
+        statusDurationSilence = bytes.u8(0x48);
+        statusDurationDarkness = bytes.u8(0x49);
+        statusDurationShell = bytes.u8(0x4A);
+        statusDurationProtect = bytes.u8(0x4B);
+        statusDurationReflect = bytes.u8(0x4C);
+        statusDurationNTide = bytes.u8(0x4D);
+        statusDurationNBlaze = bytes.u8(0x4E);
+        statusDurationNShock = bytes.u8(0x4F);
+        statusDurationNFrost = bytes.u8(0x50);
+        statusDurationRegen = bytes.u8(0x51);
+        statusDurationHaste = bytes.u8(0x52);
+        statusDurationSlow = bytes.u8(0x53);
+        extraStatusFlags1 = bytes.u8(0x54);
+        extraStatusFlags2 = bytes.u8(0x55);
+        statBuffFlags = bytes.u8(0x56);
+        alwaysZero57 = bytes.u8(0x57);
+        overdriveCategorizationByte = bytes.u8(0x58);
+        statBuffValue = bytes.u8(0x59);
+        specialBuffFlags = bytes.u8(0x5A);
+        alwaysZero5B = bytes.u8(0x5B);
+        if (isCharacterAbility) {
+            orderingIndexInMenu = bytes.u8(0x5C);
+            sphereGridUsageRole = bytes.u8(0x5D);
+            alwaysZero5E = bytes.u8(0x5E);
+            alwaysZero5F = bytes.u8(0x5F);
+        }
+    }
+
+    /**
+     * Encodes the record from its fields alone, the flag booleans included.
+     */
+    public int[] toBytes() {
+        packFlags();
+        ByteCursor array = ByteCursor.allocate(bytes.length());
+        array.putU16(0x00, nameOffset);
+        array.putU8(0x02, unknownByte2);
+        array.putU8(0x03, unknownByte3);
+        array.putU16(0x04, dashOffset);
+        array.putU8(0x06, unknownByte6);
+        array.putU8(0x07, unknownByte7);
+        array.putU16(0x08, descriptionOffset);
+        array.putU8(0x0A, unknownByte0A);
+        array.putU8(0x0B, unknownByte0B);
+        array.putU16(0x0C, otherTextOffset);
+        array.putU8(0x0E, unknownByte0E);
+        array.putU8(0x0F, unknownByte0F);
+        array.putU16(0x10, anim1);
+        array.putU16(0x12, anim2);
+        array.putU8(0x14, icon);
+        array.putU8(0x15, casterAnimation);
+        array.putU8(0x16, menuProperties16);
+        array.putU8(0x17, subsubMenuCategorization);
+        array.putU8(0x18, subMenuCategorization);
+        array.putU8(0x19, characterUser);
+        array.putU8(0x1A, targetingFlags);
+        array.putU8(0x1B, targetsAllowedApparently);
+        array.putU8(0x1C, miscProperties1C);
+        array.putU8(0x1D, miscProperties1D);
+        array.putU8(0x1E, miscProperties1E);
+        array.putU8(0x1F, animationProperties1F);
+        array.putU8(0x20, damageProperties20);
+        array.putU8(0x21, stealGilByte);
+        array.putU8(0x22, partyPreviewByte);
+        array.putU8(0x23, damageClass);
+        array.putU8(0x24, moveRank);
+        array.putU8(0x25, costMP);
+        array.putU8(0x26, costOD);
+        array.putU8(0x27, attackCritBonus);
+        array.putU8(0x28, damageFormula);
+        array.putU8(0x29, attackAccuracy);
+        array.putU8(0x2A, attackPower);
+        array.putU8(0x2B, hitCount);
+        array.putU8(0x2C, shatterChance);
+        array.putU8(0x2D, elementFlags);
+        array.putU8(0x2E, statusChanceDeath);
+        array.putU8(0x2F, statusChanceZombie);
+        array.putU8(0x30, statusChancePetrify);
+        array.putU8(0x31, statusChancePoison);
+        array.putU8(0x32, statusChancePowerBreak);
+        array.putU8(0x33, statusChanceMagicBreak);
+        array.putU8(0x34, statusChanceArmorBreak);
+        array.putU8(0x35, statusChanceMentalBreak);
+        array.putU8(0x36, statusChanceConfuse);
+        array.putU8(0x37, statusChanceBerserk);
+        array.putU8(0x38, statusChanceProvoke);
+        array.putU8(0x39, statusChanceThreaten);
+        array.putU8(0x3A, statusChanceSleep);
+        array.putU8(0x3B, statusChanceSilence);
+        array.putU8(0x3C, statusChanceDarkness);
+        array.putU8(0x3D, statusChanceShell);
+        array.putU8(0x3E, statusChanceProtect);
+        array.putU8(0x3F, statusChanceReflect);
+        array.putU8(0x40, statusChanceNTide);
+        array.putU8(0x41, statusChanceNBlaze);
+        array.putU8(0x42, statusChanceNShock);
+        array.putU8(0x43, statusChanceNFrost);
+        array.putU8(0x44, statusChanceRegen);
+        array.putU8(0x45, statusChanceHaste);
+        array.putU8(0x46, statusChanceSlow);
+        array.putU8(0x47, statusDurationSleep);
+        array.putU8(0x48, statusDurationSilence);
+        array.putU8(0x49, statusDurationDarkness);
+        array.putU8(0x4A, statusDurationShell);
+        array.putU8(0x4B, statusDurationProtect);
+        array.putU8(0x4C, statusDurationReflect);
+        array.putU8(0x4D, statusDurationNTide);
+        array.putU8(0x4E, statusDurationNBlaze);
+        array.putU8(0x4F, statusDurationNShock);
+        array.putU8(0x50, statusDurationNFrost);
+        array.putU8(0x51, statusDurationRegen);
+        array.putU8(0x52, statusDurationHaste);
+        array.putU8(0x53, statusDurationSlow);
+        array.putU8(0x54, extraStatusFlags1);
+        array.putU8(0x55, extraStatusFlags2);
+        array.putU8(0x56, statBuffFlags);
+        array.putU8(0x57, alwaysZero57);
+        array.putU8(0x58, overdriveCategorizationByte);
+        array.putU8(0x59, statBuffValue);
+        array.putU8(0x5A, specialBuffFlags);
+        array.putU8(0x5B, alwaysZero5B);
         if (isCharacterAbility) {
-            orderingIndexInMenu = bytes[0x5C];
-            sphereGridUsageRole = bytes[0x5D];
-            alwaysZero5E = bytes[0x5E];
-            alwaysZero5F = bytes[0x5F];
+            array.putU8(0x5C, orderingIndexInMenu);
+            array.putU8(0x5D, sphereGridUsageRole);
+            array.putU8(0x5E, alwaysZero5E);
+            array.putU8(0x5F, alwaysZero5F);
         }
+        return array.widen();
     }
 
     private void mapFlags() {
@@ -439,6 +543,36 @@ public class AbilityDataObject implements Nameable {
         }
     }
 
+    private void packFlags() {
+        targetingFlags = packBits(targetEnabled, targetEnemies, targetMulti, targetSelfOnly, targetFlag5, targetEitherTeam, targetDead, targetFlagLongRange);
+        menuProperties16 = withFlag(menuProperties16, 0x01, onTopLevelInMenu);
+        menuProperties16 = withFlag(menuProperties16, 0x10, opensSubMenu);
+        miscProperties1C = packBits(usableOutsideCombat, usableInCombat, displayMoveName, byte1Cbit08SetOnCharAttacksAndSkillsAndValeforShivaAttack, canMiss, byte1Cbit20SetOnControllableAeonNormalAttacks, affectedByDarkness, canBeReflected);
+        miscProperties1D = packBits(absorbDamage, stealItem, useInUseMenu, useInRightMenu, useInLeftMenu, inflictDelayWeak, inflictDelayStrong, randomTargets);
+        miscProperties1E = packBits(isPiercing, disableWhenSilenced, usesWeaponProperties, isTriggerCommand, useTier1CastAnimation, useTier3CastAnimation, destroyCaster, missIfAlive);
+        animationProperties1F = packBits(byte1Fbit01, emptiesOverdriveBar, useCastAnimationMaybe, userRunsOffScreen, canBeCopycatted, byte1Fbit20, someFlagSetOnALLAeonOverdrives, byte1Fbit80WhichIsOnlySetOnBribe);
+        damageProperties20 = packBits(damageTypePhysical, damageTypeMagical, canCrit, useGearCritBonus, isHealing, isCleansingStatuses, suppressBDL, breaksDamageLimit);
+        stealGilByte = withFlag(stealGilByte, 0x01, stealGil);
+        partyPreviewByte = withFlag(partyPreviewByte, 0x01, partyPreviewActive);
+        partyPreviewByte = withFlag(partyPreviewByte, 0x02, partyPreviewHealMp);
+        partyPreviewByte = withFlag(partyPreviewByte, 0x04, partyPreviewHealStatuses);
+        partyPreviewByte = withFlag(partyPreviewByte, 0x40, partyPreviewHealHp);
+        damageClass = withFlag(damageClass, 0x01, damageClassHP);
+        damageClass = withFlag(damageClass, 0x02, damageClassMP);
+        damageClass = withFlag(damageClass, 0x04, damageClassCTB);
+        elementFlags = packBits(elementFire, elementIce, elementThunder, elementWater, elementHoly, element6, element7, element8);
+        extraStatusFlags1 = packBits(inflictScan, inflictDistillPower, inflictDistillMana, inflictDistillSpeed, inflictUnused1, inflictDistillAbility, inflictShield, inflictBoost);
+        extraStatusFlags2 = packBits(inflictEject, inflictAutoLife, inflictCurse, inflictDefend, inflictGuard, inflictSentinel, inflictDoom, inflictUnused2);
+        statBuffFlags = packBits(statBuffCheer, statBuffAim, statBuffFocus, statBuffReflex, statBuffLuck, statBuffJinx, statBuffUnused1, statBuffUnused2);
+        specialBuffFlags = packBits(specialBuffDoubleHP, specialBuffDoubleMP, specialBuffMPCost0, specialBuffQuartet, specialBuffAlwaysCrit, specialBuffOverdrive150, specialBuffOverdrive200, specialBuffUnused);
+        if (!damageClassUnknown) {
+            damageClass &= 0x07;
+        } else if (damageClass < 0x08) {
+            damageClass |= 0x08;
+        }
+        overdriveCategorizationByte = (overdriveCategory << 4) | (overdriveCategorizationByte & 0x0F);
+    }
+
     private void mapStrings(int[] stringBytes) {
         name = StringHelper.getStringAtLookupOffset(stringBytes, nameOffset);
         dash = StringHelper.getStringAtLookupOffset(stringBytes, dashOffset);
@@ -811,8 +945,4 @@ public class AbilityDataObject implements Nameable {
             submenus.put(22, "Gil (Pay Yoji)");
         }
     }
-
-    private int read2Bytes(int offset) {
-        return bytes[offset] + bytes[offset+1] * 0x100;
-    }
 }
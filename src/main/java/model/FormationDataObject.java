@@ -1,16 +1,18 @@
 package model;
 
 import main.DataAccess;
+import reading.ByteCursor;
 import script.MonsterFile;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class FormationDataObject {
     public static final int LENGTH = 0x1C;
 
-    private final int[] bytes;
+    private final ByteCursor bytes;
 
     int unknownByte00;
     int unknownByte01;
@@ -35,33 +37,33 @@ public class FormationDataObject {
     boolean isRandomEncounter;
     boolean inWater;
 
-    public FormationDataObject(int[] bytes) {
+    public FormationDataObject(ByteCursor bytes) {
         this.bytes = bytes;
         mapBytes();
         mapFlags();
     }
 
     private void mapBytes() {
-        unknownByte00 = bytes[0x00];
-        unknownByte01 = bytes[0x01];
-        unknownByte02 = bytes[0x02];
-        inWaterByte = bytes[0x03];
-        alwaysZero04 = bytes[0x04];
-        alwaysZero05 = bytes[0x05];
-        alwaysZero06 = bytes[0x06];
-        alwaysZero07 = bytes[0x07];
-        alwaysZero08 = bytes[0x08];
-        alwaysZero09 = bytes[0x09];
-        alwaysZero0A = bytes[0x0A];
-        alwaysZero0B = bytes[0x0B];
-        monsters[0] = read2Bytes(0x0C);
-        monsters[1] = read2Bytes(0x0E);
-        monsters[2] = read2Bytes(0x10);
-        monsters[3] = read2Bytes(0x12);
-        monsters[4] = read2Bytes(0x14);
-        monsters[5] = read2Bytes(0x16);
-        monsters[6] = read2Bytes(0x18);
-        monsters[7] = read2Bytes(0x1A);
+        unknownByte00 = bytes.u8(0x00);
+        unknownByte01 = bytes.u8(0x01);
+        unknownByte02 = bytes.u8(0x02);
+        inWaterByte = bytes.u8(0x03);
+        alwaysZero04 = bytes.u8(0x04);
+        alwaysZero05 = bytes.u8(0x05);
+        alwaysZero06 = bytes.u8(0x06);
+        alwaysZero07 = bytes.u8(0x07);
+        alwaysZero08 = bytes.u8(0x08);
+        alwaysZero09 = bytes.u8(0x09);
+        alwaysZero0A = bytes.u8(0x0A);
+        alwaysZero0B = bytes.u8(0x0B);
+        monsters[0] = bytes.u16(0x0C);
+        monsters[1] = bytes.u16(0x0E);
+        monsters[2] = bytes.u16(0x10);
+        monsters[3] = bytes.u16(0x12);
+        monsters[4] = bytes.u16(0x14);
+        monsters[5] = bytes.u16(0x16);
+        monsters[6] = bytes.u16(0x18);
+        monsters[7] = bytes.u16(0x1A);
     }
 
     private void mapFlags() {
@@ -116,6 +118,17 @@ public class FormationDataObject {
         return full;
     }
 
+    /**
+     * @return the monster indices in this formation, without empty slots.
+     */
+    public int[] getMonsters() {
+        return Arrays.stream(monsters).filter(m -> m != 0xFFFF).toArray();
+    }
+
+    public String compactString() {
+        return Arrays.stream(getMonsters()).mapToObj(FormationDataObject::writeMonster).collect(Collectors.joining(", "));
+    }
+
     private static String ifG0(int value, String prefix) {
         if (value > 0) {
             return prefix + formatUnknownByte(value);
@@ -134,8 +147,4 @@ public class FormationDataObject {
         String hexSuffix = " [" + String.format("%04X", monsterIndex) + "h]";
         return monsterName + hexSuffix;
     }
-
-    private int read2Bytes(int offset) {
-        return bytes[offset] + bytes[offset+1] * 0x100;
-    }
 }
@@ -1,6 +1,7 @@
 package model;
 
 import main.StringHelper;
+import reading.ByteCursor;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -8,20 +9,30 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static reading.BytesHelper.*;
+
 /**
  * a_ability.bin
  */
 public class GearAbilityDataObject implements Nameable {
-    private final int[] bytes;
+    private final ByteCursor bytes;
 
     public String name;
     public String dash;
     public String description;
     public String otherText;
     public int nameOffset;
+    int unknownByte2;
+    int unknownByte3;
     public int dashOffset;
+    int unknownByte6;
+    int unknownByte7;
     public int descriptionOffset;
+    int unknownByte0A;
+    int unknownByte0B;
     public int otherTextOffset;
+    int unknownByte0E;
+    int unknownByte0F;
 
     int sosFlagByte;
     int elementStrike;
@@ -231,7 +242,7 @@ public class GearAbilityDataObject implements Nameable {
     private boolean byte66bit40;
     private boolean byte66bit80;
 
-    public GearAbilityDataObject(int[] bytes, int[] stringBytes) {
+    public GearAbilityDataObject(ByteCursor bytes, int[] stringBytes) {
         this.bytes = bytes;
         mapBytes();
         mapFlags();
@@ -243,102 +254,220 @@ public class GearAbilityDataObject implements Nameable {
     }
 
     private void mapBytes() {
-        nameOffset = read2Bytes(0x00);
-        dashOffset = read2Bytes(0x04);
-        descriptionOffset = read2Bytes(0x08);
-        otherTextOffset = read2Bytes(0x0C);
-        sosFlagByte = bytes[0x10];
-        elementStrike = bytes[0x11];
-        elementAbsorb = bytes[0x12];
-        elementImmune = bytes[0x13];
-        elementResist = bytes[0x14];
-        elementWeak = bytes[0x15];
-        statusInflictChanceDeath = bytes[0x16];
-        statusInflictChanceZombie = bytes[0x17];
-        statusInflictChancePetrify = bytes[0x18];
-        statusInflictChancePoison = bytes[0x19];
-        statusInflictChancePowerBreak = bytes[0x1A];
-        statusInflictChanceMagicBreak = bytes[0x1B];
-        statusInflictChanceArmorBreak = bytes[0x1C];
-        statusInflictChanceMentalBreak = bytes[0x1D];
-        statusInflictChanceConfuse = bytes[0x1E];
-        statusInflictChanceBerserk = bytes[0x1F];
-        statusInflictChanceProvoke = bytes[0x20];
-        statusInflictChanceThreaten = bytes[0x21];
-        statusInflictChanceSleep = bytes[0x22];
-        statusInflictChanceSilence = bytes[0x23];
-        statusInflictChanceDarkness = bytes[0x24];
-        statusInflictChanceShell = bytes[0x25];
-        statusInflictChanceProtect = bytes[0x26];
-        statusInflictChanceReflect = bytes[0x27];
-        statusInflictChanceNTide = bytes[0x28];
-        statusInflictChanceNBlaze = bytes[0x29];
-        statusInflictChanceNShock = bytes[0x2A];
-        statusInflictChanceNFrost = bytes[0x2B];
-        statusInflictChanceRegen = bytes[0x2C];
-        statusInflictChanceHaste = bytes[0x2D];
-        statusInflictChanceSlow = bytes[0x2E];
-        statusDurationSleep = bytes[0x2F];
-        statusDurationSilence = bytes[0x30];
-        statusDurationDarkness = bytes[0x31];
-        statusDurationShell = bytes[0x32];
-        statusDurationProtect = bytes[0x33];
-        statusDurationReflect = bytes[0x34];
-        statusDurationNTide = bytes[0x35];
-        statusDurationNBlaze = bytes[0x36];
-        statusDurationNShock = bytes[0x37];
-        statusDurationNFrost = bytes[0x38];
-        statusDurationRegen = bytes[0x39];
-        statusDurationHaste = bytes[0x3A];
-        statusDurationSlow = bytes[0x3B];
-        statusResistChanceDeath = bytes[0x3C];
-        statusResistChanceZombie = bytes[0x3D];
-        statusResistChancePetrify = bytes[0x3E];
-        statusResistChancePoison = bytes[0x3F];
-        statusResistChancePowerBreak = bytes[0x40];
-        statusResistChanceMagicBreak = bytes[0x41];
-        statusResistChanceArmorBreak = bytes[0x42];
-        statusResistChanceMentalBreak = bytes[0x43];
-        statusResistChanceConfuse = bytes[0x44];
-        statusResistChanceBerserk = bytes[0x45];
-        statusResistChanceProvoke = bytes[0x46];
-        statusResistChanceThreaten = bytes[0x47];
-        statusResistChanceSleep = bytes[0x48];
-        statusResistChanceSilence = bytes[0x49];
-        statusResistChanceDarkness = bytes[0x4A];
-        statusResistChanceShell = bytes[0x4B];
-        statusResistChanceProtect = bytes[0x4C];
-        statusResistChanceReflect = bytes[0x4D];
-        statusResistChanceNTide = bytes[0x4E];
-        statusResistChanceNBlaze = bytes[0x4F];
-        statusResistChanceNShock = bytes[0x50];
-        statusResistChanceNFrost = bytes[0x51];
-        statusResistChanceRegen = bytes[0x52];
-        statusResistChanceHaste = bytes[0x53];
-        statusResistChanceSlow = bytes[0x54];
-        statIncreaseAmount = bytes[0x55];
-        unknownByte56 = bytes[0x56];
-        statIncreaseFlags = bytes[0x57];
-        autoStatuses1 = bytes[0x58];
-        autoStatuses2 = bytes[0x59];
-        autoStatuses3 = bytes[0x5A];
-        autoStatuses4 = bytes[0x5B];
-        unknownByte5C = bytes[0x5C];
-        unknownByte5D = bytes[0x5D];
-        extraStatusInflictFlags1 = bytes[0x5E];
-        extraStatusInflictFlags2 = bytes[0x5F];
-        extraStatusResistFlags1 = bytes[0x60];
-        extraStatusResistFlags2 = bytes[0x61];
-        abilityFlags62 = bytes[0x62];
-        abilityFlags63 = bytes[0x63];
-        abilityFlags64 = bytes[0x64];
-        abilityFlags65 = bytes[0x65];
-        abilityFlags66 = bytes[0x66];
-        unknownByte67 = bytes[0x67];
-        byte67usually14 = bytes[0x68];
-        groupIndex = bytes[0x69];
-        groupLevel = bytes[0x6A];
-        internationalBonusIndex = bytes[0x6B];
+        nameOffset = bytes.u16(0x00);
+        unknownByte2 = bytes.u8(0x02);
+        unknownByte3 = bytes.u8(0x03);
+        dashOffset = bytes.u16(0x04);
+        unknownByte6 = bytes.u8(0x06);
+        unknownByte7 = bytes.u8(0x07);
+        descriptionOffset = bytes.u16(0x08);
+        unknownByte0A = bytes.u8(0x0A);
+        unknownByte0B = bytes.u8(0x0B);
+        otherTextOffset = bytes.u16(0x0C);
+        unknownByte0E = bytes.u8(0x0E);
+        unknownByte0F = bytes.u8(0x0F);
+        sosFlagByte = bytes.u8(0x10);
+        elementStrike = bytes.u8(0x11);
+        elementAbsorb = bytes.u8(0x12);
+        elementImmune = bytes.u8(0x13);
+        elementResist = bytes.u8(0x14);
+        elementWeak = bytes.u8(0x15);
+        statusInflictChanceDeath = bytes.u8(0x16);
+        statusInflictChanceZombie = bytes.u8(0x17);
+        statusInflictChancePetrify = bytes.u8(0x18);
+        statusInflictChancePoison = bytes.u8(0x19);
+        statusInflictChancePowerBreak = bytes.u8(0x1A);
+        statusInflictChanceMagicBreak = bytes.u8(0x1B);
+        statusInflictChanceArmorBreak = bytes.u8(0x1C);
+        statusInflictChanceMentalBreak = bytes.u8(0x1D);
+        statusInflictChanceConfuse = bytes.u8(0x1E);
+        statusInflictChanceBerserk = bytes.u8(0x1F);
+        statusInflictChanceProvoke = bytes.u8(0x20);
+        statusInflictChanceThreaten = bytes.u8(0x21);
+        statusInflictChanceSleep = bytes.u8(0x22);
+        statusInflictChanceSilence = bytes.u8(0x23);
+        statusInflictChanceDarkness = bytes.u8(0x24);
+        statusInflictChanceShell = bytes.u8(0x25);
+        statusInflictChanceProtect = bytes.u8(0x26);
+        statusInflictChanceReflect = bytes.u8(0x27);
+        statusInflictChanceNTide = bytes.u8(0x28);
+        statusInflictChanceNBlaze = bytes.u8(0x29);
+        statusInflictChanceNShock = bytes.u8(0x2A);
+        statusInflictChanceNFrost = bytes.u8(0x2B);
+        statusInflictChanceRegen = bytes.u8(0x2C);
+        statusInflictChanceHaste = bytes.u8(0x2D);
+        statusInflictChanceSlow = bytes.u8(0x2E);
+        statusDurationSleep = bytes.u8(0x2F);
+        statusDurationSilence = bytes.u8(0x30);
+        statusDurationDarkness = bytes.u8(0x31);
+        statusDurationShell = bytes.u8(0x32);
+        statusDurationProtect = bytes.u8(0x33);
+        statusDurationReflect = bytes.u8(0x34);
+        statusDurationNTide = bytes.u8(0x35);
+        statusDurationNBlaze = bytes.u8(0x36);
+        statusDurationNShock = bytes.u8(0x37);
+        statusDurationNFrost = bytes.u8(0x38);
+        statusDurationRegen = bytes.u8(0x39);
+        statusDurationHaste = bytes.u8(0x3A);
+        statusDurationSlow = bytes.u8(0x3B);
+        statusResistChanceDeath = bytes.u8(0x3C);
+        statusResistChanceZombie = bytes.u8(0x3D);
+        statusResistChancePetrify = bytes.u8(0x3E);
+        statusResistChancePoison = bytes.u8(0x3F);
+        statusResistChancePowerBreak = bytes.u8(0x40);
+        statusResistChanceMagicBreak = bytes.u8(0x41);
+        statusResistChanceArmorBreak = bytes.u8(0x42);
+        statusResistChanceMentalBreak = bytes.u8(0x43);
+        statusResistChanceConfuse = bytes.u8(0x44);
+        statusResistChanceBerserk = bytes.u8(0x45);
+        statusResistChanceProvoke = bytes.u8(0x46);
+        statusResistChanceThreaten = bytes.u8(0x47);
+        statusResistChanceSleep = bytes.u8(0x48);
+        statusResistChanceSilence = bytes.u8(0x49);
+        statusResistChanceDarkness = bytes.u8(0x4A);
+        statusResistChanceShell = bytes.u8(0x4B);
+        statusResistChanceProtect = bytes.u8(0x4C);
+        statusResistChanceReflect = bytes.u8(0x4D);
+        statusResistChanceNTide = bytes.u8(0x4E);
+        statusResistChanceNBlaze = bytes.u8(0x4F);
+        statusResistChanceNShock = bytes.u8(0x50);
+        statusResistChanceNFrost = bytes.u8(0x51);
+        statusResistChanceRegen = bytes.u8(0x52);
+        statusResistChanceHaste = bytes.u8(0x53);
+        statusResistChanceSlow = bytes.u8(0x54);
+        statIncreaseAmount = bytes.u8(0x55);
+        unknownByte56 = bytes.u8(0x56);
+        statIncreaseFlags = bytes.u8(0x57);
+        autoStatuses1 = bytes.u8(0x58);
+        autoStatuses2 = bytes.u8(0x59);
+        autoStatuses3 = bytes.u8(0x5A);
+        autoStatuses4 = bytes.u8(0x5B);
+        unknownByte5C = bytes.u8(0x5C);
+        unknownByte5D = bytes.u8(0x5D);
+        extraStatusInflictFlags1 = bytes.u8(0x5E);
+        extraStatusInflictFlags2 = bytes.u8(0x5F);
+        extraStatusResistFlags1 = bytes.u8(0x60);
+        extraStatusResistFlags2 = bytes.u8(0x61);
+        abilityFlags62 = bytes.u8(0x62);
+        abilityFlags63 = bytes.u8(0x63);
+        abilityFlags64 = bytes.u8(0x64);
+        abilityFlags65 = bytes.u8(0x65);
+        abilityFlags66 = bytes.u8(0x66);
+        unknownByte67 = bytes.u8(0x67);
+        byte67usually14 = bytes.u8(0x68);
+        groupIndex = bytes.u8(0x69);
+        groupLevel = bytes.u8(0x6A);
+        internationalBonusIndex = bytes.u8(0x6B);
+    }
+
+    public int[] toBytes() {
+        packFlags();
+        ByteCursor array = ByteCursor.allocate(bytes.length());
+        array.putU16(0x00, nameOffset);
+        array.putU8(0x02, unknownByte2);
+        array.putU8(0x03, unknownByte3);
+        array.putU16(0x04, dashOffset);
+        array.putU8(0x06, unknownByte6);
+        array.putU8(0x07, unknownByte7);
+        array.putU16(0x08, descriptionOffset);
+        array.putU8(0x0A, unknownByte0A);
+        array.putU8(0x0B, unknownByte0B);
+        array.putU16(0x0C, otherTextOffset);
+        array.putU8(0x0E, unknownByte0E);
+        array.putU8(0x0F, unknownByte0F);
+        array.putU8(0x10, sosFlagByte);
+        array.putU8(0x11, elementStrike);
+        array.putU8(0x12, elementAbsorb);
+        array.putU8(0x13, elementImmune);
+        array.putU8(0x14, elementResist);
+        array.putU8(0x15, elementWeak);
+        array.putU8(0x16, statusInflictChanceDeath);
+        array.putU8(0x17, statusInflictChanceZombie);
+        array.putU8(0x18, statusInflictChancePetrify);
+        array.putU8(0x19, statusInflictChancePoison);
+        array.putU8(0x1A, statusInflictChancePowerBreak);
+        array.putU8(0x1B, statusInflictChanceMagicBreak);
+        array.putU8(0x1C, statusInflictChanceArmorBreak);
+        array.putU8(0x1D, statusInflictChanceMentalBreak);
+        array.putU8(0x1E, statusInflictChanceConfuse);
+        array.putU8(0x1F, statusInflictChanceBerserk);
+        array.putU8(0x20, statusInflictChanceProvoke);
+        array.putU8(0x21, statusInflictChanceThreaten);
+        array.putU8(0x22, statusInflictChanceSleep);
+        array.putU8(0x23, statusInflictChanceSilence);
+        array.putU8(0x24, statusInflictChanceDarkness);
+        array.putU8(0x25, statusInflictChanceShell);
+        array.putU8(0x26, statusInflictChanceProtect);
+        array.putU8(0x27, statusInflictChanceReflect);
+        array.putU8(0x28, statusInflictChanceNTide);
+        array.putU8(0x29, statusInflictChanceNBlaze);
+        array.putU8(0x2A, statusInflictChanceNShock);
+        array.putU8(0x2B, statusInflictChanceNFrost);
+        array.putU8(0x2C, statusInflictChanceRegen);
+        array.putU8(0x2D, statusInflictChanceHaste);
+        array.putU8(0x2E, statusInflictChanceSlow);
+        array.putU8(0x2F, statusDurationSleep);
+        array.putU8(0x30, statusDurationSilence);
+        array.putU8(0x31, statusDurationDarkness);
+        array.putU8(0x32, statusDurationShell);
+        array.putU8(0x33, statusDurationProtect);
+        array.putU8(0x34, statusDurationReflect);
+        array.putU8(0x35, statusDurationNTide);
+        array.putU8(0x36, statusDurationNBlaze);
+        array.putU8(0x37, statusDurationNShock);
+        array.putU8(0x38, statusDurationNFrost);
+        array.putU8(0x39, statusDurationRegen);
+        array.putU8(0x3A, statusDurationHaste);
+        array.putU8(0x3B, statusDurationSlow);
+        array.putU8(0x3C, statusResistChanceDeath);
+        array.putU8(0x3D, statusResistChanceZombie);
+        array.putU8(0x3E, statusResistChancePetrify);
+        array.putU8(0x3F, statusResistChancePoison);
+        array.putU8(0x40, statusResistChancePowerBreak);
+        array.putU8(0x41, statusResistChanceMagicBreak);
+        array.putU8(0x42, statusResistChanceArmorBreak);
+        array.putU8(0x43, statusResistChanceMentalBreak);
+        array.putU8(0x44, statusResistChanceConfuse);
+        array.putU8(0x45, statusResistChanceBerserk);
+        array.putU8(0x46, statusResistChanceProvoke);
+        array.putU8(0x47, statusResistChanceThreaten);
+        array.putU8(0x48, statusResistChanceSleep);
+        array.putU8(0x49, statusResistChanceSilence);
+        array.putU8(0x4A, statusResistChanceDarkness);
+        array.putU8(0x4B, statusResistChanceShell);
+        array.putU8(0x4C, statusResistChanceProtect);
+        array.putU8(0x4D, statusResistChanceReflect);
+        array.putU8(0x4E, statusResistChanceNTide);
+        array.putU8(0x4F, statusResistChanceNBlaze);
+        array.putU8(0x50, statusResistChanceNShock);
+        array.putU8(0x51, statusResistChanceNFrost);
+        array.putU8(0x52, statusResistChanceRegen);
+        array.putU8(0x53, statusResistChanceHaste);
+        array.putU8(0x54, statusResistChanceSlow);
+        array.putU8(0x55, statIncreaseAmount);
+        array.putU8(0x56, unknownByte56);
+        array.putU8(0x57, statIncreaseFlags);
+        array.putU8(0x58, autoStatuses1);
+        array.putU8(0x59, autoStatuses2);
+        array.putU8(0x5A, autoStatuses3);
+        array.putU8(0x5B, autoStatuses4);
+        array.putU8(0x5C, unknownByte5C);
+        array.putU8(0x5D, unknownByte5D);
+        array.putU8(0x5E, extraStatusInflictFlags1);
+        array.putU8(0x5F, extraStatusInflictFlags2);
+        array.putU8(0x60, extraStatusResistFlags1);
+        array.putU8(0x61, extraStatusResistFlags2);
+        array.putU8(0x62, abilityFlags62);
+        array.putU8(0x63, abilityFlags63);
+        array.putU8(0x64, abilityFlags64);
+        array.putU8(0x65, abilityFlags65);
+        array.putU8(0x66, abilityFlags66);
+        array.putU8(0x67, unknownByte67);
+        array.putU8(0x68, byte67usually14);
+        array.putU8(0x69, groupIndex);
+        array.putU8(0x6A, groupLevel);
+        array.putU8(0x6B, internationalBonusIndex);
+        return array.widen();
     }
 
     private void mapFlags() {
@@ -449,6 +578,47 @@ public class GearAbilityDataObject implements Nameable {
         byte66bit80 = (abilityFlags66 & 0x80) > 0;
     }
 
+    private void packFlags() {
+        if (!sosFlag) {
+            sosFlagByte = 0;
+        } else if (sosFlagByte == 0) {
+            sosFlagByte = 1;
+        }
+        autoStatuses1 = packBits(autoDeath, autoZombie, autoPetrify, autoPoison, autoPowerBreak, autoMagicBreak, autoArmorBreak, autoMentalBreak);
+        autoStatuses2 = withFlag(autoStatuses2, 0x01, autoConfuse);
+        autoStatuses2 = withFlag(autoStatuses2, 0x02, autoBerserk);
+        autoStatuses2 = withFlag(autoStatuses2, 0x04, autoProvoke);
+        autoStatuses2 = withFlag(autoStatuses2, 0x08, autoThreaten);
+        autoStatuses2 = withFlag(autoStatuses2, 0x10, autoSleep);
+        autoStatuses2 = withFlag(autoStatuses2, 0x20, autoSilence);
+        autoStatuses2 = withFlag(autoStatuses2, 0x40, autoDarkness);
+        autoStatuses3 = withFlag(autoStatuses3, 0x08, autoShell);
+        autoStatuses3 = withFlag(autoStatuses3, 0x10, autoProtect);
+        autoStatuses3 = withFlag(autoStatuses3, 0x20, autoReflect);
+        autoStatuses3 = withFlag(autoStatuses3, 0x40, autoNTide);
+        autoStatuses3 = withFlag(autoStatuses3, 0x80, autoNBlaze);
+        autoStatuses4 = withFlag(autoStatuses4, 0x01, autoNShock);
+        autoStatuses4 = withFlag(autoStatuses4, 0x02, autoNFrost);
+        autoStatuses4 = withFlag(autoStatuses4, 0x04, autoRegen);
+        autoStatuses4 = withFlag(autoStatuses4, 0x08, autoHaste);
+        autoStatuses4 = withFlag(autoStatuses4, 0x10, autoSlow);
+        extraStatusInflictFlags1 = packBits(inflictScan, inflictDistillPower, inflictDistillMana, inflictDistillSpeed, inflictUnused1, inflictDistillAbility, inflictShield, inflictBoost);
+        extraStatusInflictFlags2 = packBits(inflictEject, inflictAutoLife, inflictCurse, inflictDefend, inflictGuard, inflictSentinel, inflictDoom, inflictUnused2);
+        extraStatusResistFlags1 = packBits(resistScan, resistDistillPower, resistDistillMana, resistDistillSpeed, resistUnused1, resistDistillAbility, resistShield, resistBoost);
+        extraStatusResistFlags2 = packBits(resistEject, resistAutoLife, resistCurse, resistDefend, resistGuard, resistSentinel, resistDoom, resistUnused2);
+        statIncreaseFlags = withFlag(statIncreaseFlags, 0x01, increaseHp);
+        statIncreaseFlags = withFlag(statIncreaseFlags, 0x02, increaseMp);
+        statIncreaseFlags = withFlag(statIncreaseFlags, 0x04, increaseStr);
+        statIncreaseFlags = withFlag(statIncreaseFlags, 0x08, increaseMag);
+        statIncreaseFlags = withFlag(statIncreaseFlags, 0x10, increaseDef);
+        statIncreaseFlags = withFlag(statIncreaseFlags, 0x20, increaseMdf);
+        abilityFlags62 = packBits(sensor, firstStrike, initiative, counterattack, evadencounter, magiccounter, magicbooster, byte62bit80);
+        abilityFlags63 = packBits(byte63bit01, alchemy, autoPotion, autoMed, autoPhoenix, piercing, halfMpCost, oneMpCost);
+        abilityFlags64 = packBits(odX2, odX3, odSOS, odToAp, apX2, apX3, apX0, pickpocket);
+        abilityFlags65 = packBits(masterThief, breakHpLimit, breakMpLimit, breakDmgLimit, byte65bit10, byte65bit20, gilX2, hpStroll);
+        abilityFlags66 = packBits(mpStroll, noEncounters, capture, byte66bit08, byte66bit10, byte66bit20, byte66bit40, byte66bit80);
+    }
+
     private void mapStrings(int[] stringBytes) {
         name = StringHelper.getStringAtLookupOffset(stringBytes, nameOffset);
         dash = StringHelper.getStringAtLookupOffset(stringBytes, dashOffset);
@@ -938,8 +1108,4 @@ public class GearAbilityDataObject implements Nameable {
             return null;
         }
     }
-
-    private int read2Bytes(int offset) {
-        return bytes[offset] + bytes[offset+1] * 0x100;
-    }
 }
@@ -1,16 +1,21 @@
 package model;
 
 import main.DataAccess;
+import reading.ByteCursor;
 import script.model.ScriptConstants;
 import script.model.StackObject;
 
+import java.util.function.BiConsumer;
+
+import static reading.BytesHelper.*;
+
 /**
  * weapon.bin
  * buki_get.bin
  * shop_arms.bin
  */
 public class GearDataObject {
-    private final int[] bytes;
+    private final ByteCursor bytes;
 
     boolean isBukiGet;
     int alwaysZero3;
@@ -38,13 +43,13 @@ public class GearDataObject {
     boolean unalterable;
     boolean brotherhood;
 
-    public GearDataObject(int[] bytes) {
+    public GearDataObject(ByteCursor bytes) {
         this(bytes, null);
     }
 
-    public GearDataObject(int[] bytes, int[] stringBytes) {
+    public GearDataObject(ByteCursor bytes, int[] stringBytes) {
         this.bytes = bytes;
-        isBukiGet = (bytes.length == 16);
+        isBukiGet = (bytes.length() == 16);
         if (isBukiGet) {
             mapBytesBukiGet();
         } else {
@@ -54,40 +59,79 @@ public class GearDataObject {
     }
 
     private void mapBytesNormal() {
-        alwaysZero3 = bytes[0x00];
-        alwaysZero4 = bytes[0x01];
-        alwaysZeroOrOne = bytes[0x02];
-        variousFlags = bytes[0x03];
-        character = bytes[0x04];
-        armorByte = bytes[0x05];
-        alwaysZero1 = bytes[0x06];
-        alwaysZero2 = bytes[0x07];
-        formula = bytes[0x08];
-        power = bytes[0x09];
-        crit = bytes[0x0A];
-        slots = bytes[0x0B];
-        unknownC = bytes[0x0C];
-        unknownD = bytes[0x0D];
-        ability1 = read2Bytes(0x0E);
-        ability2 = read2Bytes(0x10);
-        ability3 = read2Bytes(0x12);
-        ability4 = read2Bytes(0x14);
+        alwaysZero3 = bytes.u8(0x00);
+        alwaysZero4 = bytes.u8(0x01);
+        alwaysZeroOrOne = bytes.u8(0x02);
+        variousFlags = bytes.u8(0x03);
+        character = bytes.u8(0x04);
+        armorByte = bytes.u8(0x05);
+        alwaysZero1 = bytes.u8(0x06);
+        alwaysZero2 = bytes.u8(0x07);
+        formula = bytes.u8(0x08);
+        power = bytes.u8(0x09);
+        crit = bytes.u8(0x0A);
+        slots = bytes.u8(0x0B);
+        unknownC = bytes.u8(0x0C);
+        unknownD = bytes.u8(0x0D);
+        ability1 = bytes.u16(0x0E);
+        ability2 = bytes.u16(0x10);
+        ability3 = bytes.u16(0x12);
+        ability4 = bytes.u16(0x14);
     }
 
     private void mapBytesBukiGet() {
         alwaysZeroOrOne = 1;
-        variousFlags = bytes[0x00];
-        character = bytes[0x01];
-        armorByte = bytes[0x02];
-        alwaysZero1 = bytes[0x03];
-        formula = bytes[0x04];
-        power = bytes[0x05];
-        crit = bytes[0x06];
-        slots = bytes[0x07];
-        ability1 = read2Bytes(0x08);
-        ability2 = read2Bytes(0x0A);
-        ability3 = read2Bytes(0x0C);
-        ability4 = read2Bytes(0x0E);
+        variousFlags = bytes.u8(0x00);
+        character = bytes.u8(0x01);
+        armorByte = bytes.u8(0x02);
+        alwaysZero1 = bytes.u8(0x03);
+        formula = bytes.u8(0x04);
+        power = bytes.u8(0x05);
+        crit = bytes.u8(0x06);
+        slots = bytes.u8(0x07);
+        ability1 = bytes.u16(0x08);
+        ability2 = bytes.u16(0x0A);
+        ability3 = bytes.u16(0x0C);
+        ability4 = bytes.u16(0x0E);
+    }
+
+    public int[] toBytes() {
+        packFlags();
+        ByteCursor array = ByteCursor.allocate(bytes.length());
+        if (isBukiGet) {
+            array.putU8(0x00, variousFlags);
+            array.putU8(0x01, character);
+            array.putU8(0x02, armorByte);
+            array.putU8(0x03, alwaysZero1);
+            array.putU8(0x04, formula);
+            array.putU8(0x05, power);
+            array.putU8(0x06, crit);
+            array.putU8(0x07, slots);
+            array.putU16(0x08, ability1);
+            array.putU16(0x0A, ability2);
+            array.putU16(0x0C, ability3);
+            array.putU16(0x0E, ability4);
+        } else {
+            array.putU8(0x00, alwaysZero3);
+            array.putU8(0x01, alwaysZero4);
+            array.putU8(0x02, alwaysZeroOrOne);
+            array.putU8(0x03, variousFlags);
+            array.putU8(0x04, character);
+            array.putU8(0x05, armorByte);
+            array.putU8(0x06, alwaysZero1);
+            array.putU8(0x07, alwaysZero2);
+            array.putU8(0x08, formula);
+            array.putU8(0x09, power);
+            array.putU8(0x0A, crit);
+            array.putU8(0x0B, slots);
+            array.putU8(0x0C, unknownC);
+            array.putU8(0x0D, unknownD);
+            array.putU16(0x0E, ability1);
+            array.putU16(0x10, ability2);
+            array.putU16(0x12, ability3);
+            array.putU16(0x14, ability4);
+        }
+        return array.widen();
     }
 
     private void mapFlags() {
@@ -98,6 +142,18 @@ public class GearDataObject {
         brotherhood = (variousFlags & 0x08) > 0;
     }
 
+    private void packFlags() {
+        if (!armor) {
+            armorByte = 0;
+        } else if (armorByte == 0) {
+            armorByte = 1;
+        }
+        variousFlags = withFlag(variousFlags, 0x01, flag1);
+        variousFlags = withFlag(variousFlags, 0x02, hiddenInMenu);
+        variousFlags = withFlag(variousFlags, 0x04, unalterable);
+        variousFlags = withFlag(variousFlags, 0x08, brotherhood);
+    }
+
     public String compactString() {
         return "{ " + StackObject.enumToString("playerChar", character) +
                 ", " + (armor ? "Armor" : "Weapon") +
@@ -155,6 +211,15 @@ public class GearDataObject {
         return String.format("%02X", bt) + '=' + String.format("%03d", bt) + '(' + String.format("%8s", Integer.toBinaryString(bt)).replace(' ', '0') + ')';
     }
 
+    public void collectReferences(BiConsumer<Integer, String> references) {
+        int[] abilities = { ability1, ability2, ability3, ability4 };
+        for (int i = 0; i < abilities.length && i < Math.max(slots, 1); i++) {
+            if (abilities[i] != 0x00FF && abilities[i] != 0x0000) {
+                references.accept(abilities[i], "ability slot " + (i + 1) + " of " + StackObject.enumToString("playerChar", character) + (armor ? " armor" : " weapon"));
+            }
+        }
+    }
+
     private static String getGearAbilityLabel(int idx) {
         if (idx == 0x00FF) {
             return "Empty";
@@ -167,8 +232,4 @@ public class GearDataObject {
             }
         }
     }
-
-    private int read2Bytes(int offset) {
-        return bytes[offset] + bytes[offset+1] * 0x100;
-    }
 }
@@ -1,34 +1,56 @@
 package model;
 
 import main.DataAccess;
+import reading.ByteCursor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 /**
  * takara.bin
  */
 public class GearShopDataObject implements Nameable {
     public static final int LENGTH = 0x22;
-    private final int[] bytes;
+    private final ByteCursor bytes;
 
     private int unusedPrices;
     private int[] offeredGearIndexes;
 
-    public GearShopDataObject(int[] bytes, int[] stringBytes) {
+    public GearShopDataObject(ByteCursor bytes, int[] stringBytes) {
         this.bytes = bytes;
         mapBytes();
     }
 
-    public GearShopDataObject(int[] bytes) {
+    public GearShopDataObject(ByteCursor bytes) {
         this(bytes, null);
     }
 
     private void mapBytes() {
-        unusedPrices = read2Bytes(0x00);
+        unusedPrices = bytes.u16(0x00);
         offeredGearIndexes = new int[0x10];
         for (int i = 0; i < 0x10; i++) {
-            offeredGearIndexes[i] = read2Bytes(i * 2 + 2);
+            offeredGearIndexes[i] = bytes.u16(i * 2 + 2);
+        }
+    }
+
+    public int[] toBytes() {
+        ByteCursor array = ByteCursor.allocate(bytes.length());
+        array.putU16(0x00, unusedPrices);
+        for (int i = 0; i < 0x10; i++) {
+            array.putU16(i * 2 + 2, offeredGearIndexes[i]);
+        }
+        return array.widen();
+    }
+
+    public void collectReferences(BiConsumer<Integer, String> references) {
+        for (int i = 0; i < 0x10; i++) {
+            int idx = offeredGearIndexes[i];
+            GearDataObject gear = idx != 0x00 && DataAccess.BUYABLE_GEAR != null && idx < DataAccess.BUYABLE_GEAR.length ? DataAccess.BUYABLE_GEAR[idx] : null;
+            if (gear != null) {
+                int slot = i;
+                gear.collectReferences((ability, detail) -> references.accept(ability, "Slot #" + slot + " " + detail));
+            }
         }
     }
 
@@ -51,8 +73,4 @@ public class GearShopDataObject implements Nameable {
     public String getName() {
         return this.toString();
     }
-
-    private int read2Bytes(int offset) {
-        return bytes[offset] + bytes[offset+1] * 0x100;
-    }
 }
@@ -1,33 +1,52 @@
 package model;
 
 import main.DataAccess;
+import reading.ByteCursor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 /**
  * takara.bin
  */
 public class ItemShopDataObject implements Nameable {
     public static final int LENGTH = 0x22;
-    private final int[] bytes;
+    private final ByteCursor bytes;
 
     private int unusedPrices;
     private int[] offeredItemIndexes = new int[0x10];
 
-    public ItemShopDataObject(int[] bytes, int[] stringBytes) {
+    public ItemShopDataObject(ByteCursor bytes, int[] stringBytes) {
         this.bytes = bytes;
         mapBytes();
     }
 
-    public ItemShopDataObject(int[] bytes) {
+    public ItemShopDataObject(ByteCursor bytes) {
         this(bytes, null);
     }
 
     private void mapBytes() {
-        unusedPrices = read2Bytes(0x00);
+        unusedPrices = bytes.u16(0x00);
         for (int i = 0; i < 0x10; i++) {
-            offeredItemIndexes[i] = read2Bytes(i * 2 + 2);
+            offeredItemIndexes[i] = bytes.u16(i * 2 + 2);
+        }
+    }
+
+    public int[] toBytes() {
+        ByteCursor array = ByteCursor.allocate(bytes.length());
+        array.putU16(0x00, unusedPrices);
+        for (int i = 0; i < 0x10; i++) {
+            array.putU16(i * 2 + 2, offeredItemIndexes[i]);
+        }
+        return array.widen();
+    }
+
+    public void collectReferences(BiConsumer<Integer, String> references) {
+        for (int i = 0; i < 0x10; i++) {
+            if (offeredItemIndexes[i] != 0x00) {
+                references.accept(offeredItemIndexes[i], "Slot #" + i);
+            }
         }
     }
 
@@ -49,8 +68,4 @@ public class ItemShopDataObject implements Nameable {
     public String getName() {
         return this.toString();
     }
-
-    private int read2Bytes(int offset) {
-        return bytes[offset] + bytes[offset+1] * 0x100;
-    }
 }
@@ -1,6 +1,7 @@
 package model;
 
 import main.StringHelper;
+import reading.ByteCursor;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -10,7 +11,7 @@ import java.util.stream.Collectors;
  * important.bin
  */
 public class KeyItemDataObject implements Nameable {
-    private final int[] bytes;
+    private final ByteCursor bytes;
 
     public String name;
     public String dash;
@@ -35,7 +36,7 @@ public class KeyItemDataObject implements Nameable {
     int unknownByte12;
     int ordering;
 
-    public KeyItemDataObject(int[] bytes, int[] stringBytes) {
+    public KeyItemDataObject(ByteCursor bytes, int[] stringBytes) {
         this.bytes = bytes;
         mapBytes();
         mapFlags();
@@ -47,22 +48,43 @@ public class KeyItemDataObject implements Nameable {
     }
 
     private void mapBytes() {
-        nameOffset = read2Bytes(0x00);
-        unknownByte2 = bytes[0x02];
-        unknownByte3 = bytes[0x03];
-        dashOffset = read2Bytes(0x04);
-        unknownByte6 = bytes[0x06];
-        unknownByte7 = bytes[0x07];
-        descriptionOffset = read2Bytes(0x08);
-        unknownByte0A = bytes[0x0A];
-        unknownByte0B = bytes[0x0B];
-        otherTextOffset = read2Bytes(0x0C);
-        unknownByte0E = bytes[0x0E];
-        unknownByte0F = bytes[0x0F];
-        isAlBhedPrimer = bytes[0x10];
-        alwaysZero = bytes[0x11];
-        unknownByte12 = bytes[0x12];
-        ordering = bytes[0x13];
+        nameOffset = bytes.u16(0x00);
+        unknownByte2 = bytes.u8(0x02);
+        unknownByte3 = bytes.u8(0x03);
+        dashOffset = bytes.u16(0x04);
+        unknownByte6 = bytes.u8(0x06);
+        unknownByte7 = bytes.u8(0x07);
+        descriptionOffset = bytes.u16(0x08);
+        unknownByte0A = bytes.u8(0x0A);
+        unknownByte0B = bytes.u8(0x0B);
+        otherTextOffset = bytes.u16(0x0C);
+        unknownByte0E = bytes.u8(0x0E);
+        unknownByte0F = bytes.u8(0x0F);
+        isAlBhedPrimer = bytes.u8(0x10);
+        alwaysZero = bytes.u8(0x11);
+        unknownByte12 = bytes.u8(0x12);
+        ordering = bytes.u8(0x13);
+    }
+
+    public int[] toBytes() {
+        ByteCursor array = ByteCursor.allocate(bytes.length());
+        array.putU16(0x00, nameOffset);
+        array.putU8(0x02, unknownByte2);
+        array.putU8(0x03, unknownByte3);
+        array.putU16(0x04, dashOffset);
+        array.putU8(0x06, unknownByte6);
+        array.putU8(0x07, unknownByte7);
+        array.putU16(0x08, descriptionOffset);
+        array.putU8(0x0A, unknownByte0A);
+        array.putU8(0x0B, unknownByte0B);
+        array.putU16(0x0C, otherTextOffset);
+        array.putU8(0x0E, unknownByte0E);
+        array.putU8(0x0F, unknownByte0F);
+        array.putU8(0x10, isAlBhedPrimer);
+        array.putU8(0x11, alwaysZero);
+        array.putU8(0x12, unknownByte12);
+        array.putU8(0x13, ordering);
+        return array.widen();
     }
 
     private void mapFlags() {
@@ -89,12 +111,6 @@ public class KeyItemDataObject implements Nameable {
         return String.format("%-20s", getName()) + " { " + full + " } " + dashStr + descriptionStr + soText;
     }
 
-    private int read2Bytes(int offset) {
-        int val = bytes[offset];
-        val += bytes[offset+1] * 0x100;
-        return val;
-    }
-
     private static String ifG0(int value, String prefix, String postfix) {
         if (value > 0) {
             return prefix + value + postfix;
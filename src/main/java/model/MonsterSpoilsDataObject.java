@@ -1,108 +1,163 @@
 package model;
 
 import main.DataAccess;
+import reading.ByteCursor;
 import script.model.StackObject;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 public class MonsterSpoilsDataObject {
     public static final int LENGTH = 0x11C;
 
-    private final int[] bytes;
-
-    int gil;
-    int apNormal;
-    int apOverkill;
-    boolean hasRonsoRage;
-    int ronsoRage;
-    int dropChancePrimary;
-    int dropChanceSecondary;
-    int stealChance;
-    int dropChanceGear;
-    int dropNormalTypePrimaryCommon;
-    int dropNormalTypePrimaryRare;
-    int dropNormalTypeSecondaryCommon;
-    int dropNormalTypeSecondaryRare;
-    int dropNormalQuantityPrimaryCommon;
-    int dropNormalQuantityPrimaryRare;
-    int dropNormalQuantitySecondaryCommon;
-    int dropNormalQuantitySecondaryRare;
-    int dropOverkillTypePrimaryCommon;
-    int dropOverkillTypePrimaryRare;
-    int dropOverkillTypeSecondaryCommon;
-    int dropOverkillTypeSecondaryRare;
-    int dropOverkillQuantityPrimaryCommon;
-    int dropOverkillQuantityPrimaryRare;
-    int dropOverkillQuantitySecondaryCommon;
-    int dropOverkillQuantitySecondaryRare;
-    int stealItemTypeCommon;
-    int stealItemTypeRare;
-    int stealItemQuantityCommon;
-    int stealItemQuantityRare;
-    int bribeItem;
-    int bribeItemQuantity;
-    int gearSlotCountByte;
-    int gearDamageFormula;
-    int gearCritBonus;
-    int gearAttackPower;
-    int gearAbilityCountByte;
-    int[][] gearAbilitiesOnWeaponsByChar = new int[7][8];
-    int[][] gearAbilitiesOnArmorsByChar = new int[7][8];
-    int zanmatoLevelByte;
-
-    public MonsterSpoilsDataObject(int[] bytes) {
+    private final ByteCursor bytes;
+
+    public int gil;
+    public int apNormal;
+    public int apOverkill;
+    public boolean hasRonsoRage;
+    public int ronsoRage;
+    public int dropChancePrimary;
+    public int dropChanceSecondary;
+    public int stealChance;
+    public int dropChanceGear;
+    public int dropNormalTypePrimaryCommon;
+    public int dropNormalTypePrimaryRare;
+    public int dropNormalTypeSecondaryCommon;
+    public int dropNormalTypeSecondaryRare;
+    public int dropNormalQuantityPrimaryCommon;
+    public int dropNormalQuantityPrimaryRare;
+    public int dropNormalQuantitySecondaryCommon;
+    public int dropNormalQuantitySecondaryRare;
+    public int dropOverkillTypePrimaryCommon;
+    public int dropOverkillTypePrimaryRare;
+    public int dropOverkillTypeSecondaryCommon;
+    public int dropOverkillTypeSecondaryRare;
+    public int dropOverkillQuantityPrimaryCommon;
+    public int dropOverkillQuantityPrimaryRare;
+    public int dropOverkillQuantitySecondaryCommon;
+    public int dropOverkillQuantitySecondaryRare;
+    public int stealItemTypeCommon;
+    public int stealItemTypeRare;
+    public int stealItemQuantityCommon;
+    public int stealItemQuantityRare;
+    public int bribeItem;
+    public int bribeItemQuantity;
+    public int gearSlotCountByte;
+    public int gearDamageFormula;
+    public int gearCritBonus;
+    public int gearAttackPower;
+    public int gearAbilityCountByte;
+    public int[][] gearAbilitiesOnWeaponsByChar = new int[7][8];
+    public int[][] gearAbilitiesOnArmorsByChar = new int[7][8];
+    public int zanmatoLevelByte;
+    int[] unknownBytes113;
+
+    public MonsterSpoilsDataObject(ByteCursor bytes) {
         this.bytes = bytes;
         mapSpoilsBytes();
     }
 
     private void mapSpoilsBytes() {
-        gil = read2Bytes(bytes, 0x00);
-        apNormal = read2Bytes(bytes, 0x02);
-        apOverkill = read2Bytes(bytes, 0x04);
-        hasRonsoRage = bytes[0x06] > 0 || bytes[0x07] > 0;
-        ronsoRage = read2Bytes(bytes, 0x06);
-        dropChancePrimary = bytes[0x08];
-        dropChanceSecondary = bytes[0x09];
-        stealChance = bytes[0x0A];
-        dropChanceGear = bytes[0x0B];
-        dropNormalTypePrimaryCommon = read2Bytes(bytes, 0x0C);
-        dropNormalTypePrimaryRare = read2Bytes(bytes, 0x0E);
-        dropNormalTypeSecondaryCommon = read2Bytes(bytes, 0x10);
-        dropNormalTypeSecondaryRare = read2Bytes(bytes, 0x12);
-        dropNormalQuantityPrimaryCommon = bytes[0x14];
-        dropNormalQuantityPrimaryRare = bytes[0x15];
-        dropNormalQuantitySecondaryCommon = bytes[0x16];
-        dropNormalQuantitySecondaryRare = bytes[0x17];
-        dropOverkillTypePrimaryCommon = read2Bytes(bytes, 0x18);
-        dropOverkillTypePrimaryRare = read2Bytes(bytes, 0x1A);
-        dropOverkillTypeSecondaryCommon = read2Bytes(bytes, 0x1C);
-        dropOverkillTypeSecondaryRare = read2Bytes(bytes, 0x1E);
-        dropOverkillQuantityPrimaryCommon = bytes[0x20];
-        dropOverkillQuantityPrimaryRare = bytes[0x21];
-        dropOverkillQuantitySecondaryCommon = bytes[0x22];
-        dropOverkillQuantitySecondaryRare = bytes[0x23];
-        stealItemTypeCommon = read2Bytes(bytes, 0x24);
-        stealItemTypeRare = read2Bytes(bytes, 0x26);
-        stealItemQuantityCommon = bytes[0x28];
-        stealItemQuantityRare = bytes[0x29];
-        bribeItem = read2Bytes(bytes, 0x2A);
-        bribeItemQuantity = bytes[0x2C];
-        gearSlotCountByte = bytes[0x2D];
-        gearDamageFormula = bytes[0x2E];
-        gearCritBonus = bytes[0x2F];
-        gearAttackPower = bytes[0x30];
-        gearAbilityCountByte = bytes[0x31];
+        gil = bytes.u16(0x00);
+        apNormal = bytes.u16(0x02);
+        apOverkill = bytes.u16(0x04);
+        hasRonsoRage = bytes.u8(0x06) > 0 || bytes.u8(0x07) > 0;
+        ronsoRage = bytes.u16(0x06);
+        dropChancePrimary = bytes.u8(0x08);
+        dropChanceSecondary = bytes.u8(0x09);
+        stealChance = bytes.u8(0x0A);
+        dropChanceGear = bytes.u8(0x0B);
+        dropNormalTypePrimaryCommon = bytes.u16(0x0C);
+        dropNormalTypePrimaryRare = bytes.u16(0x0E);
+        dropNormalTypeSecondaryCommon = bytes.u16(0x10);
+        dropNormalTypeSecondaryRare = bytes.u16(0x12);
+        dropNormalQuantityPrimaryCommon = bytes.u8(0x14);
+        dropNormalQuantityPrimaryRare = bytes.u8(0x15);
+        dropNormalQuantitySecondaryCommon = bytes.u8(0x16);
+        dropNormalQuantitySecondaryRare = bytes.u8(0x17);
+        dropOverkillTypePrimaryCommon = bytes.u16(0x18);
+        dropOverkillTypePrimaryRare = bytes.u16(0x1A);
+        dropOverkillTypeSecondaryCommon = bytes.u16(0x1C);
+        dropOverkillTypeSecondaryRare = bytes.u16(0x1E);
+        dropOverkillQuantityPrimaryCommon = bytes.u8(0x20);
+        dropOverkillQuantityPrimaryRare = bytes.u8(0x21);
+        dropOverkillQuantitySecondaryCommon = bytes.u8(0x22);
+        dropOverkillQuantitySecondaryRare = bytes.u8(0x23);
+        stealItemTypeCommon = bytes.u16(0x24);
+        stealItemTypeRare = bytes.u16(0x26);
+        stealItemQuantityCommon = bytes.u8(0x28);
+        stealItemQuantityRare = bytes.u8(0x29);
+        bribeItem = bytes.u16(0x2A);
+        bribeItemQuantity = bytes.u8(0x2C);
+        gearSlotCountByte = bytes.u8(0x2D);
+        gearDamageFormula = bytes.u8(0x2E);
+        gearCritBonus = bytes.u8(0x2F);
+        gearAttackPower = bytes.u8(0x30);
+        gearAbilityCountByte = bytes.u8(0x31);
         for (int chr = 0; chr < 7; chr++) {
             int baseOffset = 0x32 + chr * 0x20;
             for (int i = 0; i < 8; i++) {
-                gearAbilitiesOnWeaponsByChar[chr][i] = read2Bytes(bytes, baseOffset + i * 2);
+                gearAbilitiesOnWeaponsByChar[chr][i] = bytes.u16(baseOffset + i * 2);
             }
             for (int i = 0; i < 8; i++) {
-                gearAbilitiesOnArmorsByChar[chr][i] = read2Bytes(bytes, baseOffset + 0x10 + i * 2);
+                gearAbilitiesOnArmorsByChar[chr][i] = bytes.u16(baseOffset + 0x10 + i * 2);
             }
         }
-        zanmatoLevelByte = bytes[0x112];
+        zanmatoLevelByte = bytes.u8(0x112);
+        unknownBytes113 = bytes.widen(0x113, bytes.length());
+    }
+
+    public int[] toBytes() {
+        ByteCursor array = ByteCursor.allocate(bytes.length());
+        array.putU16(0x00, gil);
+        array.putU16(0x02, apNormal);
+        array.putU16(0x04, apOverkill);
+        array.putU16(0x06, hasRonsoRage ? ronsoRage : 0);
+        array.putU8(0x08, dropChancePrimary);
+        array.putU8(0x09, dropChanceSecondary);
+        array.putU8(0x0A, stealChance);
+        array.putU8(0x0B, dropChanceGear);
+        array.putU16(0x0C, dropNormalTypePrimaryCommon);
+        array.putU16(0x0E, dropNormalTypePrimaryRare);
+        array.putU16(0x10, dropNormalTypeSecondaryCommon);
+        array.putU16(0x12, dropNormalTypeSecondaryRare);
+        array.putU8(0x14, dropNormalQuantityPrimaryCommon);
+        array.putU8(0x15, dropNormalQuantityPrimaryRare);
+        array.putU8(0x16, dropNormalQuantitySecondaryCommon);
+        array.putU8(0x17, dropNormalQuantitySecondaryRare);
+        array.putU16(0x18, dropOverkillTypePrimaryCommon);
+        array.putU16(0x1A, dropOverkillTypePrimaryRare);
+        array.putU16(0x1C, dropOverkillTypeSecondaryCommon);
+        array.putU16(0x1E, dropOverkillTypeSecondaryRare);
+        array.putU8(0x20, dropOverkillQuantityPrimaryCommon);
+        array.putU8(0x21, dropOverkillQuantityPrimaryRare);
+        array.putU8(0x22, dropOverkillQuantitySecondaryCommon);
+        array.putU8(0x23, dropOverkillQuantitySecondaryRare);
+        array.putU16(0x24, stealItemTypeCommon);
+        array.putU16(0x26, stealItemTypeRare);
+        array.putU8(0x28, stealItemQuantityCommon);
+        array.putU8(0x29, stealItemQuantityRare);
+        array.putU16(0x2A, bribeItem);
+        array.putU8(0x2C, bribeItemQuantity);
+        array.putU8(0x2D, gearSlotCountByte);
+        array.putU8(0x2E, gearDamageFormula);
+        array.putU8(0x2F, gearCritBonus);
+        array.putU8(0x30, gearAttackPower);
+        array.putU8(0x31, gearAbilityCountByte);
+        for (int chr = 0; chr < 7; chr++) {
+            int baseOffset = 0x32 + chr * 0x20;
+            for (int i = 0; i < 8; i++) {
+                array.putU16(baseOffset + i * 2, gearAbilitiesOnWeaponsByChar[chr][i]);
+            }
+            for (int i = 0; i < 8; i++) {
+                array.putU16(baseOffset + 0x10 + i * 2, gearAbilitiesOnArmorsByChar[chr][i]);
+            }
+        }
+        array.putU8(0x112, zanmatoLevelByte);
+        array.put(0x113, ByteCursor.narrow(unknownBytes113));
+        return array.widen();
     }
 
     @Override
@@ -154,6 +209,48 @@ public class MonsterSpoilsDataObject {
         return full;
     }
 
+    public void collectReferences(BiConsumer<Integer, String> references) {
+        if (hasRonsoRage) {
+            references.accept(ronsoRage, "Ronso Rage");
+        }
+        if (dropChancePrimary > 0) {
+            addItem(references, dropNormalTypePrimaryCommon, dropNormalQuantityPrimaryCommon, "Primary drop (common)");
+            addItem(references, dropNormalTypePrimaryRare, dropNormalQuantityPrimaryRare, "Primary drop (rare)");
+            addItem(references, dropOverkillTypePrimaryCommon, dropOverkillQuantityPrimaryCommon, "Primary overkill drop (common)");
+            addItem(references, dropOverkillTypePrimaryRare, dropOverkillQuantityPrimaryRare, "Primary overkill drop (rare)");
+        }
+        if (dropChanceSecondary > 0) {
+            addItem(references, dropNormalTypeSecondaryCommon, dropNormalQuantitySecondaryCommon, "Secondary drop (common)");
+            addItem(references, dropNormalTypeSecondaryRare, dropNormalQuantitySecondaryRare, "Secondary drop (rare)");
+            addItem(references, dropOverkillTypeSecondaryCommon, dropOverkillQuantitySecondaryCommon, "Secondary overkill drop (common)");
+            addItem(references, dropOverkillTypeSecondaryRare, dropOverkillQuantitySecondaryRare, "Secondary overkill drop (rare)");
+        }
+        if (stealChance > 0) {
+            addItem(references, stealItemTypeCommon, stealItemQuantityCommon, "Steal (common)");
+            addItem(references, stealItemTypeRare, stealItemQuantityRare, "Steal (rare)");
+        }
+        addItem(references, bribeItem, bribeItemQuantity, "Bribe");
+        if (dropChanceGear > 0 && gearAbilityCountByte > 0) {
+            for (int chr = 0; chr < 7; chr++) {
+                String charName = StackObject.enumToString("playerChar", chr);
+                for (int i = 0; i < 8; i++) {
+                    if (gearAbilitiesOnWeaponsByChar[chr][i] != 0x00FF && gearAbilitiesOnWeaponsByChar[chr][i] != 0x0000) {
+                        references.accept(gearAbilitiesOnWeaponsByChar[chr][i], "Gear drop ability on " + charName + " weapon" + (i == 0 ? " (forced)" : ""));
+                    }
+                    if (gearAbilitiesOnArmorsByChar[chr][i] != 0x00FF && gearAbilitiesOnArmorsByChar[chr][i] != 0x0000) {
+                        references.accept(gearAbilitiesOnArmorsByChar[chr][i], "Gear drop ability on " + charName + " armor" + (i == 0 ? " (forced)" : ""));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addItem(BiConsumer<Integer, String> references, int item, int quantity, String label) {
+        if (item != 0x0000) {
+            references.accept(item, label + " " + quantity + "x");
+        }
+    }
+
     private static String getRandomCountString(int countByte, boolean isAbilityRoll) {
         double multiplier = isAbilityRoll ? 0.125 : 0.25;
         double min = (countByte - 4) * multiplier;
@@ -212,10 +309,6 @@ public class MonsterSpoilsDataObject {
         return abilityStr.toString();
     }
 
-    private static int read2Bytes(int[] bytes, int offset) {
-        return bytes[offset] + bytes[offset+1] * 0x100;
-    }
-
     private static String asGearAbility(int idx) {
         GearAbilityDataObject abil = DataAccess.getGearAbility(idx);
         return (abil != null ? abil.getName() : "null") + " [" + String.format("%04X", idx) + "h]";
@@ -229,5 +322,4 @@ public class MonsterSpoilsDataObject {
     private static String formatUnknownByte(int bt) {
         return String.format("%02X", bt) + '=' + String.format("%03d", bt) + '(' + String.format("%8s", Integer.toBinaryString(bt)).replace(' ', '0') + ')';
     }
-
 }
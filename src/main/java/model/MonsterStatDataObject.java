@@ -2,6 +2,7 @@ package model;
 
 import main.DataAccess;
 import main.StringHelper;
+import reading.ByteCursor;
 import script.model.StackObject;
 
 import java.util.ArrayList;
@@ -10,16 +11,28 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static reading.BytesHelper.*;
+
 public class MonsterStatDataObject {
     public static final int LENGTH = 0x80;
 
-    private final int[] bytes;
+    private final ByteCursor bytes;
 
     int nameOffset;
+    int unknownByte2;
+    int unknownByte3;
     int sensorOffset;
+    int unknownByte6;
+    int unknownByte7;
     int sensorDashOffset;
+    int unknownByte0A;
+    int unknownByte0B;
     int scanOffset;
+    int unknownByte0E;
+    int unknownByte0F;
     int scanDashOffset;
+    int unknownByte12;
+    int unknownByte13;
     public String monsterName;
     public String monsterSensorText;
     public String monsterSensorDash;
@@ -27,8 +40,8 @@ public class MonsterStatDataObject {
     public String monsterScanDash;
     public boolean isLocalizationData = false;
 
-    int hp;
-    int mp;
+    public int hp;
+    public int mp;
     int overkillThreshold;
     int str;
     int def;
@@ -79,6 +92,7 @@ public class MonsterStatDataObject {
 
     int extraStatusImmunities1;
     int extraStatusImmunities2;
+    int[] unknownBytes50;
 
     int forcedAction;
     int monsterIdx;
@@ -169,7 +183,7 @@ public class MonsterStatDataObject {
     boolean resistDoom;
     boolean resistUnused2;
 
-    public MonsterStatDataObject(int[] bytes, int[] stringBytes) {
+    public MonsterStatDataObject(ByteCursor bytes, int[] stringBytes) {
         this.bytes = bytes;
         mapBytes();
         mapFlags();
@@ -177,75 +191,176 @@ public class MonsterStatDataObject {
     }
 
     private void mapBytes() {
-        nameOffset = read2Bytes(bytes, 0x00);
-        sensorOffset = read2Bytes(bytes, 0x04);
-        sensorDashOffset = read2Bytes(bytes, 0x08);
-        scanOffset = read2Bytes(bytes, 0x0C);
-        scanDashOffset = read2Bytes(bytes, 0x10);
-        hp = read4Bytes(bytes, 0x14);
-        mp = read4Bytes(bytes, 0x18);
-        overkillThreshold = read4Bytes(bytes, 0x1C);
-        str = bytes[0x20];
-        def = bytes[0x21];
-        mag = bytes[0x22];
-        mdf = bytes[0x23];
-        agi = bytes[0x24];
-        lck = bytes[0x25];
-        eva = bytes[0x26];
-        acc = bytes[0x27];
-        miscProperties28 = bytes[0x28];
-        miscProperties29 = bytes[0x29];
-        poisonDamage = bytes[0x2A];
-        elementAbsorb = bytes[0x2B];
-        elementImmune = bytes[0x2C];
-        elementResist = bytes[0x2D];
-        elementWeak = bytes[0x2E];
-        statusResistChanceDeath = bytes[0x2F];
-        statusResistChanceZombie = bytes[0x30];
-        statusResistChancePetrify = bytes[0x31];
-        statusResistChancePoison = bytes[0x32];
-        statusResistChancePowerBreak = bytes[0x33];
-        statusResistChanceMagicBreak = bytes[0x34];
-        statusResistChanceArmorBreak = bytes[0x35];
-        statusResistChanceMentalBreak = bytes[0x36];
-        statusResistChanceConfuse = bytes[0x37];
-        statusResistChanceBerserk = bytes[0x38];
-        statusResistChanceProvoke = bytes[0x39];
-        statusChanceThreaten = bytes[0x3A];
-        statusResistChanceSleep = bytes[0x3B];
-        statusResistChanceSilence = bytes[0x3C];
-        statusResistChanceDarkness = bytes[0x3D];
-        statusResistChanceShell = bytes[0x3E];
-        statusResistChanceProtect = bytes[0x3F];
-        statusResistChanceReflect = bytes[0x40];
-        statusResistChanceNTide = bytes[0x41];
-        statusResistChanceNBlaze = bytes[0x42];
-        statusResistChanceNShock = bytes[0x43];
-        statusResistChanceNFrost = bytes[0x44];
-        statusResistChanceRegen = bytes[0x45];
-        statusResistChanceHaste = bytes[0x46];
-        statusResistChanceSlow = bytes[0x47];
-        autoStatuses1 = bytes[0x48];
-        autoStatuses2 = bytes[0x49];
-        autoStatuses3 = bytes[0x4A];
-        autoStatuses4 = bytes[0x4B];
-        autoStatuses5 = bytes[0x4C];
-        autoStatuses6 = bytes[0x4D];
-
-        extraStatusImmunities1 = bytes[0x4E];
-        extraStatusImmunities2 = bytes[0x4F];
-
-        forcedAction = read2Bytes(bytes, 0x70);
-        monsterIdx = read2Bytes(bytes, 0x72);
-        modelIdx = read2Bytes(bytes, 0x74);
-        ctbIconTypeMaybe = bytes[0x76];
-        doomCounter = bytes[0x77];
-        monsterArenaIdx = read2Bytes(bytes, 0x78);
-        modelIdxOther = read2Bytes(bytes, 0x7A);
-        alwaysZero7C = bytes[0x7C];
-        alwaysZero7D = bytes[0x7D];
-        alwaysZero7E = bytes[0x7E];
-        alwaysZero7F = bytes[0x7F];
+        nameOffset = bytes.u16(0x00);
+        unknownByte2 = bytes.u8(0x02);
+        unknownByte3 = bytes.u8(0x03);
+        sensorOffset = bytes.u16(0x04);
+        unknownByte6 = bytes.u8(0x06);
+        unknownByte7 = bytes.u8(0x07);
+        sensorDashOffset = bytes.u16(0x08);
+        unknownByte0A = bytes.u8(0x0A);
+        unknownByte0B = bytes.u8(0x0B);
+        scanOffset = bytes.u16(0x0C);
+        unknownByte0E = bytes.u8(0x0E);
+        unknownByte0F = bytes.u8(0x0F);
+        scanDashOffset = bytes.u16(0x10);
+        unknownByte12 = bytes.u8(0x12);
+        unknownByte13 = bytes.u8(0x13);
+        hp = bytes.s32(0x14);
+        mp = bytes.s32(0x18);
+        overkillThreshold = bytes.s32(0x1C);
+        str = bytes.u8(0x20);
+        def = bytes.u8(0x21);
+        mag = bytes.u8(0x22);
+        mdf = bytes.u8(0x23);
+        agi = bytes.u8(0x24);
+        lck = bytes.u8(0x25);
+        eva = bytes.u8(0x26);
+        acc = bytes.u8(0x27);
+        miscProperties28 = bytes.u8(0x28);
+        miscProperties29 = bytes.u8(0x29);
+        poisonDamage = bytes.u8(0x2A);
+        elementAbsorb = bytes.u8(0x2B);
+        elementImmune = bytes.u8(0x2C);
+        elementResist = bytes.u8(0x2D);
+        elementWeak = bytes.u8(0x2E);
+        statusResistChanceDeath = bytes.u8(0x2F);
+        statusResistChanceZombie = bytes.u8(0x30);
+        statusResistChancePetrify = bytes.u8(0x31);
+        statusResistChancePoison = bytes.u8(0x32);
+        statusResistChancePowerBreak = bytes.u8(0x33);
+        statusResistChanceMagicBreak = bytes.u8(0x34);
+        statusResistChanceArmorBreak = bytes.u8(0x35);
+        statusResistChanceMentalBreak = bytes.u8(0x36);
+        statusResistChanceConfuse = bytes.u8(0x37);
+        statusResistChanceBerserk = bytes.u8(0x38);
+        statusResistChanceProvoke = bytes.u8(0x39);
+        statusChanceThreaten = bytes.u8(0x3A);
+        statusResistChanceSleep = bytes.u8(0x3B);
+        statusResistChanceSilence = bytes.u8(0x3C);
+        statusResistChanceDarkness = bytes.u8(0x3D);
+        statusResistChanceShell = bytes.u8(0x3E);
+        statusResistChanceProtect = bytes.u8(0x3F);
+        statusResistChanceReflect = bytes.u8(0x40);
+        statusResistChanceNTide = bytes.u8(0x41);
+        statusResistChanceNBlaze = bytes.u8(0x42);
+        statusResistChanceNShock = bytes.u8(0x43);
+        statusResistChanceNFrost = bytes.u8(0x44);
+        statusResistChanceRegen = bytes.u8(0x45);
+        statusResistChanceHaste = bytes.u8(0x46);
+        statusResistChanceSlow = bytes.u8(0x47);
+        autoStatuses1 = bytes.u8(0x48);
+        autoStatuses2 = bytes.u8(0x49);
+        autoStatuses3 = bytes.u8(0x4A);
+        autoStatuses4 = bytes.u8(0x4B);
+        autoStatuses5 = bytes.u8(0x4C);
+        autoStatuses6 = bytes.u8(0x4D);
+
+        extraStatusImmunities1 = bytes.u8(0x4E);
+        extraStatusImmunities2 = bytes.u8(0x4F);
+        unknownBytes50 = bytes.widen(0x50, 0x70);
+        forcedAction = bytes.u16(0x70);
+        monsterIdx = bytes.u16(0x72);
+        modelIdx = bytes.u16(0x74);
+        ctbIconTypeMaybe = bytes.u8(0x76);
+        doomCounter = bytes.u8(0x77);
+        monsterArenaIdx = bytes.u16(0x78);
+        modelIdxOther = bytes.u16(0x7A);
+        alwaysZero7C = bytes.u8(0x7C);
+        alwaysZero7D = bytes.u8(0x7D);
+        alwaysZero7E = bytes.u8(0x7E);
+        alwaysZero7F = bytes.u8(0x7F);
+    }
+
+    /**
+     * Monster files keep the string block right after the record; it is copied over unchanged.
+     */
+    public int[] toBytes() {
+        packFlags();
+        ByteCursor array = ByteCursor.allocate(bytes.length());
+        array.putU16(0x00, nameOffset);
+        array.putU8(0x02, unknownByte2);
+        array.putU8(0x03, unknownByte3);
+        array.putU16(0x04, sensorOffset);
+        array.putU8(0x06, unknownByte6);
+        array.putU8(0x07, unknownByte7);
+        array.putU16(0x08, sensorDashOffset);
+        array.putU8(0x0A, unknownByte0A);
+        array.putU8(0x0B, unknownByte0B);
+        array.putU16(0x0C, scanOffset);
+        array.putU8(0x0E, unknownByte0E);
+        array.putU8(0x0F, unknownByte0F);
+        array.putU16(0x10, scanDashOffset);
+        array.putU8(0x12, unknownByte12);
+        array.putU8(0x13, unknownByte13);
+        array.putS32(0x14, hp);
+        array.putS32(0x18, mp);
+        array.putS32(0x1C, overkillThreshold);
+        array.putU8(0x20, str);
+        array.putU8(0x21, def);
+        array.putU8(0x22, mag);
+        array.putU8(0x23, mdf);
+        array.putU8(0x24, agi);
+        array.putU8(0x25, lck);
+        array.putU8(0x26, eva);
+        array.putU8(0x27, acc);
+        array.putU8(0x28, miscProperties28);
+        array.putU8(0x29, miscProperties29);
+        array.putU8(0x2A, poisonDamage);
+        array.putU8(0x2B, elementAbsorb);
+        array.putU8(0x2C, elementImmune);
+        array.putU8(0x2D, elementResist);
+        array.putU8(0x2E, elementWeak);
+        array.putU8(0x2F, statusResistChanceDeath);
+        array.putU8(0x30, statusResistChanceZombie);
+        array.putU8(0x31, statusResistChancePetrify);
+        array.putU8(0x32, statusResistChancePoison);
+        array.putU8(0x33, statusResistChancePowerBreak);
+        array.putU8(0x34, statusResistChanceMagicBreak);
+        array.putU8(0x35, statusResistChanceArmorBreak);
+        array.putU8(0x36, statusResistChanceMentalBreak);
+        array.putU8(0x37, statusResistChanceConfuse);
+        array.putU8(0x38, statusResistChanceBerserk);
+        array.putU8(0x39, statusResistChanceProvoke);
+        array.putU8(0x3A, statusChanceThreaten);
+        array.putU8(0x3B, statusResistChanceSleep);
+        array.putU8(0x3C, statusResistChanceSilence);
+        array.putU8(0x3D, statusResistChanceDarkness);
+        array.putU8(0x3E, statusResistChanceShell);
+        array.putU8(0x3F, statusResistChanceProtect);
+        array.putU8(0x40, statusResistChanceReflect);
+        array.putU8(0x41, statusResistChanceNTide);
+        array.putU8(0x42, statusResistChanceNBlaze);
+        array.putU8(0x43, statusResistChanceNShock);
+        array.putU8(0x44, statusResistChanceNFrost);
+        array.putU8(0x45, statusResistChanceRegen);
+        array.putU8(0x46, statusResistChanceHaste);
+        array.putU8(0x47, statusResistChanceSlow);
+        array.putU8(0x48, autoStatuses1);
+        array.putU8(0x49, autoStatuses2);
+        array.putU8(0x4A, autoStatuses3);
+        array.putU8(0x4B, autoStatuses4);
+        array.putU8(0x4C, autoStatuses5);
+        array.putU8(0x4D, autoStatuses6);
+
+        array.putU8(0x4E, extraStatusImmunities1);
+        array.putU8(0x4F, extraStatusImmunities2);
+        array.put(0x50, ByteCursor.narrow(unknownBytes50));
+        array.putU16(0x70, forcedAction);
+        array.putU16(0x72, monsterIdx);
+        array.putU16(0x74, modelIdx);
+        array.putU8(0x76, ctbIconTypeMaybe);
+        array.putU8(0x77, doomCounter);
+        array.putU16(0x78, monsterArenaIdx);
+        array.putU16(0x7A, modelIdxOther);
+        array.putU8(0x7C, alwaysZero7C);
+        array.putU8(0x7D, alwaysZero7D);
+        array.putU8(0x7E, alwaysZero7E);
+        array.putU8(0x7F, alwaysZero7F);
+        if (bytes.length() > LENGTH) {
+            array.put(LENGTH, bytes.slice(LENGTH, bytes.length() - LENGTH));
+        }
+        return array.widen();
     }
 
     private void mapFlags() {
@@ -325,6 +440,30 @@ public class MonsterStatDataObject {
         resistUnused2 = (extraStatusImmunities2 & 0x80) > 0;
     }
 
+    private void packFlags() {
+        miscProperties28 = packBits(armored, immunityFractionalDamage, immunityLife, immunitySensor, immunityScanAgainOrWhat, immunityPhysicalDamage, immunityMagicalDamage, immunityAllDamage);
+        miscProperties29 = withFlag(miscProperties29, 0x01, immunityDelay);
+        miscProperties29 = withFlag(miscProperties29, 0x02, immunitySliceProbably);
+        miscProperties29 = withFlag(miscProperties29, 0x04, immunityBribeProbably);
+        autoStatuses1 = packBits(autoDeath, autoZombie, autoPetrify, autoPoison, autoPowerBreak, autoMagicBreak, autoArmorBreak, autoMentalBreak);
+        autoStatuses2 = packBits(autoConfuse, autoBerserk, autoProvoke, autoThreaten, autoSleep, autoSilence, autoDarkness, autoUnknown280);
+        autoStatuses3 = packBits(autoUnknown301, autoUnknown302, autoUnknown304, autoShell, autoProtect, autoReflect, autoNTide, autoNBlaze);
+        autoStatuses4 = withFlag(autoStatuses4, 0x01, autoNShock);
+        autoStatuses4 = withFlag(autoStatuses4, 0x02, autoNFrost);
+        autoStatuses4 = withFlag(autoStatuses4, 0x04, autoRegen);
+        autoStatuses4 = withFlag(autoStatuses4, 0x08, autoHaste);
+        autoStatuses4 = withFlag(autoStatuses4, 0x10, autoSlow);
+        autoStatuses5 = packBits(autoScan, autoDistillPower, autoDistillMana, autoDistillSpeed, autoUnused1, autoDistillAbility, autoShield, autoBoost);
+        autoStatuses6 = packBits(autoEject, autoAutoLife, autoCurse, autoDefend, autoGuard, autoSentinel, autoDoom, autoUnused2);
+        extraStatusImmunities1 = packBits(resistScan, resistDistillPower, resistDistillMana, resistDistillSpeed, resistUnused1, resistDistillAbility, resistShield, resistBoost);
+        extraStatusImmunities2 = packBits(resistEject, resistAutoLife, resistCurse, resistDefend, resistGuard, resistSentinel, resistDoom, resistUnused2);
+        if (!autoUnknown4) {
+            autoStatuses4 &= 0x1F;
+        } else if (autoStatuses4 < 0x20) {
+            autoStatuses4 |= 0x20;
+        }
+    }
+
     private void mapStrings(int[] stringBytes) {
         if (stringBytes == null || stringBytes.length == 0) {
             return;
@@ -721,16 +860,7 @@ public class MonsterStatDataObject {
         return buffs.toString();
     }
 
-    private static int read2Bytes(int[] bytes, int offset) {
-        return bytes[offset] + bytes[offset+1] * 0x100;
-    }
-
-    private static int read4Bytes(int[] bytes, int offset) {
-        return bytes[offset] + bytes[offset+1] * 0x100 + bytes[offset+2] * 0x10000 + bytes[offset+3] * 0x1000000;
-    }
-
     private static String asMove(int move) {
         return DataAccess.getMove(move).getName() + " [" + String.format("%04X", move) + "h]";
     }
-
 }
@@ -1,30 +1,54 @@
 package model;
 
 import main.DataAccess;
+import reading.ByteCursor;
+
+import java.util.function.BiConsumer;
 
 /**
  * takara.bin
  */
 public class TreasureDataObject implements Nameable {
-    private final int[] bytes;
+    private final ByteCursor bytes;
 
     private int kind;
     private int quantity;
     private int type;
 
-    public TreasureDataObject(int[] bytes, int[] stringBytes) {
+    public TreasureDataObject(ByteCursor bytes, int[] stringBytes) {
         this.bytes = bytes;
         mapBytes();
     }
 
-    public TreasureDataObject(int[] bytes) {
+    public TreasureDataObject(ByteCursor bytes) {
         this(bytes, null);
     }
 
     private void mapBytes() {
-        kind = bytes[0x00];
-        quantity = bytes[0x01];
-        type = bytes[0x02] + bytes[0x03] * 0x100;
+        kind = bytes.u8(0x00);
+        quantity = bytes.u8(0x01);
+        type = bytes.u16(0x02);
+    }
+
+    public int[] toBytes() {
+        ByteCursor array = ByteCursor.allocate(bytes.length());
+        array.putU8(0x00, kind);
+        array.putU8(0x01, quantity);
+        array.putU16(0x02, type);
+        return array.widen();
+    }
+
+    public void collectReferences(BiConsumer<Integer, String> references) {
+        if (kind == 0x02) {
+            references.accept(type, "Item " + quantity + "x");
+        } else if (kind == 0x0A) {
+            references.accept(type, "Key Item");
+        } else if (kind == 0x05) {
+            GearDataObject gear = DataAccess.WEAPON_PICKUPS != null && type < DataAccess.WEAPON_PICKUPS.length ? DataAccess.WEAPON_PICKUPS[type] : null;
+            if (gear != null) {
+                gear.collectReferences((idx, detail) -> references.accept(idx, "Gear buki_get #" + type + " " + detail));
+            }
+        }
     }
 
     @Override
@@ -1,13 +1,14 @@
 package model.spheregrid;
 
 import model.Nameable;
+import reading.ByteCursor;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class SphereGridClusterDataObject implements Nameable {
     public static final int LENGTH = 0x10;
-    private final int[] bytes;
+    private final ByteCursor bytes;
 
     private int posX;
     private int posY;
@@ -18,25 +19,24 @@ public class SphereGridClusterDataObject implements Nameable {
     private int unused7;
     private int unused8;
 
-    public SphereGridClusterDataObject(int[] bytes, int[] stringBytes) {
+    public SphereGridClusterDataObject(ByteCursor bytes, int[] stringBytes) {
         this.bytes = bytes;
         mapBytes();
     }
 
-    public SphereGridClusterDataObject(int[] bytes) {
+    public SphereGridClusterDataObject(ByteCursor bytes) {
         this(bytes, null);
     }
 
-
     private void mapBytes() {
-        posX = read2Bytes(0x00, true);
-        posY = read2Bytes(0x02, true);
-        unused3 = read2Bytes(0x04, false);
-        maybeType = read2Bytes(0x06, false);
-        unused5 = read2Bytes(0x08, false);
-        unused6 = read2Bytes(0x0A, false);
-        unused7 = read2Bytes(0x0C, false);
-        unused8 = read2Bytes(0x0E, false);
+        posX = bytes.s16(0x00);
+        posY = bytes.s16(0x02);
+        unused3 = bytes.u16(0x04);
+        maybeType = bytes.u16(0x06);
+        unused5 = bytes.u16(0x08);
+        unused6 = bytes.u16(0x0A);
+        unused7 = bytes.u16(0x0C);
+        unused8 = bytes.u16(0x0E);
     }
 
     @Override
@@ -68,12 +68,11 @@ public class SphereGridClusterDataObject implements Nameable {
         return this.toString();
     }
 
-    private int read2Bytes(int offset, boolean signed) {
-        int raw = bytes[offset] + bytes[offset+1] * 0x100;
-        if (signed && (raw & 0x8000) != 0) {
-            return 0x10000 - raw;
-        } else {
-            return raw;
-        }
+    public int getPosX() {
+        return posX;
+    }
+
+    public int getPosY() {
+        return posY;
     }
 }
@@ -0,0 +1,301 @@
+package model.spheregrid;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compact adjacency (CSR) view of a sphere grid layout for path and reachability queries.
+ * Moving onto a node costs one sphere level unless other entry costs are passed;
+ * lock nodes can only be entered when their level is at most the given lock level.
+ */
+public class SphereGridGraph {
+    public static final int NO_LOCKS = 0;
+    public static final int ALL_LOCKS = 4;
+
+    private final int nodeCount;
+    private final int[] adjacencyStart;
+    private final int[] adjacency;
+    private final int[] contents;
+    private final int[] lockLevels;
+    private final int[] posX;
+    private final int[] posY;
+    private final double maxLinkLength;
+    private final SphereGridNodeIndex nodeIndex;
+
+    public SphereGridGraph(SphereGridLayoutDataObject layout) {
+        SphereGridNodeDataObject[] nodes = layout.getNodes();
+        SphereGridLinkDataObject[] links = layout.getLinks();
+        nodeCount = nodes.length;
+        nodeIndex = layout.getNodeIndex();
+        contents = new int[nodeCount];
+        lockLevels = new int[nodeCount];
+        posX = new int[nodeCount];
+        posY = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            contents[i] = nodes[i].getContent();
+            lockLevels[i] = lockLevelOf(contents[i]);
+            posX[i] = nodes[i].getPosX();
+            posY[i] = nodes[i].getPosY();
+        }
+        adjacencyStart = new int[nodeCount + 1];
+        int validLinks = 0;
+        for (SphereGridLinkDataObject link : links) {
+            if (isValidLink(link)) {
+                adjacencyStart[link.getNode1() + 1]++;
+                adjacencyStart[link.getNode2() + 1]++;
+                validLinks++;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            adjacencyStart[i + 1] += adjacencyStart[i];
+        }
+        adjacency = new int[validLinks * 2];
+        int[] fill = Arrays.copyOf(adjacencyStart, nodeCount);
+        double maxLength = 0;
+        for (SphereGridLinkDataObject link : links) {
+            if (isValidLink(link)) {
+                int a = link.getNode1();
+                int b = link.getNode2();
+                adjacency[fill[a]++] = b;
+                adjacency[fill[b]++] = a;
+                maxLength = Math.max(maxLength, distance(a, b));
+            }
+        }
+        maxLinkLength = maxLength;
+    }
+
+    public static int lockLevelOf(int content) {
+        return switch (content) {
+            case 0x27 -> 1;
+            case 0x28 -> 2;
+            case 0x00 -> 3;
+            case 0x29 -> 4;
+            default -> 0;
+        };
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public SphereGridNodeIndex getNodeIndex() {
+        return nodeIndex;
+    }
+
+    public int getContent(int node) {
+        return contents[node];
+    }
+
+    public int getLockLevel(int node) {
+        return lockLevels[node];
+    }
+
+    public int getPosX(int node) {
+        return posX[node];
+    }
+
+    public int getPosY(int node) {
+        return posY[node];
+    }
+
+    public int getDegree(int node) {
+        return adjacencyStart[node + 1] - adjacencyStart[node];
+    }
+
+    public int getNeighbor(int node, int i) {
+        return adjacency[adjacencyStart[node] + i];
+    }
+
+    public boolean canEnter(int node, int lockLevel) {
+        return lockLevels[node] <= lockLevel;
+    }
+
+    /**
+     * Sphere level cost to each node from start, or -1 if it cannot be reached.
+     */
+    public int[] distances(int start, int lockLevel) {
+        int[] dist = new int[nodeCount];
+        Arrays.fill(dist, -1);
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        dist[start] = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = adjacencyStart[node]; i < adjacencyStart[node + 1]; i++) {
+                int next = adjacency[i];
+                if (dist[next] < 0 && lockLevels[next] <= lockLevel) {
+                    dist[next] = dist[node] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return dist;
+    }
+
+    public BitSet reachable(int start, int lockLevel) {
+        int[] dist = distances(start, lockLevel);
+        BitSet reachable = new BitSet(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            if (dist[i] >= 0) {
+                reachable.set(i);
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * A* search using the straight-line distance divided by the longest link as the remaining cost.
+     * @return the nodes from start to target inclusive, or null if the target cannot be reached.
+     */
+    public int[] shortestPath(int start, int target, int lockLevel) {
+        int[] cost = new int[nodeCount];
+        int[] previous = new int[nodeCount];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        cost[start] = 0;
+        previous[start] = -1;
+        NodeHeap open = new NodeHeap(nodeCount);
+        open.push(heuristic(start, target), start);
+        while (!open.isEmpty()) {
+            long top = open.pop();
+            int node = (int) top;
+            if (node == target) {
+                return buildPath(previous, target);
+            }
+            if ((int) (top >>> 32) > cost[node] + heuristic(node, target)) {
+                continue;
+            }
+            for (int i = adjacencyStart[node]; i < adjacencyStart[node + 1]; i++) {
+                int next = adjacency[i];
+                int nextCost = cost[node] + 1;
+                if (nextCost < cost[next] && lockLevels[next] <= lockLevel) {
+                    cost[next] = nextCost;
+                    previous[next] = node;
+                    open.push(nextCost + heuristic(next, target), next);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cheapest path to the closest node holding the given content.
+     * @param entryCosts cost of moving onto each node, or null for one sphere level per node.
+     * @return the nodes from start to the found node inclusive, or null if none can be reached.
+     */
+    public int[] pathToNearestContent(int start, int content, int lockLevel, int[] entryCosts) {
+        if (nodeIndex.countWithContent(content) == 0) {
+            return null;
+        }
+        int[] cost = new int[nodeCount];
+        int[] previous = new int[nodeCount];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        cost[start] = 0;
+        previous[start] = -1;
+        NodeHeap open = new NodeHeap(nodeCount);
+        open.push(0, start);
+        while (!open.isEmpty()) {
+            long top = open.pop();
+            int node = (int) top;
+            if ((int) (top >>> 32) > cost[node]) {
+                continue;
+            }
+            if (contents[node] == content) {
+                return buildPath(previous, node);
+            }
+            for (int i = adjacencyStart[node]; i < adjacencyStart[node + 1]; i++) {
+                int next = adjacency[i];
+                int nextCost = cost[node] + (entryCosts != null ? entryCosts[next] : 1);
+                if (nextCost < cost[next] && lockLevels[next] <= lockLevel) {
+                    cost[next] = nextCost;
+                    previous[next] = node;
+                    open.push(nextCost, next);
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isValidLink(SphereGridLinkDataObject link) {
+        return link.getNode1() < nodeCount && link.getNode2() < nodeCount && link.getNode1() != link.getNode2();
+    }
+
+    private double distance(int a, int b) {
+        return Math.hypot(posX[a] - posX[b], posY[a] - posY[b]);
+    }
+
+    private int heuristic(int node, int target) {
+        if (maxLinkLength <= 0) {
+            return 0;
+        }
+        return (int) Math.ceil(distance(node, target) / maxLinkLength - 1e-9);
+    }
+
+    private static int[] buildPath(int[] previous, int end) {
+        int length = 0;
+        for (int node = end; node >= 0; node = previous[node]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int node = end; node >= 0; node = previous[node]) {
+            path[--length] = node;
+        }
+        return path;
+    }
+
+    /**
+     * Binary min-heap of (priority, node) pairs packed into longs.
+     */
+    private static class NodeHeap {
+        private long[] heap;
+        private int size;
+
+        NodeHeap(int capacity) {
+            heap = new long[Math.max(16, capacity)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int priority, int node) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            long value = ((long) priority << 32) | node;
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (heap[parent] <= value) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= last) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+}
@@ -1,33 +1,34 @@
 package model.spheregrid;
 
 import model.Nameable;
+import reading.ByteCursor;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class SphereGridLinkDataObject implements Nameable {
     public static final int LENGTH = 0x8;
-    private final int[] bytes;
+    private final ByteCursor bytes;
 
     private int node1;
     private int node2;
     private int anchorNode;
     private int unused;
 
-    public SphereGridLinkDataObject(int[] bytes, int[] stringBytes) {
+    public SphereGridLinkDataObject(ByteCursor bytes, int[] stringBytes) {
         this.bytes = bytes;
         mapBytes();
     }
 
-    public SphereGridLinkDataObject(int[] bytes) {
+    public SphereGridLinkDataObject(ByteCursor bytes) {
         this(bytes, null);
     }
 
     private void mapBytes() {
-        node1 = read2Bytes(0x00);
-        node2 = read2Bytes(0x02);
-        anchorNode = read2Bytes(0x04);
-        unused = read2Bytes(0x06);
+        node1 = bytes.u16(0x00);
+        node2 = bytes.u16(0x02);
+        anchorNode = bytes.u16(0x04);
+        unused = bytes.u16(0x06);
     }
 
     @Override
@@ -52,7 +53,11 @@ public class SphereGridLinkDataObject implements Nameable {
         return this.toString();
     }
 
-    private int read2Bytes(int offset) {
-        return bytes[offset] + bytes[offset+1] * 0x100;
+    public int getNode1() {
+        return node1;
+    }
+
+    public int getNode2() {
+        return node2;
     }
 }
@@ -1,13 +1,14 @@
 package model.spheregrid;
 
 import model.Nameable;
+import reading.ByteCursor;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class SphereGridNodeDataObject implements Nameable {
     public static final int LENGTH = 0xC;
-    private final int[] bytes;
+    private final ByteCursor bytes;
 
     private int posX;
     private int posY;
@@ -18,22 +19,22 @@ public class SphereGridNodeDataObject implements Nameable {
 
     private Integer content;
 
-    public SphereGridNodeDataObject(int[] bytes, int[] stringBytes) {
+    public SphereGridNodeDataObject(ByteCursor bytes, int[] stringBytes) {
         this.bytes = bytes;
         mapBytes();
     }
 
-    public SphereGridNodeDataObject(int[] bytes) {
+    public SphereGridNodeDataObject(ByteCursor bytes) {
         this(bytes, null);
     }
 
     private void mapBytes() {
-        posX = read2Bytes(0x00, true);
-        posY = read2Bytes(0x02, true);
-        unused3 = read2Bytes(0x04, false);
-        redundantContent = read2Bytes(0x06, false);
-        cluster = read2Bytes(0x08, false);
-        unknown6 = read2Bytes(0x0A, false);
+        posX = bytes.s16(0x00);
+        posY = bytes.s16(0x02);
+        unused3 = bytes.u16(0x04);
+        redundantContent = bytes.u16(0x06);
+        cluster = bytes.u16(0x08);
+        unknown6 = bytes.u16(0x0A);
     }
 
     @Override
@@ -62,16 +63,23 @@ public class SphereGridNodeDataObject implements Nameable {
         this.content = content;
     }
 
-    private boolean hasContent() {
-        return content != null && content != 0xFF;
+    public int getPosX() {
+        return posX;
     }
 
-    private int read2Bytes(int offset, boolean signed) {
-        int raw = bytes[offset] + bytes[offset+1] * 0x100;
-        if (signed && (raw & 0x8000) != 0) {
-            return raw - 0x10000;
-        } else {
-            return raw;
-        }
+    public int getPosY() {
+        return posY;
+    }
+
+    public int getCluster() {
+        return cluster;
+    }
+
+    public int getContent() {
+        return hasContent() ? content : redundantContent;
+    }
+
+    private boolean hasContent() {
+        return content != null && content != 0xFF;
     }
 }
@@ -0,0 +1,118 @@
+package model.spheregrid;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bitsets of node indices per content, lock level and cluster of a sphere grid layout.
+ * All getters return copies that may be combined freely with {@link BitSet#and}, {@link BitSet#or} and so on.
+ */
+public class SphereGridNodeIndex {
+    private final int nodeCount;
+    private final Map<Integer, BitSet> byContent = new HashMap<>();
+    private final Map<Integer, BitSet> byCluster = new HashMap<>();
+    private final BitSet[] byLockLevel = new BitSet[SphereGridGraph.ALL_LOCKS + 1];
+
+    public SphereGridNodeIndex(SphereGridNodeDataObject[] nodes) {
+        nodeCount = nodes.length;
+        for (int i = 0; i < byLockLevel.length; i++) {
+            byLockLevel[i] = new BitSet(nodeCount);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            int content = nodes[i].getContent();
+            byContent.computeIfAbsent(content, k -> new BitSet(nodeCount)).set(i);
+            byCluster.computeIfAbsent(nodes[i].getCluster(), k -> new BitSet(nodeCount)).set(i);
+            byLockLevel[SphereGridGraph.lockLevelOf(content)].set(i);
+        }
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public BitSet all() {
+        BitSet all = new BitSet(nodeCount);
+        all.set(0, nodeCount);
+        return all;
+    }
+
+    public BitSet withContent(int content) {
+        BitSet nodes = byContent.get(content);
+        return nodes != null ? (BitSet) nodes.clone() : new BitSet(nodeCount);
+    }
+
+    public BitSet withAnyContent(int... contents) {
+        BitSet union = new BitSet(nodeCount);
+        for (int content : contents) {
+            BitSet nodes = byContent.get(content);
+            if (nodes != null) {
+                union.or(nodes);
+            }
+        }
+        return union;
+    }
+
+    public int countWithContent(int content) {
+        BitSet nodes = byContent.get(content);
+        return nodes != null ? nodes.cardinality() : 0;
+    }
+
+    /**
+     * Lock nodes of exactly this level; level 0 are all nodes without a lock.
+     */
+    public BitSet withLockLevel(int lockLevel) {
+        return (BitSet) byLockLevel[lockLevel].clone();
+    }
+
+    /**
+     * Nodes that cannot be entered with the given lock level.
+     */
+    public BitSet lockedAbove(int lockLevel) {
+        BitSet locked = new BitSet(nodeCount);
+        for (int level = lockLevel + 1; level < byLockLevel.length; level++) {
+            locked.or(byLockLevel[level]);
+        }
+        return locked;
+    }
+
+    public BitSet inCluster(int cluster) {
+        BitSet nodes = byCluster.get(cluster);
+        return nodes != null ? (BitSet) nodes.clone() : new BitSet(nodeCount);
+    }
+
+    public BitSet inAnyCluster(int... clusters) {
+        BitSet union = new BitSet(nodeCount);
+        for (int cluster : clusters) {
+            BitSet nodes = byCluster.get(cluster);
+            if (nodes != null) {
+                union.or(nodes);
+            }
+        }
+        return union;
+    }
+
+    public static BitSet union(BitSet first, BitSet... others) {
+        BitSet result = (BitSet) first.clone();
+        for (BitSet other : others) {
+            result.or(other);
+        }
+        return result;
+    }
+
+    public static BitSet intersection(BitSet first, BitSet... others) {
+        BitSet result = (BitSet) first.clone();
+        for (BitSet other : others) {
+            result.and(other);
+        }
+        return result;
+    }
+
+    public static BitSet difference(BitSet first, BitSet... others) {
+        BitSet result = (BitSet) first.clone();
+        for (BitSet other : others) {
+            result.andNot(other);
+        }
+        return result;
+    }
+}
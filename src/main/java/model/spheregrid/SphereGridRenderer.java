@@ -0,0 +1,210 @@
+package model.spheregrid;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.BitSet;
+
+/**
+ * Draws a sphere grid layout (or a viewport of it) with links and colored, labeled nodes as PNG or SVG.
+ * Positions are in game units; the image is scaled by the given factor and framed by a margin.
+ */
+public class SphereGridRenderer {
+    private static final int MARGIN = 20;
+    private static final double NODE_RADIUS_PER_LINK = 0.35;
+    private static final double MIN_LABELED_RADIUS = 8;
+    private static final Color BACKGROUND = new Color(0x10, 0x14, 0x20);
+    private static final Color LINK = new Color(0x5A, 0x64, 0x78);
+
+    private final SphereGridLayoutDataObject layout;
+    private final SphereGridNodeDataObject[] nodes;
+    private final double nodeRadius;
+
+    public SphereGridRenderer(SphereGridLayoutDataObject layout) {
+        this.layout = layout;
+        this.nodes = layout.getNodes();
+        double shortest = Double.MAX_VALUE;
+        for (SphereGridLinkDataObject link : layout.getLinks()) {
+            if (link.getNode1() < nodes.length && link.getNode2() < nodes.length && link.getNode1() != link.getNode2()) {
+                double length = Math.hypot(posX(link.getNode1()) - posX(link.getNode2()), posY(link.getNode1()) - posY(link.getNode2()));
+                if (length > 0) {
+                    shortest = Math.min(shortest, length);
+                }
+            }
+        }
+        nodeRadius = shortest < Double.MAX_VALUE ? shortest * NODE_RADIUS_PER_LINK : 8;
+    }
+
+    public BufferedImage renderImage(double scale) {
+        SphereGridSpatialIndex index = layout.getNodeSpatialIndex();
+        return renderImage(index.getMinX(), index.getMinY(), index.getMaxX(), index.getMaxY(), scale);
+    }
+
+    /**
+     * Only nodes inside the viewport and links touching them are drawn.
+     */
+    public BufferedImage renderImage(int fromX, int fromY, int toX, int toY, double scale) {
+        int width = (int) Math.ceil((toX - fromX) * scale) + 2 * MARGIN;
+        int height = (int) Math.ceil((toY - fromY) * scale) + 2 * MARGIN;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, width, height);
+        int[] visible = layout.getNodeSpatialIndex().inViewport(fromX, fromY, toX, toY);
+        BitSet shown = new BitSet(nodes.length);
+        for (int node : visible) {
+            shown.set(node);
+        }
+        g.setColor(LINK);
+        g.setStroke(new BasicStroke((float) Math.max(1, nodeRadius * scale / 4)));
+        Line2D.Double line = new Line2D.Double();
+        for (SphereGridLinkDataObject link : layout.getLinks()) {
+            int a = link.getNode1();
+            int b = link.getNode2();
+            if (a < nodes.length && b < nodes.length && (shown.get(a) || shown.get(b))) {
+                line.setLine(toImage(posX(a), fromX, scale), toImage(posY(a), fromY, scale), toImage(posX(b), fromX, scale), toImage(posY(b), fromY, scale));
+                g.draw(line);
+            }
+        }
+        double radius = Math.max(1.5, nodeRadius * scale);
+        boolean labels = radius >= MIN_LABELED_RADIUS;
+        if (labels) {
+            g.setFont(g.getFont().deriveFont((float) Math.max(8, radius * 0.5)));
+        }
+        FontMetrics metrics = g.getFontMetrics();
+        Ellipse2D.Double circle = new Ellipse2D.Double();
+        for (int node : visible) {
+            double x = toImage(posX(node), fromX, scale);
+            double y = toImage(posY(node), fromY, scale);
+            int content = nodes[node].getContent();
+            circle.setFrame(x - radius, y - radius, radius * 2, radius * 2);
+            g.setColor(colorOf(content));
+            g.fill(circle);
+            if (labels) {
+                String label = shortLabel(content);
+                g.setColor(Color.BLACK);
+                g.drawString(label, (float) (x - metrics.stringWidth(label) / 2.0), (float) (y + metrics.getAscent() / 2.0 - 1));
+            }
+        }
+        g.dispose();
+        return image;
+    }
+
+    public void writePng(File file, double scale) throws IOException {
+        ImageIO.write(renderImage(scale), "png", file);
+    }
+
+    /**
+     * Vector version of the whole layout; every node carries its full content name as a tooltip.
+     */
+    public String toSvg() {
+        SphereGridSpatialIndex index = layout.getNodeSpatialIndex();
+        int minX = index.getMinX() - MARGIN;
+        int minY = index.getMinY() - MARGIN;
+        int width = index.getMaxX() - index.getMinX() + 2 * MARGIN;
+        int height = index.getMaxY() - index.getMinY() + 2 * MARGIN;
+        StringBuilder svg = new StringBuilder(nodes.length * 200);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"").append(minX).append(' ').append(minY).append(' ').append(width).append(' ').append(height).append("\">\n");
+        svg.append("<rect x=\"").append(minX).append("\" y=\"").append(minY).append("\" width=\"").append(width).append("\" height=\"").append(height).append("\" fill=\"").append(hex(BACKGROUND)).append("\"/>\n");
+        svg.append("<g stroke=\"").append(hex(LINK)).append("\" stroke-width=\"").append(format(nodeRadius / 4)).append("\">\n");
+        for (SphereGridLinkDataObject link : layout.getLinks()) {
+            int a = link.getNode1();
+            int b = link.getNode2();
+            if (a < nodes.length && b < nodes.length) {
+                svg.append("<line x1=\"").append(posX(a)).append("\" y1=\"").append(posY(a)).append("\" x2=\"").append(posX(b)).append("\" y2=\"").append(posY(b)).append("\"/>\n");
+            }
+        }
+        svg.append("</g>\n<g text-anchor=\"middle\" dominant-baseline=\"central\" font-family=\"sans-serif\" font-size=\"").append(format(nodeRadius * 0.5)).append("\">\n");
+        for (int i = 0; i < nodes.length; i++) {
+            int content = nodes[i].getContent();
+            svg.append("<g><title>N#").append(i).append(": ").append(escape(SphereGridLayoutDataObject.byteToNodeContent(content))).append("</title>");
+            svg.append("<circle cx=\"").append(posX(i)).append("\" cy=\"").append(posY(i)).append("\" r=\"").append(format(nodeRadius)).append("\" fill=\"").append(hex(colorOf(content))).append("\"/>");
+            svg.append("<text x=\"").append(posX(i)).append("\" y=\"").append(posY(i)).append("\">").append(escape(shortLabel(content))).append("</text></g>\n");
+        }
+        svg.append("</g>\n</svg>\n");
+        return svg.toString();
+    }
+
+    public void writeSvg(File file) throws IOException {
+        Files.writeString(file.toPath(), toSvg(), StandardCharsets.UTF_8);
+    }
+
+    public static Color colorOf(int content) {
+        if (SphereGridLayoutDataObject.nodeContentToMove(content) >= 0) {
+            return new Color(0xF0, 0xF0, 0xF0);
+        }
+        if (SphereGridGraph.lockLevelOf(content) > 0) {
+            return new Color(0x80, 0x80, 0x80);
+        }
+        if (content == 0x01) {
+            return new Color(0x38, 0x38, 0x40);
+        }
+        if (content >= 0x02 && content <= 0x21) {
+            return switch ((content - 0x02) / 4) {
+                case 0 -> new Color(0xE0, 0x50, 0x50);
+                case 1 -> new Color(0xE0, 0x98, 0x40);
+                case 2 -> new Color(0x50, 0x70, 0xE0);
+                case 3 -> new Color(0xA0, 0x60, 0xD0);
+                case 4 -> new Color(0x50, 0xC0, 0x60);
+                case 5 -> new Color(0xE0, 0xD0, 0x40);
+                case 6 -> new Color(0x40, 0xC8, 0xD8);
+                default -> new Color(0x40, 0x98, 0x88);
+            };
+        }
+        if (content == 0x22 || content == 0x23) {
+            return new Color(0xF0, 0x90, 0xB0);
+        }
+        if (content >= 0x24 && content <= 0x26) {
+            return new Color(0x90, 0xB8, 0xF0);
+        }
+        return Color.BLACK;
+    }
+
+    /**
+     * Stat nodes and locks by their short name, abilities as "A" followed by the content byte.
+     */
+    private static String shortLabel(int content) {
+        if (SphereGridLayoutDataObject.nodeContentToMove(content) >= 0) {
+            return "A" + String.format("%02X", content);
+        }
+        int lockLevel = SphereGridGraph.lockLevelOf(content);
+        if (lockLevel > 0) {
+            return "L" + lockLevel;
+        }
+        if (content == 0x01) {
+            return "";
+        }
+        return SphereGridLayoutDataObject.byteToNodeContent(content).replace("Unknown:", "?");
+    }
+
+    private int posX(int node) {
+        return nodes[node].getPosX();
+    }
+
+    private int posY(int node) {
+        return nodes[node].getPosY();
+    }
+
+    private static double toImage(int position, int from, double scale) {
+        return (position - from) * scale + MARGIN;
+    }
+
+    private static String hex(Color color) {
+        return String.format("#%06X", color.getRGB() & 0xFFFFFF);
+    }
+
+    private static String format(double value) {
+        return String.format(java.util.Locale.ROOT, "%.2f", value);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
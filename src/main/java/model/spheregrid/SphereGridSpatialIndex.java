@@ -0,0 +1,220 @@
+package model.spheregrid;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid of buckets over node or cluster positions for nearest, radius and viewport queries.
+ * Points of each bucket are stored contiguously (CSR) and query results are sorted by index.
+ */
+public class SphereGridSpatialIndex {
+    private static final int TARGET_POINTS_PER_CELL = 2;
+
+    private final int count;
+    private final int[] posX;
+    private final int[] posY;
+    private final int minX;
+    private final int minY;
+    private final int maxX;
+    private final int maxY;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellPoints;
+
+    public SphereGridSpatialIndex(int[] posX, int[] posY) {
+        this.count = posX.length;
+        this.posX = posX;
+        this.posY = posY;
+        int loX = Integer.MAX_VALUE;
+        int loY = Integer.MAX_VALUE;
+        int hiX = Integer.MIN_VALUE;
+        int hiY = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            loX = Math.min(loX, posX[i]);
+            loY = Math.min(loY, posY[i]);
+            hiX = Math.max(hiX, posX[i]);
+            hiY = Math.max(hiY, posY[i]);
+        }
+        if (count == 0) {
+            loX = loY = hiX = hiY = 0;
+        }
+        minX = loX;
+        minY = loY;
+        maxX = hiX;
+        maxY = hiY;
+        double area = (double) (maxX - minX + 1) * (maxY - minY + 1);
+        cellSize = Math.max(1, (int) Math.ceil(Math.sqrt(area * TARGET_POINTS_PER_CELL / Math.max(1, count))));
+        columns = (maxX - minX) / cellSize + 1;
+        rows = (maxY - minY) / cellSize + 1;
+        cellStart = new int[columns * rows + 1];
+        for (int i = 0; i < count; i++) {
+            cellStart[cellOf(posX[i], posY[i]) + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellPoints = new int[count];
+        int[] fill = Arrays.copyOf(cellStart, columns * rows);
+        for (int i = 0; i < count; i++) {
+            cellPoints[fill[cellOf(posX[i], posY[i])]++] = i;
+        }
+    }
+
+    public static SphereGridSpatialIndex ofNodes(SphereGridNodeDataObject[] nodes) {
+        int[] xs = new int[nodes.length];
+        int[] ys = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            xs[i] = nodes[i].getPosX();
+            ys[i] = nodes[i].getPosY();
+        }
+        return new SphereGridSpatialIndex(xs, ys);
+    }
+
+    public static SphereGridSpatialIndex ofClusters(SphereGridClusterDataObject[] clusters) {
+        int[] xs = new int[clusters.length];
+        int[] ys = new int[clusters.length];
+        for (int i = 0; i < clusters.length; i++) {
+            xs[i] = clusters[i].getPosX();
+            ys[i] = clusters[i].getPosY();
+        }
+        return new SphereGridSpatialIndex(xs, ys);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Searches rings of buckets outwards until no closer point can remain.
+     * @return the index of the point closest to (x, y), or -1 if there are none.
+     */
+    public int nearest(int x, int y) {
+        if (count == 0) {
+            return -1;
+        }
+        int cx = column(x);
+        int cy = row(y);
+        int best = -1;
+        long bestDistance = Long.MAX_VALUE;
+        int maxRing = Math.max(columns, rows);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int row = cy - ring; row <= cy + ring; row++) {
+                if (row < 0 || row >= rows) {
+                    continue;
+                }
+                boolean edgeRow = row == cy - ring || row == cy + ring;
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int column = cx - ring; column <= cx + ring; column += step) {
+                    if (column < 0 || column >= columns) {
+                        continue;
+                    }
+                    int cell = row * columns + column;
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        int point = cellPoints[i];
+                        long distance = distanceSquared(point, x, y);
+                        if (distance < bestDistance || (distance == bestDistance && point < best)) {
+                            bestDistance = distance;
+                            best = point;
+                        }
+                    }
+                }
+            }
+            long reach = (long) ring * cellSize;
+            if (best >= 0 && bestDistance < reach * reach) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the indices of all points at most radius away from (x, y), ascending.
+     */
+    public int[] withinRadius(int x, int y, int radius) {
+        long radiusSquared = (long) radius * radius;
+        int[] found = new int[16];
+        int size = 0;
+        for (int row = row(y - radius); row <= row(y + radius); row++) {
+            for (int column = column(x - radius); column <= column(x + radius); column++) {
+                int cell = row * columns + column;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int point = cellPoints[i];
+                    if (distanceSquared(point, x, y) <= radiusSquared) {
+                        if (size == found.length) {
+                            found = Arrays.copyOf(found, size * 2);
+                        }
+                        found[size++] = point;
+                    }
+                }
+            }
+        }
+        return sorted(found, size);
+    }
+
+    /**
+     * @return the indices of all points inside the rectangle (bounds inclusive), ascending.
+     */
+    public int[] inViewport(int fromX, int fromY, int toX, int toY) {
+        if (count == 0 || toX < minX || fromX > maxX || toY < minY || fromY > maxY) {
+            return new int[0];
+        }
+        int[] found = new int[16];
+        int size = 0;
+        for (int row = row(fromY); row <= row(toY); row++) {
+            for (int column = column(fromX); column <= column(toX); column++) {
+                int cell = row * columns + column;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int point = cellPoints[i];
+                    if (posX[point] >= fromX && posX[point] <= toX && posY[point] >= fromY && posY[point] <= toY) {
+                        if (size == found.length) {
+                            found = Arrays.copyOf(found, size * 2);
+                        }
+                        found[size++] = point;
+                    }
+                }
+            }
+        }
+        return sorted(found, size);
+    }
+
+    private int cellOf(int x, int y) {
+        return row(y) * columns + column(x);
+    }
+
+    private int column(int x) {
+        return Math.max(0, Math.min(columns - 1, Math.floorDiv(x - minX, cellSize)));
+    }
+
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y - minY, cellSize)));
+    }
+
+    private long distanceSquared(int point, int x, int y) {
+        long dx = posX[point] - x;
+        long dy = posY[point] - y;
+        return dx * dx + dy * dy;
+    }
+
+    private static int[] sorted(int[] found, int size) {
+        int[] result = Arrays.copyOf(found, size);
+        Arrays.sort(result);
+        return result;
+    }
+}
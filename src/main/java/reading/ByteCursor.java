@@ -0,0 +1,124 @@
+package reading;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * Little-endian view over raw file bytes, which the data model decodes its records from and encodes them into.
+ * Offsets are relative to the start of the view and every access is checked against the view, not just the backing array.
+ */
+public final class ByteCursor {
+    private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final byte[] bytes;
+    private final int start;
+    private final int length;
+
+    private ByteCursor(byte[] bytes, int start, int length) {
+        this.bytes = bytes;
+        this.start = start;
+        this.length = length;
+    }
+
+    public static ByteCursor wrap(byte[] bytes) {
+        return new ByteCursor(bytes, 0, bytes.length);
+    }
+
+    public static ByteCursor allocate(int length) {
+        return wrap(new byte[length]);
+    }
+
+    /**
+     * Packs widened bytes back into a view of their own, for records cut from chunks.
+     */
+    public static ByteCursor narrow(int[] widened) {
+        byte[] narrowed = new byte[widened.length];
+        for (int i = 0; i < widened.length; i++) {
+            narrowed[i] = (byte) widened[i];
+        }
+        return wrap(narrowed);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return a view of the given range sharing the bytes of this one.
+     */
+    public ByteCursor slice(int offset, int sliceLength) {
+        Objects.checkFromIndexSize(offset, sliceLength, length);
+        return new ByteCursor(bytes, start + offset, sliceLength);
+    }
+
+    public boolean holds(int offset, int count) {
+        return offset >= 0 && count >= 0 && offset <= length - count;
+    }
+
+    public int u8(int offset) {
+        return Byte.toUnsignedInt(bytes[start + Objects.checkIndex(offset, length)]);
+    }
+
+    public int u16(int offset) {
+        return Short.toUnsignedInt((short) SHORT.get(bytes, start + Objects.checkFromIndexSize(offset, 2, length)));
+    }
+
+    public int s16(int offset) {
+        return (short) SHORT.get(bytes, start + Objects.checkFromIndexSize(offset, 2, length));
+    }
+
+    /**
+     * Also used for unsigned 4 byte values, which keep their bits in the int like everywhere else in the model.
+     */
+    public int s32(int offset) {
+        return (int) INT.get(bytes, start + Objects.checkFromIndexSize(offset, 4, length));
+    }
+
+    /**
+     * Stores the low byte of the value.
+     */
+    public void putU8(int offset, int value) {
+        bytes[start + Objects.checkIndex(offset, length)] = (byte) value;
+    }
+
+    /**
+     * Stores the low two bytes of the value, so signed values round-trip through s16 as well.
+     */
+    public void putU16(int offset, int value) {
+        SHORT.set(bytes, start + Objects.checkFromIndexSize(offset, 2, length), (short) value);
+    }
+
+    public void putS32(int offset, int value) {
+        INT.set(bytes, start + Objects.checkFromIndexSize(offset, 4, length), value);
+    }
+
+    /**
+     * Copies all bytes of the source view to the given offset.
+     */
+    public void put(int offset, ByteCursor source) {
+        Objects.checkFromIndexSize(offset, source.length, length);
+        System.arraycopy(source.bytes, source.start, bytes, start + offset, source.length);
+    }
+
+    /**
+     * @return the given range as the int[] the chunks and writers work on, cut off at the end of the view.
+     */
+    public int[] widen(int from, int to) {
+        int boundedTo = Math.min(to, length);
+        if (from >= boundedTo) {
+            return new int[0];
+        }
+        int[] widened = new int[boundedTo - from];
+        for (int i = 0; i < widened.length; i++) {
+            widened[i] = Byte.toUnsignedInt(bytes[start + from + i]);
+        }
+        return widened;
+    }
+
+    public int[] widen() {
+        return widen(0, length);
+    }
+}
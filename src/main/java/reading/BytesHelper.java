@@ -0,0 +1,51 @@
+package reading;
+
+/**
+ * Helpers for the widened int[] arrays (one unsigned byte per int) that chunks, script code and the file writers
+ * still pass around, and for the flag bytes the data model encodes.
+ */
+public abstract class BytesHelper {
+    public static int read2Bytes(int[] bytes, int offset) {
+        return bytes[offset] + bytes[offset + 1] * 0x100;
+    }
+
+    public static int read2BytesSigned(int[] bytes, int offset) {
+        return (short) read2Bytes(bytes, offset);
+    }
+
+    public static int read4Bytes(int[] bytes, int offset) {
+        return bytes[offset] + bytes[offset + 1] * 0x100 + bytes[offset + 2] * 0x10000 + bytes[offset + 3] * 0x1000000;
+    }
+
+    public static void write2Bytes(int[] bytes, int offset, int value) {
+        bytes[offset] = value & 0xFF;
+        bytes[offset + 1] = (value >> 8) & 0xFF;
+    }
+
+    public static void write4Bytes(int[] bytes, int offset, int value) {
+        bytes[offset] = value & 0xFF;
+        bytes[offset + 1] = (value >> 8) & 0xFF;
+        bytes[offset + 2] = (value >> 16) & 0xFF;
+        bytes[offset + 3] = value >>> 24;
+    }
+
+    /**
+     * @return the flag byte with the given bit set or cleared, leaving the bits the model does not name alone.
+     */
+    public static int withFlag(int flags, int mask, boolean set) {
+        return set ? flags | mask : flags & ~mask;
+    }
+
+    /**
+     * Inverse of reading a fully named flag byte: the first flag is bit 0x01, the eighth bit 0x80.
+     */
+    public static int packBits(boolean... flags) {
+        int value = 0;
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i]) {
+                value |= 1 << i;
+            }
+        }
+        return value;
+    }
+}
@@ -17,4 +17,21 @@ public class Chunk {
         offset = from;
         length = to - from;
     }
+
+    public Chunk(ByteCursor toCopy, int from, int to) {
+        bytes = toCopy.widen(from, to);
+        offset = from;
+        length = to - from;
+    }
+
+    /**
+     * A chunk at the same offset holding other bytes.
+     */
+    public Chunk withBytes(int[] replacement) {
+        Chunk chunk = new Chunk();
+        chunk.bytes = replacement;
+        chunk.offset = offset;
+        chunk.length = replacement.length;
+        return chunk;
+    }
 }
@@ -9,45 +9,46 @@ public abstract class ChunkedFileHelper {
     public static final int DEFAULT_ASSUMED_CHUNK_OFFSET = 4;
 
     public static List<Chunk> readGenericChunkedFile(String filename, boolean print, List<Integer> knownLengths, boolean readChunkCount) {
-        File file = FileAccessorWithMods.resolveFile(filename, print);
+        return readGenericChunkedFile(FileAccessorWithMods.resolveFile(filename, print), knownLengths, readChunkCount);
+    }
+
+    public static List<Chunk> readGenericChunkedFile(File file, List<Integer> knownLengths, boolean readChunkCount) {
         if (!file.isDirectory()) {
-            int[] bytes = fileToBytes(file);
-            return bytesToChunks(bytes, readChunkCount ? read4Bytes(bytes, 0x00) : DEFAULT_ASSUMED_CHUNK_COUNT, DEFAULT_ASSUMED_CHUNK_OFFSET, knownLengths);
+            byte[] bytes = fileToRawBytes(file);
+            if (bytes == null) {
+                return null;
+            }
+            ByteCursor cursor = ByteCursor.wrap(bytes);
+            return bytesToChunks(cursor, readChunkCount ? cursor.s32(0x00) : DEFAULT_ASSUMED_CHUNK_COUNT, DEFAULT_ASSUMED_CHUNK_OFFSET, knownLengths);
         }
         return null;
     }
 
-    private static int read4Bytes(int[] bytes, int offset) {
-        if (bytes == null) {
-            return 0;
-        }
-        return bytes[offset] + bytes[offset+1] * 0x100 + bytes[offset+2] * 0x10000 + bytes[offset+3] * 0x1000000;
+    public static byte[] fileToRawBytes(File file) {
+        try (DataInputStream data = FileAccessorWithMods.readFile(file)) {
+            return data.readAllBytes();
+        } catch (IOException ignored) {}
+        return null;
+    }
+
+    public static ByteCursor fileToCursor(File file) {
+        byte[] allBytes = fileToRawBytes(file);
+        return allBytes != null ? ByteCursor.wrap(allBytes) : null;
     }
 
     public static int[] fileToBytes(File file) {
-        byte[] allBytes = null;
-        try (DataInputStream data = FileAccessorWithMods.readFile(file)) {
-            allBytes = data.readAllBytes();
-        } catch (IOException ignored) {}
-        if (allBytes == null) {
-            return null;
-        }
-        int byteCount = allBytes.length;
-        int[] bytes = new int[byteCount];
-        for (int j = 0; j < byteCount; j++) {
-            bytes[j] = Byte.toUnsignedInt(allBytes[j]);
-        }
-        return bytes;
+        ByteCursor cursor = fileToCursor(file);
+        return cursor != null ? cursor.widen() : null;
     }
 
-    public static List<Chunk> bytesToChunks(int[] bytes, int assumedChunkCount, int chunkOffset, List<Integer> knownLengths) {
-        if (bytes == null) {
-            return null;
-        }
+    /**
+     * Only the chunks are widened to int[], not the whole file.
+     */
+    public static List<Chunk> bytesToChunks(ByteCursor bytes, int assumedChunkCount, int chunkOffset, List<Integer> knownLengths) {
         int chunkCount = assumedChunkCount;
         int[] offsets = new int[chunkCount];
         for (int i = 0; i < chunkCount; i++) {
-            int offset = read4Bytes(bytes, i * 4 + chunkOffset);
+            int offset = bytes.s32(i * 4 + chunkOffset);
             if (offset == 0xFFFFFFFF) {
                 chunkCount = i - 1;
             } else {
@@ -72,7 +73,7 @@ public abstract class ChunkedFileHelper {
                         }
                     }
                     if (to == -1) {
-                        to = bytes.length;
+                        to = bytes.length();
                     }
                     chunks.add(new Chunk(bytes, offset, to));
                 }
@@ -0,0 +1,27 @@
+package reading;
+
+import java.util.List;
+
+/**
+ * A kernel table as stored on disk: a 14h byte header, a block of fixed-length records and the string block they point into.
+ * Header bytes that are not understood are kept so the file can be written back unchanged.
+ */
+public class DataFile<T> {
+    public static final int HEADER_LENGTH = 0x14;
+
+    public final int[] header;
+    public final List<T> objects;
+    public final int[] recordBytes;
+    public final int[] stringBytes;
+
+    public DataFile(int[] header, List<T> objects, int[] recordBytes, int[] stringBytes) {
+        this.header = header;
+        this.objects = objects;
+        this.recordBytes = recordBytes;
+        this.stringBytes = stringBytes;
+    }
+
+    public int getMinIndex() {
+        return header[0x08] + header[0x09] * 0x100;
+    }
+}
@@ -19,43 +19,51 @@ public class DataFileReader<T> {
     }
 
     public List<T> readGenericDataFile(String filename, boolean print) {
-        File file = FileAccessorWithMods.resolveFile(filename, print);
+        DataFile<T> dataFile = readDataFile(filename, print);
+        return dataFile != null ? dataFile.objects : null;
+    }
+
+    public DataFile<T> readDataFile(String filename, boolean print) {
+        return readDataFile(FileAccessorWithMods.resolveFile(filename, print), print);
+    }
+
+    public DataFile<T> readDataFile(File file, boolean print) {
         if (!file.isDirectory()) {
             try (DataInputStream inputStream = FileAccessorWithMods.readFile(file)) {
-                inputStream.skipBytes(0x8);
-                final int minIndex = read2Bytes(inputStream);
-                final int maxIndex = read2Bytes(inputStream);
-                final List<T> objects = new ArrayList<>(maxIndex + 1 - minIndex);
-                final int individualLength = read2Bytes(inputStream);
-                final int totalLength = read2Bytes(inputStream);
-                inputStream.skipBytes(4);
-                final int[] dataBytes = new int[totalLength];
-                for (int i = 0; i < totalLength; i++) {
-                    dataBytes[i] = inputStream.read();
-                }
-                final byte[] stringBytes = inputStream.readAllBytes();
-                final int stringsLength = stringBytes.length;
-                final int[] allStrings = new int[stringsLength];
-                for (int i = 0; i < stringsLength; i++) {
-                    allStrings[i] = Byte.toUnsignedInt(stringBytes[i]);
+                final ByteCursor cursor = ByteCursor.wrap(inputStream.readAllBytes());
+                if (!cursor.holds(0, DataFile.HEADER_LENGTH)) {
+                    return null;
                 }
+                final int[] header = cursor.widen(0, DataFile.HEADER_LENGTH);
+                final int minIndex = cursor.u16(0x08);
+                final int maxIndex = cursor.u16(0x0A);
+                final List<T> objects = new ArrayList<>(maxIndex + 1 - minIndex);
+                final int individualLength = cursor.u16(0x0C);
+                final int totalLength = cursor.u16(0x0E);
+                final int[] dataBytes = cursor.widen(DataFile.HEADER_LENGTH, DataFile.HEADER_LENGTH + totalLength);
+                final int[] allStrings = cursor.widen(DataFile.HEADER_LENGTH + totalLength, cursor.length());
                 final int j = maxIndex - minIndex;
                 for (int i = 0; i <= j; i++) {
-                    T obj = objectCreator.create(Arrays.copyOfRange(dataBytes, i * individualLength, (i + 1) * individualLength), allStrings);
+                    T obj = objectCreator.create(record(cursor, dataBytes, i * individualLength, individualLength), allStrings);
                     objects.add(obj);
                     if (print) {
                         String offset = String.format("%04X", (i * individualLength) + 20);
                         System.out.println(indexWriter(i + minIndex) + " (Offset " + offset + ") - " + obj);
                     }
                 }
-                return objects;
+                return new DataFile<>(header, objects, dataBytes, allStrings);
             } catch (IOException ignored) {}
         }
         return null;
     }
 
-    private int read2Bytes(DataInputStream stream) throws IOException {
-        int x = stream.read();
-        return x + stream.read() * 0x100;
+    /**
+     * A view of the record in the file bytes, or a zero-padded copy if the record block ends before it.
+     */
+    private static ByteCursor record(ByteCursor file, int[] dataBytes, int offset, int length) {
+        if (offset + length <= dataBytes.length) {
+            return file.slice(DataFile.HEADER_LENGTH + offset, length);
+        }
+        return ByteCursor.narrow(Arrays.copyOfRange(dataBytes, offset, offset + length));
     }
 }
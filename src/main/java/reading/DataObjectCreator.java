@@ -3,5 +3,5 @@ package reading;
 import java.io.IOException;
 
 public interface DataObjectCreator<T> {
-    T create(int[] bytes, int[] stringBytes) throws IOException;
+    T create(ByteCursor bytes, int[] stringBytes) throws IOException;
 }
@@ -1,6 +1,9 @@
 package reading;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 public class FileAccessorWithMods {
     public static final String RESOURCES_ROOT = "src/main/resources/";
@@ -39,4 +42,31 @@ public class FileAccessorWithMods {
     public static DataInputStream readFile(File file) throws FileNotFoundException {
         return new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
     }
+
+    /**
+     * Writes the bytes to the mods overlay of the given game path, replacing the file at once so readers never see it half-written.
+     */
+    public static File writeModdedFile(String path, int[] bytes) throws IOException {
+        File file = getModdedFile(path);
+        File folder = file.getParentFile();
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder.getPath());
+        }
+        byte[] converted = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            converted[i] = (byte) bytes[i];
+        }
+        File temp = File.createTempFile(file.getName(), ".tmp", folder);
+        try {
+            Files.write(temp.toPath(), converted);
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+        return file;
+    }
 }
@@ -2,6 +2,7 @@ package script;
 
 import main.StringHelper;
 import model.FormationDataObject;
+import reading.ByteCursor;
 import reading.Chunk;
 
 import java.util.ArrayList;
@@ -35,7 +36,7 @@ public class EncounterFile {
     private void mapObjects(int chunkCount) {
         encounterScript = new ScriptObject(scriptChunk, workerMappingBytes);
         if (formationBytes != null && formationBytes.length > 0) {
-            formation = new FormationDataObject(formationBytes);
+            formation = new FormationDataObject(ByteCursor.narrow(formationBytes));
         }
     }
 
@@ -1,10 +1,12 @@
 package script;
 
 import model.Nameable;
+import reading.ByteCursor;
 import reading.Chunk;
 import model.MonsterSpoilsDataObject;
 import model.MonsterStatDataObject;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -17,6 +19,7 @@ public class MonsterFile implements Nameable {
     public MonsterSpoilsDataObject monsterSpoilsData;
     public MonsterStatDataObject englishTextStatData;
     public MonsterStatDataObject monsterLocalizationData;
+    List<Chunk> chunks;
     Chunk scriptChunk;
     Chunk audioChunkApparently;
     int[] workerMappingBytes;
@@ -30,6 +33,7 @@ public class MonsterFile implements Nameable {
     }
 
     private void mapChunks(List<Chunk> chunks) {
+        this.chunks = chunks;
         scriptChunk = chunks.get(0);
         workerMappingBytes = chunks.get(1).bytes;
         statBytes = chunks.get(2).bytes;
@@ -40,9 +44,20 @@ public class MonsterFile implements Nameable {
 
     private void mapObjects() {
         monsterAi = new ScriptObject(scriptChunk, workerMappingBytes);
-        monsterStatData = new MonsterStatDataObject(statBytes, Arrays.copyOfRange(statBytes, MonsterStatDataObject.LENGTH, statBytes.length));
-        monsterSpoilsData = new MonsterSpoilsDataObject(spoilsBytes);
-        englishTextStatData = new MonsterStatDataObject(englishTextBytes, Arrays.copyOfRange(englishTextBytes, MonsterStatDataObject.LENGTH, englishTextBytes.length));
+        monsterStatData = new MonsterStatDataObject(ByteCursor.narrow(statBytes), Arrays.copyOfRange(statBytes, MonsterStatDataObject.LENGTH, statBytes.length));
+        monsterSpoilsData = new MonsterSpoilsDataObject(ByteCursor.narrow(spoilsBytes));
+        englishTextStatData = new MonsterStatDataObject(ByteCursor.narrow(englishTextBytes), Arrays.copyOfRange(englishTextBytes, MonsterStatDataObject.LENGTH, englishTextBytes.length));
+    }
+
+    /**
+     * The chunks of the file with the stat, spoils and text data written back from their objects.
+     */
+    public List<Chunk> toChunks() {
+        List<Chunk> list = new ArrayList<>(chunks);
+        list.set(2, chunks.get(2).withBytes(monsterStatData.toBytes()));
+        list.set(4, chunks.get(4).withBytes(monsterSpoilsData.toBytes()));
+        list.set(6, chunks.get(6).withBytes(englishTextStatData.toBytes()));
+        return list;
     }
 
     public void parseScript() {
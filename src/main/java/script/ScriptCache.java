@@ -0,0 +1,359 @@
+package script;
+
+import main.DataAccess;
+import main.IdRegistry;
+import main.StringHelper;
+import model.Nameable;
+import script.model.ScriptConstants;
+import script.model.ScriptField;
+import script.model.ScriptFunc;
+import script.model.ScriptFuncLib;
+import script.model.ScriptCallSite;
+import script.model.ScriptReference;
+import script.model.ScriptSignal;
+import script.model.ScriptVariableAccess;
+import script.model.ScriptVariableTest;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * On-disk cache of the semantic parse results of ScriptObjects.
+ * Entries are keyed by a hash of the script bytes, worker mapping and strings plus a fingerprint
+ * of every table the rendering reads, so changed files and changed tables both miss.
+ */
+public abstract class ScriptCache {
+    public static final String CACHE_FOLDER = "cache/scripts/";
+    /**
+     * Bump when the parser output changes for the same inputs.
+     */
+    private static final int FORMAT_VERSION = 8;
+    private static final int MAGIC = 0x46465853;
+
+    private static String tableVersion;
+
+    public static boolean load(ScriptObject script) {
+        File file = cacheFile(script);
+        if (!file.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return false;
+            }
+            int lineCount = in.readInt();
+            if (lineCount != script.lineCount) {
+                return false;
+            }
+            List<String> textScriptLines = new ArrayList<>(lineCount);
+            List<String> warnLines = new ArrayList<>(lineCount);
+            for (int i = 0; i < lineCount; i++) {
+                textScriptLines.add(readString(in, file));
+                warnLines.add(readString(in, file));
+            }
+            int varTypeCount = in.readInt();
+            for (int i = 0; i < varTypeCount; i++) {
+                int var = in.readInt();
+                String type = in.readBoolean() ? readString(in, file) : null;
+                script.varTypes.put(var, type);
+            }
+            int referenceCount = in.readInt();
+            List<ScriptReference> references = new ArrayList<>(referenceCount);
+            for (int i = 0; i < referenceCount; i++) {
+                references.add(new ScriptReference(readString(in, file), in.readInt(), in.readInt()));
+            }
+            int callSiteCount = in.readInt();
+            List<ScriptCallSite> callSites = new ArrayList<>(callSiteCount);
+            for (int i = 0; i < callSiteCount; i++) {
+                int func = in.readUnsignedShort();
+                int worker = in.readShort();
+                int entryPoint = in.readShort();
+                int offset = in.readInt();
+                int line = in.readInt();
+                int constantMask = in.readUnsignedShort();
+                int[] args = new int[in.readUnsignedByte()];
+                for (int a = 0; a < args.length; a++) {
+                    args[a] = in.readInt();
+                }
+                callSites.add(new ScriptCallSite(func, worker, entryPoint, offset, line, args, constantMask));
+            }
+            int variableAccessCount = in.readInt();
+            List<ScriptVariableAccess> variableAccesses = new ArrayList<>(variableAccessCount);
+            for (int i = 0; i < variableAccessCount; i++) {
+                int location = in.readUnsignedByte();
+                boolean write = in.readBoolean();
+                int varOffset = in.readInt();
+                int elementOffset = in.readInt();
+                Integer value = in.readBoolean() ? in.readInt() : null;
+                int worker = in.readShort();
+                int entryPoint = in.readShort();
+                variableAccesses.add(new ScriptVariableAccess(location, varOffset, elementOffset, write, value, worker, entryPoint, in.readInt(), in.readInt()));
+            }
+            int variableTestCount = in.readInt();
+            List<ScriptVariableTest> variableTests = new ArrayList<>(variableTestCount);
+            for (int i = 0; i < variableTestCount; i++) {
+                ScriptVariableAccess read = variableAccesses.get(in.readInt());
+                variableTests.add(new ScriptVariableTest(read, in.readUnsignedByte(), in.readInt(), in.readInt()));
+            }
+            int signalCount = in.readInt();
+            List<ScriptSignal> signals = new ArrayList<>(signalCount);
+            for (int i = 0; i < signalCount; i++) {
+                int opcode = in.readUnsignedByte();
+                int fromWorker = in.readShort();
+                int fromEntryPoint = in.readShort();
+                int toWorker = in.readInt();
+                int toEntryPoint = in.readInt();
+                int level = in.readInt();
+                signals.add(new ScriptSignal(opcode, fromWorker, fromEntryPoint, toWorker, toEntryPoint, level, in.readInt(), in.readInt()));
+            }
+            script.textScriptLines = textScriptLines;
+            script.warnLines = warnLines;
+            script.references = references;
+            script.callSites = callSites;
+            script.variableAccesses = variableAccesses;
+            script.variableTests = variableTests;
+            script.signals = signals;
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static void store(ScriptObject script) {
+        File file = cacheFile(script);
+        File folder = file.getParentFile();
+        if (!folder.exists() && !folder.mkdirs()) {
+            return;
+        }
+        File temp = null;
+        try {
+            temp = File.createTempFile(file.getName(), ".tmp", folder);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(script.lineCount);
+                for (int i = 0; i < script.lineCount; i++) {
+                    writeString(out, script.textScriptLines.get(i));
+                    writeString(out, script.warnLines.get(i));
+                }
+                out.writeInt(script.varTypes.size());
+                for (Map.Entry<Integer, String> entry : script.varTypes.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeBoolean(entry.getValue() != null);
+                    if (entry.getValue() != null) {
+                        writeString(out, entry.getValue());
+                    }
+                }
+                out.writeInt(script.references.size());
+                for (ScriptReference reference : script.references) {
+                    writeString(out, reference.type);
+                    out.writeInt(reference.value);
+                    out.writeInt(reference.line);
+                }
+                out.writeInt(script.callSites.size());
+                for (ScriptCallSite callSite : script.callSites) {
+                    out.writeShort(callSite.func);
+                    out.writeShort(callSite.worker);
+                    out.writeShort(callSite.entryPoint);
+                    out.writeInt(callSite.offset);
+                    out.writeInt(callSite.line);
+                    out.writeShort(callSite.constantMask);
+                    out.writeByte(callSite.args.length);
+                    for (int arg : callSite.args) {
+                        out.writeInt(arg);
+                    }
+                }
+                Map<ScriptVariableAccess, Integer> accessIndices = new IdentityHashMap<>();
+                out.writeInt(script.variableAccesses.size());
+                for (ScriptVariableAccess access : script.variableAccesses) {
+                    accessIndices.put(access, accessIndices.size());
+                    out.writeByte(access.location);
+                    out.writeBoolean(access.write);
+                    out.writeInt(access.varOffset);
+                    out.writeInt(access.elementOffset);
+                    out.writeBoolean(access.value != null);
+                    if (access.value != null) {
+                        out.writeInt(access.value);
+                    }
+                    out.writeShort(access.worker);
+                    out.writeShort(access.entryPoint);
+                    out.writeInt(access.offset);
+                    out.writeInt(access.line);
+                }
+                out.writeInt(script.variableTests.size());
+                for (ScriptVariableTest test : script.variableTests) {
+                    out.writeInt(accessIndices.get(test.read));
+                    out.writeByte(test.operator);
+                    out.writeInt(test.value);
+                    out.writeInt(test.offset);
+                }
+                out.writeInt(script.signals.size());
+                for (ScriptSignal signal : script.signals) {
+                    out.writeByte(signal.opcode);
+                    out.writeShort(signal.fromWorker);
+                    out.writeShort(signal.fromEntryPoint);
+                    out.writeInt(signal.toWorker);
+                    out.writeInt(signal.toEntryPoint);
+                    out.writeInt(signal.level);
+                    out.writeInt(signal.offset);
+                    out.writeInt(signal.line);
+                }
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write script cache entry " + file.getPath() + ": " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp.toPath());
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    /**
+     * Length-prefixed UTF-8, as rendered lines can exceed the 64 KB writeUTF allows.
+     */
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, File file) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > file.length()) {
+            throw new IOException("Corrupt string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static String getKey(ScriptObject script) {
+        MessageDigest digest = sha256();
+        digest.update(getTableVersion().getBytes(StandardCharsets.UTF_8));
+        update(digest, script.bytes);
+        update(digest, script.workerMappingBytes);
+        if (script.strings != null) {
+            for (String str : script.strings) {
+                update(digest, str);
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    /**
+     * Fingerprint of the opcode, function and enum tables and of the names rendering resolves through DataAccess.
+     */
+    public static synchronized String getTableVersion() {
+        if (tableVersion != null) {
+            return tableVersion;
+        }
+        MessageDigest digest = sha256();
+        update(digest, "format" + FORMAT_VERSION + (StringHelper.COLORS_USE_CONSOLE_CODES ? "c" : ""));
+        for (int i = 0; i < 0x100; i++) {
+            update(digest, ScriptConstants.OPCODE_LABELS[i] + ':' + ScriptConstants.OPCODE_STACKPOPS[i] + ':' + ScriptConstants.OPCODE_ENDLINE.contains(i));
+        }
+        new TreeMap<>(ScriptConstants.COMP_OPERATORS).forEach((idx, op) -> update(digest, idx + fieldString(op)));
+        for (int i = 0; i < 0x10000; i++) {
+            ScriptFunc func = ScriptFuncLib.get(i, null);
+            if (func != null) {
+                StringBuilder str = new StringBuilder().append(i).append(func.getClass().getSimpleName()).append(fieldString(func));
+                if (func.inputs != null) {
+                    func.inputs.forEach(input -> str.append(fieldString(input)));
+                }
+                update(digest, str.toString());
+            }
+        }
+        new TreeMap<>(ScriptConstants.ENUMERATIONS).forEach((type, map) -> {
+            update(digest, type);
+            new TreeMap<>(map).forEach((idx, field) -> update(digest, idx + fieldString(field)));
+        });
+        updateNames(digest, DataAccess.MOVES);
+        updateNames(digest, DataAccess.MONSTERS);
+        updateNames(digest, DataAccess.KEY_ITEMS);
+        updateNames(digest, DataAccess.TREASURES);
+        tableVersion = hex(digest.digest());
+        return tableVersion;
+    }
+
+    /**
+     * Must be called after tables or names in DataAccess are reloaded.
+     */
+    public static synchronized void invalidateTableVersion() {
+        tableVersion = null;
+    }
+
+    private static File cacheFile(ScriptObject script) {
+        return new File(CACHE_FOLDER + getKey(script) + ".bin");
+    }
+
+    private static String fieldString(ScriptField field) {
+        if (field == null) {
+            return "|null";
+        }
+        return "|" + field.name + "|" + field.internalName + "|" + field.type + "|" + field.indexType;
+    }
+
+    private static void updateNames(MessageDigest digest, IdRegistry<? extends Nameable> objects) {
+        if (!objects.isLoaded()) {
+            update(digest, "null");
+            return;
+        }
+        objects.forEach((object, id) -> update(digest, id + ":" + object.getName()));
+    }
+
+    private static void update(MessageDigest digest, int[] bytes) {
+        if (bytes == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] converted = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            converted[i] = (byte) bytes[i];
+        }
+        digest.update(intToBytes(bytes.length));
+        digest.update(converted);
+    }
+
+    private static void update(MessageDigest digest, String str) {
+        byte[] bytes = String.valueOf(str).getBytes(StandardCharsets.UTF_8);
+        digest.update(intToBytes(bytes.length));
+        digest.update(bytes);
+    }
+
+    private static byte[] intToBytes(int value) {
+        return new byte[] { (byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24) };
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder str = new StringBuilder();
+        for (byte b : bytes) {
+            str.append(String.format("%02x", b));
+        }
+        return str.toString();
+    }
+}
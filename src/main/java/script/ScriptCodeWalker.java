@@ -0,0 +1,86 @@
+package script;
+
+import script.model.ScriptConstants;
+import script.model.ScriptFunc;
+import script.model.ScriptFuncLib;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.IntFunction;
+
+/**
+ * Walks raw script code instruction by instruction, without splitting it into ScriptInstructions or typing it,
+ * for analyses that go over every script of the game and only need opcodes, arguments and a rough stack.
+ */
+public abstract class ScriptCodeWalker {
+
+    @FunctionalInterface
+    public interface InstructionVisitor {
+        void visit(int offset, int opcode, int argv);
+    }
+
+    @FunctionalInterface
+    public interface StackVisitor<T> {
+        /**
+         * @param func the called function for CALL and CALLPOPA if it is known, otherwise null.
+         * @param operands the popped values in push order; missing ones are the walk's unknown value.
+         * @param depth the number of values left on the stack below the operands.
+         * @return the value the instruction pushes, or null for the unknown value. Ignored if the opcode pushes nothing.
+         */
+        T visit(int offset, int opcode, int argv, ScriptFunc func, T[] operands, int depth);
+    }
+
+    /**
+     * Stops at an opcode with arguments cut off by the end of the code.
+     */
+    public static void forEachInstruction(int[] code, InstructionVisitor visitor) {
+        int cursor = 0;
+        while (cursor < code.length) {
+            int opcode = code[cursor];
+            if (ScriptObject.hasArgs(opcode)) {
+                if (cursor + 2 >= code.length) {
+                    return;
+                }
+                visitor.visit(cursor, opcode, code[cursor + 1] + code[cursor + 2] * 0x100);
+                cursor += 3;
+            } else {
+                visitor.visit(cursor, opcode, 0);
+                cursor++;
+            }
+        }
+    }
+
+    /**
+     * Simulates the stack alongside {@link #forEachInstruction}: the pops of every opcode come from
+     * {@link ScriptConstants#OPCODE_STACKPOPS} (the parameter count for function calls) and it pushes what the visitor returns
+     * as often as {@link ScriptConstants#OPCODE_STACKPUSHES} says; REPUSH pushes its operand again.
+     * The stack is cleared at the end of every line and after opcodes with an unknown number of pops, which are not visited.
+     */
+    public static <T> void walkStack(int[] code, T unknown, IntFunction<T[]> arrays, StackVisitor<T> visitor) {
+        Deque<T> stack = new ArrayDeque<>();
+        forEachInstruction(code, (offset, opcode, argv) -> {
+            boolean call = opcode == ScriptConstants.OPCODE_CALL || opcode == ScriptConstants.OPCODE_CALLPOPA;
+            ScriptFunc func = call ? ScriptFuncLib.get(argv, null) : null;
+            int pops = call ? (func != null && func.inputs != null ? func.inputs.size() : 0) : ScriptConstants.OPCODE_STACKPOPS[opcode];
+            if (pops < 0) {
+                stack.clear();
+                return;
+            }
+            T[] operands = arrays.apply(pops);
+            for (int i = pops - 1; i >= 0; i--) {
+                operands[i] = stack.isEmpty() ? unknown : stack.pop();
+            }
+            T pushed = visitor.visit(offset, opcode, argv, func, operands, stack.size());
+            if (opcode == 0x2B) { // REPUSH / COPY
+                pushed = operands[0];
+            }
+            int pushes = ScriptConstants.OPCODE_STACKPUSHES[opcode];
+            for (int i = 0; i < pushes; i++) {
+                stack.push(pushed != null ? pushed : unknown);
+            }
+            if (ScriptConstants.OPCODE_ENDLINE.contains(opcode)) {
+                stack.clear();
+            }
+        });
+    }
+}
@@ -0,0 +1,6 @@
+package script;
+
+@FunctionalInterface
+public interface ScriptFuncHandler {
+    int call(ScriptInterpreter interpreter, int funcIdx);
+}
@@ -0,0 +1,590 @@
+package script;
+
+import script.model.ScriptConstants;
+import script.model.ScriptFunc;
+import script.model.ScriptFuncLib;
+import script.model.ScriptJump;
+import script.model.ScriptVariable;
+import script.model.ScriptWorker;
+
+/**
+ * Executes the bytecode of a ScriptObject without the game.
+ * Signals (REQ and friends) run synchronously to completion, so one runEntry call covers everything the entry point triggers.
+ * Subroutine jumps (JSR) are not supported, as the parser does not know which code their index refers to.
+ */
+public class ScriptInterpreter {
+    public static final int STATUS_FINISHED = 0;
+    public static final int STATUS_HALTED = 1;
+    public static final int STATUS_STEP_LIMIT = 2;
+    public static final int STATUS_DEPTH_LIMIT = 3;
+    public static final int STATUS_ERROR = 4;
+
+    private static final int STACK_SIZE = 0x100;
+    private static final int MAX_DEPTH = 16;
+    private static final int LOCATIONS = 8;
+    private static final int TEMP_I_COUNT = 4;
+    private static final int TEMP_F_COUNT = 10;
+    private static final ScriptFuncHandler NOOP_HANDLER = (interpreter, funcIdx) -> 0;
+
+    private static int[] FUNC_PARAM_COUNTS;
+    private static boolean[] FUNC_RETURNS_FLOAT;
+
+    public int stepLimit = 100000;
+
+    private final int[] code;
+    private final int[] refInts;
+    private final int[] refFloats;
+    private final int[][] entryAddresses;
+    private final int[][] originalEntryAddresses;
+    private final int[][] jumpAddresses;
+    private final int[] varLocation;
+    private final int[] varOffset;
+    private final int[] varFormat;
+    private final int[] varSize;
+    private final byte[][] memory = new byte[LOCATIONS][];
+    private final byte[][] initialMemory = new byte[LOCATIONS][];
+    private final byte[][] privateMemory;
+    private final byte[][] initialPrivateMemory;
+    private final ScriptFuncHandler[] funcHandlers = new ScriptFuncHandler[0x10000];
+    private ScriptFuncHandler defaultFuncHandler = NOOP_HANDLER;
+
+    private final int[] stack = new int[STACK_SIZE];
+    private final boolean[] stackFloat = new boolean[STACK_SIZE];
+    private final int[] tempI = new int[MAX_DEPTH * TEMP_I_COUNT];
+    private final float[] tempF = new float[MAX_DEPTH * TEMP_F_COUNT];
+    private int sp;
+    private int steps;
+    private int argBase;
+    private int argCount;
+    private int errorWorker;
+    private int errorOffset;
+    private int errorOpcode;
+    private String errorReason;
+
+    public ScriptInterpreter(ScriptObject script) {
+        initializeFuncTables();
+        code = script.getScriptCodeBytes();
+        refInts = script.refInts != null ? script.refInts : new int[0];
+        refFloats = script.refFloats != null ? script.refFloats : new int[0];
+        ScriptWorker[] workers = script.workers;
+        int workerCount = workers.length;
+        entryAddresses = new int[workerCount][];
+        originalEntryAddresses = new int[workerCount][];
+        jumpAddresses = new int[workerCount][];
+        for (int w = 0; w < workerCount; w++) {
+            originalEntryAddresses[w] = addresses(workers[w].entryPoints);
+            entryAddresses[w] = originalEntryAddresses[w].clone();
+            jumpAddresses[w] = addresses(workers[w].jumps);
+        }
+        ScriptVariable[] vars = script.variableDeclarations != null ? script.variableDeclarations : new ScriptVariable[0];
+        varLocation = new int[vars.length];
+        varOffset = new int[vars.length];
+        varFormat = new int[vars.length];
+        varSize = new int[vars.length];
+        int[] extents = new int[LOCATIONS];
+        for (int i = 0; i < vars.length; i++) {
+            ScriptVariable vr = vars[i];
+            varLocation[i] = vr.location;
+            varOffset[i] = vr.offset;
+            varFormat[i] = vr.format;
+            varSize[i] = vr.getLength();
+            int end = vr.offset + vr.getLength() * Math.max(1, vr.elementCount);
+            extents[vr.location] = Math.max(extents[vr.location], end);
+        }
+        privateMemory = new byte[workerCount][];
+        initialPrivateMemory = new byte[workerCount][];
+        for (int w = 0; w < workerCount; w++) {
+            ScriptWorker worker = workers[w];
+            initialPrivateMemory[w] = new byte[Math.max(worker.privateDataLength, extents[3])];
+            copyInitialBytes(script.bytes, worker.privateDataOffset, worker.privateDataLength, initialPrivateMemory[w]);
+            privateMemory[w] = initialPrivateMemory[w].clone();
+        }
+        for (int loc = 0; loc < LOCATIONS; loc++) {
+            if (loc == 3) {
+                continue;
+            }
+            initialMemory[loc] = new byte[extents[loc]];
+        }
+        if (workerCount > 0 && workers[0].sharedDataOffset > 0) {
+            copyInitialBytes(script.bytes, workers[0].sharedDataOffset, extents[4], initialMemory[4]);
+        }
+        if (script.eventDataOffset > 0) {
+            copyInitialBytes(script.bytes, script.eventDataOffset, extents[6], initialMemory[6]);
+        }
+        for (int loc = 0; loc < LOCATIONS; loc++) {
+            if (initialMemory[loc] != null) {
+                memory[loc] = initialMemory[loc].clone();
+            }
+        }
+    }
+
+    public void setFuncHandler(int funcIdx, ScriptFuncHandler handler) {
+        funcHandlers[funcIdx] = handler;
+    }
+
+    public void setDefaultFuncHandler(ScriptFuncHandler handler) {
+        defaultFuncHandler = handler != null ? handler : NOOP_HANDLER;
+    }
+
+    /**
+     * Replaces the backing store of a variable location, e.g. to share saveData between interpreters.
+     */
+    public void setMemory(int location, byte[] bytes) {
+        memory[location] = bytes;
+    }
+
+    public byte[] getMemory(int location) {
+        return memory[location];
+    }
+
+    /**
+     * Restores private, shared, event and scratch memory as well as the entry point table.
+     * saveData and commonVars are left alone as they outlive a single script.
+     */
+    public void reset() {
+        for (int loc = 2; loc < LOCATIONS; loc++) {
+            if (initialMemory[loc] != null && memory[loc] != null && memory[loc].length == initialMemory[loc].length) {
+                System.arraycopy(initialMemory[loc], 0, memory[loc], 0, initialMemory[loc].length);
+            }
+        }
+        for (int w = 0; w < privateMemory.length; w++) {
+            System.arraycopy(initialPrivateMemory[w], 0, privateMemory[w], 0, initialPrivateMemory[w].length);
+            System.arraycopy(originalEntryAddresses[w], 0, entryAddresses[w], 0, originalEntryAddresses[w].length);
+        }
+    }
+
+    public int runEntry(int workerIndex, int entryIndex) {
+        steps = 0;
+        sp = 0;
+        errorReason = null;
+        if (!isValidEntry(workerIndex, entryIndex)) {
+            return fail(workerIndex, 0, 0, "No entry point e" + String.format("%02X", entryIndex));
+        }
+        return execute(workerIndex, entryAddresses[workerIndex][entryIndex], 0);
+    }
+
+    public int getWorkerCount() {
+        return entryAddresses.length;
+    }
+
+    public int getEntryPointCount(int workerIndex) {
+        return entryAddresses[workerIndex].length;
+    }
+
+    public int getStepsExecuted() {
+        return steps;
+    }
+
+    public int getArgCount() {
+        return argCount;
+    }
+
+    public int getArg(int index) {
+        return toInt(stack[argBase + index], stackFloat[argBase + index]);
+    }
+
+    public float getFloatArg(int index) {
+        return toFloat(stack[argBase + index], stackFloat[argBase + index]);
+    }
+
+    public static int floatResult(float value) {
+        return Float.floatToRawIntBits(value);
+    }
+
+    public int getVariable(int workerIndex, int varIndex, int elementIndex) {
+        return loadVariable(workerIndex, varIndex, elementIndex);
+    }
+
+    public void setVariable(int workerIndex, int varIndex, int elementIndex, int value) {
+        storeVariable(workerIndex, varIndex, elementIndex, value, varFormat[varIndex] == 6);
+    }
+
+    public String getErrorString() {
+        if (errorReason == null) {
+            return null;
+        }
+        String label = ScriptConstants.OPCODE_LABELS[errorOpcode];
+        return "w" + String.format("%02X", errorWorker) + " at " + String.format("%04X", errorOffset) + " (" + (label != null ? label : String.format("%02X", errorOpcode)) + "): " + errorReason;
+    }
+
+    private int execute(int worker, int pc, int depth) {
+        final int iBase = depth * TEMP_I_COUNT;
+        final int fBase = depth * TEMP_F_COUNT;
+        final int stackBase = sp;
+        final int codeLength = code.length;
+        int rA = 0, rX = 0, rY = 0;
+        boolean rAFloat = false, rXFloat = false, rYFloat = false;
+        while (pc < codeLength) {
+            if (++steps > stepLimit) {
+                return STATUS_STEP_LIMIT;
+            }
+            final int offset = pc;
+            final int opcode = code[pc++];
+            int argv = 0;
+            if (opcode >= 0x80 && opcode != 0xFF) {
+                if (pc + 1 >= codeLength) {
+                    return fail(worker, offset, opcode, "Truncated instruction");
+                }
+                argv = code[pc] + code[pc + 1] * 0x100;
+                pc += 2;
+            }
+            final int pops = ScriptConstants.OPCODE_STACKPOPS[opcode];
+            if (pops > 0 && sp - pops < stackBase) {
+                return fail(worker, offset, opcode, "Stack underflow");
+            }
+            if (sp >= STACK_SIZE - 1) {
+                return fail(worker, offset, opcode, "Stack overflow");
+            }
+            switch (opcode) {
+                case 0x00, 0x1D, 0x1E, 0xF6 -> { // NOP, LABEL, TAG, SYSTEM
+                }
+                case 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B, 0x0C,
+                        0x0D, 0x0E, 0x0F, 0x10, 0x11, 0x12, 0x13, 0x14, 0x15, 0x16, 0x17, 0x18 -> applyOperator(opcode);
+                case 0x19 -> { // OPNOT / NOT_LOGIC
+                    int v = sp - 1;
+                    stack[v] = toInt(stack[v], stackFloat[v]) == 0 ? 1 : 0;
+                    stackFloat[v] = false;
+                }
+                case 0x1A -> { // OPUMINUS / NEG
+                    int v = sp - 1;
+                    stack[v] = stackFloat[v] ? floatResult(-Float.intBitsToFloat(stack[v])) : -stack[v];
+                }
+                case 0x1C -> { // OPBNOT / NOT
+                    int v = sp - 1;
+                    stack[v] = ~toInt(stack[v], stackFloat[v]);
+                    stackFloat[v] = false;
+                }
+                case 0x25 -> { // POPA / SET_RETURN_VALUE
+                    sp--;
+                    rA = stack[sp];
+                    rAFloat = stackFloat[sp];
+                }
+                case 0x26 -> push(rA, rAFloat); // PUSHA / GET_RETURN_VALUE
+                case 0x28 -> push(rX, rXFloat); // PUSHX / GET_TEST
+                case 0x29 -> push(rY, rYFloat); // PUSHY / GET_CASE
+                case 0x2A -> { // POPX / SET_TEST
+                    sp--;
+                    rX = stack[sp];
+                    rXFloat = stackFloat[sp];
+                }
+                case 0x2B -> push(stack[sp - 1], stackFloat[sp - 1]); // REPUSH / COPY
+                case 0x2C -> { // POPY / SET_CASE
+                    sp--;
+                    rY = stack[sp];
+                    rYFloat = stackFloat[sp];
+                }
+                case 0x34, 0x3C, 0x3D, 0x3E, 0x3F, 0x54 -> { // RTS, RET, RETN, RETT, RETTN, DRET
+                    sp = stackBase;
+                    return STATUS_FINISHED;
+                }
+                case 0x36, 0x37, 0x38 -> { // REQ / REQSW / REQEW
+                    int entry = stack[sp - 1];
+                    int target = stack[sp - 2];
+                    sp -= 3;
+                    if (isValidEntry(target, entry)) {
+                        if (depth + 1 >= MAX_DEPTH) {
+                            return fail(worker, offset, opcode, STATUS_DEPTH_LIMIT, "Signal depth limit reached");
+                        }
+                        int status = execute(target, entryAddresses[target][entry], depth + 1);
+                        if (status >= STATUS_STEP_LIMIT) {
+                            return status;
+                        }
+                        push(1, false);
+                    } else {
+                        push(0, false);
+                    }
+                }
+                case 0x39, 0x46 -> { // PREQ, TREQ
+                    sp -= 3;
+                    push(0, false);
+                }
+                case 0x40 -> { // HALT / DYNAMIC
+                    sp = stackBase;
+                    return STATUS_HALTED;
+                }
+                case 0x59, 0x5A, 0x5B, 0x5C -> { // POPI0..3 / SET_INT
+                    sp--;
+                    tempI[iBase + opcode - 0x59] = toInt(stack[sp], stackFloat[sp]);
+                }
+                case 0x5D, 0x5E, 0x5F, 0x60, 0x61, 0x62, 0x63, 0x64, 0x65, 0x66 -> { // POPF0..9 / SET_FLOAT
+                    sp--;
+                    tempF[fBase + opcode - 0x5D] = toFloat(stack[sp], stackFloat[sp]);
+                }
+                case 0x67, 0x68, 0x69, 0x6A -> push(tempI[iBase + opcode - 0x67], false); // PUSHI0..3 / GET_INT
+                case 0x6B, 0x6C, 0x6D, 0x6E, 0x6F, 0x70, 0x71, 0x72, 0x73, 0x74 -> push(floatResult(tempF[fBase + opcode - 0x6B]), true); // PUSHF0..9 / GET_FLOAT
+                case 0x77 -> sp -= 2; // REQWAIT / WAIT_DELETE, signals already ran to completion
+                case 0x79 -> { // REQCHG / EDIT_ENTRY_TABLE
+                    int newIdx = toInt(stack[sp - 1], stackFloat[sp - 1]);
+                    int oldIdx = toInt(stack[sp - 2], stackFloat[sp - 2]) + 2;
+                    sp -= 3;
+                    int[] entries = entryAddresses[worker];
+                    if (oldIdx >= 0 && oldIdx < entries.length && newIdx >= 0 && newIdx < entries.length) {
+                        entries[oldIdx] = originalEntryAddresses[worker][newIdx];
+                    }
+                }
+                case 0x9F -> { // PUSHV / GET_DATUM
+                    if (argv >= varLocation.length) {
+                        return fail(worker, offset, opcode, "Variable index out of bounds");
+                    }
+                    push(loadVariable(worker, argv, 0), varFormat[argv] == 6);
+                }
+                case 0xA0, 0xA1 -> { // POPV(L) / SET_DATUM_(W/T)
+                    if (argv >= varLocation.length) {
+                        return fail(worker, offset, opcode, "Variable index out of bounds");
+                    }
+                    sp--;
+                    storeVariable(worker, argv, 0, stack[sp], stackFloat[sp]);
+                }
+                case 0xA2 -> { // PUSHAR / GET_DATUM_INDEX
+                    if (argv >= varLocation.length) {
+                        return fail(worker, offset, opcode, "Variable index out of bounds");
+                    }
+                    int v = sp - 1;
+                    stack[v] = loadVariable(worker, argv, toInt(stack[v], stackFloat[v]));
+                    stackFloat[v] = varFormat[argv] == 6;
+                }
+                case 0xA3, 0xA4 -> { // POPAR(L) / SET_DATUM_INDEX_(W/T)
+                    if (argv >= varLocation.length) {
+                        return fail(worker, offset, opcode, "Variable index out of bounds");
+                    }
+                    sp -= 2;
+                    storeVariable(worker, argv, toInt(stack[sp], stackFloat[sp]), stack[sp + 1], stackFloat[sp + 1]);
+                }
+                case 0xA7 -> { // PUSHARP / GET_DATUM_DESC, descriptors are not modelled
+                    stack[sp - 1] = 0;
+                    stackFloat[sp - 1] = false;
+                }
+                case 0xAD -> { // PUSHI / CONST_INT
+                    if (argv >= refInts.length) {
+                        return fail(worker, offset, opcode, "Int constant out of bounds");
+                    }
+                    push(refInts[argv], false);
+                }
+                case 0xAE -> push((short) argv, false); // PUSHII / IMM
+                case 0xAF -> { // PUSHF / CONST_FLOAT
+                    if (argv >= refFloats.length) {
+                        return fail(worker, offset, opcode, "Float constant out of bounds");
+                    }
+                    push(refFloats[argv], true);
+                }
+                case 0xB0 -> { // JMP / JUMP
+                    if (argv >= jumpAddresses[worker].length) {
+                        return fail(worker, offset, opcode, "Jump index out of bounds");
+                    }
+                    pc = jumpAddresses[worker][argv];
+                }
+                case 0xB1, 0xB2, 0xD6, 0xD7 -> { // CJMP, NCJMP, POPXCJMP, POPXNCJMP
+                    sp--;
+                    boolean nonZero = toInt(stack[sp], stackFloat[sp]) != 0;
+                    if (opcode >= 0xD6) {
+                        rX = stack[sp];
+                        rXFloat = stackFloat[sp];
+                    }
+                    if (nonZero == (opcode == 0xB1 || opcode == 0xD6)) {
+                        if (argv >= jumpAddresses[worker].length) {
+                            return fail(worker, offset, opcode, "Jump index out of bounds");
+                        }
+                        pc = jumpAddresses[worker][argv];
+                    }
+                }
+                case 0xB3 -> { // JSR, which subroutine table the index refers to is not known
+                    return fail(worker, offset, opcode, "Unsupported opcode");
+                }
+                case 0xB5, 0xD8 -> { // CALL / FUNC_RET, CALLPOPA / FUNC
+                    int count = FUNC_PARAM_COUNTS[argv];
+                    if (sp - count < stackBase) {
+                        return fail(worker, offset, opcode, "Stack underflow");
+                    }
+                    int savedArgBase = argBase;
+                    int savedArgCount = argCount;
+                    argBase = sp - count;
+                    argCount = count;
+                    ScriptFuncHandler handler = funcHandlers[argv];
+                    int result = (handler != null ? handler : defaultFuncHandler).call(this, argv);
+                    sp = argBase;
+                    argBase = savedArgBase;
+                    argCount = savedArgCount;
+                    if (opcode == 0xB5) {
+                        push(result, FUNC_RETURNS_FLOAT[argv]);
+                    } else {
+                        rA = result;
+                        rAFloat = FUNC_RETURNS_FLOAT[argv];
+                    }
+                }
+                default -> {
+                    return fail(worker, offset, opcode, "Unsupported opcode");
+                }
+            }
+        }
+        sp = stackBase;
+        return STATUS_FINISHED;
+    }
+
+    private void applyOperator(int opcode) {
+        sp--;
+        final int a = stack[sp - 1];
+        final int b = stack[sp];
+        final boolean af = stackFloat[sp - 1];
+        final boolean bf = stackFloat[sp];
+        int result;
+        boolean isFloat = false;
+        if ((af || bf) && ((opcode >= 0x06 && opcode <= 0x0F) || (opcode >= 0x14 && opcode <= 0x17))) {
+            final float x = toFloat(a, af);
+            final float y = toFloat(b, bf);
+            switch (opcode) {
+                case 0x06 -> result = x == y ? 1 : 0;
+                case 0x07 -> result = x != y ? 1 : 0;
+                case 0x08, 0x0A -> result = x > y ? 1 : 0;
+                case 0x09, 0x0B -> result = x < y ? 1 : 0;
+                case 0x0C, 0x0E -> result = x >= y ? 1 : 0;
+                case 0x0D, 0x0F -> result = x <= y ? 1 : 0;
+                default -> {
+                    isFloat = true;
+                    result = floatResult(switch (opcode) {
+                        case 0x14 -> x + y;
+                        case 0x15 -> x - y;
+                        case 0x16 -> x * y;
+                        default -> y != 0 ? x / y : 0;
+                    });
+                }
+            }
+        } else {
+            final int x = toInt(a, af);
+            final int y = toInt(b, bf);
+            result = switch (opcode) {
+                case 0x01 -> x != 0 || y != 0 ? 1 : 0;
+                case 0x02 -> x != 0 && y != 0 ? 1 : 0;
+                case 0x03 -> x | y;
+                case 0x04 -> x ^ y;
+                case 0x05 -> x & y;
+                case 0x06 -> x == y ? 1 : 0;
+                case 0x07 -> x != y ? 1 : 0;
+                case 0x08 -> Integer.compareUnsigned(x, y) > 0 ? 1 : 0;
+                case 0x09 -> Integer.compareUnsigned(x, y) < 0 ? 1 : 0;
+                case 0x0A -> x > y ? 1 : 0;
+                case 0x0B -> x < y ? 1 : 0;
+                case 0x0C -> Integer.compareUnsigned(x, y) >= 0 ? 1 : 0;
+                case 0x0D -> Integer.compareUnsigned(x, y) <= 0 ? 1 : 0;
+                case 0x0E -> x >= y ? 1 : 0;
+                case 0x0F -> x <= y ? 1 : 0;
+                case 0x10 -> (x & (1 << y)) != 0 ? 1 : 0;
+                case 0x11 -> (x & (1 << y)) == 0 ? 1 : 0;
+                case 0x12 -> x << y;
+                case 0x13 -> x >>> y;
+                case 0x14 -> x + y;
+                case 0x15 -> x - y;
+                case 0x16 -> x * y;
+                case 0x17 -> y != 0 ? x / y : 0;
+                default -> y != 0 ? x % y : 0;
+            };
+        }
+        stack[sp - 1] = result;
+        stackFloat[sp - 1] = isFloat;
+    }
+
+    private void push(int value, boolean isFloat) {
+        stack[sp] = value;
+        stackFloat[sp] = isFloat;
+        sp++;
+    }
+
+    private boolean isValidEntry(int workerIndex, int entryIndex) {
+        return workerIndex >= 0 && workerIndex < entryAddresses.length && entryIndex >= 0 && entryIndex < entryAddresses[workerIndex].length;
+    }
+
+    private byte[] memoryFor(int workerIndex, int varIndex) {
+        return varLocation[varIndex] == 3 ? privateMemory[workerIndex] : memory[varLocation[varIndex]];
+    }
+
+    private int loadVariable(int workerIndex, int varIndex, int elementIndex) {
+        final byte[] m = memoryFor(workerIndex, varIndex);
+        final int size = varSize[varIndex];
+        final int addr = varOffset[varIndex] + elementIndex * size;
+        if (m == null || elementIndex < 0 || addr + size > m.length) {
+            return 0;
+        }
+        return switch (varFormat[varIndex]) {
+            case 0 -> m[addr] & 0xFF;
+            case 1 -> m[addr];
+            case 2 -> (m[addr] & 0xFF) | (m[addr + 1] & 0xFF) << 8;
+            case 3 -> (short) ((m[addr] & 0xFF) | (m[addr + 1] & 0xFF) << 8);
+            default -> (m[addr] & 0xFF) | (m[addr + 1] & 0xFF) << 8 | (m[addr + 2] & 0xFF) << 16 | (m[addr + 3] & 0xFF) << 24;
+        };
+    }
+
+    private void storeVariable(int workerIndex, int varIndex, int elementIndex, int value, boolean isFloat) {
+        final byte[] m = memoryFor(workerIndex, varIndex);
+        final int size = varSize[varIndex];
+        final int addr = varOffset[varIndex] + elementIndex * size;
+        if (m == null || elementIndex < 0 || addr + size > m.length) {
+            return;
+        }
+        final int raw = varFormat[varIndex] == 6 ? floatResult(toFloat(value, isFloat)) : toInt(value, isFloat);
+        m[addr] = (byte) raw;
+        if (size > 1) {
+            m[addr + 1] = (byte) (raw >> 8);
+            if (size > 2) {
+                m[addr + 2] = (byte) (raw >> 16);
+                m[addr + 3] = (byte) (raw >> 24);
+            }
+        }
+    }
+
+    private int fail(int worker, int offset, int opcode, String reason) {
+        return fail(worker, offset, opcode, STATUS_ERROR, reason);
+    }
+
+    private int fail(int worker, int offset, int opcode, int status, String reason) {
+        errorWorker = worker;
+        errorOffset = offset;
+        errorOpcode = opcode;
+        errorReason = reason;
+        return status;
+    }
+
+    private static int toInt(int value, boolean isFloat) {
+        return isFloat ? (int) Float.intBitsToFloat(value) : value;
+    }
+
+    private static float toFloat(int value, boolean isFloat) {
+        return isFloat ? Float.intBitsToFloat(value) : value;
+    }
+
+    private static int[] addresses(ScriptJump[] jumps) {
+        if (jumps == null) {
+            return new int[0];
+        }
+        int[] addresses = new int[jumps.length];
+        for (int i = 0; i < jumps.length; i++) {
+            addresses[i] = jumps[i].addr;
+        }
+        return addresses;
+    }
+
+    private static void copyInitialBytes(int[] bytes, int from, int length, byte[] target) {
+        if (from <= 0) {
+            return;
+        }
+        int count = Math.min(Math.min(length, target.length), bytes.length - from);
+        for (int i = 0; i < count; i++) {
+            target[i] = (byte) bytes[from + i];
+        }
+    }
+
+    private static synchronized void initializeFuncTables() {
+        if (FUNC_PARAM_COUNTS != null) {
+            return;
+        }
+        int[] counts = new int[0x10000];
+        boolean[] returnsFloat = new boolean[0x10000];
+        for (int i = 0; i < 0x10000; i++) {
+            ScriptFunc func = ScriptFuncLib.get(i, null);
+            if (func != null) {
+                counts[i] = func.inputs != null ? func.inputs.size() : 0;
+                returnsFloat[i] = "float".equals(func.type);
+            }
+        }
+        FUNC_RETURNS_FLOAT = returnsFloat;
+        FUNC_PARAM_COUNTS = counts;
+    }
+}
@@ -7,6 +7,7 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import static main.StringHelper.*;
+import static reading.BytesHelper.*;
 
 public class ScriptObject {
     private static final int JUMP_LINE_MINLENGTH = 16;
@@ -14,6 +15,11 @@ public class ScriptObject {
     private static final int JUMP_PLUS_HEX_LINE_MINLENGTH = JUMP_LINE_MINLENGTH + HEX_LINE_MINLENGTH + 1;
 
     private static final boolean VERBOSE_HEADER_OUTPUT = true;
+    private static final Set<String> REFERENCE_TYPES = Set.of("move", "charMove", "keyItem", "treasure", "monster");
+    /**
+     * Logic operators, register stores and conditional jumps, which take their operands as conditions.
+     */
+    private static final Set<Integer> CONDITION_OPCODES = Set.of(0x01, 0x02, 0x19, 0xB1, 0xB2, 0xD6, 0xD7);
 
     protected final int[] bytes;
     protected final int absoluteOffset;
@@ -56,19 +62,26 @@ public class ScriptObject {
     String currentRAType = "unknown";
     String currentRXType = "unknown";
     String currentRYType = "unknown";
+    ScriptVariableAccess currentRYAccess;
     boolean gatheringInfo = true;
     List<ScriptJump> scriptJumps;
     Map<Integer, List<ScriptJump>> scriptJumpsByDestination;
     List<ScriptJump> currentExecutionLines;
 
     int lineCount = 0;
-    String textScriptLine;
+    StringBuilder textScriptLine;
     List<String> warningsOnLine;
     List<String> offsetLines;
     List<String> textScriptLines;
     List<String> hexScriptLines;
     List<String> jumpLines;
     List<String> warnLines;
+    public List<ScriptReference> references;
+    public List<ScriptCallSite> callSites;
+    public List<ScriptVariableAccess> variableAccesses;
+    public List<ScriptVariableTest> variableTests;
+    public List<ScriptSignal> signals;
+    ScriptJump currentEntryPoint;
     List<ScriptInstruction> instructions = new ArrayList<>();
 
     public ScriptObject(Chunk chunk, int[] workerMappingBytes) {
@@ -84,24 +97,24 @@ public class ScriptObject {
     }
 
     private void mapFields() {
-        scriptCodeLength = read4Bytes(0x00);
-        map_start = read4Bytes(0x04);
-        creatorTagAddress = read4Bytes(0x08);
-        event_name_start = read4Bytes(0x0C);
-        jumpsEndAddress = read4Bytes(0x10);
-        amountOfType2or3Scripts = read2Bytes(0x14);
-        amountOfType4Scripts = read2Bytes(0x16);
-        mainScriptIndex = read2Bytes(0x18);
-        unknown1A = read2Bytes(0x1A);
-        amountOfType5Scripts = read2Bytes(0x1C);
-        zoneBytes = read2Bytes(0x1E);
-        eventDataOffset = read4Bytes(0x20);
-        unknown24 = read4Bytes(0x24);
-        area_offset = read4Bytes(0x28);
-        other_offset = read4Bytes(0x2C);
-        scriptCodeStartAddress = read4Bytes(0x30);
-        numberOfScripts = read2Bytes(0x34);
-        numberOfScriptsWithoutSubroutines = read2Bytes(0x36);
+        scriptCodeLength = read4Bytes(bytes, 0x00);
+        map_start = read4Bytes(bytes, 0x04);
+        creatorTagAddress = read4Bytes(bytes, 0x08);
+        event_name_start = read4Bytes(bytes, 0x0C);
+        jumpsEndAddress = read4Bytes(bytes, 0x10);
+        amountOfType2or3Scripts = read2Bytes(bytes, 0x14);
+        amountOfType4Scripts = read2Bytes(bytes, 0x16);
+        mainScriptIndex = read2Bytes(bytes, 0x18);
+        unknown1A = read2Bytes(bytes, 0x1A);
+        amountOfType5Scripts = read2Bytes(bytes, 0x1C);
+        zoneBytes = read2Bytes(bytes, 0x1E);
+        eventDataOffset = read4Bytes(bytes, 0x20);
+        unknown24 = read4Bytes(bytes, 0x24);
+        area_offset = read4Bytes(bytes, 0x28);
+        other_offset = read4Bytes(bytes, 0x2C);
+        scriptCodeStartAddress = read4Bytes(bytes, 0x30);
+        numberOfScripts = read2Bytes(bytes, 0x34);
+        numberOfScriptsWithoutSubroutines = read2Bytes(bytes, 0x36);
     }
 
     private void parseWorkers() {
@@ -109,7 +122,7 @@ public class ScriptObject {
         scriptJumpsByDestination = new HashMap<>();
         workers = new ScriptWorker[numberOfScripts];
         for (int i = 0; i < numberOfScripts; i++) {
-            int offset = read4Bytes(0x38 + i * 4);
+            int offset = read4Bytes(bytes, 0x38 + i * 4);
             ScriptWorker scriptWorker = parseScriptWorker(offset, i);
             parseScriptJumps(scriptWorker);
             workers[i] = scriptWorker;
@@ -120,9 +133,11 @@ public class ScriptObject {
 
     public void parseScript(List<String> strings) {
         this.strings = strings;
-        scriptCodeEndAddress = scriptCodeStartAddress + scriptCodeLength;
-        actualScriptCodeBytes = Arrays.copyOfRange(bytes, scriptCodeStartAddress, scriptCodeEndAddress);
+        getScriptCodeBytes();
         syntacticParseScriptCode();
+        if (ScriptCache.load(this)) {
+            return;
+        }
 
         gatheringInfo = true;
         semanticParseScriptCode();
@@ -130,12 +145,48 @@ public class ScriptObject {
 
         gatheringInfo = false;
         semanticParseScriptCode();
+        ScriptCache.store(this);
+    }
+
+    /**
+     * The script code split into instructions, disassembling it first if {@link #parseScript} has not run yet.
+     */
+    public List<ScriptInstruction> getInstructions() {
+        if (instructions.isEmpty()) {
+            getScriptCodeBytes();
+            syntacticParseScriptCode();
+        }
+        return instructions;
+    }
+
+    public int[] getScriptCodeBytes() {
+        if (actualScriptCodeBytes == null) {
+            scriptCodeEndAddress = scriptCodeStartAddress + scriptCodeLength;
+            actualScriptCodeBytes = Arrays.copyOfRange(bytes, scriptCodeStartAddress, scriptCodeEndAddress);
+        }
+        return actualScriptCodeBytes;
+    }
+
+    public int[] getRefInts() {
+        return refInts;
+    }
+
+    public int[] getRefFloats() {
+        return refFloats;
+    }
+
+    public ScriptVariable[] getVariableDeclarations() {
+        return variableDeclarations;
     }
 
     private ScriptWorker parseScriptWorker(int offset, int scriptIndex) {
         return new ScriptWorker(scriptIndex, Arrays.copyOfRange(bytes, offset, offset + ScriptWorker.LENGTH));
     }
 
+    public int getWorkerCount() {
+        return workers != null ? workers.length : 0;
+    }
+
     public ScriptWorker getWorker(int workerIndex) {
         return workerIndex >= 0 && workerIndex < workers.length ? workers[workerIndex] : null;
     }
@@ -149,8 +200,8 @@ public class ScriptObject {
                 variableStructsTableOffset = w.variableStructsTableOffset;
                 variableDeclarations = new ScriptVariable[w.variablesCount];
                 for (int i = 0; i < w.variablesCount; i++) {
-                    int lb = read4Bytes(variableStructsTableOffset + i * 8);
-                    int hb = read4Bytes(variableStructsTableOffset + i * 8 + 4);
+                    int lb = read4Bytes(bytes, variableStructsTableOffset + i * 8);
+                    int hb = read4Bytes(bytes, variableStructsTableOffset + i * 8 + 4);
                     ScriptVariable scriptVariable = new ScriptVariable(i, lb, hb);
                     if (scriptVariable.location == 4) {
                         scriptVariable.parseValues(this, bytes, w.sharedDataOffset);
@@ -171,7 +222,7 @@ public class ScriptObject {
                 intTableOffset = w.intTableOffset;
                 refInts = new int[w.refIntCount];
                 for (int i = 0; i < w.refIntCount; i++) {
-                    refInts[i] = read4Bytes(intTableOffset + i * 4);
+                    refInts[i] = read4Bytes(bytes, intTableOffset + i * 4);
                 }
                 w.refInts = refInts;
             } else if (w.intTableOffset != intTableOffset || w.refIntCount != refInts.length) {
@@ -183,7 +234,7 @@ public class ScriptObject {
                 floatTableOffset = w.floatTableOffset;
                 refFloats = new int[w.refFloatCount];
                 for (int i = 0; i < w.refFloatCount; i++) {
-                    refFloats[i] = read4Bytes(floatTableOffset + i * 4);
+                    refFloats[i] = read4Bytes(bytes, floatTableOffset + i * 4);
                 }
                 w.refFloats = refFloats;
             } else if (w.floatTableOffset != floatTableOffset || w.refFloatCount != refFloats.length) {
@@ -228,7 +279,7 @@ public class ScriptObject {
         int entryPointCount = worker.entryPointCount;
         ScriptJump[] entryPoints = new ScriptJump[entryPointCount];
         for (int i = 0; i < entryPointCount; i++) {
-            int addr = read4Bytes(worker.scriptEntryPointsOffset + i * 4);
+            int addr = read4Bytes(bytes, worker.scriptEntryPointsOffset + i * 4);
             ScriptJump entryPoint = new ScriptJump(worker, addr, i, true);
             entryPoints[i] = entryPoint;
             scriptJumps.add(entryPoint);
@@ -241,7 +292,7 @@ public class ScriptObject {
         int jumpCount = worker.jumpCount;
         ScriptJump[] jumps = new ScriptJump[jumpCount];
         for (int i = 0; i < jumpCount; i++) {
-            int addr = read4Bytes(worker.jumpsOffset + i * 4);
+            int addr = read4Bytes(bytes, worker.jumpsOffset + i * 4);
             ScriptJump jump = new ScriptJump(worker, addr, i, false);
             jumps[i] = jump;
             scriptJumps.add(jump);
@@ -288,7 +339,6 @@ public class ScriptObject {
                 nextLineOffset = cursor;
                 hexScriptLines.add(getHexLine(lineInstructions));
                 jumpLines.add(getJumpLine(jumpsOnLine));
-                textScriptLine = "";
                 jumpsOnLine.clear();
                 lineInstructions.clear();
             }
@@ -299,10 +349,17 @@ public class ScriptObject {
         currentExecutionLines = new ArrayList<>();
         textScriptLines = new ArrayList<>();
         warnLines = new ArrayList<>();
-        textScriptLine = "";
+        references = new ArrayList<>();
+        callSites = new ArrayList<>();
+        variableAccesses = new ArrayList<>();
+        variableTests = new ArrayList<>();
+        signals = new ArrayList<>();
+        currentEntryPoint = null;
+        textScriptLine = new StringBuilder();
         warningsOnLine = new ArrayList<>();
         for (ScriptInstruction instruction : instructions) {
             if (!instruction.jumps.isEmpty()) {
+                instruction.jumps.stream().filter(j -> j.isEntryPoint).findFirst().ifPresent(j -> currentEntryPoint = j);
                 restoreTypingsFromJumps(instruction.jumps);
                 instruction.jumps.forEach(j -> j.reachableFrom = currentExecutionLines);
                 currentExecutionLines = new ArrayList<>(currentExecutionLines);
@@ -315,12 +372,14 @@ public class ScriptObject {
             processInstruction(instruction);
             if (getLineEnd(instruction.opcode)) {
                 if (!stack.empty()) {
-                    warningsOnLine.add("Stack not empty (" + stack.size() + "): " + stack);
+                    if (!gatheringInfo) {
+                        warningsOnLine.add("Stack not empty (" + stack.size() + "): " + stack);
+                    }
                     stack.clear();
                 }
-                textScriptLines.add(textScriptLine);
+                textScriptLines.add(textScriptLine.toString());
                 warnLines.add(" " + String.join("; ", warningsOnLine));
-                textScriptLine = "";
+                textScriptLine.setLength(0);
                 warningsOnLine = new ArrayList<>();
             }
         }
@@ -373,7 +432,10 @@ public class ScriptObject {
         if (jumps == null || jumps.isEmpty()) {
             return;
         }
-        jumps.stream().filter(j -> j.isEntryPoint).findFirst().ifPresent(j -> currentScriptIndex = j.workerIndex);
+        jumps.stream().filter(j -> j.isEntryPoint).findFirst().ifPresent(j -> {
+            currentScriptIndex = j.workerIndex;
+            currentRYAccess = null;
+        });
         jumps.stream().filter(j -> j.rAType != null && !"unknown".equals(j.rAType)).findFirst().ifPresent(j -> currentRAType = j.rAType);
         jumps.stream().filter(j -> j.rXType != null && !"unknown".equals(j.rXType)).findFirst().ifPresent(j -> currentRXType = j.rXType);
         jumps.stream().filter(j -> j.rYType != null && !"unknown".equals(j.rYType)).findFirst().ifPresent(j -> currentRYType = j.rYType);
@@ -383,7 +445,6 @@ public class ScriptObject {
     protected void processInstruction(ScriptInstruction ins) {
         final int opcode = ins.opcode;
         final int argv = ins.argv;
-        final String argvsh = ins.argvsh;
         StackObject p1 = null, p2 = null, p3 = null;
         try {
             switch (getStackPops(opcode)) {
@@ -398,94 +459,76 @@ public class ScriptObject {
             warningsOnLine.add("Empty stack for opcode " + String.format("%02X", opcode));
             return;
         }
+        addVariableTests(ins, p1, p2);
         if (opcode == 0x00 || opcode == 0x1D || opcode == 0x1E) { // NOP, LABEL, TAG
             // No handling yet, they should probably be written a certain way parsed out but are never actually used
         } else if (opcode >= 0x01 && opcode <= 0x18) {
             ScriptField op = ScriptConstants.COMP_OPERATORS.get(opcode);
-            String resultType = op.type;
-            String p1s = p1.toString();
-            String p2s = p2.toString();
-
+            StackObject p1t = p1;
+            StackObject p2t = p2;
             if (opcode == 0x06 || opcode == 0x07) {
-                String p1t = resolveType(p1);
-                String p2t = resolveType(p2);
-                boolean p1w = isWeakType(p1t);
-                boolean p2w = isWeakType(p2t);
+                String p1Type = resolveType(p1);
+                String p2Type = resolveType(p2);
+                boolean p1w = isWeakType(p1Type);
+                boolean p2w = isWeakType(p2Type);
                 if (p1w && !p2w) {
-                    p1s = typed(p1, p2t);
+                    p1t = typed(p1, p2Type);
                 } else if (p2w && !p1w) {
-                    p2s = typed(p2, p1t);
+                    p2t = typed(p2, p1Type);
                 }
             }
-            if (p1.maybeBracketize) {
-                p1s = '(' + p1s + ')';
-            }
-            if (p2.maybeBracketize) {
-                p2s = '(' + p2s + ')';
-            }
-            String content = p1s + ' ' + op.name + ' ' + p2s;
-            StackObject stackObject = new StackObject(this, ins, resultType, true, content, opcode);
+            StackObject stackObject = new StackObject(this, ins, op.type, opcode, p1t, p2t);
             stackObject.maybeBracketize = true;
             stack.push(stackObject);
         } else if (opcode == 0x19) { // OPNOT / NOT_LOGIC
-            stack.push(new StackObject(this, ins, "bool", true, "not " + p1, 0x19));
+            stack.push(new StackObject(this, ins, "bool", 0x19, p1));
         } else if (opcode == 0x1A) { // OPUMINUS / NEG
-            stack.push(new StackObject(this, ins, p1.type, true, "-(" + p1 + ")", 0x1A));
+            stack.push(new StackObject(this, ins, p1.type, 0x1A, p1));
         } else if (opcode == 0x1C) { // OPBNOT / NOT
-            stack.push(new StackObject(this, ins, p1.type, true, "~(" + p1 + ")", 0x1C));
+            stack.push(new StackObject(this, ins, p1.type, 0x1C, p1));
         } else if (opcode == 0x25) { // POPA / SET_RETURN_VALUE
-            textScriptLine += p1 + ";";
+            writeLine(p1, ";");
             currentRAType = resolveType(p1);
         } else if (opcode == 0x26) { // PUSHA / GET_RETURN_VALUE
             stack.push(new StackObject(this, ins, currentRAType, true, "LastCallResult", 0x26));
         } else if (opcode == 0x28) { // PUSHX / GET_TEST
             stack.push(new StackObject(this, ins, currentRXType, true, "rX", 0x28));
         } else if (opcode == 0x29) { // PUSHY / GET_CASE
-            stack.push(new StackObject(this, ins, currentRYType, true, "case", 0x29));
+            StackObject stackObject = new StackObject(this, ins, currentRYType, true, "case", 0x29);
+            stackObject.variableAccess = currentRYAccess;
+            stack.push(stackObject);
         } else if (opcode == 0x2A) { // POPX / SET_TEST
-            textScriptLine += "Set rX = " + p1;
+            writeLine("Set rX = ", p1);
             currentRXType = resolveType(p1);
         } else if (opcode == 0x2B) { // REPUSH / COPY
             stack.push(new StackObject(p1.type, p1));
             stack.push(new StackObject(p1.type, p1));
         } else if (opcode == 0x2C) { // POPY / SET_CASE
-            textScriptLine += "switch " + p1;
+            writeLine("switch ", p1);
             currentRYType = resolveType(p1);
+            currentRYAccess = p1.variableAccess;
         } else if (opcode == 0x34) { // RTS / RETURN
-            textScriptLine += "return from subroutine;";
+            writeLine("return from subroutine;");
             resetRegisterTypes();
         } else if (opcode >= 0x36 && opcode <= 0x38) { // REQ / SIG_NOACK
-            String cmd = "run";
-            if (opcode == 0x37) { // REQSW / SIG_ONSTART
-                cmd += "Async";
-            } else if (opcode == 0x38) { // REQEW / SIG_ONEND
-                cmd += "Sync";
-            }
-            String i = p1.expression ? ""+p1 : ""+p1.value;
-            boolean direct = !p2.expression && !p3.expression && isWeakType(p2.type) && isWeakType(p3.type) && p2.value < workers.length && p3.value < workers[p2.value].entryPoints.length;
-            String s = p2.expression ? "(" + p2 + ")" : format2Or4Byte(p2.value);
-            String e = p3.expression ? "(" + p3 + ")" : format2Or4Byte(p3.value);
-            String scriptLabel = direct ? workers[p2.value].entryPoints[p3.value].getLabel() : ("w" + s + "e" + e);
-            String content = cmd + " " + scriptLabel + " (" + i + ")";
-            stack.push(new StackObject(this, ins, "worker", true, content, opcode));
+            stack.push(new StackObject(this, ins, "worker", opcode, p1, p2, p3));
+            addSignal(ins, p2, p3, p1);
         } else if (opcode == 0x39) { // PREQ
-            String content = "PREQ(" + p1 + ", " + p2 + ", " + p3 + ")";
-            stack.push(new StackObject(this, ins, "unknown", true, content, 0x39));
+            stack.push(new StackObject(this, ins, "unknown", 0x39, p1, p2, p3));
         } else if (opcode == 0x3C) { // RET / END
-            textScriptLine += "return;";
+            writeLine("return;");
             resetRegisterTypes();
         } else if (opcode == 0x3D) { // Never used: RETN / CLEANUP_END
         } else if (opcode == 0x3E) { // Never used: RETT / TO_MAIN
         } else if (opcode == 0x3F) { // RETTN / CLEANUP_TO_MAIN
-            textScriptLine += "return (RETTN): " + p1;
+            writeLine("return (RETTN): ", p1);
             resetRegisterTypes();
         } else if (opcode == 0x40) { // HALT / DYNAMIC
-            textScriptLine += "halt";
+            writeLine("halt");
         } else if (opcode == 0x46) { // TREQ
-            String content = "TREQ(" + p1 + ", " + p2 + ", " + p3 + ")";
-            stack.push(new StackObject(this, ins, "unknown", true, content, 0x46));
+            stack.push(new StackObject(this, ins, "unknown", 0x46, p1, p2, p3));
         } else if (opcode == 0x54) { // DRET / CLEANUP_ALL_END
-            textScriptLine += "direct return;";
+            writeLine("direct return;");
             resetRegisterTypes();
         } else if (opcode >= 0x59 && opcode <= 0x5C) { // POPI0..3 / SET_INT
             String p1t = resolveType(p1);
@@ -495,42 +538,35 @@ public class ScriptObject {
             } else {
                 currentTempITypes.remove(tempIndex);
             }
-            String val = typed(p1, varTypes.get(argv));
-            textScriptLine += "tempI" + tempIndex + " = " + val + ";";
+            StackObject val = typed(p1, varTypes.get(argv));
+            writeLine("tempI", tempIndex, " = ", val, ";");
         } else if (opcode >= 0x5D && opcode <= 0x66) { // POPF0..9 / SET_FLOAT
             int tempIndex = opcode - 0x5D;
-            textScriptLine += "tempF" + tempIndex + " = " + p1 + ";";
+            writeLine("tempF", tempIndex, " = ", p1, ";");
         } else if (opcode >= 0x67 && opcode <= 0x6A) { // PUSHI0..3 / GET_INT
             int tempIndex = opcode - 0x67;
-            StackObject stackObject = new StackObject(this, ins, "tempI", true, "tempI" + tempIndex, tempIndex);
+            StackObject stackObject = new StackObject(this, ins, "tempI", tempIndex);
             stackObject.referenceIndex = tempIndex;
             stack.push(stackObject);
         } else if (opcode >= 0x6B && opcode <= 0x74) { // PUSHF0..9 / GET_FLOAT
             int tempIndex = opcode - 0x6B;
-            StackObject stackObject = new StackObject(this, ins, "float", true, "tempF" + tempIndex, opcode);
+            StackObject stackObject = new StackObject(this, ins, "float", opcode);
             stackObject.referenceIndex = tempIndex;
             stack.push(stackObject);
         } else if (opcode == 0x77) { // REQWAIT / WAIT_DELETE
-            boolean direct = !p1.expression && !p2.expression && isWeakType(p1.type) && isWeakType(p2.type) && p1.value < workers.length && p2.value < workers[p1.value].entryPoints.length;
-            String s = p2.expression ? "(" + p1 + ")" : format2Or4Byte(p2.value);
-            String e = p3.expression ? "(" + p2 + ")" : format2Or4Byte(p3.value);
-            String scriptLabel = direct ? workers[p1.value].entryPoints[p2.value].getLabel() : ("w" + s + "e" + e);
-            textScriptLine += "await " + scriptLabel + ";";
+            writeLine(new StackObject(this, ins, "unknown", opcode, p1, p2), ";");
+            addSignal(ins, p1, p2, null);
         } else if (opcode == 0x78) { // Never used: PREQWAIT / WAIT_SPEC_DELETE
         } else if (opcode == 0x79) { // REQCHG / EDIT_ENTRY_TABLE
-            ScriptJump[] entryPoints = workers[currentScriptIndex].entryPoints;
-            int oldIdx = p2.value + 2;
-            int newIdx = p3.value;
-            boolean direct = !p2.expression && !p3.expression && isWeakType(p2.type) && isWeakType(p3.type) && oldIdx < entryPoints.length && newIdx < entryPoints.length;
-            String oldScriptLabel = direct ? entryPoints[oldIdx].getLabel() : ("e" + (p2.expression ? "(" + p2 + ")" : format2Or4Byte(oldIdx)));
-            String newScriptLabel = direct ? entryPoints[newIdx].getLabel() : ("e" + (p3.expression ? "(" + p3 + ")" : format2Or4Byte(newIdx)));
-            String i = p1.expression ? ""+p1 : ""+p1.value;
-            textScriptLine += "Replace script " + oldScriptLabel + " with " + newScriptLabel + " (" + i + ")";;
-            // textScriptLine += "REQCHG(" + p1 + ", " + p2 + ", " + p3 + ");";
+            StackObject statement = new StackObject(this, ins, "unknown", opcode, p1, p2, p3);
+            statement.referenceIndex = currentScriptIndex;
+            writeLine(statement);
         } else if (opcode == 0x7A) { // Never used: ACTREQ / SET_EDGE_TRIGGER
         } else if (opcode == 0x9F) { // PUSHV / GET_DATUM
-            StackObject stackObject = new StackObject(this, ins, "var", true, ensureVariableValid(argv), argv);
+            validateVariableIndex(argv);
+            StackObject stackObject = new StackObject(this, ins, "var", argv);
             stackObject.referenceIndex = argv;
+            stackObject.variableAccess = addVariableAccess(ins, argv, false, null, null);
             stack.push(stackObject);
         } else if (opcode == 0xA0 || opcode == 0xA1) { // POPV(L) / SET_DATUM_(W/T)
             addVarType(argv, resolveType(p1));
@@ -540,67 +576,146 @@ public class ScriptObject {
                 }
                 varEnums.get(argv).add(p1);
             }
-            textScriptLine += "Set ";
-            if (opcode == 0xA1) {
-                textScriptLine += "(limit) ";
-            }
-            String val = typed(p1, varTypes.get(argv));
-            textScriptLine += ensureVariableValid(argv) + " = " + val + ";";
+            validateVariableIndex(argv);
+            addVariableAccess(ins, argv, true, null, p1);
+            StackObject val = typed(p1, varTypes.get(argv));
+            writeLine("Set ", opcode == 0xA1 ? "(limit) " : "", variableLabel(argv), " = ", val, ";");
         } else if (opcode == 0xA2) { // PUSHAR / GET_DATUM_INDEX
-            StackObject stackObject = new StackObject(this, ins, "var", true, ensureVariableValidWithArray(argv, p1), argv);
+            validateVariableIndex(argv);
+            typeArrayIndex(argv, p1);
+            StackObject stackObject = new StackObject(this, ins, "var", argv, p1);
             stackObject.referenceIndex = argv;
+            stackObject.variableAccess = addVariableAccess(ins, argv, false, p1, null);
             stack.push(stackObject);
         } else if (opcode == 0xA3 || opcode == 0xA4) { // POPAR(L) / SET_DATUM_INDEX_(W/T)
-            textScriptLine += "Set ";
-            if (opcode == 0xA4) {
-                textScriptLine += "(limit) ";
-            }
-            textScriptLine += ensureVariableValidWithArray(argv, p1) + " = " + p2;
+            validateVariableIndex(argv);
+            addVariableAccess(ins, argv, true, p1, p2);
+            typeArrayIndex(argv, p1);
+            StackObject target = new StackObject(this, ins, "var", argv, p1);
+            writeLine("Set ", opcode == 0xA4 ? "(limit) " : "", target, " = ", p2);
         } else if (opcode == 0xA7) { // PUSHARP / GET_DATUM_DESC
-            String arrayIndex = '[' + String.format("%04X", p1.value) + ']';
-            StackObject stackObject = new StackObject(this, ins, "int16", true, "ArrayPointer:var" + argvsh + arrayIndex, argv);
+            StackObject stackObject = new StackObject(this, ins, "int16", argv, p1);
             stackObject.referenceIndex = argv;
             stack.push(stackObject);
         } else if (opcode == 0xAD) { // PUSHI / CONST_INT
-            int refInt = refInts[argv];
-            String content = "rI[" + argvsh + "]:" + refInt + " [" + String.format("%08X", refInt) + "h]";
-            StackObject stackObject = new StackObject(this, ins, "uint32", false, content, refInt);
+            StackObject stackObject = new StackObject(this, ins, "uint32", false, null, refInts[argv]);
             stackObject.referenceIndex = argv;
             stack.push(stackObject);
         } else if (opcode == 0xAE) { // PUSHII / IMM
-            stack.push(new StackObject(this, ins, "int16", false, ins.argvSigned + " [" + argvsh + "h]", argv));
+            stack.push(new StackObject(this, ins, "int16", false, null, argv));
         } else if (opcode == 0xAF) { // PUSHF / CONST_FLOAT
-            int refFloat = refFloats[argv];
-            String content = "rF[" + argvsh + "]:" + Float.intBitsToFloat(refFloat) + " [" + String.format("%08X", refFloat) + "h]";
-            StackObject stackObject = new StackObject(this, ins, "float", false, content, refFloat);
+            StackObject stackObject = new StackObject(this, ins, "float", false, null, refFloats[argv]);
             stackObject.referenceIndex = argv;
             stack.push(stackObject);
         } else if (opcode == 0xB0) { // JMP / JUMP
-            textScriptLine += "Jump to j" + String.format("%02X", argv);
+            writeLine("Jump to j", String.format("%02X", argv));
             setJumpTypes(argv);
             resetRegisterTypes();
         } else if (opcode == 0xB1) { // Never used: CJMP / BNEZ
         } else if (opcode == 0xB2) { // Never used: NCJMP / BEZ
         } else if (opcode == 0xB3) { // JSR
-            textScriptLine += "Jump to subroutine s" + String.format("%02X", argv);
+            writeLine("Jump to subroutine s", String.format("%02X", argv));
         } else if (opcode == 0xB5) { // CALL / FUNC_RET
             List<StackObject> params = popParamsForFunc(argv);
+            addCallSite(ins, params);
             ScriptFunc func = getAndTypeFuncCall(argv, params);
-            StackObject stackObject = new StackObject(this, ins, func.getType(params), true, func.callB5(params), argv);
+            StackObject stackObject = new StackObject(this, ins, func.getType(params), argv, params.toArray(new StackObject[0]));
+            stackObject.func = func;
             stackObject.referenceIndex = argv;
             stack.push(stackObject);
         } else if (opcode == 0xD6) { // POPXCJMP / SET_BNEZ
-            textScriptLine += "(" + p1 + ") -> j" + String.format("%02X", argv);
+            writeLine("(", p1, ") -> j", String.format("%02X", argv));
             setJumpTypes(argv);
         } else if (opcode == 0xD7) { // POPXNCJMP / SET_BEZ
-            textScriptLine += "Check (" + p1 + ") else jump to j" + String.format("%02X", argv);
+            writeLine("Check (", p1, ") else jump to j", String.format("%02X", argv));
             setJumpTypes(argv);
         } else if (opcode == 0xD8) { // CALLPOPA / FUNC
             List<StackObject> params = popParamsForFunc(argv);
+            addCallSite(ins, params);
             ScriptFunc func = getAndTypeFuncCall(argv, params);
             currentRAType = func.getType(params);
-            String call = func.callD8(params);
-            textScriptLine += call + ';';
+            StackObject call = new StackObject(this, ins, currentRAType, argv, params.toArray(new StackObject[0]));
+            call.func = func;
+            writeLine(call, ";");
+        }
+    }
+
+    public String renderExpression(StackObject obj) {
+        final ScriptInstruction ins = obj.parentInstruction;
+        final int opcode = ins.opcode;
+        final StackObject[] p = obj.operands;
+        if (opcode >= 0x01 && opcode <= 0x18) {
+            ScriptField op = ScriptConstants.COMP_OPERATORS.get(opcode);
+            return bracketized(p[0]) + ' ' + op.name + ' ' + bracketized(p[1]);
+        } else if (opcode == 0x19) { // OPNOT / NOT_LOGIC
+            return "not " + p[0];
+        } else if (opcode == 0x1A) { // OPUMINUS / NEG
+            return "-(" + p[0] + ")";
+        } else if (opcode == 0x1C) { // OPBNOT / NOT
+            return "~(" + p[0] + ")";
+        } else if (opcode >= 0x36 && opcode <= 0x38) { // REQ / REQSW / REQEW
+            String cmd = opcode == 0x37 ? "runAsync" : (opcode == 0x38 ? "runSync" : "run");
+            String i = p[0].expression ? ""+p[0] : ""+p[0].value;
+            return cmd + " " + workerEntryLabel(p[1], p[2]) + " (" + i + ")";
+        } else if (opcode == 0x39) { // PREQ
+            return "PREQ(" + p[0] + ", " + p[1] + ", " + p[2] + ")";
+        } else if (opcode == 0x46) { // TREQ
+            return "TREQ(" + p[0] + ", " + p[1] + ", " + p[2] + ")";
+        } else if (opcode >= 0x67 && opcode <= 0x6A) { // PUSHI0..3 / GET_INT
+            return "tempI" + (opcode - 0x67);
+        } else if (opcode >= 0x6B && opcode <= 0x74) { // PUSHF0..9 / GET_FLOAT
+            return "tempF" + (opcode - 0x6B);
+        } else if (opcode == 0x77) { // REQWAIT / WAIT_DELETE
+            return "await " + workerEntryLabel(p[0], p[1]);
+        } else if (opcode == 0x79) { // REQCHG / EDIT_ENTRY_TABLE
+            ScriptJump[] entryPoints = workers[obj.referenceIndex].entryPoints;
+            int oldIdx = p[1].value + 2;
+            int newIdx = p[2].value;
+            boolean direct = !p[1].expression && !p[2].expression && isWeakType(p[1].type) && isWeakType(p[2].type) && oldIdx < entryPoints.length && newIdx < entryPoints.length;
+            String oldScriptLabel = direct ? entryPoints[oldIdx].getLabel() : ("e" + (p[1].expression ? "(" + p[1] + ")" : format2Or4Byte(oldIdx)));
+            String newScriptLabel = direct ? entryPoints[newIdx].getLabel() : ("e" + (p[2].expression ? "(" + p[2] + ")" : format2Or4Byte(newIdx)));
+            String i = p[0].expression ? ""+p[0] : ""+p[0].value;
+            return "Replace script " + oldScriptLabel + " with " + newScriptLabel + " (" + i + ")";
+        } else if (opcode == 0x9F) { // PUSHV / GET_DATUM
+            return variableLabel(ins.argv);
+        } else if (opcode == 0xA2 || opcode == 0xA3 || opcode == 0xA4) { // PUSHAR / POPAR(L)
+            return variableLabel(ins.argv) + '[' + arrayIndexString(ins.argv, p[0]) + ']';
+        } else if (opcode == 0xA7) { // PUSHARP / GET_DATUM_DESC
+            return "ArrayPointer:var" + ins.argvsh + '[' + String.format("%04X", p[0].value) + ']';
+        } else if (opcode == 0xAD) { // PUSHI / CONST_INT
+            return "rI[" + ins.argvsh + "]:" + obj.value + " [" + String.format("%08X", obj.value) + "h]";
+        } else if (opcode == 0xAE) { // PUSHII / IMM
+            return ins.argvSigned + " [" + ins.argvsh + "h]";
+        } else if (opcode == 0xAF) { // PUSHF / CONST_FLOAT
+            return "rF[" + ins.argvsh + "]:" + Float.intBitsToFloat(obj.value) + " [" + String.format("%08X", obj.value) + "h]";
+        } else if (opcode == 0xB5) { // CALL / FUNC_RET
+            return obj.func.callB5(Arrays.asList(p));
+        } else if (opcode == 0xD8) { // CALLPOPA / FUNC
+            return obj.func.callD8(Arrays.asList(p));
+        }
+        return null;
+    }
+
+    private static String bracketized(StackObject obj) {
+        return obj.maybeBracketize ? "(" + obj + ")" : obj.toString();
+    }
+
+    private String workerEntryLabel(StackObject worker, StackObject entry) {
+        boolean direct = !worker.expression && !entry.expression && isWeakType(worker.type) && isWeakType(entry.type) && worker.value < workers.length && entry.value < workers[worker.value].entryPoints.length;
+        if (direct) {
+            return workers[worker.value].entryPoints[entry.value].getLabel();
+        }
+        String w = worker.expression ? "(" + worker + ")" : format2Or4Byte(worker.value);
+        String e = entry.expression ? "(" + entry + ")" : format2Or4Byte(entry.value);
+        return "w" + w + "e" + e;
+    }
+
+    private void writeLine(Object... parts) {
+        if (gatheringInfo) {
+            return;
+        }
+        for (Object part : parts) {
+            textScriptLine.append(part);
         }
     }
 
@@ -646,6 +761,100 @@ public class ScriptObject {
         return params;
     }
 
+    protected void addCallSite(ScriptInstruction ins, List<StackObject> params) {
+        if (gatheringInfo) {
+            return;
+        }
+        int[] args = new int[params.size()];
+        int constantMask = 0;
+        for (int i = 0; i < args.length; i++) {
+            StackObject param = params.get(i);
+            if (param != null && !param.expression) {
+                args[i] = param.value;
+                constantMask |= 1 << i;
+            }
+        }
+        int worker = currentEntryPoint != null ? currentEntryPoint.workerIndex : -1;
+        int entryPoint = currentEntryPoint != null ? currentEntryPoint.jumpIndex : -1;
+        callSites.add(new ScriptCallSite(ins.argv, worker, entryPoint, ins.offset, textScriptLines.size(), args, constantMask));
+    }
+
+    /**
+     * @param index the array index for PUSHAR and POPAR, otherwise null.
+     * @param value the written value for writes, otherwise null.
+     * @return the recorded access, or null if none was recorded.
+     */
+    protected ScriptVariableAccess addVariableAccess(ScriptInstruction ins, int var, boolean write, StackObject index, StackObject value) {
+        if (gatheringInfo || variableDeclarations == null || var >= variableDeclarations.length) {
+            return null;
+        }
+        ScriptVariable variable = variableDeclarations[var];
+        int elementOffset = variable.offset + (index != null && !index.expression ? index.value * variable.getLength() : 0);
+        Integer constantValue = value != null && !value.expression ? value.value : null;
+        int worker = currentEntryPoint != null ? currentEntryPoint.workerIndex : -1;
+        int entryPoint = currentEntryPoint != null ? currentEntryPoint.jumpIndex : -1;
+        ScriptVariableAccess access = new ScriptVariableAccess(variable.location, variable.offset, elementOffset, write, constantValue, worker, entryPoint, ins.offset, textScriptLines.size());
+        variableAccesses.add(access);
+        return access;
+    }
+
+    /**
+     * Records the comparisons of a variable read against a constant and the reads used as conditions directly.
+     * Case labels compare the switched read, so each case of a switch on a variable is recorded as an equality test.
+     */
+    protected void addVariableTests(ScriptInstruction ins, StackObject p1, StackObject p2) {
+        final int opcode = ins.opcode;
+        if (gatheringInfo || p1 == null) {
+            return;
+        }
+        if (opcode >= 0x05 && opcode <= 0x0F) {
+            if (p1.variableAccess != null && p2.variableAccess == null && !p2.expression) {
+                variableTests.add(new ScriptVariableTest(p1.variableAccess, opcode, p2.value, ins.offset));
+            } else if (p2.variableAccess != null && p1.variableAccess == null && !p1.expression) {
+                variableTests.add(new ScriptVariableTest(p2.variableAccess, mirroredComparison(opcode), p1.value, ins.offset));
+            }
+        } else if (CONDITION_OPCODES.contains(opcode)) {
+            for (StackObject operand : new StackObject[] { p1, p2 }) {
+                if (operand != null && operand.variableAccess != null) {
+                    variableTests.add(new ScriptVariableTest(operand.variableAccess, 0, 0, ins.offset));
+                }
+            }
+        }
+    }
+
+    private static int mirroredComparison(int opcode) {
+        return switch (opcode) {
+            case 0x08 -> 0x09;
+            case 0x09 -> 0x08;
+            case 0x0A -> 0x0B;
+            case 0x0B -> 0x0A;
+            case 0x0C -> 0x0D;
+            case 0x0D -> 0x0C;
+            case 0x0E -> 0x0F;
+            case 0x0F -> 0x0E;
+            default -> opcode;
+        };
+    }
+
+    protected void addSignal(ScriptInstruction ins, StackObject worker, StackObject entryPoint, StackObject level) {
+        if (gatheringInfo || worker == null || entryPoint == null || worker.expression || entryPoint.expression) {
+            return;
+        }
+        if (worker.value < 0 || worker.value > 0xFFFF || entryPoint.value < 0 || entryPoint.value > 0xFFFF) {
+            // ScriptSignalGraph keys entry points as worker << 16 | entryPoint
+            warningsOnLine.add("Signal target w" + String.format("%02X", worker.value) + "e" + String.format("%02X", entryPoint.value) + " out of range");
+            return;
+        }
+        int fromWorker = currentEntryPoint != null ? currentEntryPoint.workerIndex : -1;
+        int fromEntryPoint = currentEntryPoint != null ? currentEntryPoint.jumpIndex : -1;
+        int levelValue = level != null && !level.expression ? level.value : -1;
+        signals.add(new ScriptSignal(ins.opcode, fromWorker, fromEntryPoint, worker.value, entryPoint.value, levelValue, ins.offset, textScriptLines.size()));
+    }
+
+    public ScriptSignalGraph getSignalGraph() {
+        return new ScriptSignalGraph(this);
+    }
+
     protected ScriptFunc getAndTypeFuncCall(int idx, List<StackObject> params) {
         ScriptFunc func = ScriptFuncLib.get(idx, params);
         if (func == null) {
@@ -690,44 +899,64 @@ public class ScriptObject {
         return type == null || "unknown".equals(type) || type.isBlank() || type.startsWith("int") || type.startsWith("uint");
     }
 
-    protected String typed(StackObject obj, String type) {
+    protected StackObject typed(StackObject obj, String type) {
         if (obj == null) {
-            return type + ":null";
-        } else {
-            if ("var".equals(obj.type)) {
-                addVarType(obj.value, type);
-            }
-            if ("tempI".equals(obj.type) && type != null && !"unknown".equals(type)) {
-                currentTempITypes.put(obj.value, type);
-            }
-            if (obj.expression || "unknown".equals(type)) {
-                return obj.toString();
-            } else {
-                return new StackObject(type, obj).toString();
-            }
+            return new StackObject(this, null, type, true, type + ":null", 0);
+        }
+        if ("var".equals(obj.type)) {
+            addVarType(obj.value, type);
+        }
+        if ("tempI".equals(obj.type) && type != null && !"unknown".equals(type)) {
+            currentTempITypes.put(obj.value, type);
+        }
+        if (!gatheringInfo && !obj.expression && REFERENCE_TYPES.contains(type)) {
+            references.add(new ScriptReference(type, obj.value, textScriptLines.size()));
+        }
+        return retyped(obj, type);
+    }
+
+    protected static StackObject retyped(StackObject obj, String type) {
+        if (obj.expression || "unknown".equals(type)) {
+            return obj;
         }
+        return new StackObject(type, obj);
     }
 
-    private String ensureVariableValid(int index) {
+    private void validateVariableIndex(int index) {
+        if (gatheringInfo || (variableDeclarations != null && index < variableDeclarations.length)) {
+            return;
+        }
+        warningsOnLine.add("Variable index " + String.format("%02X", index) + " out of bounds!");
+    }
+
+    private String variableLabel(int index) {
         if (variableDeclarations != null && index < variableDeclarations.length) {
             return variableDeclarations[index].getLabel();
         }
-        String hexIdx = String.format("%02X", index);
-        warningsOnLine.add("Variable index " + hexIdx + " out of bounds!");
-        return "var" + hexIdx;
+        return "var" + String.format("%02X", index);
     }
 
-    private String ensureVariableValidWithArray(int index, StackObject p1) {
-        String varLabel = ensureVariableValid(index);
+    private String arrayIndexType(int index, StackObject p1) {
         String indexType = p1.type;
         if (isWeakType(indexType) && (variableDeclarations != null && index < variableDeclarations.length)) {
             indexType = variableDeclarations[index].getArrayIndexType();
         }
-        String arrayIndex = !p1.expression && isWeakType(indexType) ? String.format("%04X", p1.value) : typed(p1, indexType);
-        return varLabel + '[' + arrayIndex + ']';
+        return indexType;
+    }
+
+    private void typeArrayIndex(int index, StackObject p1) {
+        String indexType = arrayIndexType(index, p1);
+        if (p1.expression || !isWeakType(indexType)) {
+            typed(p1, indexType);
+        }
     }
 
-    protected static boolean hasArgs(int opcode) {
+    private String arrayIndexString(int index, StackObject p1) {
+        String indexType = arrayIndexType(index, p1);
+        return !p1.expression && isWeakType(indexType) ? String.format("%04X", p1.value) : retyped(p1, indexType).toString();
+    }
+
+    public static boolean hasArgs(int opcode) {
         if (opcode == 0xFF) {
             return false;
         } else if (opcode >= 0x80) {
@@ -776,14 +1005,6 @@ public class ScriptObject {
         }
     }
 
-    private int read2Bytes(int offset) {
-        return bytes[offset] + bytes[offset+1] * 0x100;
-    }
-
-    private int read4Bytes(int offset) {
-        return bytes[offset] + bytes[offset+1] * 0x100 + bytes[offset+2] * 0x10000 + bytes[offset+3] * 0x1000000;
-    }
-
     private static String format2Or4Byte(int b) {
         return String.format(b > 0x100 ? "%04X" : "%02X", b);
     }
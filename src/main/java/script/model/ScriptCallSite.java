@@ -0,0 +1,31 @@
+package script.model;
+
+/**
+ * A call of a script function, with the worker and entry point it is in and the constant arguments it gets.
+ */
+public class ScriptCallSite {
+    public final int func;
+    public final int worker;
+    public final int entryPoint;
+    public final int offset;
+    public final int line;
+    public final int[] args;
+    /**
+     * Bit i is set if argument i is a constant, otherwise its value in args is 0.
+     */
+    public final int constantMask;
+
+    public ScriptCallSite(int func, int worker, int entryPoint, int offset, int line, int[] args, int constantMask) {
+        this.func = func;
+        this.worker = worker;
+        this.entryPoint = entryPoint;
+        this.offset = offset;
+        this.line = line;
+        this.args = args;
+        this.constantMask = constantMask;
+    }
+
+    public boolean isConstant(int arg) {
+        return (constantMask & (1 << arg)) != 0;
+    }
+}
@@ -6,11 +6,14 @@ import java.io.*;
 import java.util.*;
 
 public abstract class ScriptConstants {
+    public static final int OPCODE_CALL = 0xB5;
+    public static final int OPCODE_CALLPOPA = 0xD8;
     private static final String ENUM_CSV_ROOT = FileAccessorWithMods.RESOURCES_ROOT + "enums";
     private static final String LOCAL_SRC_PATH = FileAccessorWithMods.RESOURCES_ROOT + "local.src";
     public static String[] FUNCSPACES;
     public static String[] OPCODE_LABELS;
     public static int[] OPCODE_STACKPOPS;
+    public static int[] OPCODE_STACKPUSHES;
     public static List<Integer> OPCODE_ENDLINE;
     public static final Map<String, Map<Integer, ScriptField>> ENUMERATIONS = new HashMap<>();
     public static final Map<Integer, ScriptField> COMP_OPERATORS = new HashMap<>();
@@ -251,6 +254,26 @@ public abstract class ScriptConstants {
         OPCODE_STACKPOPS[0xD8] = 0; // CALLPOPA / FUNC
         OPCODE_STACKPOPS[0xF6] = 0; // SYSTEM
 
+        OPCODE_STACKPUSHES = new int[0x100];
+        Arrays.fill(OPCODE_STACKPUSHES, 0x01, 0x19, 1); // Comparison operators
+        OPCODE_STACKPUSHES[0x19] = 1; // OPNOT / NOT_LOGIC
+        OPCODE_STACKPUSHES[0x1A] = 1; // OPUMINUS / NEG
+        OPCODE_STACKPUSHES[0x1C] = 1; // OPBNOT / NOT
+        OPCODE_STACKPUSHES[0x26] = 1; // PUSHA / GET_RETURN_VALUE
+        OPCODE_STACKPUSHES[0x28] = 1; // PUSHX / GET_TEST
+        OPCODE_STACKPUSHES[0x29] = 1; // PUSHY / GET_CASE
+        OPCODE_STACKPUSHES[0x2B] = 2; // REPUSH / COPY
+        Arrays.fill(OPCODE_STACKPUSHES, 0x36, 0x3A, 1); // REQ, REQSW, REQEW, PREQ
+        OPCODE_STACKPUSHES[0x46] = 1; // TREQ
+        Arrays.fill(OPCODE_STACKPUSHES, 0x67, 0x75, 1); // all PUSHI/F / GET_INT/FLOAT
+        OPCODE_STACKPUSHES[0x9F] = 1; // PUSHV / GET_DATUM
+        OPCODE_STACKPUSHES[0xA2] = 1; // PUSHAR / GET_DATUM_INDEX
+        OPCODE_STACKPUSHES[0xA7] = 1; // PUSHARP / GET_DATUM_DESC
+        OPCODE_STACKPUSHES[0xAD] = 1; // PUSHI / CONST_INT
+        OPCODE_STACKPUSHES[0xAE] = 1; // PUSHII / IMM
+        OPCODE_STACKPUSHES[0xAF] = 1; // PUSHF / CONST_FLOAT
+        OPCODE_STACKPUSHES[0xB5] = 1; // CALL / FUNC_RET
+
         putCompOperator(0x01, "or", "bool", "OPLOR");
         putCompOperator(0x02, "and", "bool", "OPLAND");
         putCompOperator(0x03, "|", "int", "OPOR");
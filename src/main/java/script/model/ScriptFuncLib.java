@@ -508,7 +508,7 @@ public abstract class ScriptFuncLib {
         putUnknownFunc(0x1013, 1);
         putUnknownFunc(0x1015, 6);
         putFuncWithIdx(0x1019, new ScriptFunc("abs", "float", null, p("float")));
-        putUnknownFunc(0x101A, new ScriptFunc("distance", "float", null, p("x1", "float"), p("y1", "float"), p("x2", "float"), p("y2", "float")));
+        putFuncWithIdx(0x101A, new ScriptFunc("distance", "float", null, p("x1", "float"), p("y1", "float"), p("x2", "float"), p("y2", "float")));
         putUnknownFunc(0x101B, 6);
         putUnknownFunc(0x101C, 2);
         putUnknownFunc(0x4001, 1);
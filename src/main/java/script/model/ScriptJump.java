@@ -32,6 +32,14 @@ public class ScriptJump {
         return label != null ? label : getDefaultLabel();
     }
 
+    public int getPurposeKind() {
+        return purposeKind;
+    }
+
+    public int getPurposeSlot() {
+        return purposeSlot;
+    }
+
     public String getDefaultLabel() {
         if (!isEntryPoint) {
             return "j" + String.format("%02X", jumpIndex);
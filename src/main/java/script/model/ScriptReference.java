@@ -0,0 +1,23 @@
+package script.model;
+
+/**
+ * A constant of a nameable type (move, key item, monster...) used on a given line of a script.
+ */
+public class ScriptReference {
+    public final String type;
+    public final int value;
+    public final int line;
+
+    public ScriptReference(String type, int value, int line) {
+        this.type = type;
+        this.value = value;
+        this.line = line;
+    }
+
+    /**
+     * The id the referenced object is known by in DataAccess.
+     */
+    public int getIndex() {
+        return "charMove".equals(type) ? value + 0x3000 : value;
+    }
+}
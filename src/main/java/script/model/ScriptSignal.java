@@ -0,0 +1,51 @@
+package script.model;
+
+/**
+ * A request from one entry point to another worker's entry point (REQ/REQSW/REQEW) or a wait for it to finish (REQWAIT).
+ */
+public class ScriptSignal {
+    public static final int RUN = 0x36;
+    public static final int RUN_ASYNC = 0x37;
+    public static final int RUN_SYNC = 0x38;
+    public static final int AWAIT = 0x77;
+
+    public final int opcode;
+    public final int fromWorker;
+    public final int fromEntryPoint;
+    public final int toWorker;
+    public final int toEntryPoint;
+    /**
+     * Priority level passed to the request when constant, otherwise -1. Always -1 for AWAIT.
+     */
+    public final int level;
+    public final int offset;
+    public final int line;
+
+    public ScriptSignal(int opcode, int fromWorker, int fromEntryPoint, int toWorker, int toEntryPoint, int level, int offset, int line) {
+        this.opcode = opcode;
+        this.fromWorker = fromWorker;
+        this.fromEntryPoint = fromEntryPoint;
+        this.toWorker = toWorker;
+        this.toEntryPoint = toEntryPoint;
+        this.level = level;
+        this.offset = offset;
+        this.line = line;
+    }
+
+    public String getKind() {
+        return switch (opcode) {
+            case RUN -> "run";
+            case RUN_ASYNC -> "runAsync";
+            case RUN_SYNC -> "runSync";
+            case AWAIT -> "await";
+            default -> String.format("%02X", opcode);
+        };
+    }
+
+    /**
+     * Whether the requesting entry point blocks until the target has run (runSync) or finished (await).
+     */
+    public boolean isBlocking() {
+        return opcode == RUN_SYNC || opcode == AWAIT;
+    }
+}
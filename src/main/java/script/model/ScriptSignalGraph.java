@@ -0,0 +1,152 @@
+package script.model;
+
+import main.GraphHelper;
+import script.ScriptObject;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Directed graph of the run/runAsync/runSync/await signals between the entry points of one script.
+ * Nodes are (worker, entry point) pairs appearing in a signal, keyed as worker << 16 | entryPoint.
+ */
+public class ScriptSignalGraph {
+    private final ScriptObject script;
+    public final List<ScriptSignal> signals;
+    private final int[] nodes;
+    private final int[] adjacencyStart;
+    private final int[] adjacency;
+    private final ScriptSignal[] adjacencySignals;
+
+    public ScriptSignalGraph(ScriptObject script) {
+        this.script = script;
+        this.signals = script.signals.stream().filter(s -> s.fromWorker >= 0 && s.fromEntryPoint >= 0).collect(Collectors.toList());
+        nodes = signals.stream().flatMapToInt(s -> Arrays.stream(new int[] { key(s.fromWorker, s.fromEntryPoint), key(s.toWorker, s.toEntryPoint) })).distinct().sorted().toArray();
+        List<ScriptSignal> sorted = new ArrayList<>(signals);
+        sorted.sort(Comparator.comparingInt((ScriptSignal s) -> key(s.fromWorker, s.fromEntryPoint)).thenComparingInt(s -> s.offset));
+        adjacencyStart = new int[nodes.length + 1];
+        for (ScriptSignal signal : sorted) {
+            adjacencyStart[nodeOf(key(signal.fromWorker, signal.fromEntryPoint)) + 1]++;
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            adjacencyStart[i + 1] += adjacencyStart[i];
+        }
+        adjacency = new int[sorted.size()];
+        adjacencySignals = sorted.toArray(new ScriptSignal[0]);
+        for (int i = 0; i < adjacencySignals.length; i++) {
+            adjacency[i] = nodeOf(key(adjacencySignals[i].toWorker, adjacencySignals[i].toEntryPoint));
+        }
+    }
+
+    /**
+     * Both parts must fit in 16 bits; ScriptObject only records signals whose target does.
+     */
+    public static int key(int worker, int entryPoint) {
+        return (worker & 0xFFFF) << 16 | (entryPoint & 0xFFFF);
+    }
+
+    public int[] getNodes() {
+        return nodes;
+    }
+
+    public List<ScriptSignal> getSignalsFrom(int worker, int entryPoint) {
+        int node = nodeOf(key(worker, entryPoint));
+        if (node < 0) {
+            return List.of();
+        }
+        return Arrays.asList(adjacencySignals).subList(adjacencyStart[node], adjacencyStart[node + 1]);
+    }
+
+    public List<ScriptSignal> getSignalsTo(int worker, int entryPoint) {
+        return signals.stream().filter(s -> s.toWorker == worker && s.toEntryPoint == entryPoint).collect(Collectors.toList());
+    }
+
+    /**
+     * @param blockingOnly only follow runSync and await signals, so a cycle means the entry points can wait on each other forever.
+     * @return the node keys of every strongly connected component with more than one node or a signal to itself.
+     */
+    public List<int[]> getCycles(boolean blockingOnly) {
+        List<int[]> cycles = new ArrayList<>();
+        for (int[] component : components(blockingOnly)) {
+            if (component.length > 1 || hasSelfSignal(component[0], blockingOnly)) {
+                cycles.add(component);
+            }
+        }
+        return cycles;
+    }
+
+    /**
+     * @return the strongly connected components ordered so that every signal goes from an earlier component to a later one
+     * (or stays within one), i.e. a topological order of the requesting entry points before the ones they request.
+     */
+    public List<int[]> getTopologicalOrder() {
+        List<int[]> order = components(false);
+        Collections.reverse(order);
+        return order;
+    }
+
+    /**
+     * @return the node keys of each strongly connected component, in reverse topological order.
+     */
+    private List<int[]> components(boolean blockingOnly) {
+        int[] components = GraphHelper.stronglyConnectedComponents(adjacencyStart, adjacency, blockingOnly ? edge -> adjacencySignals[edge].isBlocking() : null);
+        List<List<Integer>> members = new ArrayList<>();
+        for (int node = 0; node < nodes.length; node++) {
+            while (members.size() <= components[node]) {
+                members.add(new ArrayList<>());
+            }
+            members.get(components[node]).add(nodes[node]);
+        }
+        return members.stream().map(m -> m.stream().mapToInt(Integer::intValue).sorted().toArray()).collect(Collectors.toList());
+    }
+
+    private boolean hasSelfSignal(int key, boolean blockingOnly) {
+        int node = nodeOf(key);
+        for (int i = adjacencyStart[node]; i < adjacencyStart[node + 1]; i++) {
+            if (adjacency[i] == node && (!blockingOnly || adjacencySignals[i].isBlocking())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String label(int key) {
+        int worker = key >>> 16;
+        int entryPoint = key & 0xFFFF;
+        ScriptWorker scriptWorker = script.getWorker(worker);
+        if (scriptWorker != null && scriptWorker.entryPoints != null && entryPoint < scriptWorker.entryPoints.length) {
+            return scriptWorker.entryPoints[entryPoint].getLabel();
+        }
+        return "w" + String.format("%02X", worker) + "e" + String.format("%02X", entryPoint);
+    }
+
+    private String componentString(int[] component) {
+        String labels = Arrays.stream(component).mapToObj(this::label).collect(Collectors.joining(", "));
+        return component.length > 1 ? "{ " + labels + " }" : labels;
+    }
+
+    private int nodeOf(int key) {
+        int node = Arrays.binarySearch(nodes, key);
+        return node >= 0 ? node : -1;
+    }
+
+    @Override
+    public String toString() {
+        List<String> lines = new ArrayList<>();
+        lines.add(signals.size() + " signals between " + nodes.length + " entry points");
+        for (int node = 0; node < nodes.length; node++) {
+            for (int i = adjacencyStart[node]; i < adjacencyStart[node + 1]; i++) {
+                ScriptSignal signal = adjacencySignals[i];
+                String level = signal.level >= 0 ? " (" + signal.level + ")" : "";
+                lines.add("  " + label(nodes[node]) + " " + signal.getKind() + " " + label(nodes[adjacency[i]]) + level + " at " + String.format("%04X", signal.offset) + " line " + signal.line);
+            }
+        }
+        List<int[]> cycles = getCycles(false);
+        List<int[]> blockingCycles = getCycles(true);
+        lines.add(cycles.size() + " cycles (" + blockingCycles.size() + " made only of runSync/await signals):");
+        cycles.forEach(c -> lines.add("  " + componentString(c)));
+        blockingCycles.forEach(c -> lines.add("  blocking: " + componentString(c)));
+        lines.add("Order: " + getTopologicalOrder().stream().map(this::componentString).collect(Collectors.joining(" -> ")));
+        return String.join("\n", lines);
+    }
+}
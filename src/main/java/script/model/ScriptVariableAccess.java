@@ -0,0 +1,38 @@
+package script.model;
+
+/**
+ * A read or write of a script variable, identified by its location (0 = saveData, 1 = commonVar...) and offset there.
+ */
+public class ScriptVariableAccess {
+    public final int location;
+    public final int varOffset;
+    /**
+     * The offset of the accessed array element if the index is a constant, otherwise varOffset.
+     */
+    public final int elementOffset;
+    public final boolean write;
+    /**
+     * The written value if it is a constant, otherwise null. Always null for reads.
+     */
+    public final Integer value;
+    public final int worker;
+    public final int entryPoint;
+    public final int offset;
+    public final int line;
+
+    public ScriptVariableAccess(int location, int varOffset, boolean write, int worker, int entryPoint, int offset, int line) {
+        this(location, varOffset, varOffset, write, null, worker, entryPoint, offset, line);
+    }
+
+    public ScriptVariableAccess(int location, int varOffset, int elementOffset, boolean write, Integer value, int worker, int entryPoint, int offset, int line) {
+        this.location = location;
+        this.varOffset = varOffset;
+        this.elementOffset = elementOffset;
+        this.write = write;
+        this.value = value;
+        this.worker = worker;
+        this.entryPoint = entryPoint;
+        this.offset = offset;
+        this.line = line;
+    }
+}
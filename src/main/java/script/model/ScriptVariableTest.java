@@ -0,0 +1,27 @@
+package script.model;
+
+/**
+ * A condition on a variable read: a comparison against a constant, or the read used as a condition directly.
+ */
+public class ScriptVariableTest {
+    public final ScriptVariableAccess read;
+    /**
+     * The comparison opcode with the variable on the left, or 0 if the variable is used as condition directly.
+     */
+    public final int operator;
+    /**
+     * The constant compared against, 0 if operator is 0.
+     */
+    public final int value;
+    /**
+     * The offset of the comparing instruction; the read is at read.offset.
+     */
+    public final int offset;
+
+    public ScriptVariableTest(ScriptVariableAccess read, int operator, int value, int offset) {
+        this.read = read;
+        this.operator = operator;
+        this.value = value;
+        this.offset = offset;
+    }
+}
@@ -1,12 +1,14 @@
 package script.model;
 
 import main.DataAccess;
+import main.IdRegistry;
 import model.AbilityDataObject;
 import model.Nameable;
 import script.MonsterFile;
 import script.ScriptObject;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class StackObject {
@@ -18,6 +20,14 @@ public class StackObject {
     public int value;
     public boolean maybeBracketize = false;
     public Integer referenceIndex;
+    public StackObject[] operands;
+    public ScriptFunc func;
+    /**
+     * The read this value comes from if it was pushed by PUSHV or PUSHAR.
+     */
+    public ScriptVariableAccess variableAccess;
+
+    private static final Map<String, Renderer> RENDERERS = new ConcurrentHashMap<>();
 
     public StackObject(ScriptObject script, ScriptInstruction instruction, String type, boolean expression, String content, int value) {
         this.parentScript = script;
@@ -28,6 +38,11 @@ public class StackObject {
         this.value = value;
     }
 
+    public StackObject(ScriptObject script, ScriptInstruction instruction, String type, int value, StackObject... operands) {
+        this(script, instruction, type, true, null, value);
+        this.operands = operands;
+    }
+
     public StackObject(String type, StackObject obj) {
         this.parentScript = obj.parentScript;
         this.parentInstruction = obj.parentInstruction;
@@ -38,92 +53,131 @@ public class StackObject {
         this.value = obj.value;
         this.maybeBracketize = obj.maybeBracketize;
         this.referenceIndex = obj.referenceIndex;
+        this.operands = obj.operands;
+        this.func = obj.func;
+        this.variableAccess = obj.variableAccess;
+    }
+
+    public String getContent() {
+        if (content == null && parentScript != null && parentInstruction != null) {
+            content = parentScript.renderExpression(this);
+        }
+        return content;
     }
 
     @Override
     public String toString() {
-        if (!expression && type != null && !"unknown".equals(type)) {
-            String hex = String.format(value >= 0x10000 ? "%08X" : value >= 0x100 ? "%04X" : "%02X", value);
-            String hexSuffix = ScriptField.PRINT_WITH_HEX_SUFFIX ? " [" + hex + "h]" : "";
-            if ("bool".equals(type)) {
-                return (value != 0 ? "true" : "false") + hexSuffix;
-            }
-            if ("float".equals(type)) {
-                return Float.intBitsToFloat(value) + hexSuffix;
-            }
-            if ("bitfield".equals(type)) {
-                return bitfieldToString(null, value) + hexSuffix;
-            }
-            if (type.startsWith("uint")) {
-                return value + hexSuffix;
-            }
-            if ("int16".equals(type)) {
-                short signed = (short) value;
-                return signed + hexSuffix;
-            }
-            if (type.startsWith("int")) {
-                return value + hexSuffix;
-            }
-            Nameable object = DataAccess.getNameableObject(type, value);
-            if (object != null) {
-                return object.getName() + hexSuffix;
+        if (!expression && type != null) {
+            String rendered = RENDERERS.computeIfAbsent(type, StackObject::rendererFor).render(this);
+            if (rendered != null) {
+                return rendered;
             }
-            if ("worker".equals(type)) {
-                ScriptWorker header = parentScript != null ? parentScript.getWorker(value) : null;
-                if (header != null) {
-                    return header + hexSuffix;
-                } else {
-                    return "<w" + hex + ">";
-                }
-            }
-            if ("encounter".equals(type)) {
-                int field = (value & 0xFFFF0000) >> 16;
-                int encIdx = value & 0x0000FFFF;
+        }
+        return getContent();
+    }
+
+    private String hex() {
+        return String.format(value >= 0x10000 ? "%08X" : value >= 0x100 ? "%04X" : "%02X", value);
+    }
+
+    private String hexSuffix() {
+        return ScriptField.PRINT_WITH_HEX_SUFFIX ? " [" + hex() + "h]" : "";
+    }
+
+    /**
+     * Renders constants of one type; returns null to fall back to {@link #getContent()}.
+     */
+    @FunctionalInterface
+    private interface Renderer {
+        String render(StackObject obj);
+    }
+
+    private static Renderer rendererFor(String type) {
+        if ("unknown".equals(type)) {
+            return obj -> null;
+        }
+        if ("bool".equals(type)) {
+            return obj -> (obj.value != 0 ? "true" : "false") + obj.hexSuffix();
+        }
+        if ("float".equals(type)) {
+            return obj -> Float.intBitsToFloat(obj.value) + obj.hexSuffix();
+        }
+        if ("bitfield".equals(type)) {
+            return obj -> bitfieldToString(null, obj.value) + obj.hexSuffix();
+        }
+        if (type.startsWith("uint")) {
+            return obj -> obj.value + obj.hexSuffix();
+        }
+        if ("int16".equals(type)) {
+            return obj -> ((short) obj.value) + obj.hexSuffix();
+        }
+        if (type.startsWith("int")) {
+            return obj -> obj.value + obj.hexSuffix();
+        }
+        IdRegistry<? extends Nameable> registry = DataAccess.getNameableRegistry(type);
+        if (registry != null) {
+            return obj -> {
+                Nameable object = registry.get(obj.value);
+                return (object != null ? object.getName() : "null") + obj.hexSuffix();
+            };
+        }
+        return switch (type) {
+            case "worker" -> obj -> {
+                ScriptWorker header = obj.parentScript != null ? obj.parentScript.getWorker(obj.value) : null;
+                return header != null ? header + obj.hexSuffix() : "<w" + obj.hex() + ">";
+            };
+            case "encounter" -> obj -> {
+                int field = (obj.value & 0xFFFF0000) >> 16;
+                int encIdx = obj.value & 0x0000FFFF;
                 ScriptField fieldObj = ScriptConstants.getEnumMap("field").get(field);
                 if (fieldObj == null) {
-                    return '?' + type + ':' + value + hexSuffix;
+                    return '?' + type + ':' + obj.value + obj.hexSuffix();
                 } else {
-                    return fieldObj.name + '_' + String.format("%02d", encIdx) + hexSuffix;
+                    return fieldObj.name + '_' + String.format("%02d", encIdx) + obj.hexSuffix();
                 }
-            }
-            if ("menu".equals(type)) {
-                return interpretMenu() + hexSuffix;
-            }
-            if ("move".equals(type)) {
-                if (value == 0) {
-                    return "Null Move" + hexSuffix;
-                } else if (value <= 0x11) {
-                    return "Switch/Summon:" + ScriptConstants.getEnumMap("playerChar").get(value) + hexSuffix;
-                } else {
-                    AbilityDataObject ability = DataAccess.getMove(value);
-                    return (ability != null ? '"'+ability.getName()+'"' : "????") + hexSuffix;
+            };
+            case "menu" -> obj -> obj.interpretMenu() + obj.hexSuffix();
+            case "charMove" -> obj -> {
+                AbilityDataObject ability = DataAccess.getMove(obj.value + 0x3000);
+                return (ability != null ? '"'+ability.getName()+'"' : "????") + obj.hexSuffix();
+            };
+            case "btlActor" -> obj -> {
+                if (obj.value >= 0x1000 && obj.value < 0x2000) {
+                    try {
+                        MonsterFile monster = DataAccess.getMonster(obj.value);
+                        if (monster != null) {
+                            return "Actors:MonsterType=" + monster.getName() + obj.hexSuffix();
+                        }
+                    } catch (UnsupportedOperationException ignored) {}
                 }
-            } else if ("charMove".equals(type)) {
-                AbilityDataObject ability = DataAccess.getMove(value + 0x3000);
-                return (ability != null ? '"'+ability.getName()+'"' : "????") + hexSuffix;
-            }
-            if ("btlActor".equals(type) && value >= 0x1000 && value < 0x2000) {
-                try {
-                    MonsterFile monster = DataAccess.getMonster(value);
-                    if (monster != null) {
-                        return "Actors:MonsterType=" + monster.getName() + hexSuffix;
-                    }
-                } catch (UnsupportedOperationException ignored) {}
-            }
-            if ("string".equals(type) && parentScript != null && parentScript.strings != null && parentScript.strings.size() > value) {
-                String targetString = parentScript.strings.get(value);
-                String nullSafeString = targetString != null ? targetString : "null";
-                String noLineBreakString = nullSafeString.replace("\n", "\\n");
-                return '"' + noLineBreakString + '"' + hexSuffix;
-            }
-            if (ScriptConstants.ENUMERATIONS.containsKey(type)) {
-                if (type.endsWith("Bitfield")) {
-                    return bitfieldToString(type, value) + hexSuffix;
+                return obj.renderEnum();
+            };
+            case "string" -> obj -> {
+                if (obj.parentScript != null && obj.parentScript.strings != null && obj.parentScript.strings.size() > obj.value) {
+                    String targetString = obj.parentScript.strings.get(obj.value);
+                    String nullSafeString = targetString != null ? targetString : "null";
+                    String noLineBreakString = nullSafeString.replace("\n", "\\n");
+                    return '"' + noLineBreakString + '"' + obj.hexSuffix();
                 }
-                return enumToString(type, value);
-            }
+                return obj.renderEnum();
+            };
+            default -> StackObject::renderEnum;
+        };
+    }
+
+    /**
+     * Looked up on every call as enumerations may still be added after the renderer was created.
+     */
+    private String renderEnum() {
+        Map<Integer, ScriptField> map = ScriptConstants.ENUMERATIONS.get(type);
+        if (map == null) {
+            return null;
         }
-        return content;
+        if (type.endsWith("Bitfield")) {
+            return bitfieldToString(type, value) + hexSuffix();
+        }
+        ScriptField enumTarget = map.get(value);
+        return enumTarget != null ? enumTarget.toString() : enumToString(type, value);
     }
 
     private String interpretMenu() {
@@ -0,0 +1,41 @@
+package writing;
+
+import reading.Chunk;
+
+import java.util.List;
+
+import static reading.BytesHelper.*;
+
+/**
+ * Inverse of {@link reading.ChunkedFileHelper} for files that start with their chunk count.
+ * Chunks keep their original offsets unless an earlier chunk grew into them; those are moved back to the next aligned offset.
+ */
+public abstract class ChunkedFileWriter {
+    public static final int ALIGNMENT = 0x10;
+
+    public static int[] toBytes(List<Chunk> chunks) {
+        int chunkCount = chunks.size();
+        int[] offsets = new int[chunkCount];
+        int position = 4 + chunkCount * 4;
+        for (int i = 0; i < chunkCount; i++) {
+            Chunk chunk = chunks.get(i);
+            if (chunk.bytes.length == 0 && chunk.offset <= 0) {
+                continue;
+            }
+            if (chunk.offset >= position) {
+                offsets[i] = chunk.offset;
+            } else {
+                offsets[i] = (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+            }
+            position = offsets[i] + chunk.bytes.length;
+        }
+        int[] bytes = new int[position];
+        write4Bytes(bytes, 0, chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            write4Bytes(bytes, 4 + i * 4, offsets[i]);
+            int[] chunkBytes = chunks.get(i).bytes;
+            System.arraycopy(chunkBytes, 0, bytes, offsets[i], chunkBytes.length);
+        }
+        return bytes;
+    }
+}
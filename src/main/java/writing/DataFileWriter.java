@@ -0,0 +1,46 @@
+package writing;
+
+import reading.DataFile;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static reading.BytesHelper.*;
+
+/**
+ * Inverse of {@link reading.DataFileReader}: puts the header, the serialized records and the string block back together.
+ */
+public abstract class DataFileWriter {
+    public static <T> int[] toBytes(DataFile<T> dataFile, Function<T, int[]> serializer) {
+        List<T> objects = dataFile.objects;
+        int count = objects.size();
+        int individualLength = read2Bytes(dataFile.header, 0x0C);
+        int[][] records = new int[count][];
+        for (int i = 0; i < count; i++) {
+            records[i] = serializer.apply(objects.get(i));
+            if (i == 0) {
+                individualLength = records[0].length;
+            } else if (records[i].length != individualLength) {
+                throw new IllegalArgumentException("Record " + i + " has " + records[i].length + " bytes instead of " + individualLength);
+            }
+        }
+        int recordsLength = count * individualLength;
+        int totalLength = Math.max(recordsLength, dataFile.recordBytes.length);
+        int[] bytes = new int[DataFile.HEADER_LENGTH + totalLength + dataFile.stringBytes.length];
+        System.arraycopy(dataFile.header, 0, bytes, 0, DataFile.HEADER_LENGTH);
+        write2Bytes(bytes, 0x0A, dataFile.getMinIndex() + count - 1);
+        write2Bytes(bytes, 0x0C, individualLength);
+        write2Bytes(bytes, 0x0E, totalLength);
+        int offset = DataFile.HEADER_LENGTH;
+        for (int[] record : records) {
+            System.arraycopy(record, 0, bytes, offset, individualLength);
+            offset += individualLength;
+        }
+        if (totalLength > recordsLength) {
+            System.arraycopy(dataFile.recordBytes, recordsLength, bytes, offset, totalLength - recordsLength);
+            offset += totalLength - recordsLength;
+        }
+        System.arraycopy(dataFile.stringBytes, 0, bytes, offset, dataFile.stringBytes.length);
+        return bytes;
+    }
+}
@@ -0,0 +1,118 @@
+package writing;
+
+import model.*;
+import reading.*;
+import script.MonsterFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static main.DataReadingManager.*;
+
+/**
+ * Writes kernel tables and monster files into the mods overlay and checks that every readable file survives
+ * a read and write unchanged.
+ */
+public class DataWritingManager {
+
+    public static <T> File writeDataFile(String path, DataFile<T> dataFile, Function<T, int[]> serializer) throws IOException {
+        return FileAccessorWithMods.writeModdedFile(path, DataFileWriter.toBytes(dataFile, serializer));
+    }
+
+    public static File writeMonsterFile(String path, MonsterFile monster) throws IOException {
+        return FileAccessorWithMods.writeModdedFile(path, ChunkedFileWriter.toBytes(monster.toChunks()));
+    }
+
+    /**
+     * Writes a string file in the layout of {@link main.StringHelper#readStringData}; see {@link StringTableWriter#toBytes}.
+     */
+    public static File writeStringFile(String path, List<String> strings, int[] attributes, boolean clones) throws IOException {
+        return FileAccessorWithMods.writeModdedFile(path, StringTableWriter.toBytes(strings, attributes, clones));
+    }
+
+    /**
+     * Re-serializes all kernel tables and monster files and prints every file whose bytes differ from the ones read.
+     * Records are encoded from their fields into zeroed buffers, so a byte the model does not decode shows up as a mismatch.
+     * @return the number of mismatching files.
+     */
+    public static int verifyRoundTrips() {
+        long start = System.nanoTime();
+        List<String> monsterFiles = new ArrayList<>();
+        Map<String, String> results = new TreeMap<>();
+        verifyDataFile(results, PATH_SKILL_TABLE_3, AbilityDataObject::new, AbilityDataObject::toBytes);
+        verifyDataFile(results, PATH_SKILL_TABLE_4, AbilityDataObject::new, AbilityDataObject::toBytes);
+        verifyDataFile(results, PATH_SKILL_TABLE_6, AbilityDataObject::new, AbilityDataObject::toBytes);
+        verifyDataFile(results, PATH_SKILL_TABLE_2, AbilityDataObject::new, AbilityDataObject::toBytes);
+        verifyDataFile(results, PATH_LOCALIZED_KERNEL + "a_ability.bin", GearAbilityDataObject::new, GearAbilityDataObject::toBytes);
+        verifyDataFile(results, PATH_LOCALIZED_KERNEL + "important.bin", KeyItemDataObject::new, KeyItemDataObject::toBytes);
+        verifyDataFile(results, PATH_ORIGINALS_KERNEL + "shop_arms.bin", GearDataObject::new, GearDataObject::toBytes);
+        verifyDataFile(results, PATH_ORIGINALS_KERNEL + "buki_get.bin", GearDataObject::new, GearDataObject::toBytes);
+        verifyDataFile(results, PATH_ORIGINALS_KERNEL + "arms_shop.bin", GearShopDataObject::new, GearShopDataObject::toBytes);
+        verifyDataFile(results, PATH_ORIGINALS_KERNEL + "item_shop.bin", ItemShopDataObject::new, ItemShopDataObject::toBytes);
+        verifyDataFile(results, PATH_ORIGINALS_KERNEL + "takara.bin", TreasureDataObject::new, TreasureDataObject::toBytes);
+        for (int i = 1; FileAccessorWithMods.resolveFile(PATH_LOCALIZED_KERNEL + "monster" + i + ".bin", false).exists(); i++) {
+            verifyDataFile(results, PATH_LOCALIZED_KERNEL + "monster" + i + ".bin", MonsterStatDataObject::new, MonsterStatDataObject::toBytes);
+        }
+        collectMonsterFiles(PATH_MONSTER_FOLDER, monsterFiles);
+        String[] monsterResults = monsterFiles.parallelStream().map(DataWritingManager::verifyMonsterFile).toArray(String[]::new);
+        for (int i = 0; i < monsterResults.length; i++) {
+            results.put(monsterFiles.get(i), monsterResults[i]);
+        }
+        List<String> mismatches = results.entrySet().stream().filter(e -> e.getValue() != null).map(e -> e.getKey() + ": " + e.getValue()).collect(Collectors.toList());
+        mismatches.forEach(System.out::println);
+        System.out.println("Verified " + results.size() + " files, " + mismatches.size() + " mismatch(es) in " + (System.nanoTime() - start) / 1000000 + "ms");
+        return mismatches.size();
+    }
+
+    private static <T> void verifyDataFile(Map<String, String> results, String path, DataObjectCreator<T> creator, Function<T, int[]> serializer) {
+        DataFile<T> dataFile = new DataFileReader<>(creator).readDataFile(path, false);
+        if (dataFile == null) {
+            return;
+        }
+        results.put(path, compare(readBytes(path), DataFileWriter.toBytes(dataFile, serializer)));
+    }
+
+    private static String verifyMonsterFile(String path) {
+        try {
+            List<Chunk> chunks = ChunkedFileHelper.readGenericChunkedFile(path, false, null, true);
+            return compare(readBytes(path), ChunkedFileWriter.toBytes(new MonsterFile(chunks).toChunks()));
+        } catch (RuntimeException e) {
+            return "could not be read (" + e + ")";
+        }
+    }
+
+    private static void collectMonsterFiles(String path, List<String> paths) {
+        File file = FileAccessorWithMods.getRealFile(path);
+        if (file.isDirectory()) {
+            String[] contents = file.list();
+            if (contents != null) {
+                Arrays.stream(contents).filter(sf -> !sf.startsWith(".")).sorted().forEach(sf -> collectMonsterFiles(path + '/' + sf, paths));
+            }
+        } else if (path.endsWith(".bin")) {
+            paths.add(path);
+        }
+    }
+
+    private static int[] readBytes(String path) {
+        return ChunkedFileHelper.fileToBytes(FileAccessorWithMods.resolveFile(path, false));
+    }
+
+    /**
+     * @return null if both are equal, otherwise where they first differ.
+     */
+    private static String compare(int[] expected, int[] actual) {
+        int length = Math.min(expected.length, actual.length);
+        for (int i = 0; i < length; i++) {
+            if (expected[i] != actual[i]) {
+                return String.format("differs at offset %04X (%02X written, %02X read)", i, actual[i], expected[i]);
+            }
+        }
+        if (expected.length != actual.length) {
+            return actual.length + " bytes written, " + expected.length + " read";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,125 @@
+package writing;
+
+import main.StringHelper;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inverse of {@link StringHelper#readStringData}: encodes strings and lays out the offset table and string block.
+ * Identical strings and strings that are the tail of a longer one share the longer string's bytes.
+ */
+public abstract class StringTableWriter {
+    private static final int MAX_OFFSET = 0xFFFF;
+
+    /**
+     * @param attributes bytes 2 and 3 of every offset entry as read by {@link StringHelper#readStringAttributes}, or null for none.
+     * @param clones whether every offset entry is written twice (8 bytes per string instead of 4).
+     */
+    public static int[] toBytes(List<String> strings, int[] attributes, boolean clones) {
+        int count = strings.size();
+        if (attributes != null && attributes.length != count) {
+            throw new IllegalArgumentException(attributes.length + " attributes for " + count + " strings");
+        }
+        int stride = clones ? 0x08 : 0x04;
+        int[][] encoded = new int[count][];
+        for (int i = 0; i < count; i++) {
+            encoded[i] = StringHelper.encodeString(strings.get(i));
+        }
+        StringBlock block = buildBlock(encoded, count * stride);
+        int[] blockBytes = block.bytes;
+        if (!clones && count > 1 && block.offsets[0] == block.offsets[1]) {
+            // readStringData takes equal first two offsets for a cloned table, so the second string gets its own copy
+            block.offsets[1] = count * stride + blockBytes.length;
+            blockBytes = Arrays.copyOf(blockBytes, blockBytes.length + encoded[1].length + 1);
+            System.arraycopy(encoded[1], 0, blockBytes, blockBytes.length - encoded[1].length - 1, encoded[1].length);
+        }
+        int[] bytes = new int[count * stride + blockBytes.length];
+        for (int i = 0; i < count; i++) {
+            int offset = block.offsets[i];
+            if (offset > MAX_OFFSET) {
+                throw new IllegalArgumentException("String " + i + " starts at " + String.format("%X", offset) + "h, beyond the 16 bit offset range");
+            }
+            int attribute = attributes != null ? attributes[i] : 0;
+            for (int entry = i * stride; entry < (i + 1) * stride; entry += 0x04) {
+                bytes[entry] = offset & 0xFF;
+                bytes[entry + 1] = offset >> 8;
+                bytes[entry + 2] = attribute & 0xFF;
+                bytes[entry + 3] = (attribute >> 8) & 0xFF;
+            }
+        }
+        System.arraycopy(blockBytes, 0, bytes, count * stride, blockBytes.length);
+        return bytes;
+    }
+
+    public static int[] toBytes(List<String> strings, boolean clones) {
+        return toBytes(strings, null, clones);
+    }
+
+    /**
+     * Lays out already encoded strings (without terminator) as 00-terminated strings in one block.
+     * Sorting the strings by their reversed bytes puts every string directly before the strings it is a tail of,
+     * so one pass from the back finds the longest string each one can point into.
+     * The first string always starts the block, as readers derive the table length from its offset.
+     * @param baseOffset added to all returned offsets, e.g. the length of whatever precedes the block.
+     */
+    public static StringBlock buildBlock(int[][] encoded, int baseOffset) {
+        int count = encoded.length;
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compareReversed(encoded[a], encoded[b]));
+        int[] owner = new int[count];
+        for (int k = count - 1; k >= 0; k--) {
+            int string = order[k];
+            owner[string] = string != 0 && k + 1 < count && isTail(encoded[string], encoded[order[k + 1]]) ? owner[order[k + 1]] : string;
+        }
+        int[] ownerOffsets = new int[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            if (owner[i] == i) {
+                ownerOffsets[i] = length;
+                length += encoded[i].length + 1;
+            }
+        }
+        int[] bytes = new int[length];
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            int o = owner[i];
+            if (o == i) {
+                System.arraycopy(encoded[i], 0, bytes, ownerOffsets[i], encoded[i].length);
+            }
+            offsets[i] = baseOffset + ownerOffsets[o] + encoded[o].length - encoded[i].length;
+        }
+        return new StringBlock(bytes, offsets);
+    }
+
+    private static int compareReversed(int[] a, int[] b) {
+        int shared = Math.min(a.length, b.length);
+        for (int i = 1; i <= shared; i++) {
+            int diff = a[a.length - i] - b[b.length - i];
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static boolean isTail(int[] tail, int[] of) {
+        if (tail.length > of.length) {
+            return false;
+        }
+        return Arrays.equals(tail, 0, tail.length, of, of.length - tail.length, of.length);
+    }
+
+    public static class StringBlock {
+        public final int[] bytes;
+        public final int[] offsets;
+
+        StringBlock(int[] bytes, int[] offsets) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+        }
+    }
+}